@@ -0,0 +1,64 @@
+package com.github.udinei.icompras.clientes.config;
+
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.stream.Collectors;
+
+/**
+ * Com as threads virtuais ligadas (spring.threads.virtual.enabled), registra no
+ * log, pelo JFR, os bloqueios feitos dentro de {@code synchronized} (ou em codigo
+ * nativo) que no Java 21 prendem a thread virtual a sua thread de plataforma,
+ * junto com o trecho da pilha que os causou.
+ */
+@Component
+@ConditionalOnThreading(Threading.VIRTUAL)
+@Slf4j
+public class MonitorPinning {
+
+    private static final String EVENTO = "jdk.VirtualThreadPinned";
+
+    private static final int FRAMES_NO_LOG = 8;
+
+    private final RecordingStream recording;
+
+    public MonitorPinning(@Value("${icompras.clientes.threads-virtuais.pinning-minimo:20ms}") Duration pinningMinimo) {
+        this.recording = new RecordingStream();
+        recording.enable(EVENTO).withThreshold(pinningMinimo).withStackTrace();
+        recording.onEvent(EVENTO, this::registrar);
+        recording.startAsync();
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        recording.close();
+    }
+
+    private void registrar(RecordedEvent evento) {
+        log.warn("Thread virtual presa a thread de plataforma por {} ms em:\n{}",
+                evento.getDuration().toMillis(), descrever(evento.getStackTrace()));
+    }
+
+    private static String descrever(RecordedStackTrace pilha) {
+        if (pilha == null) {
+            return "\t(pilha indisponivel)";
+        }
+        return pilha.getFrames().stream()
+                .filter(RecordedFrame::isJavaFrame)
+                // descarta o estacionamento da propria thread virtual, comum a todos os eventos
+                .dropWhile(frame -> frame.getMethod().getType().getName().equals("java.lang.VirtualThread"))
+                .limit(FRAMES_NO_LOG)
+                .map(frame -> "\tat " + frame.getMethod().getType().getName() + "."
+                        + frame.getMethod().getName() + ":" + frame.getLineNumber())
+                .collect(Collectors.joining("\n"));
+    }
+}
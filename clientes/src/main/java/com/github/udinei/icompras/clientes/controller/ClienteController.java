@@ -1,12 +1,23 @@
 package com.github.udinei.icompras.clientes.controller;
 
+import com.github.udinei.icompras.clientes.dto.LoteClientesDTO;
+import com.github.udinei.icompras.clientes.dto.PaginaClientesDTO;
+import com.github.udinei.icompras.clientes.dto.ResultadoSincronizacaoDTO;
 import com.github.udinei.icompras.clientes.model.Cliente;
+import com.github.udinei.icompras.clientes.model.ErroResposta;
 import com.github.udinei.icompras.clientes.service.ClienteService;
+import com.github.udinei.icompras.clientes.service.SincronizacaoClienteService;
+import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 
 @RestController
@@ -14,7 +25,13 @@ import java.util.List;
 @RequiredArgsConstructor
 public class ClienteController {
 
+    private static final int MAXIMO_CODIGOS_POR_LOTE = 1000;
+
+    // Indice unico do CPF (V2__indices_busca_clientes.sql)
+    private static final String INDICE_CPF = "uk_clientes_cpf";
+
     private final ClienteService clienteService;
+    private final SincronizacaoClienteService sincronizacaoClienteService;
 
     /**
      * GET /api/clientes - Listar todos os clientes
@@ -35,6 +52,17 @@ public class ClienteController {
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    /**
+     * POST /api/clientes/busca-lote - Conferir varios clientes por código
+     */
+    @PostMapping("/busca-lote")
+    public ResponseEntity<LoteClientesDTO> buscarPorCodigos(@RequestBody List<Long> codigos) {
+        if (codigos.isEmpty() || codigos.size() > MAXIMO_CODIGOS_POR_LOTE) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(clienteService.buscarPorCodigos(codigos));
+    }
+
     /**
      * GET /api/clientes/buscar?nome=xxx - Buscar clientes por nome
      */
@@ -44,26 +72,61 @@ public class ClienteController {
         return ResponseEntity.ok(clientes);
     }
 
+    /**
+     * GET /api/clientes/autocompletar?prefixo=xxx&apos={codigo}&tamanho={n} - Buscar clientes pelo inicio do nome, paginados por cursor
+     */
+    @GetMapping("/autocompletar")
+    public ResponseEntity<PaginaClientesDTO> autocompletar(
+            @RequestParam String prefixo,
+            @RequestParam(required = false) Long apos,
+            @RequestParam(required = false) Integer tamanho) {
+        return ResponseEntity.ok(clienteService.autocompletar(prefixo, apos, tamanho));
+    }
+
+    /**
+     * GET /api/clientes/cpf/{cpf} - Buscar cliente por CPF
+     */
+    @GetMapping("/cpf/{cpf}")
+    public ResponseEntity<Cliente> buscarPorCpf(@PathVariable String cpf) {
+        return clienteService.buscarPorCpf(cpf)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
     /**
      * POST /api/clientes - Criar novo cliente
      */
     @PostMapping
-    public ResponseEntity<Cliente> criar(@RequestBody Cliente cliente) {
-        Cliente novoCliente = clienteService.salvar(cliente);
-        return ResponseEntity.status(HttpStatus.CREATED).body(novoCliente);
+    public ResponseEntity<Object> criar(@RequestBody Cliente cliente) {
+        try {
+            Cliente novoCliente = clienteService.salvar(cliente);
+            return ResponseEntity.status(HttpStatus.CREATED).body(novoCliente);
+        } catch (DataIntegrityViolationException e) {
+            return violacao(e);
+        }
+    }
+
+    /**
+     * PUT /api/clientes/lote - Inserir ou atualizar clientes pelo CPF em lote (NDJSON, um cliente por linha)
+     */
+    @PutMapping(value = "/lote", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<ResultadoSincronizacaoDTO> sincronizar(InputStream corpo) throws IOException {
+        return ResponseEntity.ok(sincronizacaoClienteService.sincronizar(corpo));
     }
 
     /**
      * PUT /api/clientes/{codigo} - Atualizar cliente existente
      */
     @PutMapping("/{codigo}")
-    public ResponseEntity<Cliente> atualizar(
+    public ResponseEntity<Object> atualizar(
             @PathVariable Long codigo,
             @RequestBody Cliente cliente) {
         try {
             Cliente clienteAtualizado = clienteService.atualizar(codigo, cliente);
             return ResponseEntity.ok(clienteAtualizado);
-        } catch (RuntimeException e) {
+        } catch (DataIntegrityViolationException e) {
+            return violacao(e);
+        } catch (EntityNotFoundException e) {
             return ResponseEntity.notFound().build();
         }
     }
@@ -79,4 +142,20 @@ public class ClienteController {
         clienteService.deletar(codigo);
         return ResponseEntity.noContent().build();
     }
+
+    // So o indice unico do CPF e conflito (409); outras restricoes (campo obrigatorio, tamanho) sao dados invalidos
+    private static ResponseEntity<Object> violacao(DataIntegrityViolationException e) {
+        String restricao = null;
+        for (Throwable causa = e; causa != null; causa = causa.getCause()) {
+            if (causa instanceof ConstraintViolationException violacao) {
+                restricao = violacao.getConstraintName();
+            }
+        }
+        if (INDICE_CPF.equalsIgnoreCase(restricao)) {
+            var erro = new ErroResposta("CPF já cadastrado", "cpf", "Já existe um cliente com este CPF.");
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(erro);
+        }
+        var erro = new ErroResposta("Dados do cliente inválidos", null, e.getMostSpecificCause().getMessage());
+        return ResponseEntity.badRequest().body(erro);
+    }
 }
@@ -0,0 +1,11 @@
+package com.github.udinei.icompras.clientes.dto;
+
+/**
+ * Linha recusada na gravacao em lote. {@code linha} comeca em 1.
+ */
+public record ErroSincronizacaoDTO(
+        long linha,
+        String campo,
+        String mensagem
+) {
+}
@@ -0,0 +1,13 @@
+package com.github.udinei.icompras.clientes.dto;
+
+import java.util.List;
+
+/**
+ * Resultado da busca em lote: apenas os codigos, sem dados cadastrais, ja que
+ * quem consulta (validacao de pedidos) so precisa saber se o cliente existe.
+ */
+public record LoteClientesDTO(
+        List<Long> encontrados,
+        List<Long> naoEncontrados
+) {
+}
@@ -0,0 +1,15 @@
+package com.github.udinei.icompras.clientes.dto;
+
+import com.github.udinei.icompras.clientes.model.Cliente;
+
+import java.util.List;
+
+/**
+ * Pagina de clientes por cursor. {@code proximoCodigo} e o valor a enviar no
+ * parametro {@code apos} para buscar a pagina seguinte; nulo na ultima pagina.
+ */
+public record PaginaClientesDTO(
+        List<Cliente> clientes,
+        Long proximoCodigo
+) {
+}
@@ -0,0 +1,18 @@
+package com.github.udinei.icompras.clientes.dto;
+
+import java.util.List;
+
+/**
+ * Resumo da gravacao em lote. {@code inalterados} conta as linhas validas que
+ * nao mudaram nada (iguais ao banco ou repetidas no mesmo lote); {@code erros}
+ * traz no maximo icompras.clientes.sincronizacao.maximo-erros linhas recusadas.
+ */
+public record ResultadoSincronizacaoDTO(
+        long linhas,
+        long inseridos,
+        long atualizados,
+        long inalterados,
+        long rejeitados,
+        List<ErroSincronizacaoDTO> erros
+) {
+}
@@ -0,0 +1,5 @@
+package com.github.udinei.icompras.clientes.model;
+
+public record ErroResposta(String mensagem, String campo, String erro) {
+
+}
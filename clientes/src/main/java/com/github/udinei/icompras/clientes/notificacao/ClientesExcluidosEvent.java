@@ -0,0 +1,7 @@
+package com.github.udinei.icompras.clientes.notificacao;
+
+import java.util.List;
+
+public record ClientesExcluidosEvent(List<Long> codigos) {
+
+}
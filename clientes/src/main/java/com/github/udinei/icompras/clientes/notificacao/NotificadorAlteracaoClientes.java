@@ -0,0 +1,50 @@
+package com.github.udinei.icompras.clientes.notificacao;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.client.RestClientException;
+
+import java.util.List;
+
+/**
+ * Avisa os servicos que guardam dados de clientes em cache quando clientes
+ * sao inseridos ou alterados pela gravacao em lote. O cache de pedidos so
+ * guarda quais clientes existem, entao nao precisa deste aviso; por isso a
+ * lista de urls e vazia por padrao. Enviado depois do commit e fora da
+ * thread da requisicao.
+ */
+@Component
+@Slf4j
+public class NotificadorAlteracaoClientes {
+
+    private final RestClient restClient;
+    private final List<String> urls;
+
+    public NotificadorAlteracaoClientes(
+            RestClient.Builder restClientBuilder,
+            @Value("${icompras.clientes.notificacao.alteracao-urls:}") List<String> urls) {
+        this.restClient = restClientBuilder.build();
+        this.urls = urls;
+    }
+
+    @Async
+    @TransactionalEventListener(fallbackExecution = true)
+    public void notificar(ClientesAlteradosEvent evento) {
+        for (String url : urls) {
+            try {
+                restClient.post()
+                        .uri(url)
+                        .body(evento.codigos())
+                        .retrieve()
+                        .toBodilessEntity();
+            } catch (RestClientException e) {
+                log.warn("Falha ao notificar alteração de clientes {} em {}: {}",
+                        evento.codigos(), url, e.getMessage());
+            }
+        }
+    }
+}
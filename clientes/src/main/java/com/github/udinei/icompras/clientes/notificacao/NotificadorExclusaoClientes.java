@@ -0,0 +1,49 @@
+package com.github.udinei.icompras.clientes.notificacao;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.client.RestClientException;
+
+import java.util.List;
+
+/**
+ * Avisa os servicos que guardam clientes validos em cache (ex.: pedidos)
+ * quando clientes sao excluidos. O aviso e enviado depois do commit e fora
+ * da thread da requisicao; se falhar, o TTL do cache remoto garante que o
+ * cliente excluido expire.
+ */
+@Component
+@Slf4j
+public class NotificadorExclusaoClientes {
+
+    private final RestClient restClient;
+    private final List<String> urls;
+
+    public NotificadorExclusaoClientes(
+            RestClient.Builder restClientBuilder,
+            @Value("${icompras.clientes.notificacao.urls:}") List<String> urls) {
+        this.restClient = restClientBuilder.build();
+        this.urls = urls;
+    }
+
+    @Async
+    @TransactionalEventListener(fallbackExecution = true)
+    public void notificar(ClientesExcluidosEvent evento) {
+        for (String url : urls) {
+            try {
+                restClient.post()
+                        .uri(url)
+                        .body(evento.codigos())
+                        .retrieve()
+                        .toBodilessEntity();
+            } catch (RestClientException e) {
+                log.warn("Falha ao notificar exclusão de clientes {} em {}: {}",
+                        evento.codigos(), url, e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.github.udinei.icompras.clientes.repository;
+
+import com.github.udinei.icompras.clientes.model.Cliente;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Gravacao de clientes em lote com JDBC: um unico INSERT ... ON CONFLICT (cpf)
+ * por lote (indice unico uk_clientes_cpf), com os valores em arrays (unnest),
+ * em vez de um insert por cliente. O codigo vem sempre da sequence; clientes
+ * iguais aos do banco nao sao regravados. Chame dentro de uma transacao.
+ */
+@Repository
+public class ClienteLoteRepository {
+
+    private static final String UPSERT = """
+            insert into clientes (nome, cpf, logradouro, numero, bairro, email, telefone)
+            select l.nome, l.cpf, l.logradouro, l.numero, l.bairro, l.email, l.telefone
+              from unnest(cast(? as varchar[]), cast(? as varchar[]), cast(? as varchar[]), cast(? as varchar[]),
+                          cast(? as varchar[]), cast(? as varchar[]), cast(? as varchar[]))
+                   as l(nome, cpf, logradouro, numero, bairro, email, telefone)
+                on conflict (cpf) do update
+               set nome = excluded.nome, logradouro = excluded.logradouro, numero = excluded.numero,
+                   bairro = excluded.bairro, email = excluded.email, telefone = excluded.telefone
+             where (clientes.nome, clientes.logradouro, clientes.numero, clientes.bairro,
+                    clientes.email, clientes.telefone)
+                   is distinct from (excluded.nome, excluded.logradouro, excluded.numero, excluded.bairro,
+                    excluded.email, excluded.telefone)
+            returning codigo, (xmax = 0) as inserido
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ClienteLoteRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /** Cliente inserido ou alterado pelo lote */
+    public record Alteracao(Long codigo, boolean inserido) {
+    }
+
+    /**
+     * Grava o lote e retorna somente os clientes inseridos ou alterados. Os
+     * CPFs do lote devem ser distintos e ja normalizados (so digitos).
+     */
+    public List<Alteracao> gravar(List<Cliente> clientes) {
+        return jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(UPSERT);
+            List<Function<Cliente, String>> colunas = List.of(Cliente::getNome, Cliente::getCpf,
+                    Cliente::getLogradouro, Cliente::getNumero, Cliente::getBairro, Cliente::getEmail,
+                    Cliente::getTelefone);
+            for (int i = 0; i < colunas.size(); i++) {
+                ps.setArray(i + 1, con.createArrayOf("varchar", clientes.stream().map(colunas.get(i)).toArray()));
+            }
+            return ps;
+        }, (rs, linha) -> new Alteracao(rs.getLong("codigo"), rs.getBoolean("inserido")));
+    }
+}
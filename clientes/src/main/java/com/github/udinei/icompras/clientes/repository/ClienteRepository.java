@@ -2,9 +2,13 @@ package com.github.udinei.icompras.clientes.repository;
 
 import com.github.udinei.icompras.clientes.model.Cliente;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface ClienteRepository extends JpaRepository<Cliente, Long> {
@@ -12,4 +16,38 @@ public interface ClienteRepository extends JpaRepository<Cliente, Long> {
     List<Cliente> findByNomeContainingIgnoreCase(String nome);
     
     boolean existsByCpf(String cpf);
+
+    Optional<Cliente> findByCpf(String cpf);
+
+    /** Somente os codigos existentes, pela chave primaria, sem carregar os clientes */
+    @Query("select c.codigo from Cliente c where c.codigo in :codigos")
+    List<Long> findCodigosExistentes(@Param("codigos") Collection<Long> codigos);
+
+    /**
+     * Primeira pagina do autocompletar, servida pelo indice idx_clientes_nome_prefixo.
+     * O prefixo deve vir em minusculas, com os curingas do like escapados e terminado em %.
+     */
+    @Query(value = """
+            select * from clientes
+             where lower(nome) collate "C" like :prefixo
+             order by lower(nome) collate "C", codigo
+             limit :limite
+            """, nativeQuery = true)
+    List<Cliente> autocompletar(@Param("prefixo") String prefixo, @Param("limite") int limite);
+
+    /**
+     * Paginas seguintes do autocompletar: continua logo depois do cliente {@code apos}
+     * (ultimo da pagina anterior) na mesma ordem do indice.
+     */
+    @Query(value = """
+            select * from clientes
+             where lower(nome) collate "C" like :prefixo
+               and (lower(nome) collate "C", codigo) >
+                   (select lower(a.nome) collate "C", a.codigo from clientes a where a.codigo = :apos)
+             order by lower(nome) collate "C", codigo
+             limit :limite
+            """, nativeQuery = true)
+    List<Cliente> autocompletarApos(@Param("prefixo") String prefixo,
+                                    @Param("apos") Long apos,
+                                    @Param("limite") int limite);
 }
@@ -1,18 +1,36 @@
 package com.github.udinei.icompras.clientes.service;
 
+import com.github.udinei.icompras.clientes.dto.LoteClientesDTO;
+import com.github.udinei.icompras.clientes.dto.PaginaClientesDTO;
 import com.github.udinei.icompras.clientes.model.Cliente;
+import com.github.udinei.icompras.clientes.notificacao.ClientesExcluidosEvent;
 import com.github.udinei.icompras.clientes.repository.ClienteRepository;
+import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
 @RequiredArgsConstructor
 public class ClienteService {
 
     private final ClienteRepository clienteRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${icompras.clientes.autocompletar.tamanho-padrao:10}")
+    private int tamanhoPaginaPadrao;
+
+    @Value("${icompras.clientes.autocompletar.tamanho-maximo:50}")
+    private int tamanhoPaginaMaximo;
 
     public List<Cliente> listarTodos() {
         return clienteRepository.findAll();
@@ -22,10 +40,47 @@ public class ClienteService {
         return clienteRepository.findById(codigo);
     }
 
+    /**
+     * Confere varios clientes com uma unica consulta e informa quais codigos
+     * nao existem no cadastro.
+     */
+    public LoteClientesDTO buscarPorCodigos(Collection<Long> codigos) {
+        Set<Long> codigosDistintos = new LinkedHashSet<>(codigos);
+        Set<Long> encontrados = new HashSet<>(clienteRepository.findCodigosExistentes(codigosDistintos));
+        List<Long> naoEncontrados = codigosDistintos.stream()
+                .filter(codigo -> !encontrados.contains(codigo))
+                .toList();
+        List<Long> existentes = codigosDistintos.stream()
+                .filter(encontrados::contains)
+                .toList();
+        return new LoteClientesDTO(existentes, naoEncontrados);
+    }
+
     public List<Cliente> buscarPorNome(String nome) {
         return clienteRepository.findByNomeContainingIgnoreCase(nome);
     }
 
+    /**
+     * Autocompletar do atendimento: clientes cujo nome comeca com o prefixo, em
+     * ordem alfabetica e paginados por cursor ({@code apos} = ultimo codigo recebido).
+     */
+    public PaginaClientesDTO autocompletar(String prefixo, Long apos, Integer tamanho) {
+        String termo = prefixo.trim().toLowerCase(Locale.ROOT);
+        if (termo.isEmpty()) {
+            return new PaginaClientesDTO(List.of(), null);
+        }
+        String padrao = escaparLike(termo) + "%";
+        int limite = tamanhoPagina(tamanho);
+        List<Cliente> clientes = apos == null
+                ? clienteRepository.autocompletar(padrao, limite + 1)
+                : clienteRepository.autocompletarApos(padrao, apos, limite + 1);
+        return paginar(clientes, limite);
+    }
+
+    public Optional<Cliente> buscarPorCpf(String cpf) {
+        return clienteRepository.findByCpf(normalizarCpf(cpf));
+    }
+
     public Cliente salvar(Cliente cliente) {
         return clienteRepository.save(cliente);
     }
@@ -42,11 +97,12 @@ public class ClienteService {
                     cliente.setTelefone(clienteAtualizado.getTelefone());
                     return clienteRepository.save(cliente);
                 })
-                .orElseThrow(() -> new RuntimeException("Cliente não encontrado com código: " + codigo));
+                .orElseThrow(() -> new EntityNotFoundException("Cliente não encontrado com código: " + codigo));
     }
 
     public void deletar(Long codigo) {
         clienteRepository.deleteById(codigo);
+        eventPublisher.publishEvent(new ClientesExcluidosEvent(List.of(codigo)));
     }
 
     public boolean existe(Long codigo) {
@@ -54,6 +110,32 @@ public class ClienteService {
     }
 
     public boolean existeCpf(String cpf) {
-        return clienteRepository.existsByCpf(cpf);
+        return clienteRepository.existsByCpf(normalizarCpf(cpf));
+    }
+
+    private int tamanhoPagina(Integer tamanho) {
+        if (tamanho == null || tamanho < 1) {
+            return tamanhoPaginaPadrao;
+        }
+        return Math.min(tamanho, tamanhoPaginaMaximo);
+    }
+
+    // A consulta traz um registro a mais que o limite so para saber se existe proxima pagina
+    private static PaginaClientesDTO paginar(List<Cliente> clientes, int limite) {
+        if (clientes.size() <= limite) {
+            return new PaginaClientesDTO(clientes, null);
+        }
+        List<Cliente> pagina = clientes.subList(0, limite);
+        return new PaginaClientesDTO(pagina, pagina.get(limite - 1).getCodigo());
+    }
+
+    // Barra invertida e o caractere de escape padrao do like no PostgreSQL
+    private static String escaparLike(String termo) {
+        return termo.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    // O CPF e gravado so com os digitos; aceita tambem o formato 123.456.789-00
+    private static String normalizarCpf(String cpf) {
+        return cpf.replaceAll("\\D", "");
     }
 }
@@ -0,0 +1,198 @@
+package com.github.udinei.icompras.clientes.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.github.udinei.icompras.clientes.dto.ErroSincronizacaoDTO;
+import com.github.udinei.icompras.clientes.dto.ResultadoSincronizacaoDTO;
+import com.github.udinei.icompras.clientes.model.Cliente;
+import com.github.udinei.icompras.clientes.notificacao.ClientesAlteradosEvent;
+import com.github.udinei.icompras.clientes.repository.ClienteLoteRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sincronizacao do cadastro em NDJSON (um cliente por linha), para cargas de
+ * qualquer tamanho vindas de outros sistemas. O CPF identifica o cliente: o
+ * corpo e lido linha a linha e gravado em lotes de {@code tamanhoLote}
+ * clientes, cada um em sua transacao, com um unico upsert
+ * ({@link ClienteLoteRepository}). Os clientes inseridos ou alterados de cada
+ * lote sao avisados apos o commit. Linhas invalidas sao informadas no
+ * resultado sem interromper a carga.
+ */
+@Service
+@Slf4j
+public class SincronizacaoClienteService {
+
+    private final ObjectReader leitor;
+    private final ClienteLoteRepository clienteLoteRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int tamanhoLote;
+    private final int maximoErros;
+
+    public SincronizacaoClienteService(
+            ObjectMapper objectMapper,
+            ClienteLoteRepository clienteLoteRepository,
+            TransactionTemplate transactionTemplate,
+            ApplicationEventPublisher eventPublisher,
+            @Value("${icompras.clientes.sincronizacao.tamanho-lote:1000}") int tamanhoLote,
+            @Value("${icompras.clientes.sincronizacao.maximo-erros:1000}") int maximoErros) {
+        this.leitor = objectMapper.readerFor(Cliente.class);
+        this.clienteLoteRepository = clienteLoteRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.eventPublisher = eventPublisher;
+        this.tamanhoLote = tamanhoLote;
+        this.maximoErros = maximoErros;
+    }
+
+    public ResultadoSincronizacaoDTO sincronizar(InputStream entrada) throws IOException {
+        var sincronizacao = new Sincronizacao();
+        var leitorLinhas = new BufferedReader(new InputStreamReader(entrada, StandardCharsets.UTF_8));
+
+        String conteudo;
+        while ((conteudo = leitorLinhas.readLine()) != null) {
+            long linha = ++sincronizacao.linhas;
+            if (conteudo.isBlank()) {
+                continue;
+            }
+            Cliente cliente = ler(linha, conteudo, sincronizacao);
+            if (cliente == null) {
+                continue;
+            }
+            sincronizacao.validos++;
+            // Um CPF aparece uma vez por lote: vale a ultima linha
+            sincronizacao.lote.put(cliente.getCpf(), new LinhaCliente(linha, cliente));
+            if (sincronizacao.lote.size() == tamanhoLote) {
+                gravarLote(sincronizacao);
+            }
+        }
+        gravarLote(sincronizacao);
+
+        long inalterados = sincronizacao.validos - sincronizacao.inseridos - sincronizacao.atualizados
+                - sincronizacao.falhas;
+        log.info("Sincronizacao de clientes concluida: {} linha(s), {} inserido(s), {} atualizado(s), {} rejeitado(s)",
+                sincronizacao.linhas, sincronizacao.inseridos, sincronizacao.atualizados, sincronizacao.rejeitados);
+        return new ResultadoSincronizacaoDTO(sincronizacao.linhas, sincronizacao.inseridos,
+                sincronizacao.atualizados, inalterados, sincronizacao.rejeitados, sincronizacao.erros);
+    }
+
+    private Cliente ler(long linha, String conteudo, Sincronizacao sincronizacao) {
+        Cliente cliente;
+        try {
+            cliente = leitor.readValue(conteudo);
+        } catch (JsonProcessingException e) {
+            sincronizacao.recusar(linha, null, "JSON inválido: " + e.getOriginalMessage());
+            return null;
+        }
+        // O codigo e do cadastro: a carga e identificada pelo CPF
+        cliente.setCodigo(null);
+        if (cliente.getCpf() != null) {
+            cliente.setCpf(cliente.getCpf().replaceAll("\\D", ""));
+        }
+
+        // O lote inteiro e um unico comando: um valor fora das colunas derrubaria todas as linhas
+        if (cliente.getCpf() == null || cliente.getCpf().length() != 11) {
+            sincronizacao.recusar(linha, "cpf", "CPF deve ter 11 dígitos");
+        } else if (cliente.getNome() == null || cliente.getNome().isBlank()) {
+            sincronizacao.recusar(linha, "nome", "Nome é obrigatório");
+        } else {
+            String campo = campoExcedido(cliente);
+            if (campo == null) {
+                return cliente;
+            }
+            sincronizacao.recusar(linha, campo, "Campo " + campo + " excede o tamanho máximo");
+        }
+        return null;
+    }
+
+    private static String campoExcedido(Cliente cliente) {
+        if (excede(cliente.getNome(), 150)) {
+            return "nome";
+        }
+        if (excede(cliente.getLogradouro(), 100)) {
+            return "logradouro";
+        }
+        if (excede(cliente.getNumero(), 10)) {
+            return "numero";
+        }
+        if (excede(cliente.getBairro(), 100)) {
+            return "bairro";
+        }
+        if (excede(cliente.getEmail(), 150)) {
+            return "email";
+        }
+        if (excede(cliente.getTelefone(), 20)) {
+            return "telefone";
+        }
+        return null;
+    }
+
+    private static boolean excede(String valor, int tamanhoMaximo) {
+        return valor != null && valor.length() > tamanhoMaximo;
+    }
+
+    private void gravarLote(Sincronizacao sincronizacao) {
+        List<LinhaCliente> lote = new ArrayList<>(sincronizacao.lote.values());
+        sincronizacao.lote.clear();
+        if (lote.isEmpty()) {
+            return;
+        }
+        try {
+            List<ClienteLoteRepository.Alteracao> alteracoes = transactionTemplate.execute(status -> {
+                var gravadas = clienteLoteRepository.gravar(lote.stream().map(LinhaCliente::cliente).toList());
+                if (!gravadas.isEmpty()) {
+                    // Enviado depois do commit (TransactionalEventListener)
+                    eventPublisher.publishEvent(new ClientesAlteradosEvent(
+                            gravadas.stream().map(ClienteLoteRepository.Alteracao::codigo).toList()));
+                }
+                return gravadas;
+            });
+            for (var alteracao : alteracoes) {
+                if (alteracao.inserido()) {
+                    sincronizacao.inseridos++;
+                } else {
+                    sincronizacao.atualizados++;
+                }
+            }
+        } catch (RuntimeException e) {
+            log.error("Falha ao gravar lote de {} cliente(s)", lote.size(), e);
+            sincronizacao.falhas += lote.size();
+            lote.forEach(linha -> sincronizacao.recusar(linha.linha(), null, "Falha ao gravar o cliente."));
+        }
+    }
+
+    private record LinhaCliente(long linha, Cliente cliente) {
+    }
+
+    private final class Sincronizacao {
+        private final Map<String, LinhaCliente> lote = new LinkedHashMap<>();
+        private final List<ErroSincronizacaoDTO> erros = new ArrayList<>();
+        private long linhas;
+        private long validos;
+        private long inseridos;
+        private long atualizados;
+        private long falhas;
+        private long rejeitados;
+
+        void recusar(long linha, String campo, String mensagem) {
+            rejeitados++;
+            if (erros.size() < maximoErros) {
+                erros.add(new ErroSincronizacaoDTO(linha, campo, mensagem));
+            }
+        }
+    }
+}
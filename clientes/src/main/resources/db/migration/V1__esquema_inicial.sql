@@ -0,0 +1,20 @@
+-- Esquema inicial do servico de clientes.
+-- Idempotente: cria a tabela em um banco novo e ajusta bancos ja criados pelo
+-- init.sql ou pelo antigo ddl-auto=update (baseline na versao 0).
+
+CREATE TABLE IF NOT EXISTS clientes (
+	codigo BIGSERIAL NOT NULL PRIMARY KEY,
+	nome VARCHAR(150) NOT NULL,
+	cpf VARCHAR(11) NOT NULL,
+	logradouro VARCHAR(100),
+	numero VARCHAR(10),
+	bairro VARCHAR(100),
+	email VARCHAR(150),
+	telefone VARCHAR(20)
+);
+
+-- Bancos do init.sql: codigo era SERIAL (INTEGER) e cpf era CHAR(11). Comparado a um
+-- parametro VARCHAR, um CHAR e convertido para TEXT e deixa de usar o indice.
+ALTER TABLE clientes ALTER COLUMN codigo TYPE BIGINT;
+ALTER SEQUENCE IF EXISTS clientes_codigo_seq AS BIGINT;
+ALTER TABLE clientes ALTER COLUMN cpf TYPE VARCHAR(11);
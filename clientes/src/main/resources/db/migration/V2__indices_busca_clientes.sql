@@ -0,0 +1,11 @@
+-- Indices das buscas do atendimento (ClienteRepository).
+
+-- CPF unico: atende findByCpf/existsByCpf e impede cadastro duplicado.
+-- Em bancos antigos com CPFs repetidos a migracao falha; os duplicados devem ser
+-- resolvidos antes de subir esta versao.
+CREATE UNIQUE INDEX IF NOT EXISTS uk_clientes_cpf ON clientes (cpf);
+
+-- Autocompletar por prefixo do nome, paginado por cursor:
+-- lower(nome) like 'x%' order by lower(nome), codigo. Com a collation "C" o mesmo
+-- indice B-tree serve o like por prefixo e a ordenacao, sem ordenar o resultado todo.
+CREATE INDEX IF NOT EXISTS idx_clientes_nome_prefixo ON clientes ((lower(nome) COLLATE "C"), codigo);
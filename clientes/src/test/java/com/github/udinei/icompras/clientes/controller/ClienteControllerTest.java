@@ -0,0 +1,107 @@
+package com.github.udinei.icompras.clientes.controller;
+
+import com.github.udinei.icompras.clientes.service.ClienteService;
+import com.github.udinei.icompras.clientes.service.SincronizacaoClienteService;
+import jakarta.persistence.EntityNotFoundException;
+import org.hibernate.exception.ConstraintViolationException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.sql.SQLException;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@ExtendWith(MockitoExtension.class)
+class ClienteControllerTest {
+
+    private static final String CLIENTE = """
+            {"nome": "Maria", "cpf": "12345678543"}
+            """;
+
+    @Mock
+    private ClienteService clienteService;
+
+    @Mock
+    private SincronizacaoClienteService sincronizacaoClienteService;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.standaloneSetup(new ClienteController(clienteService, sincronizacaoClienteService))
+                .build();
+    }
+
+    @Test
+    void testCriarComCpfRepetidoRetorna409() throws Exception {
+        // Arrange
+        when(clienteService.salvar(any())).thenThrow(violacao("uk_clientes_cpf"));
+
+        // Act & Assert
+        mockMvc.perform(post("/api/clientes").contentType(MediaType.APPLICATION_JSON).content(CLIENTE))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.campo").value("cpf"));
+    }
+
+    @Test
+    void testCriarComOutraRestricaoRetorna400() throws Exception {
+        // Arrange - campo obrigatorio ausente nao e CPF repetido
+        when(clienteService.salvar(any())).thenThrow(violacao(null));
+
+        // Act & Assert
+        mockMvc.perform(post("/api/clientes").contentType(MediaType.APPLICATION_JSON).content(CLIENTE))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.mensagem").value("Dados do cliente inválidos"));
+    }
+
+    @Test
+    void testAtualizarComCpfDeOutroClienteRetorna409() throws Exception {
+        // Arrange
+        when(clienteService.atualizar(eq(1L), any())).thenThrow(violacao("uk_clientes_cpf"));
+
+        // Act & Assert
+        mockMvc.perform(put("/api/clientes/1").contentType(MediaType.APPLICATION_JSON).content(CLIENTE))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.campo").value("cpf"));
+    }
+
+    @Test
+    void testAtualizarComOutraRestricaoRetorna400() throws Exception {
+        // Arrange
+        when(clienteService.atualizar(eq(1L), any())).thenThrow(violacao("clientes_email_check"));
+
+        // Act & Assert
+        mockMvc.perform(put("/api/clientes/1").contentType(MediaType.APPLICATION_JSON).content(CLIENTE))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void testAtualizarClienteInexistenteRetorna404() throws Exception {
+        // Arrange
+        when(clienteService.atualizar(eq(99L), any()))
+                .thenThrow(new EntityNotFoundException("Cliente não encontrado com código: 99"));
+
+        // Act & Assert
+        mockMvc.perform(put("/api/clientes/99").contentType(MediaType.APPLICATION_JSON).content(CLIENTE))
+                .andExpect(status().isNotFound());
+    }
+
+    // Como o Spring traduz a excecao do Hibernate: a restricao violada vem na causa
+    private static DataIntegrityViolationException violacao(String restricao) {
+        var causa = new ConstraintViolationException("violacao", new SQLException("violacao"), restricao);
+        return new DataIntegrityViolationException("violacao", causa);
+    }
+}
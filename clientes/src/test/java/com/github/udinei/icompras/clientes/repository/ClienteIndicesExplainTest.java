@@ -0,0 +1,70 @@
+package com.github.udinei.icompras.clientes.repository;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Confere, no PostgreSQL real e com as migracoes Flyway aplicadas, que as
+ * buscas do atendimento (CPF e autocompletar) usam indice em uma massa grande.
+ * Requer Docker; sem Docker o teste e ignorado.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class ClienteIndicesExplainTest {
+
+    @Container
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    private static JdbcTemplate jdbcTemplate;
+
+    @BeforeAll
+    static void setUp() {
+        var dataSource = new DriverManagerDataSource(
+                POSTGRES.getJdbcUrl(), POSTGRES.getUsername(), POSTGRES.getPassword());
+        Flyway.configure().dataSource(dataSource).load().migrate();
+        jdbcTemplate = new JdbcTemplate(dataSource);
+
+        // 200 mil clientes com poucos prenomes, para o prefixo casar com muitas linhas
+        jdbcTemplate.execute("""
+                insert into clientes (nome, cpf)
+                select (array['Maria', 'Jose', 'Ana', 'Joao', 'Mariana'])[g % 5 + 1] || ' ' || md5(g::text),
+                       lpad(g::text, 11, '0')
+                  from generate_series(1, 200000) g
+                """);
+        jdbcTemplate.execute("analyze");
+    }
+
+    static Stream<Arguments> consultas() {
+        return Stream.of(
+                Arguments.of("findByCpf",
+                        "select * from clientes where cpf = '00000012345'"),
+                Arguments.of("autocompletar",
+                        "select * from clientes where lower(nome) collate \"C\" like 'maria%'"
+                                + " order by lower(nome) collate \"C\", codigo limit 11"),
+                Arguments.of("autocompletar apos cursor",
+                        "select * from clientes where lower(nome) collate \"C\" like 'maria%'"
+                                + " and (lower(nome) collate \"C\", codigo) >"
+                                + " (select lower(a.nome) collate \"C\", a.codigo from clientes a where a.codigo = 10)"
+                                + " order by lower(nome) collate \"C\", codigo limit 11"));
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("consultas")
+    void testConsultaNaoFazSeqScanNemOrdenacao(String nome, String sql) {
+        String plano = String.join("\n", jdbcTemplate.queryForList("explain " + sql, String.class));
+
+        assertFalse(plano.contains("Seq Scan"), () -> nome + " fez seq scan:\n" + plano);
+        assertFalse(plano.contains("Sort"), () -> nome + " ordenou o resultado:\n" + plano);
+    }
+}
@@ -0,0 +1,109 @@
+package com.github.udinei.icompras.clientes.service;
+
+import com.github.udinei.icompras.clientes.dto.LoteClientesDTO;
+import com.github.udinei.icompras.clientes.dto.PaginaClientesDTO;
+import com.github.udinei.icompras.clientes.model.Cliente;
+import com.github.udinei.icompras.clientes.notificacao.ClientesExcluidosEvent;
+import com.github.udinei.icompras.clientes.repository.ClienteRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ClienteServiceTest {
+
+    @Mock
+    private ClienteRepository clienteRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @InjectMocks
+    private ClienteService clienteService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(clienteService, "tamanhoPaginaPadrao", 2);
+        ReflectionTestUtils.setField(clienteService, "tamanhoPaginaMaximo", 50);
+    }
+
+    @Test
+    void testDeletarNotificaExclusao() {
+        // Act
+        clienteService.deletar(1L);
+
+        // Assert
+        verify(clienteRepository).deleteById(1L);
+        verify(eventPublisher).publishEvent(new ClientesExcluidosEvent(List.of(1L)));
+    }
+
+    @Test
+    void testBuscarPorCodigosInformaOsInexistentes() {
+        // Arrange - codigos repetidos vao uma vez a consulta
+        when(clienteRepository.findCodigosExistentes(Set.of(3L, 1L, 9L)))
+                .thenReturn(List.of(1L, 3L));
+
+        // Act
+        LoteClientesDTO lote = clienteService.buscarPorCodigos(List.of(3L, 1L, 9L, 3L));
+
+        // Assert - na ordem recebida
+        assertEquals(List.of(3L, 1L), lote.encontrados());
+        assertEquals(List.of(9L), lote.naoEncontrados());
+    }
+
+    @Test
+    void testAutocompletarRetornaCursorQuandoHaProximaPagina() {
+        // Arrange
+        when(clienteRepository.autocompletar("mar%", 3))
+                .thenReturn(List.of(cliente(4L, "Maria"), cliente(1L, "Mariana"), cliente(7L, "Mario")));
+
+        // Act
+        PaginaClientesDTO pagina = clienteService.autocompletar(" Mar ", null, null);
+
+        // Assert
+        assertEquals(List.of(4L, 1L), pagina.clientes().stream().map(Cliente::getCodigo).toList());
+        assertEquals(1L, pagina.proximoCodigo());
+    }
+
+    @Test
+    void testAutocompletarContinuaAposCursorEEscapaCuringas() {
+        // Arrange
+        when(clienteRepository.autocompletarApos("100\\%\\_%", 1L, 51)).thenReturn(List.of(cliente(7L, "100%_x")));
+
+        // Act
+        PaginaClientesDTO pagina = clienteService.autocompletar("100%_", 1L, 500);
+
+        // Assert
+        assertEquals(1, pagina.clientes().size());
+        assertNull(pagina.proximoCodigo());
+    }
+
+    @Test
+    void testBuscarPorCpfAceitaCpfFormatado() {
+        // Arrange
+        Cliente maria = cliente(1L, "Maria");
+        when(clienteRepository.findByCpf("12345678900")).thenReturn(Optional.of(maria));
+
+        // Act
+        Optional<Cliente> resultado = clienteService.buscarPorCpf("123.456.789-00");
+
+        // Assert
+        assertEquals(Optional.of(maria), resultado);
+    }
+
+    private static Cliente cliente(Long codigo, String nome) {
+        return new Cliente(codigo, nome, "12345678900", null, null, null, null, null);
+    }
+}
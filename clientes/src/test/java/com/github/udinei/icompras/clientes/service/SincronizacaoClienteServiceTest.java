@@ -0,0 +1,166 @@
+package com.github.udinei.icompras.clientes.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.udinei.icompras.clientes.dto.ErroSincronizacaoDTO;
+import com.github.udinei.icompras.clientes.dto.ResultadoSincronizacaoDTO;
+import com.github.udinei.icompras.clientes.model.Cliente;
+import com.github.udinei.icompras.clientes.notificacao.ClientesAlteradosEvent;
+import com.github.udinei.icompras.clientes.repository.ClienteLoteRepository;
+import com.github.udinei.icompras.clientes.repository.ClienteLoteRepository.Alteracao;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SincronizacaoClienteServiceTest {
+
+    @Mock
+    private ClienteLoteRepository clienteLoteRepository;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private SincronizacaoClienteService service;
+
+    // Clientes enviados ao banco; cada gravar recebe um lote
+    private final List<List<Cliente>> lotesGravados = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(transactionTemplate.execute(any()))
+                .thenAnswer(inv -> inv.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+
+        // Por padrao o banco insere todos os clientes do lote, com codigos da sequence
+        AtomicLong sequencia = new AtomicLong();
+        lenient().when(clienteLoteRepository.gravar(anyList())).thenAnswer(inv -> {
+            List<Cliente> clientes = inv.getArgument(0);
+            lotesGravados.add(clientes);
+            return clientes.stream().map(cliente -> new Alteracao(sequencia.incrementAndGet(), true)).toList();
+        });
+
+        service = new SincronizacaoClienteService(new ObjectMapper(), clienteLoteRepository,
+                transactionTemplate, eventPublisher, 2, 10);
+    }
+
+    @Test
+    void testSincronizarGravaEmLotesENotificaCadaLote() throws IOException {
+        // Arrange - lotes de 2: tres clientes viram dois lotes
+        String arquivo = cliente("Ana", "11111111111") + cliente("Bruno", "22222222222")
+                + cliente("Carla", "33333333333");
+
+        // Act
+        ResultadoSincronizacaoDTO resultado = service.sincronizar(entrada(arquivo));
+
+        // Assert
+        assertEquals(3, resultado.inseridos());
+        assertEquals(2, lotesGravados.size());
+        verify(eventPublisher).publishEvent(new ClientesAlteradosEvent(List.of(1L, 2L)));
+        verify(eventPublisher).publishEvent(new ClientesAlteradosEvent(List.of(3L)));
+    }
+
+    @Test
+    void testCpfNormalizadoERepetidoNoLoteValeAUltimaLinha() throws IOException {
+        // Arrange - o codigo informado e ignorado: a carga e identificada pelo CPF
+        String arquivo = cliente("Ana", "111.111.111-11")
+                + "{\"codigo\": 99, \"nome\": \"Ana Maria\", \"cpf\": \"11111111111\"}\n";
+
+        // Act
+        ResultadoSincronizacaoDTO resultado = service.sincronizar(entrada(arquivo));
+
+        // Assert
+        Cliente gravado = lotesGravados.get(0).get(0);
+        assertEquals(1, lotesGravados.get(0).size());
+        assertEquals("Ana Maria", gravado.getNome());
+        assertEquals("11111111111", gravado.getCpf());
+        assertNull(gravado.getCodigo());
+        assertEquals(1, resultado.inalterados());
+    }
+
+    @Test
+    void testSincronizarContaAtualizados() throws IOException {
+        // Arrange - o banco so devolve o que mudou
+        when(clienteLoteRepository.gravar(anyList())).thenReturn(List.of(new Alteracao(7L, false)));
+
+        // Act
+        ResultadoSincronizacaoDTO resultado = service.sincronizar(
+                entrada(cliente("Ana", "11111111111") + cliente("Bruno", "22222222222")));
+
+        // Assert
+        assertEquals(0, resultado.inseridos());
+        assertEquals(1, resultado.atualizados());
+        assertEquals(1, resultado.inalterados());
+        verify(eventPublisher).publishEvent(new ClientesAlteradosEvent(List.of(7L)));
+    }
+
+    @Test
+    void testSincronizarRecusaLinhasInvalidasSemInterromper() throws IOException {
+        // Arrange
+        String arquivo = "{nao e json\n"
+                + cliente("Ana", "123")
+                + "{\"cpf\": \"22222222222\"}\n"
+                + "{\"nome\": \"Carla\", \"cpf\": \"33333333333\", \"numero\": \"12345678901\"}\n"
+                + cliente("Daniel", "44444444444");
+
+        // Act
+        ResultadoSincronizacaoDTO resultado = service.sincronizar(entrada(arquivo));
+
+        // Assert
+        assertEquals(1, resultado.inseridos());
+        assertEquals(4, resultado.rejeitados());
+        List<ErroSincronizacaoDTO> erros = resultado.erros();
+        assertTrue(erros.get(0).mensagem().startsWith("JSON inválido"));
+        assertEquals(new ErroSincronizacaoDTO(2, "cpf", "CPF deve ter 11 dígitos"), erros.get(1));
+        assertEquals(new ErroSincronizacaoDTO(3, "nome", "Nome é obrigatório"), erros.get(2));
+        assertEquals(new ErroSincronizacaoDTO(4, "numero", "Campo numero excede o tamanho máximo"), erros.get(3));
+    }
+
+    @Test
+    void testFalhaAoGravarRecusaSoOLote() throws IOException {
+        // Arrange
+        when(clienteLoteRepository.gravar(anyList()))
+                .thenThrow(new IllegalStateException("banco"))
+                .thenReturn(List.of(new Alteracao(3L, true)));
+        String arquivo = cliente("Ana", "11111111111") + cliente("Bruno", "22222222222")
+                + cliente("Carla", "33333333333");
+
+        // Act
+        ResultadoSincronizacaoDTO resultado = service.sincronizar(entrada(arquivo));
+
+        // Assert
+        assertEquals(1, resultado.inseridos());
+        assertEquals(2, resultado.rejeitados());
+        assertEquals(List.of(1L, 2L), resultado.erros().stream().map(ErroSincronizacaoDTO::linha).toList());
+    }
+
+    // Helper methods
+
+    private static String cliente(String nome, String cpf) {
+        return """
+                {"nome": "%s", "cpf": "%s", "email": "%s@email.com"}
+                """.formatted(nome, cpf, nome.toLowerCase());
+    }
+
+    private static ByteArrayInputStream entrada(String conteudo) {
+        return new ByteArrayInputStream(conteudo.getBytes(StandardCharsets.UTF_8));
+    }
+}
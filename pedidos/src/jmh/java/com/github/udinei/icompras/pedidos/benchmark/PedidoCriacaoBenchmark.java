@@ -0,0 +1,120 @@
+package com.github.udinei.icompras.pedidos.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.github.udinei.icompras.pedidos.dto.DadosPagamentoDTO;
+import com.github.udinei.icompras.pedidos.dto.NovoItemPedidoDTO;
+import com.github.udinei.icompras.pedidos.dto.NovoPedidoDTO;
+import com.github.udinei.icompras.pedidos.dto.PedidoDTO;
+import com.github.udinei.icompras.pedidos.mapper.PedidoMapper;
+import com.github.udinei.icompras.pedidos.mapper.PedidoMapperImpl;
+import com.github.udinei.icompras.pedidos.model.Dinheiro;
+import com.github.udinei.icompras.pedidos.model.Pedido;
+import com.github.udinei.icompras.pedidos.model.TipoPagamento;
+import com.github.udinei.icompras.pedidos.service.ItemPedidoListGenerator;
+import com.github.udinei.icompras.pedidos.service.PedidoGenerator;
+import com.pholser.junit.quickcheck.random.SourceOfRandomness;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Custo por pedido de cada etapa da criacao de um pedido (POST /api/pedidos)
+ * que nao depende de I/O: leitura do JSON da requisicao, conversao para a
+ * entidade (que inclui o calculo do total), o calculo do total isolado,
+ * conversao da entidade salva para o DTO e escrita do JSON da resposta.
+ * Os pedidos vem dos generators usados nos testes. O profiler de GC, ligado
+ * no profile jmh, mostra a alocacao por operacao (gc.alloc.rate.norm).
+ *
+ * <pre>mvn -Pjmh test-compile exec:exec -Djmh.args="PedidoCriacao"</pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PedidoCriacaoBenchmark {
+
+    private static final int QUANTIDADE_PEDIDOS = 256;
+
+    private final PedidoMapper mapper = new PedidoMapperImpl();
+    // Como o ObjectMapper do Spring Boot: datas em ISO-8601
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    private NovoPedidoDTO[] novosPedidos;
+    private byte[][] jsonsNovosPedidos;
+    private Pedido[] pedidos;
+    private PedidoDTO[] pedidosDTO;
+    private int indice;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        var random = new SourceOfRandomness(new Random(42));
+        var pedidoGenerator = new PedidoGenerator();
+        var itensGenerator = new ItemPedidoListGenerator();
+
+        novosPedidos = new NovoPedidoDTO[QUANTIDADE_PEDIDOS];
+        jsonsNovosPedidos = new byte[QUANTIDADE_PEDIDOS][];
+        pedidos = new Pedido[QUANTIDADE_PEDIDOS];
+        pedidosDTO = new PedidoDTO[QUANTIDADE_PEDIDOS];
+        for (int i = 0; i < QUANTIDADE_PEDIDOS; i++) {
+            Pedido gerado = pedidoGenerator.generate(random, null);
+            itensGenerator.generate(random, null).forEach(gerado::addItem);
+
+            novosPedidos[i] = criarNovoPedido(gerado);
+            jsonsNovosPedidos[i] = objectMapper.writeValueAsBytes(novosPedidos[i]);
+
+            // O pedido como fica depois de salvo, com codigos gerados pelo banco
+            pedidos[i] = mapper.map(novosPedidos[i]);
+            pedidos[i].setCodigo(i + 1L);
+            for (int j = 0; j < pedidos[i].getItens().size(); j++) {
+                pedidos[i].getItens().get(j).setCodigo((long) i * 10 + j);
+            }
+            pedidosDTO[i] = mapper.map(pedidos[i]);
+        }
+    }
+
+    private int proximo() {
+        indice = (indice + 1) & (QUANTIDADE_PEDIDOS - 1);
+        return indice;
+    }
+
+    @Benchmark
+    public NovoPedidoDTO desserializarNovoPedido() throws Exception {
+        return objectMapper.readValue(jsonsNovosPedidos[proximo()], NovoPedidoDTO.class);
+    }
+
+    @Benchmark
+    public Pedido mapearNovoPedido() {
+        return mapper.map(novosPedidos[proximo()]);
+    }
+
+    @Benchmark
+    public Dinheiro calcularTotal() {
+        return PedidoMapper.calcularTotal(pedidos[proximo()]);
+    }
+
+    @Benchmark
+    public PedidoDTO mapearPedido() {
+        return mapper.map(pedidos[proximo()]);
+    }
+
+    @Benchmark
+    public byte[] serializarPedido() throws Exception {
+        return objectMapper.writeValueAsBytes(pedidosDTO[proximo()]);
+    }
+
+    private static NovoPedidoDTO criarNovoPedido(Pedido pedido) {
+        var itens = pedido.getItens().stream()
+                .map(item -> new NovoItemPedidoDTO(item.getCodigoProduto(), item.getQuantidade(), item.getValorUnitario().valor()))
+                .toList();
+        var dadosPagamento = new DadosPagamentoDTO(TipoPagamento.PIX, "pix-" + pedido.getCodigoCliente(), null, null, null);
+        return new NovoPedidoDTO(pedido.getCodigoCliente(), null, dadosPagamento, pedido.getObservacoes(), null,
+                pedido.getTotal().valor(), null, null, null, itens);
+    }
+}
@@ -0,0 +1,108 @@
+package com.github.udinei.icompras.pedidos.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.github.udinei.icompras.pedidos.evento.PedidoEvento;
+import com.github.udinei.icompras.pedidos.evento.PedidoEventoDeserializer;
+import com.github.udinei.icompras.pedidos.evento.PedidoEventoSerializer;
+import com.github.udinei.icompras.pedidos.model.ItemPedido;
+import com.github.udinei.icompras.pedidos.model.Pedido;
+import com.github.udinei.icompras.pedidos.service.ItemPedidoListGenerator;
+import com.github.udinei.icompras.pedidos.service.PedidoGenerator;
+import com.pholser.junit.quickcheck.random.SourceOfRandomness;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Custo por evento de serializar e desserializar o PedidoEvento no formato
+ * binario e em JSON (Jackson). O tamanho medio dos payloads e impresso no setup.
+ *
+ * <pre>mvn -Pjmh test-compile exec:exec -Djmh.args="PedidoEventoSerializacao"</pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PedidoEventoSerializacaoBenchmark {
+
+    private static final int QUANTIDADE_EVENTOS = 256;
+
+    private final PedidoEventoSerializer serializer = new PedidoEventoSerializer();
+    private final PedidoEventoDeserializer deserializer = new PedidoEventoDeserializer();
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+    private PedidoEvento[] eventos;
+    private byte[][] binarios;
+    private byte[][] jsons;
+    private int indice;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        var random = new SourceOfRandomness(new Random(42));
+        var pedidoGenerator = new PedidoGenerator();
+        var itensGenerator = new ItemPedidoListGenerator();
+
+        eventos = new PedidoEvento[QUANTIDADE_EVENTOS];
+        binarios = new byte[QUANTIDADE_EVENTOS][];
+        jsons = new byte[QUANTIDADE_EVENTOS][];
+        long totalBinario = 0;
+        long totalJson = 0;
+        for (int i = 0; i < QUANTIDADE_EVENTOS; i++) {
+            Pedido pedido = pedidoGenerator.generate(random, null);
+            pedido.setCodigo((long) i + 1);
+            pedido.setChavePagamento(new UUID(random.nextLong(), random.nextLong()).toString());
+            itensGenerator.generate(random, null).forEach(pedido::addItem);
+
+            eventos[i] = criarEvento(i + 1L, pedido);
+            binarios[i] = serializer.serialize("topico", eventos[i]);
+            jsons[i] = objectMapper.writeValueAsBytes(eventos[i]);
+            totalBinario += binarios[i].length;
+            totalJson += jsons[i].length;
+        }
+        System.out.printf("%nTamanho medio do evento: binario=%d bytes, json=%d bytes%n",
+                totalBinario / QUANTIDADE_EVENTOS, totalJson / QUANTIDADE_EVENTOS);
+    }
+
+    private int proximo() {
+        indice = (indice + 1) & (QUANTIDADE_EVENTOS - 1);
+        return indice;
+    }
+
+    @Benchmark
+    public byte[] serializarBinario() {
+        return serializer.serialize("topico", eventos[proximo()]);
+    }
+
+    @Benchmark
+    public byte[] serializarJson() throws Exception {
+        return objectMapper.writeValueAsBytes(eventos[proximo()]);
+    }
+
+    @Benchmark
+    public PedidoEvento desserializarBinario() {
+        return deserializer.deserialize("topico", binarios[proximo()]);
+    }
+
+    @Benchmark
+    public PedidoEvento desserializarJson() throws Exception {
+        return objectMapper.readValue(jsons[proximo()], PedidoEvento.class);
+    }
+
+    private static PedidoEvento criarEvento(Long codigoEvento, Pedido pedido) {
+        var itens = pedido.getItens().stream()
+                .map(PedidoEventoSerializacaoBenchmark::criarItem)
+                .toList();
+        return new PedidoEvento(codigoEvento, pedido.getCodigo(), pedido.getCodigoCliente(), pedido.getStatus(),
+                pedido.getTotal().valor(), pedido.getDataPedido(), pedido.getChavePagamento(), pedido.getCodigoRastreio(),
+                pedido.getUrlNf(), pedido.getDataPedido().plusMinutes(5), itens);
+    }
+
+    private static PedidoEvento.Item criarItem(ItemPedido item) {
+        return new PedidoEvento.Item(item.getCodigoProduto(), item.getQuantidade(), item.getValorUnitario().valor());
+    }
+}
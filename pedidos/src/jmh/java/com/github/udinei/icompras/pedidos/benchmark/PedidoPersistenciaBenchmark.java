@@ -0,0 +1,84 @@
+package com.github.udinei.icompras.pedidos.benchmark;
+
+import com.github.udinei.icompras.pedidos.model.Dinheiro;
+import com.github.udinei.icompras.pedidos.model.ItemPedido;
+import com.github.udinei.icompras.pedidos.model.Pedido;
+import com.github.udinei.icompras.pedidos.model.StatusPedido;
+import org.h2.tools.Server;
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.cfg.Configuration;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tempo para gravar um pedido com seus itens, com e sem lote JDBC
+ * ({@code hibernate.jdbc.batch_size}). Por padrao usa um H2 em modo servidor
+ * (TCP local), para que cada ida ao banco pague uma viagem pela rede; para
+ * medir contra o PostgreSQL, informe {@code -Dbenchmark.jdbc.url=...}
+ * (e {@code benchmark.jdbc.usuario}/{@code benchmark.jdbc.senha}).
+ *
+ * <pre>mvn -Pjmh test-compile exec:exec -Djmh.args="PedidoPersistencia"</pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PedidoPersistenciaBenchmark {
+
+    @Param({"1", "50"})
+    private int tamanhoLote;
+
+    @Param({"10", "100"})
+    private int quantidadeItens;
+
+    private Server servidor;
+    private SessionFactory sessionFactory;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        String url = System.getProperty("benchmark.jdbc.url");
+        if (url == null) {
+            servidor = Server.createTcpServer("-tcpPort", "0", "-ifNotExists").start();
+            url = "jdbc:h2:tcp://localhost:" + servidor.getPort() + "/mem:pedidos-benchmark";
+        }
+
+        sessionFactory = new Configuration()
+                .addAnnotatedClass(Pedido.class)
+                .addAnnotatedClass(ItemPedido.class)
+                .setProperty(AvailableSettings.JAKARTA_JDBC_URL, url)
+                .setProperty(AvailableSettings.JAKARTA_JDBC_USER, System.getProperty("benchmark.jdbc.usuario", "sa"))
+                .setProperty(AvailableSettings.JAKARTA_JDBC_PASSWORD, System.getProperty("benchmark.jdbc.senha", ""))
+                .setProperty(AvailableSettings.HBM2DDL_AUTO, "create-drop")
+                .setProperty(AvailableSettings.STATEMENT_BATCH_SIZE, String.valueOf(tamanhoLote))
+                .setProperty(AvailableSettings.ORDER_INSERTS, "true")
+                .buildSessionFactory();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        sessionFactory.close();
+        if (servidor != null) {
+            servidor.stop();
+        }
+    }
+
+    @Benchmark
+    public Long salvarPedido() {
+        Pedido pedido = new Pedido();
+        pedido.setCodigoCliente(1L);
+        pedido.setStatus(StatusPedido.REALIZADO);
+        pedido.setDataPedido(LocalDateTime.now());
+        pedido.setTotal(new Dinheiro(quantidadeItens * 1000L));
+        for (int i = 0; i < quantidadeItens; i++) {
+            pedido.addItem(new ItemPedido(null, null, (long) i + 1, 1, new Dinheiro(1000)));
+        }
+
+        sessionFactory.inTransaction(sessao -> sessao.persist(pedido));
+        return pedido.getCodigo();
+    }
+}
@@ -0,0 +1,125 @@
+package com.github.udinei.icompras.pedidos.benchmark;
+
+import com.github.udinei.icompras.pedidos.cache.ClienteCache;
+import com.github.udinei.icompras.pedidos.cache.ProdutoCache;
+import com.github.udinei.icompras.pedidos.client.ClientesClient;
+import com.github.udinei.icompras.pedidos.client.ProdutosClient;
+import com.github.udinei.icompras.pedidos.client.representation.ClienteRepresentation;
+import com.github.udinei.icompras.pedidos.client.representation.LoteProdutosRepresentation;
+import com.github.udinei.icompras.pedidos.client.representation.ProdutoRepresentation;
+import com.github.udinei.icompras.pedidos.model.Pedido;
+import com.github.udinei.icompras.pedidos.service.ItemPedidoListGenerator;
+import com.github.udinei.icompras.pedidos.service.PedidoGenerator;
+import com.github.udinei.icompras.pedidos.validator.PedidoValidator;
+import com.pholser.junit.quickcheck.random.SourceOfRandomness;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Custo por pedido do PedidoValidator com os servicos de clientes e produtos
+ * substituidos por stubs em memoria (sem HTTP), ou seja, so o disparo das
+ * consultas em paralelo nas threads virtuais e o uso dos caches. Com o cache
+ * FRIO toda validacao chega aos stubs; com o QUENTE todas sao atendidas pelos
+ * caches, como com clientes e produtos recorrentes. O profiler de GC, ligado
+ * no profile jmh, mostra a alocacao por operacao (gc.alloc.rate.norm).
+ *
+ * <pre>mvn -Pjmh test-compile exec:exec -Djmh.args="PedidoValidator"</pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PedidoValidatorBenchmark {
+
+    private static final int QUANTIDADE_PEDIDOS = 256;
+
+    public enum Cache { FRIO, QUENTE }
+
+    @Param({"FRIO", "QUENTE"})
+    private Cache cache;
+
+    private ExecutorService executor;
+    private PedidoValidator validator;
+    private Pedido[] pedidos;
+    private int indice;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // Tamanho maximo zero: o Caffeine descarta cada entrada logo depois de inserida
+        long tamanhoCache = cache == Cache.QUENTE ? 100_000 : 0;
+        var meterRegistry = new SimpleMeterRegistry();
+        var produtoCache = new ProdutoCache(new ProdutosStub(), meterRegistry, tamanhoCache,
+                Duration.ofMinutes(10), Duration.ofSeconds(30));
+        var clienteCache = new ClienteCache(meterRegistry, tamanhoCache, Duration.ofMinutes(30));
+
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        validator = new PedidoValidator(produtoCache, new ClientesStub(), clienteCache, executor);
+        ReflectionTestUtils.setField(validator, "timeout", Duration.ofSeconds(3));
+
+        var random = new SourceOfRandomness(new Random(42));
+        var pedidoGenerator = new PedidoGenerator();
+        var itensGenerator = new ItemPedidoListGenerator();
+        pedidos = new Pedido[QUANTIDADE_PEDIDOS];
+        for (int i = 0; i < QUANTIDADE_PEDIDOS; i++) {
+            pedidos[i] = pedidoGenerator.generate(random, null);
+            itensGenerator.generate(random, null).forEach(pedidos[i]::addItem);
+            if (cache == Cache.QUENTE) {
+                validator.validar(pedidos[i]);
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executor.close();
+    }
+
+    @Benchmark
+    public Pedido validar() {
+        Pedido pedido = pedidos[indice = (indice + 1) & (QUANTIDADE_PEDIDOS - 1)];
+        validator.validar(pedido);
+        return pedido;
+    }
+
+    /** Todo cliente existe. */
+    private static class ClientesStub implements ClientesClient {
+
+        @Override
+        public ResponseEntity<ClienteRepresentation> obterDados(Long codigo) {
+            return ResponseEntity.ok(new ClienteRepresentation(codigo, "Cliente " + codigo, "12345678901",
+                    "Rua A", "100", "Centro", "cliente@email.com", "11999999999"));
+        }
+    }
+
+    /** Todo produto existe e custa 10,00. */
+    private static class ProdutosStub implements ProdutosClient {
+
+        @Override
+        public ResponseEntity<ProdutoRepresentation> obterDados(Long codigo) {
+            return ResponseEntity.ok(produto(codigo));
+        }
+
+        @Override
+        public ResponseEntity<LoteProdutosRepresentation> obterLote(Collection<Long> codigos) {
+            var encontrados = codigos.stream().map(ProdutosStub::produto).toList();
+            return ResponseEntity.ok(new LoteProdutosRepresentation(encontrados, List.of()));
+        }
+
+        private static ProdutoRepresentation produto(Long codigo) {
+            return new ProdutoRepresentation(codigo, "Produto " + codigo, BigDecimal.TEN);
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package com.github.udinei.icompras.pedidos.benchmark;
+
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.apache.catalina.Context;
+import org.apache.catalina.connector.Connector;
+import org.apache.catalina.startup.Tomcat;
+import org.apache.coyote.AbstractProtocol;
+import org.apache.tomcat.util.threads.VirtualThreadExecutor;
+import org.openjdk.jmh.annotations.*;
+
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryType;
+import java.lang.management.ThreadMXBean;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Teste de carga do Tomcat com o pool padrao de threads de plataforma (200,
+ * como no Spring Boot) e com threads virtuais (spring.threads.virtual.enabled).
+ * Cada invocacao dispara {@value #CONCORRENCIA} requisicoes simultaneas a um
+ * servlet que fica bloqueado {@value #LATENCIA_MS} ms, como uma requisicao que
+ * espera o JDBC e as chamadas Feign. O resultado e em requisicoes por segundo.
+ * Ao final, informa o pico de requisicoes em atendimento ao mesmo tempo, o pico
+ * de threads da JVM, a memoria das pilhas de threads de plataforma (NMT) e o pico
+ * de heap vivo (medido apos cada GC), onde ficam as pilhas das threads virtuais,
+ * e divide a memoria pelas requisicoes em atendimento.
+ *
+ * <pre>mvn -Pjmh test-compile exec:exec -Djmh.args="ThreadsVirtuais"</pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@OperationsPerInvocation(ThreadsVirtuaisBenchmark.CONCORRENCIA)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx512m", "-XX:NativeMemoryTracking=summary"})
+public class ThreadsVirtuaisBenchmark {
+
+    static final int CONCORRENCIA = 1000;
+
+    static final int LATENCIA_MS = 200;
+
+    private static final byte[] PEDIDO = """
+            {"codigo":1,"codigoCliente":1,"total":7000.00,"status":"REALIZADO"}"""
+            .getBytes(StandardCharsets.UTF_8);
+
+    private static final Pattern NMT_THREADS = Pattern.compile("Thread \\(reserved=\\d+KB, committed=(\\d+)KB\\)");
+
+    public enum Modo { PLATAFORMA, VIRTUAL }
+
+    @Param({"PLATAFORMA", "VIRTUAL"})
+    private Modo modo;
+
+    private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    private final AtomicLong picoHeap = new AtomicLong();
+    private final AtomicInteger emAtendimento = new AtomicInteger();
+    private final AtomicInteger picoEmAtendimento = new AtomicInteger();
+
+    private Tomcat tomcat;
+    private ExecutorService executorClient;
+    private HttpClient httpClient;
+    private HttpRequest requisicao;
+    private ScheduledExecutorService amostrador;
+    private long heapInicial;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        tomcat = new Tomcat();
+        tomcat.setBaseDir(Files.createTempDirectory("tomcat-benchmark").toString());
+        Connector connector = new Connector();
+        connector.setPort(0);
+        connector.setProperty("maxKeepAliveRequests", "-1");
+        if (modo == Modo.VIRTUAL) {
+            // o mesmo executor que o Spring Boot coloca no Tomcat com as threads virtuais ligadas
+            connector.getProtocolHandler().setExecutor(new VirtualThreadExecutor("tomcat-handler-"));
+        } else {
+            AbstractProtocol<?> protocolo = (AbstractProtocol<?>) connector.getProtocolHandler();
+            protocolo.setMaxThreads(200);
+            protocolo.setMinSpareThreads(10);
+        }
+        tomcat.setConnector(connector);
+
+        Context contexto = tomcat.addContext("", null);
+        Tomcat.addServlet(contexto, "pedidos", new HttpServlet() {
+            @Override
+            protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+                picoEmAtendimento.accumulateAndGet(emAtendimento.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(LATENCIA_MS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    emAtendimento.decrementAndGet();
+                }
+                response.setContentType("application/json");
+                response.setContentLength(PEDIDO.length);
+                response.getOutputStream().write(PEDIDO);
+            }
+        });
+        contexto.addServletMappingDecoded("/api/pedidos/*", "pedidos");
+        tomcat.start();
+
+        // O gerador de carga usa threads virtuais nos dois modos, para nao pesar na comparacao
+        executorClient = Executors.newVirtualThreadPerTaskExecutor();
+        httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(executorClient)
+                .build();
+        requisicao = HttpRequest.newBuilder(URI.create("http://localhost:" + connector.getLocalPort() + "/api/pedidos/1"))
+                .GET()
+                .build();
+
+        System.gc();
+        heapInicial = heapVivo();
+        threads.resetPeakThreadCount();
+        amostrador = Executors.newSingleThreadScheduledExecutor();
+        amostrador.scheduleAtFixedRate(
+                () -> picoHeap.accumulateAndGet(heapVivo(), Math::max),
+                0, 5, TimeUnit.MILLISECONDS);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        amostrador.shutdownNow();
+        long pilhasPlataforma = memoriaPilhasPlataforma();
+        long heap = Math.max(0, picoHeap.get() - heapInicial);
+        System.out.printf("%n%s: %d requisicoes em atendimento ao mesmo tempo, pico de %d threads de plataforma,"
+                        + " pilhas de plataforma %d KB, pico de heap vivo +%d KB (%.1f KB por requisicao em atendimento)%n",
+                modo, picoEmAtendimento.get(), threads.getPeakThreadCount(), pilhasPlataforma / 1024, heap / 1024,
+                (pilhasPlataforma + heap) / 1024.0 / picoEmAtendimento.get());
+        httpClient.close();
+        executorClient.close();
+        tomcat.stop();
+        tomcat.destroy();
+    }
+
+    @Benchmark
+    public int rajada() {
+        List<CompletableFuture<HttpResponse<byte[]>>> respostas = new ArrayList<>(CONCORRENCIA);
+        for (int i = 0; i < CONCORRENCIA; i++) {
+            respostas.add(httpClient.sendAsync(requisicao, HttpResponse.BodyHandlers.ofByteArray()));
+        }
+        int bytes = 0;
+        for (CompletableFuture<HttpResponse<byte[]>> resposta : respostas) {
+            bytes += resposta.join().body().length;
+        }
+        return bytes;
+    }
+
+    private static long heapVivo() {
+        // Ocupacao do heap logo apos o ultimo GC: descarta o lixo e fica com o que estava em uso
+        return ManagementFactory.getMemoryPoolMXBeans().stream()
+                .filter(pool -> pool.getType() == MemoryType.HEAP && pool.getCollectionUsage() != null)
+                .mapToLong(pool -> pool.getCollectionUsage().getUsed())
+                .sum();
+    }
+
+    private static long memoriaPilhasPlataforma() throws Exception {
+        // Equivalente a "jcmd <pid> VM.native_memory summary": memoria efetivamente usada pelas pilhas
+        String resumo = (String) ManagementFactory.getPlatformMBeanServer().invoke(
+                new ObjectName("com.sun.management:type=DiagnosticCommand"),
+                "vmNativeMemory",
+                new Object[]{new String[]{"summary"}},
+                new String[]{String[].class.getName()});
+        Matcher matcher = NMT_THREADS.matcher(resumo);
+        return matcher.find() ? Long.parseLong(matcher.group(1)) * 1024 : 0;
+    }
+}
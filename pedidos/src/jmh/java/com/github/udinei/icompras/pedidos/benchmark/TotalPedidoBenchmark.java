@@ -0,0 +1,77 @@
+package com.github.udinei.icompras.pedidos.benchmark;
+
+import com.github.udinei.icompras.pedidos.mapper.PedidoMapper;
+import com.github.udinei.icompras.pedidos.model.Dinheiro;
+import com.github.udinei.icompras.pedidos.model.ItemPedido;
+import com.github.udinei.icompras.pedidos.model.Pedido;
+import com.github.udinei.icompras.pedidos.service.ItemPedidoListGenerator;
+import com.pholser.junit.quickcheck.random.SourceOfRandomness;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Calculo do total de carrinhos de varios tamanhos: em centavos com
+ * {@link Dinheiro} (PedidoMapper.calcularTotal) e com o calculo anterior, em
+ * BigDecimal com stream, sobre os mesmos itens. Com o profiler de GC do
+ * profile jmh, gc.alloc.rate.norm mostra os bytes alocados por total.
+ *
+ * <pre>mvn -Pjmh test-compile exec:exec -Djmh.args="TotalPedido"</pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TotalPedidoBenchmark {
+
+    record ItemBigDecimal(BigDecimal valorUnitario, Integer quantidade) {
+    }
+
+    @Param({"5", "50", "500"})
+    private int quantidadeItens;
+
+    private Pedido pedido;
+    private List<ItemBigDecimal> itensBigDecimal;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        var random = new SourceOfRandomness(new Random(42));
+        var itensGenerator = new ItemPedidoListGenerator();
+        pedido = new Pedido();
+        while (pedido.getItens().size() < quantidadeItens) {
+            itensGenerator.generate(random, null).stream()
+                    .limit(quantidadeItens - pedido.getItens().size())
+                    .forEach(pedido::addItem);
+        }
+        itensBigDecimal = pedido.getItens().stream()
+                .map(item -> new ItemBigDecimal(item.getValorUnitario().valor(), item.getQuantidade()))
+                .toList();
+
+        Dinheiro total = PedidoMapper.calcularTotal(pedido);
+        if (total.valor().compareTo(totalBigDecimal()) != 0) {
+            throw new IllegalStateException("Totais diferentes: " + total + " e " + totalBigDecimal());
+        }
+    }
+
+    @Benchmark
+    public Dinheiro dinheiro() {
+        return PedidoMapper.calcularTotal(pedido);
+    }
+
+    @Benchmark
+    public BigDecimal bigDecimal() {
+        return totalBigDecimal();
+    }
+
+    private BigDecimal totalBigDecimal() {
+        return itensBigDecimal.stream()
+                .map(item -> item.valorUnitario().multiply(BigDecimal.valueOf(item.quantidade())))
+                .reduce(BigDecimal.ZERO, BigDecimal::add)
+                .abs();
+    }
+}
@@ -0,0 +1,108 @@
+package com.github.udinei.icompras.pedidos.benchmark;
+
+import com.github.udinei.icompras.pedidos.client.TransporteHttp;
+import com.github.udinei.icompras.pedidos.config.ClientsProperties;
+import feign.Feign;
+import feign.RequestLine;
+import feign.Retryer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.apache.catalina.Context;
+import org.apache.catalina.connector.Connector;
+import org.apache.catalina.startup.Tomcat;
+import org.apache.coyote.http2.Http2Protocol;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Vazao das chamadas Feign com cada transporte HTTP, com varias threads
+ * chamando ao mesmo tempo um Tomcat local (com HTTP/2 sem TLS habilitado,
+ * como um servico de produtos) que devolve o JSON de um produto. Ao final,
+ * informa quantas conexoes TCP cada transporte abriu.
+ *
+ * <pre>mvn -Pjmh test-compile exec:exec -Djmh.args="TransporteHttp"</pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Threads(8)
+@Fork(1)
+public class TransporteHttpBenchmark {
+
+    interface ProdutosStub {
+
+        @RequestLine("GET /api/produtos/{codigo}")
+        String obterDados(@feign.Param("codigo") long codigo);
+    }
+
+    private static final byte[] PRODUTO = """
+            {"codigo":1,"nome":"Notebook Dell Inspiron 15","valorUnitario":3500.00}"""
+            .getBytes(StandardCharsets.UTF_8);
+
+    @Param({"URL_CONNECTION", "APACHE_HC5", "JDK_HTTP2"})
+    private ClientsProperties.TipoTransporte tipo;
+
+    // Porta de origem de cada chamada recebida: uma por conexao aberta pelo client
+    private final Set<Integer> conexoes = ConcurrentHashMap.newKeySet();
+
+    private Tomcat tomcat;
+    private TransporteHttp transporte;
+    private ProdutosStub produtos;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        tomcat = new Tomcat();
+        tomcat.setBaseDir(Files.createTempDirectory("tomcat-benchmark").toString());
+        Connector connector = new Connector();
+        connector.setPort(0);
+        // Sem o limite padrao de 100 chamadas por conexao, para medir so o reaproveitamento feito pelo client
+        connector.setProperty("maxKeepAliveRequests", "-1");
+        connector.addUpgradeProtocol(new Http2Protocol());
+        tomcat.setConnector(connector);
+
+        Context contexto = tomcat.addContext("", null);
+        Tomcat.addServlet(contexto, "produtos", new HttpServlet() {
+            @Override
+            protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+                conexoes.add(request.getRemotePort());
+                response.setContentType("application/json");
+                response.setContentLength(PRODUTO.length);
+                response.getOutputStream().write(PRODUTO);
+            }
+        });
+        contexto.addServletMappingDecoded("/api/produtos/*", "produtos");
+        tomcat.start();
+
+        ClientsProperties.Transporte config = new ClientsProperties.Transporte();
+        config.setTipo(tipo);
+        transporte = TransporteHttp.criar(config, new SimpleMeterRegistry());
+        produtos = Feign.builder()
+                .client(transporte)
+                .retryer(Retryer.NEVER_RETRY)
+                .target(ProdutosStub.class, "http://localhost:" + connector.getLocalPort());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        System.out.printf("%n%s: %d conexoes abertas%n", tipo, conexoes.size());
+        transporte.close();
+        tomcat.stop();
+        tomcat.destroy();
+    }
+
+    @Benchmark
+    public String obterProduto() {
+        return produtos.obterDados(ThreadLocalRandom.current().nextLong(1, 1000));
+    }
+}
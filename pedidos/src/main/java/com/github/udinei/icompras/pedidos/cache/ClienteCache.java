@@ -0,0 +1,167 @@
+package com.github.udinei.icompras.pedidos.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Conjunto local de codigos de clientes ja confirmados pelo servico de clientes.
+ * Guarda apenas a existencia (nao o cadastro) e somente resultados positivos,
+ * para que um cliente recem-criado nunca seja recusado por dado antigo.
+ * Exclusoes chegam pelo CacheController; o TTL cobre avisos perdidos.
+ *
+ * Os codigos ficam em conjuntos de long primitivo (ConjuntoLong), um por
+ * geracao: a cada ttl/GERACOES comeca uma geracao nova e a mais antiga e
+ * descartada inteira, entao um codigo vale entre 3/4 do TTL e o TTL, sem
+ * horario por entrada.
+ */
+@Component
+@Slf4j
+public class ClienteCache {
+
+    private static final int GERACOES = 4;
+
+    private final ReentrantReadWriteLock trava = new ReentrantReadWriteLock();
+    // [0] e a geracao atual, que recebe os registros; a ultima e a proxima a sair
+    private final ConjuntoLong[] geracoes = new ConjuntoLong[GERACOES];
+    private final long tamanhoMaximo;
+    private final long intervaloRotacao;
+    private final LongSupplier relogio;
+    private final Counter acertos;
+    private final Counter falhas;
+    private volatile long proximaRotacao;
+
+    @Autowired
+    public ClienteCache(
+            MeterRegistry meterRegistry,
+            @Value("${icompras.pedidos.cache.clientes.tamanho-maximo:100000}") long tamanhoMaximo,
+            @Value("${icompras.pedidos.cache.clientes.ttl:30m}") Duration ttl) {
+        this(meterRegistry, tamanhoMaximo, ttl, System::nanoTime);
+    }
+
+    ClienteCache(MeterRegistry meterRegistry, long tamanhoMaximo, Duration ttl, LongSupplier relogio) {
+        this.tamanhoMaximo = Math.max(1, tamanhoMaximo);
+        this.intervaloRotacao = Math.max(1, ttl.toNanos() / GERACOES);
+        this.relogio = relogio;
+        this.proximaRotacao = relogio.getAsLong() + intervaloRotacao;
+        for (int i = 0; i < GERACOES; i++) {
+            geracoes[i] = new ConjuntoLong();
+        }
+        // Mesmos nomes de metrica que o CaffeineCacheMetrics usa para o cache de produtos
+        this.acertos = Counter.builder("cache.gets").tag("cache", "clientes").tag("result", "hit")
+                .register(meterRegistry);
+        this.falhas = Counter.builder("cache.gets").tag("cache", "clientes").tag("result", "miss")
+                .register(meterRegistry);
+        Gauge.builder("cache.size", this, ClienteCache::tamanho).tag("cache", "clientes")
+                .register(meterRegistry);
+    }
+
+    public boolean contem(Long codigoCliente) {
+        rotacionarSeVencido();
+        trava.readLock().lock();
+        try {
+            for (ConjuntoLong geracao : geracoes) {
+                if (geracao.contem(codigoCliente)) {
+                    acertos.increment();
+                    return true;
+                }
+            }
+        } finally {
+            trava.readLock().unlock();
+        }
+        falhas.increment();
+        return false;
+    }
+
+    public void registrar(Long codigoCliente) {
+        rotacionarSeVencido();
+        trava.writeLock().lock();
+        try {
+            // Cheio: as geracoes mais antigas saem antes do prazo
+            while (tamanhoSemTrava() >= tamanhoMaximo) {
+                rotacionar();
+            }
+            geracoes[0].adicionar(codigoCliente);
+        } finally {
+            trava.writeLock().unlock();
+        }
+    }
+
+    public void invalidar(Collection<Long> codigos) {
+        log.info("Invalidando {} cliente(s) do cache", codigos.size());
+        trava.writeLock().lock();
+        try {
+            for (Long codigo : codigos) {
+                for (ConjuntoLong geracao : geracoes) {
+                    geracao.remover(codigo);
+                }
+            }
+        } finally {
+            trava.writeLock().unlock();
+        }
+    }
+
+    public void invalidarTodos() {
+        log.info("Invalidando todo o cache de clientes");
+        trava.writeLock().lock();
+        try {
+            for (int i = 0; i < GERACOES; i++) {
+                geracoes[i] = new ConjuntoLong();
+            }
+        } finally {
+            trava.writeLock().unlock();
+        }
+    }
+
+    int tamanho() {
+        trava.readLock().lock();
+        try {
+            return tamanhoSemTrava();
+        } finally {
+            trava.readLock().unlock();
+        }
+    }
+
+    private void rotacionarSeVencido() {
+        long agora = relogio.getAsLong();
+        if (agora - proximaRotacao < 0) {
+            return;
+        }
+        trava.writeLock().lock();
+        try {
+            for (int i = 0; i < GERACOES && agora - proximaRotacao >= 0; i++) {
+                rotacionar();
+                proximaRotacao += intervaloRotacao;
+            }
+            // Parado por mais de um TTL: tudo ja expirou, a contagem recomeca agora
+            if (agora - proximaRotacao >= 0) {
+                proximaRotacao = agora + intervaloRotacao;
+            }
+        } finally {
+            trava.writeLock().unlock();
+        }
+    }
+
+    private void rotacionar() {
+        System.arraycopy(geracoes, 0, geracoes, 1, GERACOES - 1);
+        geracoes[0] = new ConjuntoLong();
+    }
+
+    // Um codigo registrado de novo conta em mais de uma geracao ate a antiga sair
+    private int tamanhoSemTrava() {
+        int tamanho = 0;
+        for (ConjuntoLong geracao : geracoes) {
+            tamanho += geracao.tamanho();
+        }
+        return tamanho;
+    }
+}
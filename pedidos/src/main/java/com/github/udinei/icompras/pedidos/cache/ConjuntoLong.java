@@ -0,0 +1,113 @@
+package com.github.udinei.icompras.pedidos.cache;
+
+/**
+ * Conjunto de longs em um unico long[] (enderecamento aberto, sondagem linear),
+ * sem um objeto por elemento: de 16 a 32 bytes por codigo (tabela entre um quarto
+ * e metade cheia), contra ~125 medidos por entrada Long/Boolean do Caffeine (no, horario e chave).
+ * O 0 marca posicao vazia e fica em um campo proprio. Nao e thread-safe.
+ */
+final class ConjuntoLong {
+
+    private static final int CAPACIDADE_MINIMA = 16;
+
+    private long[] tabela;
+    private int mascara;
+    private int tamanho;
+    private boolean contemZero;
+
+    ConjuntoLong() {
+        alocar(CAPACIDADE_MINIMA);
+    }
+
+    boolean contem(long valor) {
+        if (valor == 0) {
+            return contemZero;
+        }
+        for (int i = posicao(valor); ; i = (i + 1) & mascara) {
+            long atual = tabela[i];
+            if (atual == 0) {
+                return false;
+            }
+            if (atual == valor) {
+                return true;
+            }
+        }
+    }
+
+    boolean adicionar(long valor) {
+        if (valor == 0) {
+            boolean novo = !contemZero;
+            contemZero = true;
+            tamanho += novo ? 1 : 0;
+            return novo;
+        }
+        int i = posicao(valor);
+        for (; tabela[i] != 0; i = (i + 1) & mascara) {
+            if (tabela[i] == valor) {
+                return false;
+            }
+        }
+        tabela[i] = valor;
+        // Tabela ate a metade: sequencias de sondagem curtas
+        if (++tamanho * 2 > tabela.length) {
+            redimensionar();
+        }
+        return true;
+    }
+
+    boolean remover(long valor) {
+        if (valor == 0) {
+            boolean removido = contemZero;
+            contemZero = false;
+            tamanho -= removido ? 1 : 0;
+            return removido;
+        }
+        int i = posicao(valor);
+        for (; tabela[i] != valor; i = (i + 1) & mascara) {
+            if (tabela[i] == 0) {
+                return false;
+            }
+        }
+        // Sem marcador de removido: os elementos seguintes da sequencia voltam para o buraco
+        int vazio = i;
+        for (int j = (i + 1) & mascara; tabela[j] != 0; j = (j + 1) & mascara) {
+            int ideal = posicao(tabela[j]);
+            if (((j - ideal) & mascara) >= ((j - vazio) & mascara)) {
+                tabela[vazio] = tabela[j];
+                vazio = j;
+            }
+        }
+        tabela[vazio] = 0;
+        tamanho--;
+        return true;
+    }
+
+    int tamanho() {
+        return tamanho;
+    }
+
+    private int posicao(long valor) {
+        // Espalha codigos sequenciais pela tabela (hash de Fibonacci)
+        long h = valor * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mascara;
+    }
+
+    private void redimensionar() {
+        long[] anterior = tabela;
+        alocar(anterior.length * 2);
+        for (long valor : anterior) {
+            if (valor != 0) {
+                int i = posicao(valor);
+                while (tabela[i] != 0) {
+                    i = (i + 1) & mascara;
+                }
+                tabela[i] = valor;
+            }
+        }
+    }
+
+    private void alocar(int capacidade) {
+        tabela = new long[capacidade];
+        mascara = capacidade - 1;
+    }
+}
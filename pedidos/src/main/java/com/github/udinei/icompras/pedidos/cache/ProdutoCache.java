@@ -0,0 +1,78 @@
+package com.github.udinei.icompras.pedidos.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.udinei.icompras.pedidos.client.ProdutosClient;
+import com.github.udinei.icompras.pedidos.client.representation.ProdutoRepresentation;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Cache local do catalogo de produtos, na frente do ProdutosClient.
+ * Produtos inexistentes (404) tambem sao guardados, como Optional vazio,
+ * por um prazo menor. O servico de produtos avisa alteracoes pelo
+ * CacheController, e o TTL cobre avisos perdidos.
+ */
+@Component
+@Slf4j
+public class ProdutoCache {
+
+    private final ProdutosClient produtosClient;
+    private final Cache<Long, Optional<ProdutoRepresentation>> cache;
+
+    public ProdutoCache(
+            ProdutosClient produtosClient,
+            MeterRegistry meterRegistry,
+            @Value("${icompras.pedidos.cache.produtos.tamanho-maximo:10000}") long tamanhoMaximo,
+            @Value("${icompras.pedidos.cache.produtos.ttl:10m}") Duration ttl,
+            @Value("${icompras.pedidos.cache.produtos.ttl-nao-encontrado:30s}") Duration ttlNaoEncontrado) {
+        this.produtosClient = produtosClient;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(tamanhoMaximo)
+                .expireAfter(Expiry.<Long, Optional<ProdutoRepresentation>>writing(
+                        (codigo, produto) -> produto.isPresent() ? ttl : ttlNaoEncontrado))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "produtos");
+    }
+
+    /**
+     * Retorna o produto de cada codigo informado (Optional vazio quando o produto
+     * nao existe). Somente os codigos ausentes do cache sao consultados, todos
+     * em uma unica chamada em lote.
+     */
+    public Map<Long, Optional<ProdutoRepresentation>> buscar(Set<Long> codigos) {
+        return cache.getAll(codigos, this::carregar);
+    }
+
+    public void invalidar(Collection<Long> codigos) {
+        log.info("Invalidando {} produto(s) do cache", codigos.size());
+        cache.invalidateAll(codigos);
+    }
+
+    public void invalidarTodos() {
+        log.info("Invalidando todo o cache de produtos");
+        cache.invalidateAll();
+    }
+
+    private Map<Long, Optional<ProdutoRepresentation>> carregar(Set<? extends Long> codigos) {
+        var lote = produtosClient.obterLote(List.copyOf(codigos)).getBody();
+
+        Map<Long, Optional<ProdutoRepresentation>> produtos = new HashMap<>();
+        lote.encontrados().forEach(produto -> produtos.put(produto.codigo(), Optional.of(produto)));
+        lote.naoEncontrados().forEach(codigo -> produtos.put(codigo, Optional.empty()));
+        return produtos;
+    }
+}
@@ -4,8 +4,13 @@ import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 
 import com.github.udinei.icompras.pedidos.client.representation.ClienteRepresentation;
+import com.github.udinei.icompras.pedidos.client.representation.LoteClientesRepresentation;
+
+import java.util.Collection;
 
 @FeignClient(name = "clientes", url = "${icompras.pedidos.clients.clientes.url}")
 public interface ClientesClient {
@@ -13,4 +18,7 @@ public interface ClientesClient {
     @GetMapping("/{codigo}")
     ResponseEntity<ClienteRepresentation> obterDados(@PathVariable("codigo") Long codigo);
 
+    @PostMapping("/busca-lote")
+    ResponseEntity<LoteClientesRepresentation> obterLote(@RequestBody Collection<Long> codigos);
+
 }
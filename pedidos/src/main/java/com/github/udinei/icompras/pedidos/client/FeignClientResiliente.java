@@ -0,0 +1,226 @@
+package com.github.udinei.icompras.pedidos.client;
+
+import com.github.udinei.icompras.pedidos.config.ClientsProperties;
+import feign.Client;
+import feign.Request;
+import feign.Response;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.micrometer.tagged.TaggedBulkheadMetrics;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Client HTTP usado por todos os @FeignClient do servico. Identifica o servico
+ * chamado pelo nome do client e aplica a configuracao de
+ * {@code icompras.pedidos.clients.<nome>}: timeouts de conexao e leitura,
+ * bulkhead (limite de chamadas simultaneas), circuit breaker e, para GETs,
+ * hedging. Clients sem configuracao passam direto para o transporte.
+ */
+@Slf4j
+public class FeignClientResiliente implements Client, AutoCloseable {
+
+    private final Client delegate;
+    private final Map<String, Protecao> protecoes = new HashMap<>();
+
+    // Tentativas do hedging rodam em threads virtuais; sem hedging a chamada usa a thread de quem chamou
+    private final ExecutorService hedgeExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public FeignClientResiliente(Client delegate, Map<String, ClientsProperties.Destino> destinos,
+                                 MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+
+        CircuitBreakerRegistry circuitBreakers = CircuitBreakerRegistry.ofDefaults();
+        BulkheadRegistry bulkheads = BulkheadRegistry.ofDefaults();
+        destinos.forEach((nome, destino) -> protecoes.put(nome, new Protecao(
+                new Request.Options(destino.getTimeoutConexao(), destino.getTimeoutLeitura(), true),
+                bulkheads.bulkhead(nome, bulkheadConfig(destino.getBulkhead())),
+                circuitBreakers.circuitBreaker(nome, circuitBreakerConfig(destino.getCircuitBreaker())),
+                destino.getHedge().isHabilitado() ? destino.getHedge().getAtraso() : null,
+                Counter.builder("icompras.pedidos.clients.hedges")
+                        .description("Segundas chamadas disparadas pelo hedging")
+                        .tag("client", nome)
+                        .register(meterRegistry))));
+
+        TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(circuitBreakers).bindTo(meterRegistry);
+        TaggedBulkheadMetrics.ofBulkheadRegistry(bulkheads).bindTo(meterRegistry);
+    }
+
+    @Override
+    public Response execute(Request request, Request.Options options) throws IOException {
+        Protecao protecao = protecaoDe(request);
+        if (protecao == null) {
+            return delegate.execute(request, options);
+        }
+
+        // Circuito aberto: falha na hora, sem chamar o servico (CallNotPermittedException)
+        protecao.circuitBreaker().acquirePermission();
+        long inicio = System.nanoTime();
+        try {
+            Response response = protecao.hedgeAtivo(request)
+                    ? executarComHedge(protecao, request)
+                    : executarIsolado(protecao, request);
+            protecao.circuitBreaker().onResult(System.nanoTime() - inicio, TimeUnit.NANOSECONDS, response);
+            return response;
+        } catch (BulkheadFullException e) {
+            // Bulkhead cheio e protecao local, nao falha do servico
+            protecao.circuitBreaker().releasePermission();
+            throw e;
+        } catch (IOException | RuntimeException e) {
+            protecao.circuitBreaker().onError(System.nanoTime() - inicio, TimeUnit.NANOSECONDS, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public void close() throws Exception {
+        hedgeExecutor.close();
+        if (delegate instanceof AutoCloseable transporte) {
+            transporte.close();
+        }
+    }
+
+    private Protecao protecaoDe(Request request) {
+        if (request.requestTemplate() == null || request.requestTemplate().feignTarget() == null) {
+            return null;
+        }
+        return protecoes.get(request.requestTemplate().feignTarget().name());
+    }
+
+    private Response executarIsolado(Protecao protecao, Request request) throws IOException {
+        protecao.bulkhead().acquirePermission();
+        return executarComPermissao(protecao, request);
+    }
+
+    private Response executarComPermissao(Protecao protecao, Request request) throws IOException {
+        try {
+            Response response = delegate.execute(request, protecao.options());
+            // Tentativa cancelada pelo hedging: ninguem vai ler esta resposta
+            if (Thread.currentThread().isInterrupted()) {
+                response.close();
+            }
+            return response;
+        } finally {
+            protecao.bulkhead().onComplete();
+        }
+    }
+
+    /**
+     * Dispara a chamada e, se ela nao responder dentro do atraso configurado, uma
+     * segunda igual. Fica com a primeira resposta recebida; a segunda so e
+     * disparada se o bulkhead tiver vaga, para o hedging nao aumentar a carga
+     * justamente quando o servico esta saturado.
+     */
+    private Response executarComHedge(Protecao protecao, Request request) throws IOException {
+        protecao.bulkhead().acquirePermission();
+
+        CompletionService<Response> tentativas = new ExecutorCompletionService<>(hedgeExecutor);
+        List<Future<Response>> disparadas = new ArrayList<>(2);
+        Future<Response> vencedora = null;
+        try {
+            disparadas.add(tentativas.submit(() -> executarComPermissao(protecao, request)));
+
+            Future<Response> concluida = tentativas.poll(protecao.atrasoHedge().toNanos(), TimeUnit.NANOSECONDS);
+            if (concluida == null) {
+                if (protecao.bulkhead().tryAcquirePermission()) {
+                    protecao.hedges().increment();
+                    disparadas.add(tentativas.submit(() -> executarComPermissao(protecao, request)));
+                }
+                concluida = tentativas.take();
+            }
+
+            // Se a primeira a terminar falhou, ainda espera a outra tentativa
+            for (int pendentes = disparadas.size() - 1; ; pendentes--) {
+                try {
+                    Response response = concluida.get();
+                    vencedora = concluida;
+                    return response;
+                } catch (ExecutionException e) {
+                    if (pendentes == 0) {
+                        throw falhaDaTentativa(e.getCause());
+                    }
+                    log.debug("Tentativa de {} falhou, aguardando a outra", request.url(), e.getCause());
+                }
+                concluida = tentativas.take();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Chamada a " + request.url() + " interrompida");
+        } finally {
+            for (Future<Response> tentativa : disparadas) {
+                if (tentativa != vencedora) {
+                    descartar(tentativa);
+                }
+            }
+        }
+    }
+
+    private static void descartar(Future<Response> tentativa) {
+        if (!tentativa.cancel(true) && tentativa.state() == Future.State.SUCCESS) {
+            tentativa.resultNow().close();
+        }
+    }
+
+    private static IOException falhaDaTentativa(Throwable causa) {
+        if (causa instanceof RuntimeException runtimeException) {
+            throw runtimeException;
+        }
+        return causa instanceof IOException ioException ? ioException : new IOException(causa);
+    }
+
+    private static BulkheadConfig bulkheadConfig(ClientsProperties.Bulkhead bulkhead) {
+        return BulkheadConfig.custom()
+                .maxConcurrentCalls(bulkhead.getMaxChamadasSimultaneas())
+                .maxWaitDuration(bulkhead.getEsperaMaxima())
+                .build();
+    }
+
+    private static CircuitBreakerConfig circuitBreakerConfig(ClientsProperties.CircuitBreaker circuitBreaker) {
+        return CircuitBreakerConfig.custom()
+                .slidingWindowSize(circuitBreaker.getJanela())
+                .minimumNumberOfCalls(circuitBreaker.getChamadasMinimas())
+                .failureRateThreshold(circuitBreaker.getTaxaFalhas())
+                .slowCallDurationThreshold(circuitBreaker.getChamadaLenta())
+                .slowCallRateThreshold(circuitBreaker.getTaxaChamadasLentas())
+                .waitDurationInOpenState(circuitBreaker.getTempoAberto())
+                .permittedNumberOfCallsInHalfOpenState(circuitBreaker.getChamadasMeioAberto())
+                // 4xx (ex.: 404 de produto inexistente) e resposta valida; 5xx conta como falha
+                .recordResult(resultado -> resultado instanceof Response response && response.status() >= 500)
+                .build();
+    }
+
+    private record Protecao(
+            Request.Options options,
+            Bulkhead bulkhead,
+            CircuitBreaker circuitBreaker,
+            Duration atrasoHedge,
+            Counter hedges
+    ) {
+
+        boolean hedgeAtivo(Request request) {
+            return atrasoHedge != null && request.httpMethod() == Request.HttpMethod.GET;
+        }
+    }
+}
@@ -4,12 +4,20 @@ import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 
+import com.github.udinei.icompras.pedidos.client.representation.LoteProdutosRepresentation;
 import com.github.udinei.icompras.pedidos.client.representation.ProdutoRepresentation;
 
+import java.util.Collection;
+
 @FeignClient(name = "produtos", url = "${icompras.pedidos.clients.produtos.url}")
 public interface ProdutosClient {
 
     @GetMapping("{codigo}")
     ResponseEntity<ProdutoRepresentation> obterDados(@PathVariable("codigo") Long codigo);
-}
\ No newline at end of file
+
+    @PostMapping("/busca-lote")
+    ResponseEntity<LoteProdutosRepresentation> obterLote(@RequestBody Collection<Long> codigos);
+}
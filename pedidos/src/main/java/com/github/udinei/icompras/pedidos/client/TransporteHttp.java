@@ -0,0 +1,92 @@
+package com.github.udinei.icompras.pedidos.client;
+
+import com.github.udinei.icompras.pedidos.config.ClientsProperties;
+import feign.Client;
+import feign.Request;
+import feign.Response;
+import feign.hc5.ApacheHttp5Client;
+import feign.http2client.Http2Client;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+
+import java.io.IOException;
+
+/**
+ * Transporte HTTP dos clients Feign, escolhido por
+ * {@code icompras.pedidos.transporte-http.tipo}. Guarda o client HTTP
+ * subjacente para fechar o pool de conexoes no encerramento do servico.
+ */
+public final class TransporteHttp implements Client, AutoCloseable {
+
+    private final Client client;
+    private final AutoCloseable recurso;
+
+    private TransporteHttp(Client client, AutoCloseable recurso) {
+        this.client = client;
+        this.recurso = recurso;
+    }
+
+    public static TransporteHttp criar(ClientsProperties.Transporte config, MeterRegistry meterRegistry) {
+        return switch (config.getTipo()) {
+            case URL_CONNECTION -> new TransporteHttp(new Client.Default(null, null), null);
+            case APACHE_HC5 -> apacheHttpClient(config, meterRegistry);
+            case JDK_HTTP2 -> jdkHttpClient();
+        };
+    }
+
+    @Override
+    public Response execute(Request request, Request.Options options) throws IOException {
+        return client.execute(request, options);
+    }
+
+    @Override
+    public void close() throws Exception {
+        if (recurso != null) {
+            recurso.close();
+        }
+    }
+
+    private static TransporteHttp apacheHttpClient(ClientsProperties.Transporte config,
+                                                   MeterRegistry meterRegistry) {
+        PoolingHttpClientConnectionManager pool = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(config.getMaxConexoes())
+                .setMaxConnPerRoute(config.getMaxConexoesPorServico())
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setTimeToLive(TimeValue.of(config.getTempoVidaConexao()))
+                        .setValidateAfterInactivity(TimeValue.ofSeconds(2))
+                        .build())
+                .build();
+
+        CloseableHttpClient httpClient = HttpClients.custom()
+                .setConnectionManager(pool)
+                // Usa o keep-alive configurado, sem esperar o servidor anunciar o seu
+                .setKeepAliveStrategy((response, context) -> TimeValue.of(config.getKeepAlive()))
+                .evictIdleConnections(TimeValue.of(config.getKeepAlive()))
+                .evictExpiredConnections()
+                // O ApacheHttp5Client copia esta configuracao e so troca os timeouts de cada client
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.of(config.getEsperaConexao()))
+                        .build())
+                .disableAutomaticRetries()
+                .build();
+
+        // httpcomponents.httpclient.pool.*: conexoes em uso, livres, maximo e chamadas esperando conexao
+        new PoolingHttpClientConnectionManagerMetricsBinder(pool, "feign").bindTo(meterRegistry);
+        return new TransporteHttp(new ApacheHttp5Client(httpClient), httpClient);
+    }
+
+    private static TransporteHttp jdkHttpClient() {
+        // O Http2Client cria e guarda um java.net.http.HttpClient (HTTP/2) por combinacao de timeout
+        // de conexao e redirecionamento, ou seja, um por servico chamado; cada um multiplexa as
+        // chamadas em uma conexao por servidor e e liberado junto com o Http2Client
+        return new TransporteHttp(new Http2Client(), null);
+    }
+}
@@ -0,0 +1,8 @@
+package com.github.udinei.icompras.pedidos.client.representation;
+
+import java.util.List;
+
+public record LoteProdutosRepresentation(
+    List<ProdutoRepresentation> encontrados,
+    List<Long> naoEncontrados
+) {}
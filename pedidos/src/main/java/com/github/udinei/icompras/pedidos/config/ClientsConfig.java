@@ -1,10 +1,27 @@
 package com.github.udinei.icompras.pedidos.config;
 
+import com.github.udinei.icompras.pedidos.client.FeignClientResiliente;
+import com.github.udinei.icompras.pedidos.client.TransporteHttp;
+import feign.Client;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.cloud.openfeign.EnableFeignClients;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 @Configuration
 @EnableFeignClients(basePackages = "com.github.udinei.icompras.pedidos.client")
+@EnableConfigurationProperties(ClientsProperties.class)
 public class ClientsConfig {
 
+    /**
+     * Client HTTP de todos os @FeignClient: aplica timeouts, bulkhead, circuit
+     * breaker e hedging configurados em {@code icompras.pedidos.clients} sobre o
+     * transporte de {@code icompras.pedidos.transporte-http}.
+     */
+    @Bean
+    public Client feignClient(ClientsProperties properties, MeterRegistry meterRegistry) {
+        TransporteHttp transporte = TransporteHttp.criar(properties.getTransporteHttp(), meterRegistry);
+        return new FeignClientResiliente(transporte, properties.getClients(), meterRegistry);
+    }
 }
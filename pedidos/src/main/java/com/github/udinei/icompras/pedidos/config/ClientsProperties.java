@@ -0,0 +1,119 @@
+package com.github.udinei.icompras.pedidos.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Configuracao de cada servico chamado pelos clients Feign, em
+ * {@code icompras.pedidos.clients.<nome do @FeignClient>}.
+ */
+@Data
+@ConfigurationProperties(prefix = "icompras.pedidos")
+public class ClientsProperties {
+
+    private Map<String, Destino> clients = new LinkedHashMap<>();
+
+    private Transporte transporteHttp = new Transporte();
+
+    @Data
+    public static class Destino {
+
+        private String url;
+
+        private Duration timeoutConexao = Duration.ofSeconds(1);
+
+        /** Prazo para a resposta; deve ficar abaixo de icompras.pedidos.validacao.timeout */
+        private Duration timeoutLeitura = Duration.ofSeconds(2);
+
+        private Bulkhead bulkhead = new Bulkhead();
+
+        private CircuitBreaker circuitBreaker = new CircuitBreaker();
+
+        private Hedge hedge = new Hedge();
+    }
+
+    /**
+     * Limite de chamadas simultaneas ao servico. Quando esgotado, a chamada espera
+     * no maximo {@code esperaMaxima} e falha, sem ocupar mais uma thread do Tomcat.
+     */
+    @Data
+    public static class Bulkhead {
+
+        private int maxChamadasSimultaneas = 20;
+
+        private Duration esperaMaxima = Duration.ZERO;
+    }
+
+    /**
+     * Abre o circuito quando a taxa de falhas (erro de I/O ou HTTP 5xx) ou de chamadas
+     * lentas nas ultimas {@code janela} chamadas passa do limite. Aberto, as chamadas
+     * falham na hora ate passar {@code tempoAberto}.
+     */
+    @Data
+    public static class CircuitBreaker {
+
+        private float taxaFalhas = 50;
+
+        private int janela = 20;
+
+        private int chamadasMinimas = 10;
+
+        private Duration tempoAberto = Duration.ofSeconds(10);
+
+        private Duration chamadaLenta = Duration.ofSeconds(1);
+
+        private float taxaChamadasLentas = 100;
+
+        private int chamadasMeioAberto = 3;
+    }
+
+    /**
+     * Hedging de GETs: se a resposta nao chega em {@code atraso}, dispara uma segunda
+     * chamada igual e usa a que responder primeiro. So vale para GET (idempotente).
+     */
+    @Data
+    public static class Hedge {
+
+        private boolean habilitado = false;
+
+        private Duration atraso = Duration.ofMillis(200);
+    }
+
+    /**
+     * Transporte HTTP compartilhado pelos clients, em {@code icompras.pedidos.transporte-http}.
+     * O pool (conexoes, keep-alive, tempo de vida) vale para o Apache HttpClient 5;
+     * o HttpClient do JDK multiplexa as chamadas em HTTP/2 e usa as propriedades
+     * {@code jdk.httpclient.*} da JVM.
+     */
+    @Data
+    public static class Transporte {
+
+        private TipoTransporte tipo = TipoTransporte.APACHE_HC5;
+
+        private int maxConexoes = 200;
+
+        private int maxConexoesPorServico = 50;
+
+        /** Tempo que uma conexao ociosa fica no pool para ser reaproveitada */
+        private Duration keepAlive = Duration.ofSeconds(30);
+
+        /** Conexoes mais antigas que isso sao fechadas, para redistribuir a carga entre instancias */
+        private Duration tempoVidaConexao = Duration.ofMinutes(5);
+
+        /** Espera maxima por uma conexao livre quando o pool esta esgotado */
+        private Duration esperaConexao = Duration.ofMillis(500);
+    }
+
+    public enum TipoTransporte {
+        /** HttpURLConnection do JDK, sem pool configuravel (padrao do Feign) */
+        URL_CONNECTION,
+        /** Apache HttpClient 5 com pool de conexoes e metricas de uso do pool */
+        APACHE_HC5,
+        /** java.net.http.HttpClient, com HTTP/2 quando o servidor aceita */
+        JDK_HTTP2
+    }
+}
@@ -1,9 +1,13 @@
 package com.github.udinei.icompras.pedidos.config;
 
+import com.github.udinei.icompras.pedidos.evento.PedidoEvento;
+import com.github.udinei.icompras.pedidos.evento.PedidoEventoSerializer;
 import org.apache.kafka.clients.producer.ProducerConfig;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.core.ProducerFactory;
 
@@ -15,20 +19,42 @@ import java.util.Map;
 @Configuration
 public class KafkaConfig {
 
-    @Value("${icompras.config.kafka.url}")
+    @Value("${icompras.config.kafka.server-url}")
     private String kafkaServerUrl;
 
+    // Agrupamento de mensagens: o produtor espera ate linger-ms para encher lotes de batch-size bytes
+    @Value("${icompras.config.kafka.producer.linger-ms:20}")
+    private int lingerMs;
+
+    @Value("${icompras.config.kafka.producer.batch-size:65536}")
+    private int batchSize;
+
+    @Value("${icompras.config.kafka.producer.compression-type:lz4}")
+    private String compressionType;
+
+    @Value("${icompras.config.kafka.producer.delivery-timeout-ms:30000}")
+    private int deliveryTimeoutMs;
+
     @Bean
-    public ProducerFactory<String, String> producerFactory() {
+    public ProducerFactory<String, PedidoEvento> producerFactory() {
         Map<String, Object> configProps = new HashMap<>();
         configProps.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, kafkaServerUrl);
-        configProps.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
-        configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
-        return new ProducerFactory<String , String>(configProps);
+        configProps.put(ProducerConfig.LINGER_MS_CONFIG, lingerMs);
+        configProps.put(ProducerConfig.BATCH_SIZE_CONFIG, batchSize);
+        configProps.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, compressionType);
+        // Idempotencia: retentativas do produtor nao duplicam nem reordenam mensagens na particao
+        configProps.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+        configProps.put(ProducerConfig.ACKS_CONFIG, "all");
+        configProps.put(ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION, 5);
+        configProps.put(ProducerConfig.DELIVERY_TIMEOUT_MS_CONFIG, deliveryTimeoutMs);
+        configProps.put(ProducerConfig.REQUEST_TIMEOUT_MS_CONFIG, Math.min(deliveryTimeoutMs - lingerMs, 30000));
+
+        // Eventos em formato binario compacto (ver PedidoEventoFormato)
+        return new DefaultKafkaProducerFactory<>(configProps, new StringSerializer(), new PedidoEventoSerializer());
     }
 
     @Bean
-    public KafkaTemplate<String, String> kafkaTemplate() {
-        return new KafkaTemplate<>(producerFactory());
+    public KafkaTemplate<String, PedidoEvento> kafkaTemplate(ProducerFactory<String, PedidoEvento> producerFactory) {
+        return new KafkaTemplate<>(producerFactory);
     }
 }
@@ -0,0 +1,92 @@
+package com.github.udinei.icompras.pedidos.config;
+
+import com.github.udinei.icompras.pedidos.dto.RecebimentoCallBackPagamentoDTO;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.annotation.EnableKafka;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.util.backoff.ExponentialBackOff;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Consumidor Kafka dos resultados de pagamento, alternativo ao callback HTTP.
+ * Le os resultados em lotes (um lote por poll) e confirma o offset somente
+ * depois que o lote inteiro foi aplicado; se a aplicacao falhar, o mesmo lote
+ * e relido com espera crescente. Ligado com
+ * icompras.pedidos.resultados-pagamento.kafka.habilitado=true.
+ */
+@Configuration
+@EnableKafka
+@ConditionalOnProperty(name = "icompras.pedidos.resultados-pagamento.kafka.habilitado", havingValue = "true")
+public class ResultadosPagamentoKafkaConfig {
+
+    @Value("${icompras.config.kafka.server-url}")
+    private String kafkaServerUrl;
+
+    @Value("${icompras.pedidos.resultados-pagamento.kafka.grupo:pedidos-resultados-pagamento}")
+    private String grupo;
+
+    // Consumidores em paralelo; acima do numero de particoes do topico ficam ociosos
+    @Value("${icompras.pedidos.resultados-pagamento.kafka.concorrencia:3}")
+    private int concorrencia;
+
+    // Resultados por lote: cada lote e aplicado em uma transacao e confirmado com um unico commit
+    @Value("${icompras.pedidos.resultados-pagamento.kafka.max-registros:500}")
+    private int maxRegistros;
+
+    // O broker segura o fetch ate juntar bytes-minimos ou passar espera-lote, para formar lotes maiores
+    @Value("${icompras.pedidos.resultados-pagamento.kafka.bytes-minimos:1}")
+    private int bytesMinimos;
+
+    @Value("${icompras.pedidos.resultados-pagamento.kafka.espera-lote:500ms}")
+    private Duration esperaLote;
+
+    @Value("${icompras.pedidos.resultados-pagamento.kafka.espera-maxima-retentativa:30s}")
+    private Duration esperaMaximaRetentativa;
+
+    @Bean
+    public ConsumerFactory<String, RecebimentoCallBackPagamentoDTO> resultadosPagamentoConsumerFactory() {
+        Map<String, Object> configProps = new HashMap<>();
+        configProps.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, kafkaServerUrl);
+        configProps.put(ConsumerConfig.GROUP_ID_CONFIG, grupo);
+        configProps.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        configProps.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        configProps.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, maxRegistros);
+        configProps.put(ConsumerConfig.FETCH_MIN_BYTES_CONFIG, bytesMinimos);
+        configProps.put(ConsumerConfig.FETCH_MAX_WAIT_MS_CONFIG, (int) esperaLote.toMillis());
+
+        // JSON invalido nao trava a particao: chega ao listener com valor nulo e e descartado
+        var json = new JsonDeserializer<>(RecebimentoCallBackPagamentoDTO.class, false);
+        return new DefaultKafkaConsumerFactory<>(configProps,
+                new StringDeserializer(), new ErrorHandlingDeserializer<>(json));
+    }
+
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, RecebimentoCallBackPagamentoDTO> resultadosPagamentoListenerFactory(
+            ConsumerFactory<String, RecebimentoCallBackPagamentoDTO> resultadosPagamentoConsumerFactory) {
+        var factory = new ConcurrentKafkaListenerContainerFactory<String, RecebimentoCallBackPagamentoDTO>();
+        factory.setConsumerFactory(resultadosPagamentoConsumerFactory);
+        factory.setBatchListener(true);
+        factory.setConcurrency(concorrencia);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.BATCH);
+
+        // Falha ao aplicar (banco fora, por exemplo): relê o lote sem pular resultados
+        var backOff = new ExponentialBackOff(500, 2);
+        backOff.setMaxInterval(esperaMaximaRetentativa.toMillis());
+        factory.setCommonErrorHandler(new DefaultErrorHandler(backOff));
+        return factory;
+    }
+}
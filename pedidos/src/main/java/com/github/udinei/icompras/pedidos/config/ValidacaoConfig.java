@@ -0,0 +1,21 @@
+package com.github.udinei.icompras.pedidos.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+@Configuration
+public class ValidacaoConfig {
+
+    /**
+     * Executor usado pelo PedidoValidator para disparar as consultas remotas
+     * (cliente e produtos) em paralelo. Cada consulta roda em uma thread virtual,
+     * entao o bloqueio de I/O do Feign nao prende threads de plataforma.
+     */
+    @Bean(destroyMethod = "close")
+    public ExecutorService validacaoExecutor() {
+        return Executors.newVirtualThreadPerTaskExecutor();
+    }
+}
@@ -0,0 +1,54 @@
+package com.github.udinei.icompras.pedidos.controller;
+
+import com.github.udinei.icompras.pedidos.cache.ClienteCache;
+import com.github.udinei.icompras.pedidos.cache.ProdutoCache;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/cache")
+@RequiredArgsConstructor
+public class CacheController {
+
+    private final ProdutoCache produtoCache;
+    private final ClienteCache clienteCache;
+
+    /**
+     * POST /api/cache/produtos/invalidacao - Remover produtos alterados do cache
+     */
+    @PostMapping("/produtos/invalidacao")
+    public ResponseEntity<Void> invalidarProdutos(@RequestBody List<Long> codigos) {
+        produtoCache.invalidar(codigos);
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * DELETE /api/cache/produtos - Limpar todo o cache de produtos
+     */
+    @DeleteMapping("/produtos")
+    public ResponseEntity<Void> invalidarTodosProdutos() {
+        produtoCache.invalidarTodos();
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * POST /api/cache/clientes/invalidacao - Remover clientes excluídos do cache
+     */
+    @PostMapping("/clientes/invalidacao")
+    public ResponseEntity<Void> invalidarClientes(@RequestBody List<Long> codigos) {
+        clienteCache.invalidar(codigos);
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * DELETE /api/cache/clientes - Limpar todo o cache de clientes
+     */
+    @DeleteMapping("/clientes")
+    public ResponseEntity<Void> invalidarTodosClientes() {
+        clienteCache.invalidarTodos();
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -1,30 +1,53 @@
 package com.github.udinei.icompras.pedidos.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.github.udinei.icompras.pedidos.dto.AdicaoNovoPagamentoDTO;
 import com.github.udinei.icompras.pedidos.dto.NovoPedidoDTO;
+import com.github.udinei.icompras.pedidos.dto.PaginaPedidosDTO;
 import com.github.udinei.icompras.pedidos.dto.PedidoDTO;
+import com.github.udinei.icompras.pedidos.dto.ResultadoImportacaoDTO;
 import com.github.udinei.icompras.pedidos.mapper.PedidoMapper;
 import com.github.udinei.icompras.pedidos.model.ErroResposta;
 import com.github.udinei.icompras.pedidos.model.Pedido;
 import com.github.udinei.icompras.pedidos.model.StatusPedido;
+import com.github.udinei.icompras.pedidos.model.exception.ChaveIdempotenciaReutilizadaException;
 import com.github.udinei.icompras.pedidos.model.exception.ItemNaoEncontradoException;
+import com.github.udinei.icompras.pedidos.model.exception.RequisicaoEmAndamentoException;
+import com.github.udinei.icompras.pedidos.model.exception.ServicoIndisponivelException;
+import com.github.udinei.icompras.pedidos.model.exception.TransicaoStatusInvalidaException;
 import com.github.udinei.icompras.pedidos.model.exception.ValidationException;
+import com.github.udinei.icompras.pedidos.service.IdempotenciaService;
+import com.github.udinei.icompras.pedidos.service.ImportacaoPedidoService;
 import com.github.udinei.icompras.pedidos.service.PedidoService;
+import jakarta.persistence.EntityNotFoundException;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.util.List;
+import java.util.function.Consumer;
 
 @RestController
 @RequestMapping("/api/pedidos")
 @RequiredArgsConstructor
 public class PedidoController {
 
+    private static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+    private static final String IDEMPOTENT_REPLAYED = "Idempotent-Replayed";
+
     private final PedidoService pedidoService;
+    private final IdempotenciaService idempotenciaService;
+    private final ImportacaoPedidoService importacaoPedidoService;
     private final PedidoMapper pedidoMapper;
+    private final ObjectMapper objectMapper;
 
     /**
      * GET /api/pedidos - Listar todos os pedidos
@@ -36,6 +59,24 @@ public class PedidoController {
         return ResponseEntity.ok(pedidosDTO);
     }
 
+    /**
+     * GET /api/pedidos/pagina?apos={codigo}&tamanho={n} - Listar pedidos paginados por cursor
+     */
+    @GetMapping("/pagina")
+    public ResponseEntity<PaginaPedidosDTO> listarPagina(
+            @RequestParam(defaultValue = "0") Long apos,
+            @RequestParam(required = false) Integer tamanho) {
+        return ResponseEntity.ok(pedidoService.listarPaginaDTO(apos, tamanho));
+    }
+
+    /**
+     * GET /api/pedidos/stream - Listar todos os pedidos em NDJSON (um pedido por linha)
+     */
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> transmitirTodos() {
+        return ndjson(pedidoService::transmitirTodos);
+    }
+
     /**
      * GET /api/pedidos/{codigo} - Buscar pedido por código
      */
@@ -57,6 +98,25 @@ public class PedidoController {
         return ResponseEntity.ok(pedidosDTO);
     }
 
+    /**
+     * GET /api/pedidos/cliente/{codigoCliente}/pagina - Buscar pedidos do cliente paginados por cursor
+     */
+    @GetMapping("/cliente/{codigoCliente}/pagina")
+    public ResponseEntity<PaginaPedidosDTO> buscarPorClientePagina(
+            @PathVariable Long codigoCliente,
+            @RequestParam(defaultValue = "0") Long apos,
+            @RequestParam(required = false) Integer tamanho) {
+        return ResponseEntity.ok(pedidoService.buscarPorClientePaginaDTO(codigoCliente, apos, tamanho));
+    }
+
+    /**
+     * GET /api/pedidos/cliente/{codigoCliente}/stream - Buscar pedidos do cliente em NDJSON
+     */
+    @GetMapping(value = "/cliente/{codigoCliente}/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> transmitirPorCliente(@PathVariable Long codigoCliente) {
+        return ndjson(consumidor -> pedidoService.transmitirPorCliente(codigoCliente, consumidor));
+    }
+
     /**
      * GET /api/pedidos/status/{status} - Buscar pedidos por status
      */
@@ -67,22 +127,68 @@ public class PedidoController {
         return ResponseEntity.ok(pedidosDTO);
     }
 
+    /**
+     * GET /api/pedidos/status/{status}/pagina - Buscar pedidos por status paginados por cursor
+     */
+    @GetMapping("/status/{status}/pagina")
+    public ResponseEntity<PaginaPedidosDTO> buscarPorStatusPagina(
+            @PathVariable StatusPedido status,
+            @RequestParam(defaultValue = "0") Long apos,
+            @RequestParam(required = false) Integer tamanho) {
+        return ResponseEntity.ok(pedidoService.buscarPorStatusPaginaDTO(status, apos, tamanho));
+    }
+
+    /**
+     * GET /api/pedidos/status/{status}/stream - Buscar pedidos por status em NDJSON
+     */
+    @GetMapping(value = "/status/{status}/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> transmitirPorStatus(@PathVariable StatusPedido status) {
+        return ndjson(consumidor -> pedidoService.transmitirPorStatus(status, consumidor));
+    }
+
     /**
      * POST /api/pedidos - Criar novo pedido
+     * Com o header Idempotency-Key, repeticoes da mesma requisicao devolvem o pedido
+     * ja criado (header Idempotent-Replayed: true) em vez de criar outro.
      */
     @PostMapping
-    public ResponseEntity<Object> criar(@Valid @RequestBody NovoPedidoDTO novoPedidoDTO) {
+    public ResponseEntity<Object> criar(
+            @Valid @RequestBody NovoPedidoDTO novoPedidoDTO,
+            @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String chaveIdempotencia) {
         try {
-            Pedido pedido = pedidoMapper.map(novoPedidoDTO);
-            Pedido novoPedido = pedidoService.salvar(pedido);
-            PedidoDTO pedidoDTO = pedidoMapper.map(novoPedido);
-            return ResponseEntity.status(HttpStatus.CREATED).body(pedidoDTO);
+            if (chaveIdempotencia == null) {
+                return ResponseEntity.status(HttpStatus.CREATED).body(criarPedido(novoPedidoDTO));
+            }
+            var resultado = idempotenciaService.executar(
+                    chaveIdempotencia, novoPedidoDTO, () -> criarPedido(novoPedidoDTO));
+            return ResponseEntity.status(HttpStatus.CREATED)
+                    .header(IDEMPOTENT_REPLAYED, String.valueOf(resultado.repetido()))
+                    .body(resultado.pedido());
         }catch (ValidationException e){
             var erro = new ErroResposta("Erro validação", e.getField(), e.getMessage());
             return ResponseEntity.badRequest().body(erro);
+        }catch (ServicoIndisponivelException e){
+            var erro = new ErroResposta("Serviço indisponível", null, e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(erro);
+        }catch (ChaveIdempotenciaReutilizadaException e){
+            var erro = new ErroResposta("Idempotency-Key reutilizada", IDEMPOTENCY_KEY, e.getMessage());
+            return ResponseEntity.unprocessableEntity().body(erro);
+        }catch (RequisicaoEmAndamentoException e){
+            var erro = new ErroResposta("Requisição em andamento", IDEMPOTENCY_KEY, e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(erro);
         }
     }
 
+    /**
+     * POST /api/pedidos/importacao - Importar pedidos em NDJSON (um pedido por linha)
+     * O arquivo e lido em streaming; linhas invalidas sao listadas no resultado
+     * sem interromper a importacao das demais.
+     */
+    @PostMapping(value = "/importacao", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<ResultadoImportacaoDTO> importar(InputStream arquivo) throws IOException {
+        return ResponseEntity.ok(importacaoPedidoService.importar(arquivo));
+    }
+
     @PostMapping("pagamentos")
     public ResponseEntity<Object> adicionarNovoPagamento(@RequestBody AdicaoNovoPagamentoDTO dto){
           try {
@@ -101,15 +207,27 @@ public class PedidoController {
      * PUT /api/pedidos/{codigo} - Atualizar pedido existente
      */
     @PutMapping("/{codigo}")
-    public ResponseEntity<PedidoDTO> atualizar(
+    public ResponseEntity<Object> atualizar(
             @PathVariable Long codigo,
             @Valid @RequestBody NovoPedidoDTO novoPedidoDTO) {
         try {
             Pedido pedido = pedidoMapper.map(novoPedidoDTO);
+            // O mapper cria o pedido como REALIZADO; na atualizacao vale o status enviado (nulo mantem o atual)
+            pedido.setStatus(novoPedidoDTO.status());
             Pedido pedidoAtualizado = pedidoService.atualizar(codigo, pedido);
             PedidoDTO pedidoDTO = pedidoMapper.map(pedidoAtualizado);
             return ResponseEntity.ok(pedidoDTO);
-        } catch (RuntimeException e) {
+        } catch (ObjectOptimisticLockingFailureException e) {
+            var erro = new ErroResposta("Pedido alterado por outra operação", "codigo",
+                    "Pedido " + codigo + " foi alterado durante a atualização, tente novamente");
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(erro);
+        } catch (TransicaoStatusInvalidaException e) {
+            var erro = new ErroResposta("Transição de status inválida", "status", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(erro);
+        } catch (ValidationException e) {
+            var erro = new ErroResposta("Erro validação", e.getField(), e.getMessage());
+            return ResponseEntity.badRequest().body(erro);
+        } catch (EntityNotFoundException e) {
             return ResponseEntity.notFound().build();
         }
     }
@@ -118,14 +236,15 @@ public class PedidoController {
      * PATCH /api/pedidos/{codigo}/status - Atualizar apenas o status do pedido
      */
     @PatchMapping("/{codigo}/status")
-    public ResponseEntity<PedidoDTO> atualizarStatus(
+    public ResponseEntity<Object> atualizarStatus(
             @PathVariable Long codigo,
             @RequestParam StatusPedido status) {
         try {
-            Pedido pedidoAtualizado = pedidoService.atualizarStatus(codigo, status);
-            PedidoDTO pedidoDTO = pedidoMapper.map(pedidoAtualizado);
-            return ResponseEntity.ok(pedidoDTO);
-        } catch (RuntimeException e) {
+            return ResponseEntity.ok(pedidoService.atualizarStatus(codigo, status));
+        } catch (TransicaoStatusInvalidaException e) {
+            var erro = new ErroResposta("Transição de status inválida", "status", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(erro);
+        } catch (EntityNotFoundException e) {
             return ResponseEntity.notFound().build();
         }
     }
@@ -141,4 +260,23 @@ public class PedidoController {
         pedidoService.deletar(codigo);
         return ResponseEntity.noContent().build();
     }
+
+    private PedidoDTO criarPedido(NovoPedidoDTO novoPedidoDTO) {
+        Pedido pedido = pedidoMapper.map(novoPedidoDTO);
+        Pedido novoPedido = pedidoService.salvar(pedido);
+        return pedidoMapper.map(novoPedido);
+    }
+
+    // Cada pedido e escrito assim que sai do cursor; nada da listagem fica acumulado em memoria
+    private ResponseEntity<StreamingResponseBody> ndjson(Consumer<Consumer<PedidoDTO>> consulta) {
+        StreamingResponseBody corpo = saida -> consulta.accept(pedido -> {
+            try {
+                saida.write(objectMapper.writeValueAsBytes(pedido));
+                saida.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(corpo);
+    }
 }
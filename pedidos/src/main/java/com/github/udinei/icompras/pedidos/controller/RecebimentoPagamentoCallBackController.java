@@ -1,7 +1,7 @@
 package com.github.udinei.icompras.pedidos.controller;
 
 import com.github.udinei.icompras.pedidos.dto.RecebimentoCallBackPagamentoDTO;
-import com.github.udinei.icompras.pedidos.service.PedidoService;
+import com.github.udinei.icompras.pedidos.service.CallbackPagamentoService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -11,13 +11,17 @@ import org.springframework.web.bind.annotation.*;
 @RequiredArgsConstructor
 public class RecebimentoPagamentoCallBackController {
 
-    private final PedidoService pedidoService;
+    private final CallbackPagamentoService callbackPagamentoService;
 
+    /**
+     * POST /pedidos/callback-pagamentos - Recebe o resultado do pagamento do banco;
+     * o status do pedido e atualizado em lote logo depois da resposta
+     */
     @PostMapping
     public ResponseEntity<Object> atualizarStatusPagamento(
         @RequestBody RecebimentoCallBackPagamentoDTO body,
         @RequestHeader(required = true, name = "apiKey") String apiKey) {
-            pedidoService.atualizarStatusPagamento(
+            callbackPagamentoService.receber(
                     body.codigo(),
                     body.chavePagamento(),
                     body.status(),
@@ -31,4 +35,3 @@ public class RecebimentoPagamentoCallBackController {
 
     }
 
-
@@ -0,0 +1,12 @@
+package com.github.udinei.icompras.pedidos.dto;
+
+/**
+ * Linha do arquivo de importacao recusada. {@code linha} comeca em 1;
+ * {@code campo} e nulo quando o erro nao e de um campo especifico.
+ */
+public record ErroImportacaoDTO(
+        long linha,
+        String campo,
+        String mensagem
+) {
+}
@@ -1,5 +1,6 @@
 package com.github.udinei.icompras.pedidos.dto;
 
+import jakarta.validation.constraints.Digits;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotNull;
 
@@ -15,6 +16,7 @@ public record NovoItemPedidoDTO(
         
         @NotNull(message = "Valor unitário é obrigatório")
         @Min(value = 0, message = "Valor unitário deve ser positivo")
+        @Digits(integer = 14, fraction = 2, message = "Valor unitário deve ter no máximo 14 dígitos inteiros e 2 casas decimais")
         BigDecimal valorUnitario
 ) {
 }
@@ -0,0 +1,13 @@
+package com.github.udinei.icompras.pedidos.dto;
+
+import java.util.List;
+
+/**
+ * Pagina de pedidos por cursor. {@code proximoCodigo} e o valor a enviar no
+ * parametro {@code apos} para buscar a pagina seguinte; nulo na ultima pagina.
+ */
+public record PaginaPedidosDTO(
+        List<PedidoDTO> pedidos,
+        Long proximoCodigo
+) {
+}
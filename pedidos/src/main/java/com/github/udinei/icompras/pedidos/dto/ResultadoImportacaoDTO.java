@@ -0,0 +1,16 @@
+package com.github.udinei.icompras.pedidos.dto;
+
+import java.util.List;
+
+/**
+ * Resumo da importacao de pedidos. {@code erros} traz no maximo
+ * icompras.pedidos.importacao.maximo-erros linhas recusadas; {@code rejeitados}
+ * conta todas.
+ */
+public record ResultadoImportacaoDTO(
+        long linhas,
+        long importados,
+        long rejeitados,
+        List<ErroImportacaoDTO> erros
+) {
+}
@@ -0,0 +1,29 @@
+package com.github.udinei.icompras.pedidos.evento;
+
+import com.github.udinei.icompras.pedidos.model.StatusPedido;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Evento de mudanca de status do pedido publicado no Kafka.
+ * O {@code codigoEvento} e o codigo do registro no outbox: a entrega e
+ * "pelo menos uma vez", entao consumidores devem usa-lo para descartar repetidos.
+ */
+public record PedidoEvento(
+        Long codigoEvento,
+        Long codigoPedido,
+        Long codigoCliente,
+        StatusPedido status,
+        BigDecimal total,
+        LocalDateTime dataPedido,
+        String chavePagamento,
+        String codigoRastreio,
+        String urlNf,
+        LocalDateTime dataEvento,
+        List<Item> itens) {
+
+    public record Item(Long codigoProduto, Integer quantidade, BigDecimal valorUnitario) {
+    }
+}
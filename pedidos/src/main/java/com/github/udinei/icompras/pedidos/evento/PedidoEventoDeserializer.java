@@ -0,0 +1,15 @@
+package com.github.udinei.icompras.pedidos.evento;
+
+import org.apache.kafka.common.serialization.Deserializer;
+
+/**
+ * Le o {@link PedidoEvento} gravado pelo {@link PedidoEventoSerializer}.
+ * Para uso dos consumidores dos topicos de pedidos.
+ */
+public class PedidoEventoDeserializer implements Deserializer<PedidoEvento> {
+
+    @Override
+    public PedidoEvento deserialize(String topic, byte[] dados) {
+        return dados == null ? null : PedidoEventoFormato.ler(dados);
+    }
+}
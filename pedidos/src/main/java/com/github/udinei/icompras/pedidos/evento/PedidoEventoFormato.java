@@ -0,0 +1,280 @@
+package com.github.udinei.icompras.pedidos.evento;
+
+import com.github.udinei.icompras.pedidos.model.StatusPedido;
+import org.apache.kafka.common.errors.SerializationException;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Formato binario versionado do {@link PedidoEvento}.
+ *
+ * <pre>
+ * versao      1 byte
+ * presenca    varint, um bit por campo nao nulo, na ordem do record
+ * campos      somente os presentes, na ordem do record:
+ *   Long           varint zigzag
+ *   StatusPedido   1 byte (ordinal; novos status so podem entrar no fim do enum)
+ *   BigDecimal     escala (varint zigzag) + valor sem escala (varint zigzag ou bytes)
+ *   LocalDateTime  segundos desde a epoca em UTC (varint zigzag) + nanos (varint)
+ *   String         tamanho (varint) + UTF-8
+ *   itens          quantidade (varint) + cada item com sua propria presenca e campos
+ * </pre>
+ *
+ * Uma nova versao do evento deve ganhar um novo numero de versao, mantendo a
+ * leitura das anteriores, para que consumidores antigos e novos convivam.
+ */
+final class PedidoEventoFormato {
+
+    static final byte VERSAO_1 = 1;
+
+    private static final StatusPedido[] STATUS = StatusPedido.values();
+
+    private PedidoEventoFormato() {
+    }
+
+    static byte[] escrever(PedidoEvento evento) {
+        var saida = new Saida(128);
+        saida.escreverByte(VERSAO_1);
+        saida.escreverVarLong(presenca(evento.codigoEvento(), evento.codigoPedido(), evento.codigoCliente(),
+                evento.status(), evento.total(), evento.dataPedido(), evento.chavePagamento(),
+                evento.codigoRastreio(), evento.urlNf(), evento.dataEvento(), evento.itens()));
+
+        saida.escreverLong(evento.codigoEvento());
+        saida.escreverLong(evento.codigoPedido());
+        saida.escreverLong(evento.codigoCliente());
+        if (evento.status() != null) {
+            saida.escreverByte((byte) evento.status().ordinal());
+        }
+        saida.escreverDecimal(evento.total());
+        saida.escreverDataHora(evento.dataPedido());
+        saida.escreverTexto(evento.chavePagamento());
+        saida.escreverTexto(evento.codigoRastreio());
+        saida.escreverTexto(evento.urlNf());
+        saida.escreverDataHora(evento.dataEvento());
+        if (evento.itens() != null) {
+            saida.escreverVarLong(evento.itens().size());
+            for (PedidoEvento.Item item : evento.itens()) {
+                saida.escreverVarLong(presenca(item.codigoProduto(), item.quantidade(), item.valorUnitario()));
+                saida.escreverLong(item.codigoProduto());
+                if (item.quantidade() != null) {
+                    saida.escreverLong(item.quantidade().longValue());
+                }
+                saida.escreverDecimal(item.valorUnitario());
+            }
+        }
+        return saida.bytes();
+    }
+
+    static PedidoEvento ler(byte[] dados) {
+        var entrada = new Entrada(dados);
+        byte versao = entrada.lerByte();
+        if (versao != VERSAO_1) {
+            throw new SerializationException("Versao de PedidoEvento nao suportada: " + versao);
+        }
+
+        long presenca = entrada.lerVarLong();
+        Long codigoEvento = presente(presenca, 0) ? entrada.lerLong() : null;
+        Long codigoPedido = presente(presenca, 1) ? entrada.lerLong() : null;
+        Long codigoCliente = presente(presenca, 2) ? entrada.lerLong() : null;
+        StatusPedido status = presente(presenca, 3) ? entrada.lerStatus() : null;
+        BigDecimal total = presente(presenca, 4) ? entrada.lerDecimal() : null;
+        LocalDateTime dataPedido = presente(presenca, 5) ? entrada.lerDataHora() : null;
+        String chavePagamento = presente(presenca, 6) ? entrada.lerTexto() : null;
+        String codigoRastreio = presente(presenca, 7) ? entrada.lerTexto() : null;
+        String urlNf = presente(presenca, 8) ? entrada.lerTexto() : null;
+        LocalDateTime dataEvento = presente(presenca, 9) ? entrada.lerDataHora() : null;
+        List<PedidoEvento.Item> itens = null;
+        if (presente(presenca, 10)) {
+            int quantidadeItens = entrada.lerTamanho();
+            itens = new ArrayList<>(quantidadeItens);
+            for (int i = 0; i < quantidadeItens; i++) {
+                long presencaItem = entrada.lerVarLong();
+                Long codigoProduto = presente(presencaItem, 0) ? entrada.lerLong() : null;
+                Integer quantidade = presente(presencaItem, 1) ? Math.toIntExact(entrada.lerLong()) : null;
+                BigDecimal valorUnitario = presente(presencaItem, 2) ? entrada.lerDecimal() : null;
+                itens.add(new PedidoEvento.Item(codigoProduto, quantidade, valorUnitario));
+            }
+        }
+        return new PedidoEvento(codigoEvento, codigoPedido, codigoCliente, status, total, dataPedido,
+                chavePagamento, codigoRastreio, urlNf, dataEvento, itens);
+    }
+
+    private static long presenca(Object... campos) {
+        long bits = 0;
+        for (int i = 0; i < campos.length; i++) {
+            if (campos[i] != null) {
+                bits |= 1L << i;
+            }
+        }
+        return bits;
+    }
+
+    private static boolean presente(long presenca, int campo) {
+        return (presenca & (1L << campo)) != 0;
+    }
+
+    private static final class Saida {
+
+        private byte[] buffer;
+        private int posicao;
+
+        Saida(int capacidade) {
+            this.buffer = new byte[capacidade];
+        }
+
+        void escreverByte(byte valor) {
+            garantir(1);
+            buffer[posicao++] = valor;
+        }
+
+        void escreverVarLong(long valor) {
+            garantir(10);
+            while ((valor & ~0x7FL) != 0) {
+                buffer[posicao++] = (byte) ((valor & 0x7F) | 0x80);
+                valor >>>= 7;
+            }
+            buffer[posicao++] = (byte) valor;
+        }
+
+        void escreverLong(Long valor) {
+            if (valor != null) {
+                escreverVarLong((valor << 1) ^ (valor >> 63));
+            }
+        }
+
+        void escreverDecimal(BigDecimal valor) {
+            if (valor == null) {
+                return;
+            }
+            escreverLong((long) valor.scale());
+            BigInteger semEscala = valor.unscaledValue();
+            if (semEscala.bitLength() < 63) {
+                // bit 0 = 0: valor cabe em um long
+                long zigzag = (semEscala.longValue() << 1) ^ (semEscala.longValue() >> 63);
+                escreverVarLong(zigzag << 1);
+            } else {
+                byte[] bytes = semEscala.toByteArray();
+                escreverVarLong(((long) bytes.length << 1) | 1);
+                escreverBytes(bytes);
+            }
+        }
+
+        void escreverDataHora(LocalDateTime valor) {
+            if (valor != null) {
+                escreverLong(valor.toEpochSecond(ZoneOffset.UTC));
+                escreverVarLong(valor.getNano());
+            }
+        }
+
+        void escreverTexto(String valor) {
+            if (valor != null) {
+                byte[] bytes = valor.getBytes(StandardCharsets.UTF_8);
+                escreverVarLong(bytes.length);
+                escreverBytes(bytes);
+            }
+        }
+
+        private void escreverBytes(byte[] bytes) {
+            garantir(bytes.length);
+            System.arraycopy(bytes, 0, buffer, posicao, bytes.length);
+            posicao += bytes.length;
+        }
+
+        private void garantir(int adicional) {
+            if (posicao + adicional > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, posicao + adicional));
+            }
+        }
+
+        byte[] bytes() {
+            return Arrays.copyOf(buffer, posicao);
+        }
+    }
+
+    private static final class Entrada {
+
+        private final byte[] dados;
+        private int posicao;
+
+        Entrada(byte[] dados) {
+            this.dados = dados;
+        }
+
+        byte lerByte() {
+            if (posicao >= dados.length) {
+                throw new SerializationException("PedidoEvento truncado");
+            }
+            return dados[posicao++];
+        }
+
+        long lerVarLong() {
+            long valor = 0;
+            for (int deslocamento = 0; deslocamento < 64; deslocamento += 7) {
+                byte b = lerByte();
+                valor |= (long) (b & 0x7F) << deslocamento;
+                if ((b & 0x80) == 0) {
+                    return valor;
+                }
+            }
+            throw new SerializationException("Varint invalido em PedidoEvento");
+        }
+
+        long lerLong() {
+            long zigzag = lerVarLong();
+            return (zigzag >>> 1) ^ -(zigzag & 1);
+        }
+
+        int lerTamanho() {
+            long tamanho = lerVarLong();
+            if (tamanho < 0 || tamanho > dados.length - posicao) {
+                throw new SerializationException("Tamanho invalido em PedidoEvento: " + tamanho);
+            }
+            return (int) tamanho;
+        }
+
+        StatusPedido lerStatus() {
+            int codigo = lerByte();
+            if (codigo < 0 || codigo >= STATUS.length) {
+                throw new SerializationException("Status desconhecido em PedidoEvento: " + codigo);
+            }
+            return STATUS[codigo];
+        }
+
+        BigDecimal lerDecimal() {
+            int escala = Math.toIntExact(lerLong());
+            long cabecalho = lerVarLong();
+            if ((cabecalho & 1) == 0) {
+                long zigzag = cabecalho >>> 1;
+                return BigDecimal.valueOf((zigzag >>> 1) ^ -(zigzag & 1), escala);
+            }
+            // Comparado como long: o cast para int de um tamanho corrompido pode ficar negativo
+            long tamanho = cabecalho >>> 1;
+            if (tamanho == 0 || tamanho > dados.length - posicao) {
+                throw new SerializationException("Tamanho invalido em PedidoEvento: " + tamanho);
+            }
+            byte[] bytes = Arrays.copyOfRange(dados, posicao, posicao + (int) tamanho);
+            posicao += (int) tamanho;
+            return new BigDecimal(new BigInteger(bytes), escala);
+        }
+
+        LocalDateTime lerDataHora() {
+            long segundos = lerLong();
+            int nanos = Math.toIntExact(lerVarLong());
+            return LocalDateTime.ofEpochSecond(segundos, nanos, ZoneOffset.UTC);
+        }
+
+        String lerTexto() {
+            int tamanho = lerTamanho();
+            String valor = new String(dados, posicao, tamanho, StandardCharsets.UTF_8);
+            posicao += tamanho;
+            return valor;
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.github.udinei.icompras.pedidos.evento;
+
+import org.apache.kafka.common.serialization.Serializer;
+
+/**
+ * Serializa o {@link PedidoEvento} no formato binario de {@link PedidoEventoFormato}.
+ */
+public class PedidoEventoSerializer implements Serializer<PedidoEvento> {
+
+    @Override
+    public byte[] serialize(String topic, PedidoEvento evento) {
+        return evento == null ? null : PedidoEventoFormato.escrever(evento);
+    }
+}
@@ -0,0 +1,56 @@
+package com.github.udinei.icompras.pedidos.evento;
+
+import com.github.udinei.icompras.pedidos.dto.RecebimentoCallBackPagamentoDTO;
+import com.github.udinei.icompras.pedidos.model.CallbackPagamento;
+import com.github.udinei.icompras.pedidos.service.CallbackPagamentoService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Le os resultados de pagamento publicados pelo banco no Kafka (mesmo JSON do
+ * callback HTTP, com o codigo do pedido como chave: os resultados de um pedido
+ * ficam na mesma particao, em ordem). Cada lote lido e aplicado de uma vez
+ * pelo {@link CallbackPagamentoService}; dentro do lote vale o ultimo
+ * resultado de cada pedido.
+ */
+@Component
+@ConditionalOnProperty(name = "icompras.pedidos.resultados-pagamento.kafka.habilitado", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class ResultadoPagamentoListener {
+
+    private final CallbackPagamentoService callbackPagamentoService;
+
+    @KafkaListener(topics = "${icompras.config.kafka.topics.resultados-pagamento}",
+            containerFactory = "resultadosPagamentoListenerFactory")
+    public void receber(List<ConsumerRecord<String, RecebimentoCallBackPagamentoDTO>> registros) {
+        List<CallbackPagamento> callbacks = new ArrayList<>(registros.size());
+        for (var registro : registros) {
+            RecebimentoCallBackPagamentoDTO resultado = registro.value();
+            if (resultado == null || resultado.codigo() == null) {
+                log.error("Resultado de pagamento invalido descartado: particao {} offset {}",
+                        registro.partition(), registro.offset());
+                continue;
+            }
+            callbacks.add(new CallbackPagamento(resultado.codigo(), resultado.chavePagamento(),
+                    resultado.status(), resultado.observacoes(), dataPublicacao(registro)));
+        }
+        if (!callbacks.isEmpty()) {
+            callbackPagamentoService.aplicarLote(callbacks);
+        }
+    }
+
+    private static LocalDateTime dataPublicacao(ConsumerRecord<?, ?> registro) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(registro.timestamp()), ZoneId.systemDefault());
+    }
+}
@@ -2,13 +2,25 @@ package com.github.udinei.icompras.pedidos.mapper;
 
 import com.github.udinei.icompras.pedidos.dto.ItemPedidoDTO;
 import com.github.udinei.icompras.pedidos.dto.NovoItemPedidoDTO;
+import com.github.udinei.icompras.pedidos.model.Dinheiro;
 import com.github.udinei.icompras.pedidos.model.ItemPedido;
 import org.mapstruct.Mapper;
 
+import java.math.BigDecimal;
+
 @Mapper(componentModel = "spring")
 public interface ItemPedidoMapper {
     
     ItemPedido map(ItemPedidoDTO dto);
     ItemPedido map(NovoItemPedidoDTO dto);
     ItemPedidoDTO map(ItemPedido entity);
+
+    // Valores monetarios: BigDecimal no JSON, Dinheiro (centavos) no dominio
+    default Dinheiro paraDinheiro(BigDecimal valor) {
+        return valor == null ? null : Dinheiro.de(valor);
+    }
+
+    default BigDecimal paraBigDecimal(Dinheiro dinheiro) {
+        return dinheiro == null ? null : dinheiro.valor();
+    }
 }
@@ -4,13 +4,14 @@ import com.github.udinei.icompras.pedidos.dto.DadosPagamentoDTO;
 import com.github.udinei.icompras.pedidos.dto.NovoItemPedidoDTO;
 import com.github.udinei.icompras.pedidos.dto.NovoPedidoDTO;
 import com.github.udinei.icompras.pedidos.dto.PedidoDTO;
+import com.github.udinei.icompras.pedidos.model.Dinheiro;
 import com.github.udinei.icompras.pedidos.model.ItemPedido;
 import com.github.udinei.icompras.pedidos.model.Pedido;
 import com.github.udinei.icompras.pedidos.model.StatusPedido;
+import com.github.udinei.icompras.pedidos.model.exception.ValidationException;
 import org.mapstruct.*;
 import org.mapstruct.factory.Mappers;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -22,6 +23,11 @@ public interface PedidoMapper {
     
     @Mapping(source = "itens", target = "itens", qualifiedByName = "mapItens")
     @Mapping(target = "dadosPagamento", ignore = true)
+    // O total e sempre calculado a partir dos itens (afterMapping)
+    @Mapping(target = "total", ignore = true)
+    // Gerados pelo banco (sequence) e pelo Hibernate (@Version)
+    @Mapping(target = "codigo", ignore = true)
+    @Mapping(target = "versao", ignore = true)
     @Mapping(source = "dadosPagamento.tipoPagamento", target = "tipoPagamento")
     @Mapping(source = "dadosPagamento.chavePix", target = "chavePix")
     @Mapping(source = "dadosPagamento.numeroCartao", target = "numeroCartao")
@@ -43,11 +49,21 @@ public interface PedidoMapper {
         pedido.getItens().forEach(item -> item.setPedido(pedido));
     }
     
-    private static BigDecimal calcularTotal(Pedido pedido) {
-        return pedido.getItens().stream()
-                .map(item -> item.getValorUnitario().multiply(BigDecimal.valueOf(item.getQuantidade())))
-                .reduce(BigDecimal.ZERO, BigDecimal::add)
-                .abs();
+    /**
+     * Soma os subtotais em centavos, sem criar objetos por item. Um total acima
+     * do maximo de {@link Dinheiro} e recusado como erro de validacao.
+     */
+    static Dinheiro calcularTotal(Pedido pedido) {
+        try {
+            long centavos = 0;
+            for (ItemPedido item : pedido.getItens()) {
+                long subtotal = Dinheiro.multiplicarCentavos(item.getValorUnitario().centavos(), item.getQuantidade());
+                centavos = Dinheiro.somarCentavos(centavos, subtotal);
+            }
+            return new Dinheiro(centavos);
+        } catch (ArithmeticException e) {
+            throw new ValidationException("itens", "Total do pedido excede o valor máximo permitido.");
+        }
     }
     
     default PedidoDTO map(Pedido pedido) {
@@ -74,7 +90,7 @@ public interface PedidoMapper {
             dadosPagamento,
             pedido.getObservacoes(),
             pedido.getStatus(),
-            pedido.getTotal(),
+            ITEM_PEDIDO_MAPPER.paraBigDecimal(pedido.getTotal()),
             pedido.getCodigoRastreio(),
             pedido.getUrlNf(),
             pedido.getChavePagamento(),
@@ -0,0 +1,58 @@
+package com.github.udinei.icompras.pedidos.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Callback do banco com o resultado do pagamento de um pedido, aguardando ser
+ * aplicado. Fica na fila em memoria do CallbackPagamentoService e, quando ela
+ * esta cheia, na tabela callback_pagamento, onde conta as tentativas de
+ * aplica-lo.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@Entity
+@Table(name = "callback_pagamento")
+public class CallbackPagamento {
+
+    @Id
+    @Column(name = "codigo_pedido")
+    private Long codigoPedido;
+
+    @Column(name = "chave_pagamento", columnDefinition = "TEXT")
+    private String chavePagamento;
+
+    @Column(nullable = false)
+    private boolean sucesso;
+
+    @Column(columnDefinition = "TEXT")
+    private String observacoes;
+
+    @Column(name = "data_recebimento", nullable = false)
+    private LocalDateTime dataRecebimento;
+
+    @Column(nullable = false)
+    private int tentativas;
+
+    // Nula quando o callback foi retido depois do maximo de tentativas
+    @Column(name = "proxima_tentativa")
+    private LocalDateTime proximaTentativa;
+
+    public CallbackPagamento(Long codigoPedido, String chavePagamento, boolean sucesso, String observacoes,
+                             LocalDateTime dataRecebimento) {
+        this.codigoPedido = codigoPedido;
+        this.chavePagamento = chavePagamento;
+        this.sucesso = sucesso;
+        this.observacoes = observacoes;
+        this.dataRecebimento = dataRecebimento;
+        this.proximaTentativa = dataRecebimento;
+    }
+}
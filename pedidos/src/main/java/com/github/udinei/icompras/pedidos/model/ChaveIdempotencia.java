@@ -0,0 +1,44 @@
+package com.github.udinei.icompras.pedidos.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Idempotency-Key de uma criacao de pedido. Enquanto o pedido e criado a
+ * resposta fica nula; depois guarda o PedidoDTO (JSON) devolvido ao cliente.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "chave_idempotencia")
+public class ChaveIdempotencia {
+
+    @Id
+    private String chave;
+
+    // SHA-256 do corpo da requisicao: a mesma chave com outro corpo e recusada
+    @Column(name = "hash_requisicao", nullable = false, length = 64)
+    private String hashRequisicao;
+
+    @Column(name = "codigo_pedido")
+    private Long codigoPedido;
+
+    @Column(columnDefinition = "TEXT")
+    private String resposta;
+
+    @Column(name = "data_criacao", nullable = false)
+    private LocalDateTime dataCriacao;
+
+    @Column(name = "expira_em", nullable = false)
+    private LocalDateTime expiraEm;
+}
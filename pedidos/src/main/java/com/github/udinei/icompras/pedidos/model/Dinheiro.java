@@ -0,0 +1,82 @@
+package com.github.udinei.icompras.pedidos.model;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Valor em reais guardado como centavos em um {@code long}. Os valores do
+ * pedido (precos, subtotais e total) sao sempre positivos ou zero e cabem em
+ * NUMERIC(16,2), como nas colunas do banco; qualquer conta que saia dessa faixa
+ * lanca ArithmeticException em vez de arredondar ou trocar o sinal.
+ * BigDecimal so aparece nas bordas: JSON (DTOs) e JPA ({@link DinheiroConverter}).
+ */
+public record Dinheiro(long centavos) implements Comparable<Dinheiro> {
+
+    /** Maior valor de uma coluna NUMERIC(16,2): 99.999.999.999.999,99 */
+    public static final long MAXIMO_CENTAVOS = 9_999_999_999_999_999L;
+
+    public static final Dinheiro ZERO = new Dinheiro(0);
+
+    public Dinheiro {
+        if (centavos < 0) {
+            throw new IllegalArgumentException("Valor monetário negativo: " + centavos + " centavos");
+        }
+        if (centavos > MAXIMO_CENTAVOS) {
+            throw new ArithmeticException("Valor monetário acima do máximo: " + centavos + " centavos");
+        }
+    }
+
+    /**
+     * Converte um valor com no maximo duas casas decimais; casas alem dos
+     * centavos diferentes de zero sao recusadas (ArithmeticException).
+     */
+    public static Dinheiro de(BigDecimal valor) {
+        return new Dinheiro(valor.setScale(2, RoundingMode.UNNECESSARY).unscaledValue().longValueExact());
+    }
+
+    public Dinheiro multiplicar(int quantidade) {
+        return new Dinheiro(multiplicarCentavos(centavos, quantidade));
+    }
+
+    public Dinheiro somar(Dinheiro outro) {
+        return new Dinheiro(somarCentavos(centavos, outro.centavos));
+    }
+
+    /**
+     * Versao em centavos de {@link #multiplicar(int)}, para somatorios que nao
+     * devem criar um objeto por item.
+     */
+    public static long multiplicarCentavos(long centavos, int quantidade) {
+        if (quantidade < 0) {
+            throw new IllegalArgumentException("Quantidade negativa: " + quantidade);
+        }
+        return limitar(Math.multiplyExact(centavos, quantidade));
+    }
+
+    /** Versao em centavos de {@link #somar(Dinheiro)}. */
+    public static long somarCentavos(long centavos, long outrosCentavos) {
+        return limitar(Math.addExact(centavos, outrosCentavos));
+    }
+
+    /** O valor em reais, com duas casas decimais. */
+    public BigDecimal valor() {
+        return BigDecimal.valueOf(centavos, 2);
+    }
+
+    @Override
+    public int compareTo(Dinheiro outro) {
+        return Long.compare(centavos, outro.centavos);
+    }
+
+    @Override
+    public String toString() {
+        return valor().toPlainString();
+    }
+
+    private static long limitar(long centavos) {
+        if (centavos > MAXIMO_CENTAVOS) {
+            throw new ArithmeticException("Valor monetário acima do máximo: " + centavos + " centavos");
+        }
+        return centavos;
+    }
+}
@@ -0,0 +1,23 @@
+package com.github.udinei.icompras.pedidos.model;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.math.BigDecimal;
+
+/**
+ * Grava os atributos {@link Dinheiro} das entidades nas colunas NUMERIC(16,2).
+ */
+@Converter(autoApply = true)
+public class DinheiroConverter implements AttributeConverter<Dinheiro, BigDecimal> {
+
+    @Override
+    public BigDecimal convertToDatabaseColumn(Dinheiro dinheiro) {
+        return dinheiro == null ? null : dinheiro.valor();
+    }
+
+    @Override
+    public Dinheiro convertToEntityAttribute(BigDecimal valor) {
+        return valor == null ? null : Dinheiro.de(valor);
+    }
+}
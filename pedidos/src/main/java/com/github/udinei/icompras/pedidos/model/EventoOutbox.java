@@ -0,0 +1,47 @@
+package com.github.udinei.icompras.pedidos.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Registro do outbox transacional: gravado na mesma transacao que altera o
+ * pedido e processado depois do commit, fora da transacao.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "outbox_evento")
+public class EventoOutbox {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long codigo;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 40)
+    private TipoEventoOutbox tipo;
+
+    @Column(name = "codigo_pedido", nullable = false)
+    private Long codigoPedido;
+
+    @Column(name = "data_criacao", nullable = false)
+    private LocalDateTime dataCriacao;
+
+    // Enquanto o evento esta reservado por quem o processa, outro processador nao o pega.
+    // Nula quando o evento foi retido depois do maximo de tentativas
+    @Column(name = "proxima_tentativa")
+    private LocalDateTime proximaTentativa;
+
+    @Column(nullable = false)
+    private int tentativas;
+
+    @Column(name = "data_processamento")
+    private LocalDateTime dataProcessamento;
+}
@@ -1,7 +1,5 @@
 package com.github.udinei.icompras.pedidos.model;
 
-import java.math.BigDecimal;
-
 import com.fasterxml.jackson.annotation.JsonIgnore;
 
 import jakarta.persistence.Column;
@@ -12,6 +10,7 @@ import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
@@ -27,7 +26,8 @@ import lombok.Setter;
 public class ItemPedido {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "item_pedido_seq")
+    @SequenceGenerator(name = "item_pedido_seq", sequenceName = "item_pedido_codigo_seq", allocationSize = 50)
     private Long codigo;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -42,9 +42,9 @@ public class ItemPedido {
     private Integer quantidade;
 
     @Column(name = "valor_unitario", nullable = false, precision = 16, scale = 2)
-    private BigDecimal valorUnitario;
+    private Dinheiro valorUnitario;
 
-    public BigDecimal getSubtotal() {
-        return valorUnitario.multiply(BigDecimal.valueOf(quantidade));
+    public Dinheiro getSubtotal() {
+        return valorUnitario.multiplicar(quantidade);
     }
 }
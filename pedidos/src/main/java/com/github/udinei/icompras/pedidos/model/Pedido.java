@@ -6,11 +6,16 @@ import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.BatchSize;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 @Getter
 @Setter
@@ -20,8 +25,10 @@ import java.util.List;
 @Table(name = "pedido")
 public class Pedido {
 
+    // Sequence com alocacao em bloco: o Hibernate conhece o id antes do insert e pode agrupa-los em lote (IDENTITY impede)
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "pedido_seq")
+    @SequenceGenerator(name = "pedido_seq", sequenceName = "pedido_codigo_seq", allocationSize = 50)
     private Long codigo;
 
     @Column(name = "codigo_cliente", nullable = false)
@@ -55,7 +62,7 @@ public class Pedido {
     private StatusPedido status;
 
     @Column(nullable = false, precision = 16, scale = 2)
-    private BigDecimal total;
+    private Dinheiro total;
 
     @Column(name = "codigo_rastreio", length = 255)
     private String codigoRastreio;
@@ -63,6 +70,8 @@ public class Pedido {
     @Column(name = "url_nf", columnDefinition = "TEXT")
     private String urlNf;
 
+    // Ao mapear uma lista de pedidos, os itens sao carregados de uma vez para todos (IN), nao um select por pedido
+    @BatchSize(size = 500)
     @OneToMany(mappedBy = "pedido", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
     private List<ItemPedido> itens = new ArrayList<>();
 
@@ -73,6 +82,11 @@ public class Pedido {
     @Column(name = "chave_pagamento")
     private String chavePagamento;
 
+    // Atualizacao completa concorrente com outra alteracao do pedido falha em vez de sobrescreve-la
+    @Version
+    @Column(nullable = false)
+    private Long versao;
+
     @PrePersist
     protected void onCreate() {
         if (dataPedido == null) {
@@ -90,6 +104,37 @@ public class Pedido {
         item.setPedido(null);
     }
 
+    /**
+     * Troca os itens pelos novos alterando so o necessario: itens do mesmo
+     * produto sao atualizados no lugar, os que sobram sao removidos
+     * (orphanRemoval) e os demais inseridos. Editar uma linha de um pedido
+     * grande gera um UPDATE, e nao um DELETE e um INSERT por item.
+     */
+    public void substituirItens(List<ItemPedido> novosItens) {
+        // Mesmo produto pode aparecer mais de uma vez: casados na ordem em que aparecem
+        Map<Long, Deque<ItemPedido>> atuaisPorProduto = new HashMap<>();
+        itens.forEach(item -> atuaisPorProduto
+                .computeIfAbsent(item.getCodigoProduto(), produto -> new ArrayDeque<>())
+                .add(item));
+
+        List<ItemPedido> inseridos = new ArrayList<>();
+        for (ItemPedido novo : novosItens) {
+            ItemPedido atual = Optional.ofNullable(atuaisPorProduto.get(novo.getCodigoProduto()))
+                    .map(Deque::poll)
+                    .orElse(null);
+            if (atual == null) {
+                inseridos.add(novo);
+                continue;
+            }
+            // Sem mudanca de valores o dirty checking nao gera UPDATE
+            atual.setQuantidade(novo.getQuantidade());
+            atual.setValorUnitario(novo.getValorUnitario());
+        }
+
+        atuaisPorProduto.values().forEach(removidos -> removidos.forEach(this::removeItem));
+        inseridos.forEach(this::addItem);
+    }
+
     public void clearItens() {
         itens.forEach(item -> item.setPedido(null));
         itens.clear();
@@ -1,10 +1,36 @@
 package com.github.udinei.icompras.pedidos.model;
 
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
 public enum StatusPedido {
     REALIZADO,
     PAGO,
     FATURADO,
     ENVIADO,
     ERRO_PAGAMENTO,
-    PREPARANDO_ENVIO
+    PREPARANDO_ENVIO;
+
+    // Transicoes permitidas: status de destino -> status de onde o pedido pode vir
+    private static final Map<StatusPedido, Set<StatusPedido>> ANTERIORES = new EnumMap<>(StatusPedido.class);
+
+    static {
+        ANTERIORES.put(REALIZADO, EnumSet.of(ERRO_PAGAMENTO));
+        ANTERIORES.put(PAGO, EnumSet.of(REALIZADO, ERRO_PAGAMENTO));
+        ANTERIORES.put(ERRO_PAGAMENTO, EnumSet.of(REALIZADO));
+        ANTERIORES.put(FATURADO, EnumSet.of(PAGO));
+        ANTERIORES.put(PREPARANDO_ENVIO, EnumSet.of(FATURADO));
+        ANTERIORES.put(ENVIADO, EnumSet.of(FATURADO, PREPARANDO_ENVIO));
+    }
+
+    /** Status a partir dos quais um pedido pode passar para este */
+    public Set<StatusPedido> anteriores() {
+        return ANTERIORES.get(this);
+    }
+
+    public boolean permiteTransicaoDe(StatusPedido atual) {
+        return anteriores().contains(atual);
+    }
 }
@@ -0,0 +1,37 @@
+package com.github.udinei.icompras.pedidos.model;
+
+import java.util.EnumSet;
+import java.util.Optional;
+import java.util.Set;
+
+public enum TipoEventoOutbox {
+    SOLICITACAO_PAGAMENTO,
+    PEDIDO_PAGO,
+    PEDIDO_FATURADO,
+    PEDIDO_ENVIADO;
+
+    /** Tipos publicados no Kafka pelo relay de eventos do pedido */
+    public static final Set<TipoEventoOutbox> EVENTOS_PEDIDO = EnumSet.of(PEDIDO_PAGO, PEDIDO_FATURADO, PEDIDO_ENVIADO);
+
+    /** Evento publicado quando o pedido entra no status informado, se houver */
+    public static Optional<TipoEventoOutbox> deStatus(StatusPedido status) {
+        if (status == null) {
+            return Optional.empty();
+        }
+        return switch (status) {
+            case PAGO -> Optional.of(PEDIDO_PAGO);
+            case FATURADO -> Optional.of(PEDIDO_FATURADO);
+            case ENVIADO -> Optional.of(PEDIDO_ENVIADO);
+            default -> Optional.empty();
+        };
+    }
+
+    public StatusPedido getStatus() {
+        return switch (this) {
+            case PEDIDO_PAGO -> StatusPedido.PAGO;
+            case PEDIDO_FATURADO -> StatusPedido.FATURADO;
+            case PEDIDO_ENVIADO -> StatusPedido.ENVIADO;
+            case SOLICITACAO_PAGAMENTO -> StatusPedido.REALIZADO;
+        };
+    }
+}
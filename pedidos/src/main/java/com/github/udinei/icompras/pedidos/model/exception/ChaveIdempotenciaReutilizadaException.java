@@ -0,0 +1,8 @@
+package com.github.udinei.icompras.pedidos.model.exception;
+
+public class ChaveIdempotenciaReutilizadaException extends RuntimeException {
+
+    public ChaveIdempotenciaReutilizadaException(String message) {
+        super(message);
+    }
+}
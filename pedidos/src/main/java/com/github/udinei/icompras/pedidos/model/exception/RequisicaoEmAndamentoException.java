@@ -0,0 +1,8 @@
+package com.github.udinei.icompras.pedidos.model.exception;
+
+public class RequisicaoEmAndamentoException extends RuntimeException {
+
+    public RequisicaoEmAndamentoException(String message) {
+        super(message);
+    }
+}
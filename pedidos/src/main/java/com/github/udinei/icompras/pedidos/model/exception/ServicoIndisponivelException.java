@@ -0,0 +1,12 @@
+package com.github.udinei.icompras.pedidos.model.exception;
+
+public class ServicoIndisponivelException extends RuntimeException {
+
+    public ServicoIndisponivelException(String message) {
+        super(message);
+    }
+
+    public ServicoIndisponivelException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
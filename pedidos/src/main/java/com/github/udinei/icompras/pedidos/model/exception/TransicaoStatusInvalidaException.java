@@ -0,0 +1,8 @@
+package com.github.udinei.icompras.pedidos.model.exception;
+
+public class TransicaoStatusInvalidaException extends RuntimeException {
+
+    public TransicaoStatusInvalidaException(String message) {
+        super(message);
+    }
+}
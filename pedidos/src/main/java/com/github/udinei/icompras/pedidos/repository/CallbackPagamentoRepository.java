@@ -0,0 +1,67 @@
+package com.github.udinei.icompras.pedidos.repository;
+
+import com.github.udinei.icompras.pedidos.model.CallbackPagamento;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface CallbackPagamentoRepository extends JpaRepository<CallbackPagamento, Long> {
+
+    /**
+     * Grava o callback no transbordo. Um callback do mesmo pedido que ja esteja
+     * na tabela e substituido, com as tentativas zeradas, a menos que seja mais
+     * recente que este.
+     */
+    @Modifying
+    @Query(value = """
+            insert into callback_pagamento (codigo_pedido, chave_pagamento, sucesso, observacoes, data_recebimento,
+                                            tentativas, proxima_tentativa)
+            values (:codigoPedido, :chavePagamento, :sucesso, :observacoes, :dataRecebimento, 0, :dataRecebimento)
+            on conflict (codigo_pedido) do update
+               set chave_pagamento = excluded.chave_pagamento, sucesso = excluded.sucesso,
+                   observacoes = excluded.observacoes, data_recebimento = excluded.data_recebimento,
+                   tentativas = 0, proxima_tentativa = excluded.proxima_tentativa
+             where callback_pagamento.data_recebimento <= excluded.data_recebimento
+            """, nativeQuery = true)
+    int transbordar(@Param("codigoPedido") Long codigoPedido,
+                    @Param("chavePagamento") String chavePagamento,
+                    @Param("sucesso") boolean sucesso,
+                    @Param("observacoes") String observacoes,
+                    @Param("dataRecebimento") LocalDateTime dataRecebimento);
+
+    /**
+     * Bloqueia o proximo lote do transbordo (SELECT ... FOR UPDATE SKIP LOCKED):
+     * instancias concorrentes pegam lotes diferentes. Callbacks adiados depois de
+     * uma falha, ou retidos, ficam de fora e nao seguram os seguintes.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    List<CallbackPagamento> findByProximaTentativaLessThanEqualOrderByDataRecebimento(LocalDateTime agora,
+                                                                                       Limit limite);
+
+    /**
+     * Conta uma falha ao aplicar o callback e adia a proxima tentativa (nula para
+     * reter o callback). Nao altera um callback mais novo que ja o substituiu.
+     */
+    @Modifying
+    @Query("""
+            update CallbackPagamento c
+               set c.tentativas = :tentativas, c.proximaTentativa = :proximaTentativa
+             where c.codigoPedido = :codigoPedido and c.dataRecebimento = :dataRecebimento
+            """)
+    int registrarFalha(@Param("codigoPedido") Long codigoPedido,
+                       @Param("dataRecebimento") LocalDateTime dataRecebimento,
+                       @Param("tentativas") int tentativas,
+                       @Param("proximaTentativa") LocalDateTime proximaTentativa);
+}
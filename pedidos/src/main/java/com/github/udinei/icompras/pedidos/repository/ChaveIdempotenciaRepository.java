@@ -0,0 +1,53 @@
+package com.github.udinei.icompras.pedidos.repository;
+
+import com.github.udinei.icompras.pedidos.model.ChaveIdempotencia;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface ChaveIdempotenciaRepository extends JpaRepository<ChaveIdempotencia, String> {
+
+    /**
+     * Reserva a chave para quem vai criar o pedido (INSERT ... ON CONFLICT), ocupando
+     * de novo uma chave ja expirada, inclusive a reserva de quem parou sem responder. Retorna 0 quando a chave esta reservada ou
+     * respondida por outra requisicao, inclusive de outra instancia.
+     */
+    @Modifying
+    @Query(value = """
+            insert into chave_idempotencia (chave, hash_requisicao, data_criacao, expira_em)
+            values (:chave, :hash, :agora, :expiraEm)
+            on conflict (chave) do update
+               set hash_requisicao = excluded.hash_requisicao, codigo_pedido = null, resposta = null,
+                   data_criacao = excluded.data_criacao, expira_em = excluded.expira_em
+             where chave_idempotencia.expira_em <= excluded.data_criacao
+            """, nativeQuery = true)
+    int reservar(@Param("chave") String chave,
+                 @Param("hash") String hash,
+                 @Param("agora") LocalDateTime agora,
+                 @Param("expiraEm") LocalDateTime expiraEm);
+
+    @Modifying
+    @Query("""
+            update ChaveIdempotencia c
+               set c.codigoPedido = :codigoPedido, c.resposta = :resposta, c.expiraEm = :expiraEm
+             where c.chave = :chave
+            """)
+    int registrarResposta(@Param("chave") String chave,
+                          @Param("codigoPedido") Long codigoPedido,
+                          @Param("resposta") String resposta,
+                          @Param("expiraEm") LocalDateTime expiraEm);
+
+    /** Libera a reserva de uma criacao que falhou, para que o cliente possa repetir. */
+    @Modifying
+    @Query("delete from ChaveIdempotencia c where c.chave = :chave and c.resposta is null")
+    int liberar(@Param("chave") String chave);
+
+    @Modifying
+    @Query("delete from ChaveIdempotencia c where c.expiraEm < :agora")
+    int excluirExpiradas(@Param("agora") LocalDateTime agora);
+}
@@ -0,0 +1,107 @@
+package com.github.udinei.icompras.pedidos.repository;
+
+import com.github.udinei.icompras.pedidos.model.EventoOutbox;
+import com.github.udinei.icompras.pedidos.model.TipoEventoOutbox;
+import org.springframework.data.domain.Limit;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface EventoOutboxRepository extends JpaRepository<EventoOutbox, Long> {
+
+    List<EventoOutbox> findByTipoAndDataProcessamentoIsNullAndProximaTentativaBeforeOrderByCodigo(
+            TipoEventoOutbox tipo, LocalDateTime agora, Limit limite);
+
+    /**
+     * Bloqueia o proximo lote de eventos pendentes (SELECT ... FOR UPDATE SKIP LOCKED):
+     * instancias concorrentes do relay pegam lotes diferentes, sem esperar umas pelas outras.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    List<EventoOutbox> findByTipoInAndDataProcessamentoIsNullOrderByCodigo(
+            Collection<TipoEventoOutbox> tipos, Limit limite);
+
+    /**
+     * Reserva o evento ate {@code reservadoAte}. Retorna 0 quando outro
+     * processador ja o reservou ou quando ele ja foi processado.
+     */
+    @Modifying
+    @Query("""
+            update EventoOutbox e
+               set e.proximaTentativa = :reservadoAte, e.tentativas = e.tentativas + 1
+             where e.codigo = :codigo
+               and e.dataProcessamento is null
+               and e.proximaTentativa <= :agora
+            """)
+    int reservar(@Param("codigo") Long codigo,
+                 @Param("agora") LocalDateTime agora,
+                 @Param("reservadoAte") LocalDateTime reservadoAte);
+
+    /**
+     * Marca o evento como processado se a reserva ate {@code reservadoAte} ainda
+     * for de quem o processou. Retorna 0 quando a reserva expirou e o evento foi
+     * reservado de novo ou ja processado por outro processador.
+     */
+    @Modifying
+    @Query("""
+            update EventoOutbox e
+               set e.dataProcessamento = :data
+             where e.codigo = :codigo
+               and e.dataProcessamento is null
+               and e.proximaTentativa = :reservadoAte
+            """)
+    int marcarProcessado(@Param("codigo") Long codigo,
+                         @Param("reservadoAte") LocalDateTime reservadoAte,
+                         @Param("data") LocalDateTime data);
+
+    @Modifying
+    @Query("update EventoOutbox e set e.dataProcessamento = :data where e.codigo in :codigos")
+    int marcarProcessados(@Param("codigos") Collection<Long> codigos, @Param("data") LocalDateTime data);
+
+    /**
+     * Adia a proxima tentativa do evento que falhou (nula para rete-lo), se a
+     * reserva ate {@code reservadoAte} ainda for de quem o processou.
+     */
+    @Modifying
+    @Query("""
+            update EventoOutbox e
+               set e.proximaTentativa = :proximaTentativa
+             where e.codigo = :codigo
+               and e.dataProcessamento is null
+               and e.proximaTentativa = :reservadoAte
+            """)
+    int adiar(@Param("codigo") Long codigo,
+              @Param("reservadoAte") LocalDateTime reservadoAte,
+              @Param("proximaTentativa") LocalDateTime proximaTentativa);
+
+    /** Eventos ja processados ha mais tempo que a retencao */
+    @Modifying
+    @Query("delete from EventoOutbox e where e.dataProcessamento < :limite")
+    int excluirProcessados(@Param("limite") LocalDateTime limite);
+
+    /**
+     * Grava pendente o evento de cada pedido informado em um unico INSERT ... SELECT:
+     * com IDENTITY o Hibernate nao agrupa os inserts em lote.
+     */
+    @Modifying
+    @Query(value = """
+            insert into outbox_evento (tipo, codigo_pedido, data_criacao, proxima_tentativa, tentativas)
+            select :tipo, p.codigo, :agora, :agora, 0
+              from pedido p
+             where p.codigo in :codigosPedidos
+            """, nativeQuery = true)
+    int registrarPendentes(@Param("tipo") String tipo,
+                           @Param("codigosPedidos") Collection<Long> codigosPedidos,
+                           @Param("agora") LocalDateTime agora);
+}
@@ -2,10 +2,16 @@ package com.github.udinei.icompras.pedidos.repository;
 
 import com.github.udinei.icompras.pedidos.model.Pedido;
 import com.github.udinei.icompras.pedidos.model.StatusPedido;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
-import javax.swing.text.html.Option;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -14,9 +20,83 @@ public interface PedidoRepository extends JpaRepository<Pedido, Long> {
 
     Optional<Pedido> findByCodigoAndChavePagamento(Long codigo, String chavePagameento);
 
+    // Listagens sem limite trazem os itens no mesmo select (join fetch)
+
+    @Override
+    @EntityGraph(attributePaths = "itens")
+    List<Pedido> findAll();
+
+    @EntityGraph(attributePaths = "itens")
     List<Pedido> findByCodigoCliente(Long codigoCliente);
-    
+
+    @EntityGraph(attributePaths = "itens")
     List<Pedido> findByStatus(StatusPedido status);
 
+    // Paginacao por cursor (keyset): "codigo > apos" usa o indice e nao degrada com OFFSET alto.
+    // Join fetch com limite seria paginado em memoria; os itens da pagina vem por @BatchSize em Pedido.itens
+
+    List<Pedido> findByCodigoGreaterThanOrderByCodigo(Long apos, Limit limite);
+
+    List<Pedido> findByCodigoClienteAndCodigoGreaterThanOrderByCodigo(Long codigoCliente, Long apos, Limit limite);
+
+    List<Pedido> findByStatusAndCodigoGreaterThanOrderByCodigo(StatusPedido status, Long apos, Limit limite);
+
+    @Query("select distinct p from Pedido p left join fetch p.itens where p.codigo in :codigos")
+    List<Pedido> findComItensByCodigoIn(@Param("codigos") Collection<Long> codigos);
+
+    @Modifying
+    @Query("update Pedido p set p.chavePagamento = :chavePagamento, p.versao = p.versao + 1 where p.codigo = :codigo")
+    int atualizarChavePagamento(@Param("codigo") Long codigo, @Param("chavePagamento") String chavePagamento);
+
+    /** Dados que o processamento dos callbacks de pagamento confere, sem carregar o pedido inteiro */
+    interface SituacaoPagamento {
+        Long getCodigo();
+
+        String getChavePagamento();
+
+        StatusPedido getStatus();
+    }
+
+    List<SituacaoPagamento> findSituacaoPagamentoByCodigoIn(Collection<Long> codigos);
+
+    // Transicoes de status em um unico UPDATE, sem carregar o pedido: o "status in :anteriores" garante no
+    // banco que a transicao e permitida (ver StatusPedido.anteriores) e o retorno diz quais pedidos mudaram.
+    // Os UPDATEs incrementam a versao para que uma atualizacao completa concorrente falhe (@Version)
+
+    /** O pedido como ficou depois do UPDATE (RETURNING), ou vazio se a transicao nao foi aplicada */
+    @Transactional
+    @Query(value = """
+            update pedido set status = :status, versao = versao + 1
+             where codigo = :codigo and status in :anteriores
+            returning *
+            """, nativeQuery = true)
+    Optional<Pedido> atualizarStatus(@Param("codigo") Long codigo,
+                                     @Param("status") String status,
+                                     @Param("anteriores") Collection<String> anteriores);
+
+    // Atualizacoes em lote dos callbacks de pagamento: um UPDATE ... WHERE codigo IN (...) por resultado.
+    // Devolvem (RETURNING) so os pedidos que mudaram: entre a leitura da situacao e o UPDATE o status
+    // pode ter mudado por outra operacao, e o evento so deve ser gerado para quem fez a transicao.
+    // Nativas e fora de @Modifying para ler o RETURNING; status como texto (coluna varchar).
+
+    @Transactional
+    @Query(value = """
+            update pedido set status = :status, versao = versao + 1
+             where codigo in :codigos and status in :anteriores
+            returning codigo
+            """, nativeQuery = true)
+    List<Long> atualizarStatusEmLote(@Param("codigos") Collection<Long> codigos,
+                                     @Param("status") String status,
+                                     @Param("anteriores") Collection<String> anteriores);
 
+    @Transactional
+    @Query(value = """
+            update pedido set status = :status, observacoes = :observacoes, versao = versao + 1
+             where codigo in :codigos and status in :anteriores
+            returning codigo
+            """, nativeQuery = true)
+    List<Long> atualizarStatusEObservacoesEmLote(@Param("codigos") Collection<Long> codigos,
+                                                 @Param("status") String status,
+                                                 @Param("anteriores") Collection<String> anteriores,
+                                                 @Param("observacoes") String observacoes);
 }
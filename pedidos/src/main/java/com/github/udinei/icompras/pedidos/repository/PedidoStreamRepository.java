@@ -0,0 +1,137 @@
+package com.github.udinei.icompras.pedidos.repository;
+
+import com.github.udinei.icompras.pedidos.dto.DadosPagamentoDTO;
+import com.github.udinei.icompras.pedidos.dto.ItemPedidoDTO;
+import com.github.udinei.icompras.pedidos.dto.PedidoDTO;
+import com.github.udinei.icompras.pedidos.model.Dinheiro;
+import com.github.udinei.icompras.pedidos.model.StatusPedido;
+import com.github.udinei.icompras.pedidos.model.TipoPagamento;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Leitura de pedidos com cursor JDBC, para listagens de qualquer tamanho.
+ * Pedidos e itens vem em uma unica consulta ordenada por pedido; cada pedido
+ * e entregue ao consumidor assim que sua ultima linha e lida, sem passar pelo
+ * contexto de persistencia. A memoria usada fica limitada ao fetch size.
+ *
+ * O driver do PostgreSQL so usa cursor dentro de uma transacao: chame a
+ * partir de um metodo {@code @Transactional(readOnly = true)}.
+ */
+@Repository
+public class PedidoStreamRepository {
+
+    private static final String CONSULTA = """
+            select p.codigo, p.codigo_cliente, p.data_pedido, p.tipo_pagamento, p.chave_pix,
+                   p.numero_cartao, p.codigo_autorizacao, p.linha_digitavel, p.observacoes,
+                   p.status, p.total, p.codigo_rastreio, p.url_nf, p.chave_pagamento,
+                   i.codigo as codigo_item, i.codigo_produto, i.quantidade, i.valor_unitario
+              from pedido p
+              left join item_pedido i on i.codigo_pedido = p.codigo
+            """;
+
+    private static final String ORDENACAO = " order by p.codigo, i.codigo";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public PedidoStreamRepository(
+            DataSource dataSource,
+            @Value("${icompras.pedidos.paginacao.fetch-size:500}") int fetchSize) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(fetchSize);
+    }
+
+    public void transmitirTodos(Consumer<PedidoDTO> consumidor) {
+        transmitir(CONSULTA + ORDENACAO, consumidor);
+    }
+
+    public void transmitirPorCliente(Long codigoCliente, Consumer<PedidoDTO> consumidor) {
+        transmitir(CONSULTA + " where p.codigo_cliente = ?" + ORDENACAO, consumidor, codigoCliente);
+    }
+
+    public void transmitirPorStatus(StatusPedido status, Consumer<PedidoDTO> consumidor) {
+        transmitir(CONSULTA + " where p.status = ?" + ORDENACAO, consumidor, status.name());
+    }
+
+    private void transmitir(String sql, Consumer<PedidoDTO> consumidor, Object... parametros) {
+        var agrupador = new AgrupadorPedidos(consumidor);
+        jdbcTemplate.query(sql, agrupador, parametros);
+        agrupador.concluir();
+    }
+
+    /**
+     * Junta as linhas consecutivas de um mesmo pedido (uma por item) em um PedidoDTO.
+     */
+    private static final class AgrupadorPedidos implements RowCallbackHandler {
+
+        private final Consumer<PedidoDTO> consumidor;
+        private PedidoDTO atual;
+        private List<ItemPedidoDTO> itens;
+
+        AgrupadorPedidos(Consumer<PedidoDTO> consumidor) {
+            this.consumidor = consumidor;
+        }
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            long codigo = rs.getLong("codigo");
+            if (atual == null || atual.codigo() != codigo) {
+                concluir();
+                itens = new ArrayList<>();
+                atual = lerPedido(rs, itens);
+            }
+            long codigoItem = rs.getLong("codigo_item");
+            if (!rs.wasNull()) {
+                BigDecimal valorUnitario = rs.getBigDecimal("valor_unitario");
+                int quantidade = rs.getInt("quantidade");
+                itens.add(new ItemPedidoDTO(codigoItem, rs.getLong("codigo_produto"), quantidade,
+                        valorUnitario, Dinheiro.de(valorUnitario).multiplicar(quantidade).valor()));
+            }
+        }
+
+        void concluir() {
+            if (atual != null) {
+                consumidor.accept(atual);
+                atual = null;
+            }
+        }
+
+        private static PedidoDTO lerPedido(ResultSet rs, List<ItemPedidoDTO> itens) throws SQLException {
+            DadosPagamentoDTO dadosPagamento = null;
+            String tipoPagamento = rs.getString("tipo_pagamento");
+            if (tipoPagamento != null) {
+                dadosPagamento = new DadosPagamentoDTO(
+                        TipoPagamento.valueOf(tipoPagamento),
+                        rs.getString("chave_pix"),
+                        rs.getString("numero_cartao"),
+                        rs.getString("codigo_autorizacao"),
+                        rs.getString("linha_digitavel"));
+            }
+            String status = rs.getString("status");
+            var dataPedido = rs.getTimestamp("data_pedido");
+
+            return new PedidoDTO(
+                    rs.getLong("codigo"),
+                    rs.getLong("codigo_cliente"),
+                    dataPedido != null ? dataPedido.toLocalDateTime() : null,
+                    dadosPagamento,
+                    rs.getString("observacoes"),
+                    status != null ? StatusPedido.valueOf(status) : null,
+                    rs.getBigDecimal("total"),
+                    rs.getString("codigo_rastreio"),
+                    rs.getString("url_nf"),
+                    rs.getString("chave_pagamento"),
+                    itens);
+        }
+    }
+}
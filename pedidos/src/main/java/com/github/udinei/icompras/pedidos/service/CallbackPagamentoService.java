@@ -0,0 +1,348 @@
+package com.github.udinei.icompras.pedidos.service;
+
+import com.github.udinei.icompras.pedidos.model.CallbackPagamento;
+import com.github.udinei.icompras.pedidos.model.StatusPedido;
+import com.github.udinei.icompras.pedidos.repository.CallbackPagamentoRepository;
+import com.github.udinei.icompras.pedidos.repository.PedidoRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Callbacks de pagamento do banco. {@link #receber} so enfileira o callback e
+ * responde; {@link #processarPendentes} aplica a fila em lotes, com um
+ * UPDATE ... WHERE codigo IN (...) por resultado em vez de carregar e salvar
+ * cada pedido. Callbacks repetidos do mesmo pedido ainda na fila sao agrupados
+ * (vale o ultimo). A fila em memoria tem capacidade limitada; o que nao cabe
+ * vai para a tabela callback_pagamento, processada pelo mesmo agendamento.
+ * Quando um lote do transbordo falha, os callbacks sao aplicados um a um e o
+ * que falhar e adiado, com espera crescente, e retido depois de
+ * {@code maximoTentativas}, sem bloquear os demais.
+ */
+@Service
+@Slf4j
+public class CallbackPagamentoService {
+
+    private final CallbackPagamentoRepository callbackPagamentoRepository;
+    private final PedidoRepository pedidoRepository;
+    private final EventoPedidoService eventoPedidoService;
+    private final TransactionTemplate transactionTemplate;
+    private final int capacidade;
+    private final int tamanhoLote;
+    private final int maximoTentativas;
+    private final Duration esperaTentativa;
+
+    // Um callback por pedido, na ordem de chegada; protegida por trava
+    private final Map<Long, CallbackPagamento> fila = new LinkedHashMap<>();
+    private final ReentrantLock trava = new ReentrantLock();
+
+    private final Counter enfileirados;
+    private final Counter agrupados;
+    private final Counter transbordados;
+    private final Counter consumidos;
+    private final Timer latencia;
+    private final DistributionSummary lotes;
+    private final Counter retidos;
+
+    public CallbackPagamentoService(
+            CallbackPagamentoRepository callbackPagamentoRepository,
+            PedidoRepository pedidoRepository,
+            EventoPedidoService eventoPedidoService,
+            TransactionTemplate transactionTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${icompras.pedidos.callbacks-pagamento.capacidade:10000}") int capacidade,
+            @Value("${icompras.pedidos.callbacks-pagamento.tamanho-lote:500}") int tamanhoLote,
+            @Value("${icompras.pedidos.callbacks-pagamento.maximo-tentativas:10}") int maximoTentativas,
+            @Value("${icompras.pedidos.callbacks-pagamento.espera-tentativa:1s}") Duration esperaTentativa) {
+        this.callbackPagamentoRepository = callbackPagamentoRepository;
+        this.pedidoRepository = pedidoRepository;
+        this.eventoPedidoService = eventoPedidoService;
+        this.transactionTemplate = transactionTemplate;
+        this.capacidade = capacidade;
+        this.tamanhoLote = tamanhoLote;
+        this.maximoTentativas = maximoTentativas;
+        this.esperaTentativa = esperaTentativa;
+
+        Gauge.builder("icompras.pedidos.callbacks-pagamento.fila", this, CallbackPagamentoService::tamanhoFila)
+                .description("Callbacks de pagamento aguardando na fila em memoria")
+                .register(meterRegistry);
+        this.enfileirados = recebidos(meterRegistry, "fila");
+        this.agrupados = recebidos(meterRegistry, "agrupado");
+        this.transbordados = recebidos(meterRegistry, "transbordo");
+        this.consumidos = recebidos(meterRegistry, "kafka");
+        this.latencia = Timer.builder("icompras.pedidos.callbacks-pagamento.latencia")
+                .description("Tempo entre o recebimento do callback e a atualizacao do pedido")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.lotes = DistributionSummary.builder("icompras.pedidos.callbacks-pagamento.lote")
+                .description("Callbacks aplicados por lote")
+                .register(meterRegistry);
+        this.retidos = Counter.builder("icompras.pedidos.callbacks-pagamento.retidos")
+                .description("Callbacks do transbordo retidos depois de falhar em todas as tentativas")
+                .register(meterRegistry);
+    }
+
+    private static Counter recebidos(MeterRegistry meterRegistry, String destino) {
+        return Counter.builder("icompras.pedidos.callbacks-pagamento.recebidos")
+                .tag("destino", destino)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Aceita o callback do pagamento do pedido. O status e atualizado depois,
+     * pelo processamento em lote.
+     */
+    public void receber(Long codigoPedido, String chavePagamento, boolean sucesso, String observacoes) {
+        var callback = new CallbackPagamento(codigoPedido, chavePagamento, sucesso, observacoes, LocalDateTime.now());
+
+        trava.lock();
+        try {
+            if (fila.containsKey(codigoPedido)) {
+                // Substituir o valor mantem a posicao do pedido na fila
+                fila.put(codigoPedido, callback);
+                agrupados.increment();
+                return;
+            }
+            if (fila.size() < capacidade) {
+                fila.put(codigoPedido, callback);
+                enfileirados.increment();
+                return;
+            }
+        } finally {
+            trava.unlock();
+        }
+
+        transbordar(List.of(callback));
+        transbordados.increment();
+    }
+
+    /**
+     * Aplica os callbacks na hora, em uma transacao, sem passar pela fila. Para o
+     * consumidor Kafka, que so confirma o offset depois que o lote foi aplicado.
+     */
+    public void aplicarLote(List<CallbackPagamento> callbacks) {
+        transactionTemplate.executeWithoutResult(status -> aplicar(callbacks));
+        consumidos.increment(callbacks.size());
+    }
+
+    @Scheduled(fixedDelayString = "${icompras.pedidos.callbacks-pagamento.intervalo:100ms}")
+    public void processarPendentes() {
+        try {
+            // Lotes cheios indicam que ha mais callbacks esperando
+            while (processarLote() == tamanhoLote) {
+                log.debug("Lote de {} callbacks de pagamento aplicado, buscando o proximo", tamanhoLote);
+            }
+        } catch (RuntimeException e) {
+            log.error("Falha ao aplicar callbacks de pagamento, serao reprocessados", e);
+        }
+    }
+
+    /**
+     * Aplica um lote da fila em memoria e um lote do transbordo e retorna o
+     * tamanho do maior deles.
+     */
+    public int processarLote() {
+        List<CallbackPagamento> daFila = retirarDaFila();
+        if (!daFila.isEmpty()) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> aplicar(daFila));
+            } catch (RuntimeException e) {
+                // Os callbacks ja sairam da fila: vao para o transbordo para nao se perderem
+                transbordar(daFila);
+                throw e;
+            }
+        }
+
+        Integer doTransbordo;
+        try {
+            doTransbordo = transactionTemplate.execute(status -> aplicarTransbordo(tamanhoLote, null));
+        } catch (RuntimeException e) {
+            // Um callback com problema derrubaria o lote inteiro a cada intervalo: separa um a um
+            log.warn("Falha ao aplicar lote do transbordo, aplicando um callback por vez", e);
+            doTransbordo = aplicarTransbordoUmAUm();
+        }
+        return Math.max(daFila.size(), doTransbordo == null ? 0 : doTransbordo);
+    }
+
+    /** Aplica e exclui ate {@code limite} callbacks do transbordo; chamar em uma transacao. */
+    private int aplicarTransbordo(int limite, List<CallbackPagamento> lidos) {
+        List<CallbackPagamento> callbacks = callbackPagamentoRepository
+                .findByProximaTentativaLessThanEqualOrderByDataRecebimento(LocalDateTime.now(), Limit.of(limite));
+        if (callbacks.isEmpty()) {
+            return 0;
+        }
+        if (lidos != null) {
+            lidos.addAll(callbacks);
+        }
+        aplicar(callbacks);
+        callbackPagamentoRepository.deleteAllInBatch(callbacks);
+        return callbacks.size();
+    }
+
+    private int aplicarTransbordoUmAUm() {
+        int lidos = 0;
+        while (lidos < tamanhoLote) {
+            List<CallbackPagamento> lido = new ArrayList<>(1);
+            try {
+                Integer aplicados = transactionTemplate.execute(status -> aplicarTransbordo(1, lido));
+                if (aplicados == null || aplicados == 0) {
+                    break;
+                }
+            } catch (RuntimeException e) {
+                if (lido.isEmpty()) {
+                    // Falhou a propria leitura (banco fora): tenta de novo no proximo intervalo
+                    throw e;
+                }
+                registrarFalha(lido.get(0), e);
+            }
+            lidos++;
+        }
+        return lidos;
+    }
+
+    private void registrarFalha(CallbackPagamento callback, RuntimeException erro) {
+        int tentativas = callback.getTentativas() + 1;
+        LocalDateTime proximaTentativa;
+        if (tentativas < maximoTentativas) {
+            // A espera dobra a cada falha, ate 1024 vezes a inicial
+            proximaTentativa = LocalDateTime.now()
+                    .plus(esperaTentativa.multipliedBy(1L << Math.min(tentativas - 1, 10)));
+            log.warn("Falha ao aplicar o callback do pedido {} (tentativa {}), nova tentativa em {}",
+                    callback.getCodigoPedido(), tentativas, proximaTentativa, erro);
+        } else {
+            proximaTentativa = null;
+            log.error("Callback do pedido {} retido no transbordo depois de {} tentativas",
+                    callback.getCodigoPedido(), tentativas, erro);
+            retidos.increment();
+        }
+        transactionTemplate.executeWithoutResult(status -> callbackPagamentoRepository.registrarFalha(
+                callback.getCodigoPedido(), callback.getDataRecebimento(), tentativas, proximaTentativa));
+    }
+
+    /** Ao desligar, o que ainda esta na fila em memoria vai para o transbordo. */
+    @PreDestroy
+    public void encerrar() {
+        List<CallbackPagamento> restantes;
+        trava.lock();
+        try {
+            restantes = new ArrayList<>(fila.values());
+            fila.clear();
+        } finally {
+            trava.unlock();
+        }
+        if (!restantes.isEmpty()) {
+            log.info("Gravando {} callback(s) de pagamento pendente(s) antes de encerrar", restantes.size());
+            transbordar(restantes);
+        }
+    }
+
+    private List<CallbackPagamento> retirarDaFila() {
+        trava.lock();
+        try {
+            List<CallbackPagamento> lote = new ArrayList<>(Math.min(fila.size(), tamanhoLote));
+            Iterator<CallbackPagamento> iterador = fila.values().iterator();
+            while (iterador.hasNext() && lote.size() < tamanhoLote) {
+                lote.add(iterador.next());
+                iterador.remove();
+            }
+            return lote;
+        } finally {
+            trava.unlock();
+        }
+    }
+
+    private void aplicar(List<CallbackPagamento> callbacks) {
+        // Mais de um callback do mesmo pedido (lote do Kafka): vale o ultimo
+        Map<Long, CallbackPagamento> porPedido = new HashMap<>();
+        callbacks.forEach(callback -> porPedido.put(callback.getCodigoPedido(), callback));
+
+        List<Long> pagos = new ArrayList<>();
+        // Observacoes costumam se repetir (mensagens do banco): um UPDATE por mensagem distinta
+        Map<String, List<Long>> recusadosPorObservacao = new HashMap<>();
+        for (var situacao : pedidoRepository.findSituacaoPagamentoByCodigoIn(porPedido.keySet())) {
+            CallbackPagamento callback = porPedido.remove(situacao.getCodigo());
+            if (!Objects.equals(situacao.getChavePagamento(), callback.getChavePagamento())) {
+                porPedido.put(callback.getCodigoPedido(), callback);
+                continue;
+            }
+            StatusPedido novoStatus = callback.isSucesso() ? StatusPedido.PAGO : StatusPedido.ERRO_PAGAMENTO;
+            if (!novoStatus.permiteTransicaoDe(situacao.getStatus())) {
+                // Callback repetido (pedido ja pago) ou atrasado (pedido ja faturado): nao muda o status nem gera evento
+                log.debug("Callback do pedido {} ignorado: {} -> {} nao permitido",
+                        callback.getCodigoPedido(), situacao.getStatus(), novoStatus);
+                continue;
+            }
+            if (callback.isSucesso()) {
+                pagos.add(callback.getCodigoPedido());
+            } else {
+                recusadosPorObservacao.computeIfAbsent(callback.getObservacoes(), obs -> new ArrayList<>())
+                        .add(callback.getCodigoPedido());
+            }
+        }
+
+        // Os que sobraram nao tem pedido com esse codigo e chave de pagamento
+        porPedido.values().forEach(callback -> log.error(
+                "Pedido não encontrado para o código {} e chave pagamento {}",
+                callback.getCodigoPedido(), callback.getChavePagamento()));
+
+        // O status pode ter mudado desde a leitura: eventos so para os pedidos que o UPDATE alterou
+        if (!pagos.isEmpty()) {
+            registrarEventos(pedidoRepository.atualizarStatusEmLote(pagos, StatusPedido.PAGO.name(),
+                    nomes(StatusPedido.PAGO.anteriores())), StatusPedido.PAGO);
+        }
+        recusadosPorObservacao.forEach((observacoes, codigos) ->
+                registrarEventos(pedidoRepository.atualizarStatusEObservacoesEmLote(codigos,
+                        StatusPedido.ERRO_PAGAMENTO.name(), nomes(StatusPedido.ERRO_PAGAMENTO.anteriores()),
+                        observacoes), StatusPedido.ERRO_PAGAMENTO));
+
+        LocalDateTime agora = LocalDateTime.now();
+        callbacks.forEach(callback -> latencia.record(Duration.between(callback.getDataRecebimento(), agora)));
+        lotes.record(callbacks.size());
+    }
+
+    private void registrarEventos(List<Long> atualizados, StatusPedido status) {
+        if (!atualizados.isEmpty()) {
+            eventoPedidoService.registrar(atualizados, status);
+        }
+    }
+
+    private static List<String> nomes(Set<StatusPedido> status) {
+        return status.stream().map(StatusPedido::name).toList();
+    }
+
+    private void transbordar(List<CallbackPagamento> callbacks) {
+        transactionTemplate.executeWithoutResult(status -> callbacks.forEach(callback ->
+                callbackPagamentoRepository.transbordar(callback.getCodigoPedido(), callback.getChavePagamento(),
+                        callback.isSucesso(), callback.getObservacoes(), callback.getDataRecebimento())));
+    }
+
+    private int tamanhoFila() {
+        trava.lock();
+        try {
+            return fila.size();
+        } finally {
+            trava.unlock();
+        }
+    }
+}
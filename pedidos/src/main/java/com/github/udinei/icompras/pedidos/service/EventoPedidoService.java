@@ -0,0 +1,187 @@
+package com.github.udinei.icompras.pedidos.service;
+
+import com.github.udinei.icompras.pedidos.evento.PedidoEvento;
+import com.github.udinei.icompras.pedidos.model.EventoOutbox;
+import com.github.udinei.icompras.pedidos.model.ItemPedido;
+import com.github.udinei.icompras.pedidos.model.Pedido;
+import com.github.udinei.icompras.pedidos.model.StatusPedido;
+import com.github.udinei.icompras.pedidos.model.TipoEventoOutbox;
+import com.github.udinei.icompras.pedidos.repository.EventoOutboxRepository;
+import com.github.udinei.icompras.pedidos.repository.PedidoRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Publica no Kafka as mudancas de status do pedido pelo outbox transacional.
+ * {@link #registrar} grava o evento na mesma transacao que altera o status;
+ * {@link #publicarPendentes} drena o outbox em lotes, envia tudo de uma vez
+ * (o produtor agrupa as mensagens) e so marca o lote depois da confirmacao do
+ * broker. Se o envio falhar, a transacao volta e o lote e reenviado. Eventos
+ * processados sao excluidos depois da retencao ({@link #excluirProcessados}).
+ */
+@Service
+@Slf4j
+public class EventoPedidoService {
+
+    private final EventoOutboxRepository eventoOutboxRepository;
+    private final PedidoRepository pedidoRepository;
+    private final KafkaTemplate<String, PedidoEvento> kafkaTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Map<TipoEventoOutbox, String> topicos = new EnumMap<>(TipoEventoOutbox.class);
+    private final int tamanhoLote;
+    private final Duration timeoutEnvio;
+    private final Duration retencao;
+
+    public EventoPedidoService(
+            EventoOutboxRepository eventoOutboxRepository,
+            PedidoRepository pedidoRepository,
+            KafkaTemplate<String, PedidoEvento> kafkaTemplate,
+            TransactionTemplate transactionTemplate,
+            @Value("${icompras.config.kafka.topics.pedidos-pagos}") String topicoPagos,
+            @Value("${icompras.config.kafka.topics.pedidos-faturados}") String topicoFaturados,
+            @Value("${icompras.config.kafka.topics.pedidos-enviados}") String topicoEnviados,
+            @Value("${icompras.pedidos.outbox.publicacao.tamanho-lote:500}") int tamanhoLote,
+            @Value("${icompras.pedidos.outbox.publicacao.timeout-envio:10s}") Duration timeoutEnvio,
+            @Value("${icompras.pedidos.outbox.retencao:7d}") Duration retencao) {
+        this.eventoOutboxRepository = eventoOutboxRepository;
+        this.pedidoRepository = pedidoRepository;
+        this.kafkaTemplate = kafkaTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.topicos.put(TipoEventoOutbox.PEDIDO_PAGO, topicoPagos);
+        this.topicos.put(TipoEventoOutbox.PEDIDO_FATURADO, topicoFaturados);
+        this.topicos.put(TipoEventoOutbox.PEDIDO_ENVIADO, topicoEnviados);
+        this.tamanhoLote = tamanhoLote;
+        this.timeoutEnvio = timeoutEnvio;
+        this.retencao = retencao;
+    }
+
+    /**
+     * Grava o evento do status atual do pedido, quando esse status e publicado.
+     * Deve ser chamado dentro da transacao que altera o status.
+     */
+    public void registrar(Pedido pedido) {
+        TipoEventoOutbox.deStatus(pedido.getStatus()).ifPresent(tipo -> {
+            LocalDateTime agora = LocalDateTime.now();
+            eventoOutboxRepository.save(new EventoOutbox(null, tipo, pedido.getCodigo(), agora, agora, 0, null));
+        });
+    }
+
+    /**
+     * Versao em lote de {@link #registrar(Pedido)}, para pedidos que entraram
+     * juntos no mesmo status sem serem carregados.
+     */
+    public void registrar(Collection<Long> codigosPedidos, StatusPedido status) {
+        TipoEventoOutbox.deStatus(status).ifPresent(tipo -> {
+            LocalDateTime agora = LocalDateTime.now();
+            eventoOutboxRepository.saveAll(codigosPedidos.stream()
+                    .map(codigo -> new EventoOutbox(null, tipo, codigo, agora, agora, 0, null))
+                    .toList());
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${icompras.pedidos.outbox.publicacao.intervalo:1s}")
+    public void publicarPendentes() {
+        try {
+            // Lotes cheios indicam que ha mais eventos esperando
+            while (publicarLote() == tamanhoLote) {
+                log.debug("Lote de {} eventos publicado, buscando o proximo", tamanhoLote);
+            }
+        } catch (RuntimeException e) {
+            log.error("Falha ao publicar eventos do pedido, o lote sera reenviado", e);
+        }
+    }
+
+    /**
+     * Publica um lote de eventos pendentes e retorna quantos foram publicados.
+     */
+    public int publicarLote() {
+        Integer publicados = transactionTemplate.execute(status -> {
+            List<EventoOutbox> eventos = eventoOutboxRepository
+                    .findByTipoInAndDataProcessamentoIsNullOrderByCodigo(
+                            TipoEventoOutbox.EVENTOS_PEDIDO, Limit.of(tamanhoLote));
+            if (eventos.isEmpty()) {
+                return 0;
+            }
+
+            Map<Long, Pedido> pedidos = pedidoRepository
+                    .findComItensByCodigoIn(eventos.stream().map(EventoOutbox::getCodigoPedido).distinct().toList())
+                    .stream()
+                    .collect(Collectors.toMap(Pedido::getCodigo, Function.identity()));
+
+            // Chave = codigo do pedido: eventos do mesmo pedido vao para a mesma particao, em ordem
+            List<CompletableFuture<?>> envios = new ArrayList<>(eventos.size());
+            for (EventoOutbox evento : eventos) {
+                Pedido pedido = pedidos.get(evento.getCodigoPedido());
+                if (pedido == null) {
+                    log.warn("Pedido {} do evento {} nao existe mais, descartando",
+                            evento.getCodigoPedido(), evento.getCodigo());
+                    continue;
+                }
+                envios.add(kafkaTemplate.send(topicos.get(evento.getTipo()),
+                        String.valueOf(pedido.getCodigo()), criarEvento(evento, pedido)));
+            }
+            aguardarConfirmacao(envios);
+
+            eventoOutboxRepository.marcarProcessados(
+                    eventos.stream().map(EventoOutbox::getCodigo).toList(), LocalDateTime.now());
+            return eventos.size();
+        });
+        return publicados == null ? 0 : publicados;
+    }
+
+    @Scheduled(fixedDelayString = "${icompras.pedidos.outbox.limpeza:1h}")
+    public void excluirProcessados() {
+        Integer excluidos = transactionTemplate.execute(status ->
+                eventoOutboxRepository.excluirProcessados(LocalDateTime.now().minus(retencao)));
+        if (excluidos != null && excluidos > 0) {
+            log.info("{} evento(s) processado(s) do outbox excluido(s)", excluidos);
+        }
+    }
+
+    private void aguardarConfirmacao(List<CompletableFuture<?>> envios) {
+        try {
+            CompletableFuture.allOf(envios.toArray(CompletableFuture[]::new))
+                    .get(timeoutEnvio.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Broker recusou eventos do pedido", e.getCause());
+        } catch (TimeoutException e) {
+            throw new IllegalStateException("Tempo limite excedido aguardando confirmacao do broker", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Publicacao de eventos interrompida", e);
+        }
+    }
+
+    private static PedidoEvento criarEvento(EventoOutbox evento, Pedido pedido) {
+        List<PedidoEvento.Item> itens = pedido.getItens().stream()
+                .map(EventoPedidoService::criarItem)
+                .toList();
+        return new PedidoEvento(evento.getCodigo(), pedido.getCodigo(), pedido.getCodigoCliente(),
+                evento.getTipo().getStatus(), pedido.getTotal().valor(), pedido.getDataPedido(),
+                pedido.getChavePagamento(), pedido.getCodigoRastreio(), pedido.getUrlNf(),
+                evento.getDataCriacao(), itens);
+    }
+
+    private static PedidoEvento.Item criarItem(ItemPedido item) {
+        return new PedidoEvento.Item(item.getCodigoProduto(), item.getQuantidade(), item.getValorUnitario().valor());
+    }
+}
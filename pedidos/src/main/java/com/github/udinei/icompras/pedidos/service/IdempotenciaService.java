@@ -0,0 +1,262 @@
+package com.github.udinei.icompras.pedidos.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.udinei.icompras.pedidos.dto.NovoPedidoDTO;
+import com.github.udinei.icompras.pedidos.dto.PedidoDTO;
+import com.github.udinei.icompras.pedidos.model.ChaveIdempotencia;
+import com.github.udinei.icompras.pedidos.model.exception.ChaveIdempotenciaReutilizadaException;
+import com.github.udinei.icompras.pedidos.model.exception.RequisicaoEmAndamentoException;
+import com.github.udinei.icompras.pedidos.model.exception.ValidationException;
+import com.github.udinei.icompras.pedidos.repository.ChaveIdempotenciaRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Idempotency-Key do POST /api/pedidos. A primeira requisicao com uma chave
+ * cria o pedido e guarda o PedidoDTO devolvido; as repeticoes recebem o mesmo
+ * PedidoDTO sem passar de novo pela validacao (Feign) nem pelo pagamento.
+ * As respostas ficam em memoria (Caffeine) e na tabela chave_idempotencia,
+ * que vale entre instancias e reinicios, ate expirar ({@code ttl}).
+ * Repeticoes que chegam enquanto a primeira ainda executa esperam por ela.
+ * Enquanto o pedido e criado, a chave fica reservada so por {@code reserva}:
+ * se a instancia parar no meio, uma repeticao assume a chave depois desse prazo.
+ */
+@Service
+@Slf4j
+public class IdempotenciaService {
+
+    public static final int TAMANHO_MAXIMO_CHAVE = 255;
+
+    private static final Duration INTERVALO_CONSULTA = Duration.ofMillis(100);
+
+    /** Pedido devolvido para a chave e se ele veio de uma requisicao anterior. */
+    public record Resultado(PedidoDTO pedido, boolean repetido) {
+    }
+
+    private record Resposta(String hashRequisicao, PedidoDTO pedido) {
+    }
+
+    private final ChaveIdempotenciaRepository repository;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final Duration ttl;
+    private final Duration espera;
+    private final Duration reserva;
+    private final Cache<String, Resposta> respostas;
+    // Criacoes em execucao nesta instancia, para as repeticoes esperarem em vez de consultar o banco
+    private final ConcurrentMap<String, CompletableFuture<Resposta>> emAndamento = new ConcurrentHashMap<>();
+
+    public IdempotenciaService(
+            ChaveIdempotenciaRepository repository,
+            TransactionTemplate transactionTemplate,
+            ObjectMapper objectMapper,
+            @Value("${icompras.pedidos.idempotencia.ttl:24h}") Duration ttl,
+            @Value("${icompras.pedidos.idempotencia.tamanho-maximo:100000}") long tamanhoMaximo,
+            @Value("${icompras.pedidos.idempotencia.espera:10s}") Duration espera,
+            @Value("${icompras.pedidos.idempotencia.reserva:30s}") Duration reserva) {
+        this.repository = repository;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.ttl = ttl;
+        this.espera = espera;
+        this.reserva = reserva;
+        this.respostas = Caffeine.newBuilder()
+                .maximumSize(tamanhoMaximo)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    /**
+     * Executa {@code criacao} uma unica vez por chave. Lanca
+     * ChaveIdempotenciaReutilizadaException quando a chave ja foi usada com
+     * outro corpo e RequisicaoEmAndamentoException quando a primeira requisicao
+     * nao termina dentro de {@code espera}.
+     */
+    public Resultado executar(String chave, NovoPedidoDTO requisicao, Supplier<PedidoDTO> criacao) {
+        validarChave(chave);
+        String hash = hash(requisicao);
+        long prazo = System.nanoTime() + espera.toNanos();
+
+        while (true) {
+            Resposta guardada = respostas.getIfPresent(chave);
+            if (guardada != null) {
+                return repetir(chave, hash, guardada);
+            }
+
+            CompletableFuture<Resposta> nova = new CompletableFuture<>();
+            CompletableFuture<Resposta> primeira = emAndamento.putIfAbsent(chave, nova);
+            if (primeira == null) {
+                return executarPrimeira(chave, hash, criacao, nova, prazo);
+            }
+            // Se a primeira falhar, esta requisicao tenta criar o pedido no lugar dela
+            Optional<Resposta> resposta = aguardar(primeira, prazo);
+            if (resposta.isPresent()) {
+                return repetir(chave, hash, resposta.get());
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${icompras.pedidos.idempotencia.limpeza:1h}")
+    public void excluirExpiradas() {
+        Integer excluidas = transactionTemplate.execute(status -> repository.excluirExpiradas(LocalDateTime.now()));
+        if (excluidas != null && excluidas > 0) {
+            log.info("{} chave(s) de idempotencia expirada(s) excluida(s)", excluidas);
+        }
+    }
+
+    private Resultado executarPrimeira(String chave, String hash, Supplier<PedidoDTO> criacao,
+                                       CompletableFuture<Resposta> nova, long prazo) {
+        try {
+            Resultado resultado = reservarOuAguardar(chave, hash, criacao, prazo);
+            nova.complete(new Resposta(hash, resultado.pedido()));
+            return resultado;
+        } catch (RuntimeException e) {
+            nova.completeExceptionally(e);
+            throw e;
+        } finally {
+            emAndamento.remove(chave, nova);
+        }
+    }
+
+    /**
+     * Reserva a chave no banco e cria o pedido. Se outra instancia ja reservou a
+     * chave, consulta a tabela ate a resposta dela aparecer ou a reserva ser liberada
+     * ou expirar.
+     */
+    private Resultado reservarOuAguardar(String chave, String hash, Supplier<PedidoDTO> criacao, long prazo) {
+        while (true) {
+            LocalDateTime agora = LocalDateTime.now();
+            Integer reservada = transactionTemplate.execute(status ->
+                    repository.reservar(chave, hash, agora, agora.plus(reserva)));
+            if (reservada != null && reservada > 0) {
+                return new Resultado(criar(chave, hash, criacao), false);
+            }
+
+            Optional<ChaveIdempotencia> registro = repository.findById(chave);
+            if (registro.isPresent() && !registro.get().getHashRequisicao().equals(hash)) {
+                throw reutilizada(chave);
+            }
+            if (registro.isPresent() && registro.get().getResposta() != null) {
+                Resposta resposta = new Resposta(hash, lerResposta(registro.get().getResposta()));
+                respostas.put(chave, resposta);
+                return new Resultado(resposta.pedido(), true);
+            }
+            if (System.nanoTime() >= prazo) {
+                throw emAndamento();
+            }
+            dormir(INTERVALO_CONSULTA);
+        }
+    }
+
+    private PedidoDTO criar(String chave, String hash, Supplier<PedidoDTO> criacao) {
+        PedidoDTO pedido;
+        try {
+            pedido = criacao.get();
+        } catch (RuntimeException e) {
+            transactionTemplate.executeWithoutResult(status -> repository.liberar(chave));
+            throw e;
+        }
+        String json = escreverResposta(pedido);
+        // A resposta vale pelo ttl inteiro; ate aqui a chave tinha so a reserva curta
+        LocalDateTime expiraEm = LocalDateTime.now().plus(ttl);
+        transactionTemplate.executeWithoutResult(status ->
+                repository.registrarResposta(chave, pedido.codigo(), json, expiraEm));
+        respostas.put(chave, new Resposta(hash, pedido));
+        return pedido;
+    }
+
+    private Optional<Resposta> aguardar(CompletableFuture<Resposta> primeira, long prazo) {
+        try {
+            return Optional.of(primeira.get(Math.max(0, prazo - System.nanoTime()), TimeUnit.NANOSECONDS));
+        } catch (ExecutionException e) {
+            return Optional.empty();
+        } catch (TimeoutException e) {
+            throw emAndamento();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw emAndamento();
+        }
+    }
+
+    private Resultado repetir(String chave, String hash, Resposta resposta) {
+        if (!resposta.hashRequisicao().equals(hash)) {
+            throw reutilizada(chave);
+        }
+        log.info("Idempotency-Key {} repetida, devolvendo o pedido {}", chave, resposta.pedido().codigo());
+        return new Resultado(resposta.pedido(), true);
+    }
+
+    private static void validarChave(String chave) {
+        if (chave.isBlank() || chave.length() > TAMANHO_MAXIMO_CHAVE) {
+            throw new ValidationException("Idempotency-Key",
+                    "Idempotency-Key deve ter entre 1 e " + TAMANHO_MAXIMO_CHAVE + " caracteres.");
+        }
+    }
+
+    private String hash(NovoPedidoDTO requisicao) {
+        try {
+            byte[] corpo = objectMapper.writeValueAsBytes(requisicao);
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(corpo));
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private String escreverResposta(PedidoDTO pedido) {
+        try {
+            return objectMapper.writeValueAsString(pedido);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private PedidoDTO lerResposta(String json) {
+        try {
+            return objectMapper.readValue(json, PedidoDTO.class);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static ChaveIdempotenciaReutilizadaException reutilizada(String chave) {
+        return new ChaveIdempotenciaReutilizadaException(
+                "Idempotency-Key " + chave + " já foi usada com outro pedido.");
+    }
+
+    private static RequisicaoEmAndamentoException emAndamento() {
+        return new RequisicaoEmAndamentoException(
+                "Pedido com a mesma Idempotency-Key ainda em processamento; tente novamente.");
+    }
+
+    private static void dormir(Duration duracao) {
+        try {
+            Thread.sleep(duracao);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw emAndamento();
+        }
+    }
+}
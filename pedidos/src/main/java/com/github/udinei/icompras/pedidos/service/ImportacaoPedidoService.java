@@ -0,0 +1,226 @@
+package com.github.udinei.icompras.pedidos.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.github.udinei.icompras.pedidos.dto.ErroImportacaoDTO;
+import com.github.udinei.icompras.pedidos.dto.NovoPedidoDTO;
+import com.github.udinei.icompras.pedidos.dto.ResultadoImportacaoDTO;
+import com.github.udinei.icompras.pedidos.mapper.PedidoMapper;
+import com.github.udinei.icompras.pedidos.model.ItemPedido;
+import com.github.udinei.icompras.pedidos.model.Pedido;
+import com.github.udinei.icompras.pedidos.model.exception.ServicoIndisponivelException;
+import com.github.udinei.icompras.pedidos.model.exception.ValidationException;
+import com.github.udinei.icompras.pedidos.repository.PedidoRepository;
+import com.github.udinei.icompras.pedidos.validator.PedidoValidator;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Importacao de pedidos em NDJSON (um NovoPedidoDTO por linha), para arquivos
+ * de qualquer tamanho. O arquivo e lido linha a linha e processado em lotes de
+ * {@code tamanhoLote} pedidos: clientes e produtos do lote sao validados uma
+ * unica vez cada, e os pedidos validos sao gravados em uma transacao com
+ * inserts em lote (JDBC batch). A memoria usada fica limitada a um lote.
+ * Linhas invalidas sao informadas no resultado sem interromper a importacao.
+ *
+ * O pagamento dos pedidos importados e solicitado pelo outbox, em segundo plano.
+ */
+@Service
+@Slf4j
+public class ImportacaoPedidoService {
+
+    private final ObjectReader leitor;
+    private final Validator validator;
+    private final PedidoValidator pedidoValidator;
+    private final PedidoMapper pedidoMapper;
+    private final PedidoRepository pedidoRepository;
+    private final SolicitacaoPagamentoService solicitacaoPagamentoService;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityManager entityManager;
+    private final int tamanhoLote;
+    private final int maximoErros;
+
+    public ImportacaoPedidoService(
+            ObjectMapper objectMapper,
+            Validator validator,
+            PedidoValidator pedidoValidator,
+            PedidoMapper pedidoMapper,
+            PedidoRepository pedidoRepository,
+            SolicitacaoPagamentoService solicitacaoPagamentoService,
+            TransactionTemplate transactionTemplate,
+            EntityManager entityManager,
+            @Value("${icompras.pedidos.importacao.tamanho-lote:500}") int tamanhoLote,
+            @Value("${icompras.pedidos.importacao.maximo-erros:1000}") int maximoErros) {
+        this.leitor = objectMapper.readerFor(NovoPedidoDTO.class);
+        this.validator = validator;
+        this.pedidoValidator = pedidoValidator;
+        this.pedidoMapper = pedidoMapper;
+        this.pedidoRepository = pedidoRepository;
+        this.solicitacaoPagamentoService = solicitacaoPagamentoService;
+        this.transactionTemplate = transactionTemplate;
+        this.entityManager = entityManager;
+        this.tamanhoLote = tamanhoLote;
+        this.maximoErros = maximoErros;
+    }
+
+    public ResultadoImportacaoDTO importar(InputStream entrada) throws IOException {
+        var importacao = new Importacao();
+        var leitorLinhas = new BufferedReader(new InputStreamReader(entrada, StandardCharsets.UTF_8));
+
+        String conteudo;
+        while ((conteudo = leitorLinhas.readLine()) != null) {
+            importacao.linhas++;
+            if (conteudo.isBlank()) {
+                continue;
+            }
+            ler(importacao.linhas, conteudo, importacao)
+                    .ifPresent(pedido -> importacao.lote.add(new LinhaPedido(importacao.linhas, pedido)));
+            if (importacao.lote.size() == tamanhoLote) {
+                gravarLote(importacao);
+            }
+        }
+        gravarLote(importacao);
+
+        log.info("Importacao concluida: {} linha(s), {} pedido(s) importado(s), {} rejeitado(s)",
+                importacao.linhas, importacao.importados, importacao.rejeitados);
+        return new ResultadoImportacaoDTO(importacao.linhas, importacao.importados,
+                importacao.rejeitados, importacao.erros);
+    }
+
+    /** Converte e valida a linha isoladamente (JSON, campos obrigatorios e total) */
+    private Optional<Pedido> ler(long linha, String conteudo, Importacao importacao) {
+        NovoPedidoDTO dto;
+        try {
+            dto = leitor.readValue(conteudo);
+        } catch (JsonProcessingException e) {
+            importacao.recusar(linha, null, "JSON inválido: " + e.getOriginalMessage());
+            return Optional.empty();
+        }
+
+        Set<ConstraintViolation<NovoPedidoDTO>> violacoes = validator.validate(dto);
+        if (!violacoes.isEmpty()) {
+            var violacao = violacoes.iterator().next();
+            importacao.recusar(linha, violacao.getPropertyPath().toString(), violacao.getMessage());
+            return Optional.empty();
+        }
+
+        try {
+            return Optional.of(pedidoMapper.map(dto));
+        } catch (ValidationException e) {
+            importacao.recusar(linha, e.getField(), e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Valida os clientes e produtos do lote (cada codigo uma vez) e grava os
+     * pedidos validos. Uma falha no lote recusa as linhas dele, e a importacao
+     * segue para o proximo.
+     */
+    private void gravarLote(Importacao importacao) {
+        List<LinhaPedido> lote = importacao.lote;
+        if (lote.isEmpty()) {
+            return;
+        }
+        try {
+            List<LinhaPedido> validos;
+            try {
+                validos = validarLote(lote, importacao);
+            } catch (ServicoIndisponivelException e) {
+                lote.forEach(linha -> importacao.recusar(linha.linha(), null, e.getMessage()));
+                return;
+            }
+            if (validos.isEmpty()) {
+                return;
+            }
+            try {
+                gravar(validos.stream().map(LinhaPedido::pedido).toList());
+                importacao.importados += validos.size();
+            } catch (RuntimeException e) {
+                log.error("Falha ao gravar lote de {} pedido(s) importado(s)", validos.size(), e);
+                validos.forEach(linha -> importacao.recusar(linha.linha(), null, "Falha ao gravar o pedido."));
+            }
+        } finally {
+            lote.clear();
+        }
+    }
+
+    private List<LinhaPedido> validarLote(List<LinhaPedido> lote, Importacao importacao) {
+        Set<Long> codigosClientes = new HashSet<>();
+        Set<Long> codigosProdutos = new HashSet<>();
+        for (LinhaPedido linha : lote) {
+            codigosClientes.add(linha.pedido().getCodigoCliente());
+            linha.pedido().getItens().forEach(item -> codigosProdutos.add(item.getCodigoProduto()));
+        }
+
+        Set<Long> clientesNaoEncontrados = pedidoValidator.clientesNaoEncontrados(codigosClientes);
+        Set<Long> produtosNaoEncontrados = pedidoValidator.produtosNaoEncontrados(codigosProdutos);
+
+        List<LinhaPedido> validos = new ArrayList<>(lote.size());
+        for (LinhaPedido linha : lote) {
+            Pedido pedido = linha.pedido();
+            if (clientesNaoEncontrados.contains(pedido.getCodigoCliente())) {
+                importacao.recusar(linha.linha(), "codigoCliente",
+                        String.format("Cliente de código %d não encontrado.", pedido.getCodigoCliente()));
+                continue;
+            }
+            Optional<Long> produtoNaoEncontrado = pedido.getItens().stream()
+                    .map(ItemPedido::getCodigoProduto)
+                    .filter(produtosNaoEncontrados::contains)
+                    .findFirst();
+            if (produtoNaoEncontrado.isPresent()) {
+                importacao.recusar(linha.linha(), "codigoProduto",
+                        String.format("Produto de código %d não encontrado.", produtoNaoEncontrado.get()));
+                continue;
+            }
+            validos.add(linha);
+        }
+        return validos;
+    }
+
+    private void gravar(List<Pedido> pedidos) {
+        transactionTemplate.executeWithoutResult(status -> {
+            // Pedidos e itens vao em inserts em lote (sequence com alocacao em bloco e hibernate.jdbc.batch_size)
+            pedidoRepository.saveAll(pedidos);
+            entityManager.flush();
+            solicitacaoPagamentoService.registrarPendentes(pedidos.stream().map(Pedido::getCodigo).toList());
+            // Os pedidos gravados nao ficam no contexto de persistencia ate o fim da requisicao
+            entityManager.clear();
+        });
+    }
+
+    private record LinhaPedido(long linha, Pedido pedido) {
+    }
+
+    private final class Importacao {
+        private final List<LinhaPedido> lote = new ArrayList<>(tamanhoLote);
+        private final List<ErroImportacaoDTO> erros = new ArrayList<>();
+        private long linhas;
+        private long importados;
+        private long rejeitados;
+
+        void recusar(long linha, String campo, String mensagem) {
+            rejeitados++;
+            if (erros.size() < maximoErros) {
+                erros.add(new ErroImportacaoDTO(linha, campo, mensagem));
+            }
+        }
+    }
+}
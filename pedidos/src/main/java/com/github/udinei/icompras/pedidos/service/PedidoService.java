@@ -1,22 +1,26 @@
 package com.github.udinei.icompras.pedidos.service;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 import com.github.udinei.icompras.pedidos.dto.DadosPagamentoDTO;
 import com.github.udinei.icompras.pedidos.model.*;
 import com.github.udinei.icompras.pedidos.model.exception.ItemNaoEncontradoException;
+import com.github.udinei.icompras.pedidos.model.exception.TransicaoStatusInvalidaException;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import com.github.udinei.icompras.pedidos.client.ServicoBancarioClient;
 import com.github.udinei.icompras.pedidos.dto.NovoPedidoDTO;
+import com.github.udinei.icompras.pedidos.dto.PaginaPedidosDTO;
 import com.github.udinei.icompras.pedidos.dto.PedidoDTO;
 import com.github.udinei.icompras.pedidos.mapper.PedidoMapper;
-import com.github.udinei.icompras.pedidos.repository.ItemPedidoRepository;
 import com.github.udinei.icompras.pedidos.repository.PedidoRepository;
+import com.github.udinei.icompras.pedidos.repository.PedidoStreamRepository;
 import com.github.udinei.icompras.pedidos.validator.PedidoValidator;
 
 import jakarta.persistence.EntityNotFoundException;
@@ -30,31 +34,73 @@ public class PedidoService {
     private final PedidoRepository pedidoRepository;
     private final PedidoMapper pedidoMapper;
     private final PedidoValidator validator;
-    private final ServicoBancarioClient servicoBancarioClient;
-    private final ItemPedidoRepository itemPedidoRepository;
-
-
-    @Transactional
+    private final SolicitacaoPagamentoService solicitacaoPagamentoService;
+    private final EventoPedidoService eventoPedidoService;
+    private final PedidoStreamRepository pedidoStreamRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${icompras.pedidos.paginacao.tamanho-padrao:50}")
+    private int tamanhoPaginaPadrao;
+
+    @Value("${icompras.pedidos.paginacao.tamanho-maximo:500}")
+    private int tamanhoPaginaMaximo;
+
+
+    /**
+     * Cria o pedido em tres fases, para nao prender uma conexao do pool
+     * enquanto servicos externos respondem:
+     * 1. validacao remota (cliente e produtos), fora de transacao;
+     * 2. transacao curta gravando pedido, itens e o evento de pagamento (outbox);
+     * 3. solicitacao do pagamento apos o commit. Se o banco falhar, o pedido
+     *    fica salvo sem chave e o evento e reprocessado depois.
+     */
     public Pedido salvar(Pedido pedido) {
 
         validator.validar(pedido);
-        pedido = pedidoRepository.save(pedido);
-        itemPedidoRepository.saveAll(pedido.getItens());
 
-        var chavePagamento = servicoBancarioClient.solicitarPagamento(pedido);
-        pedido.setChavePagamento(chavePagamento);
+        pedido.getItens().forEach(item -> item.setPedido(pedido));
+        // Os itens sao gravados pelo cascade, em lote junto com o pedido
+        EventoOutbox solicitacao = transactionTemplate.execute(status ->
+                solicitacaoPagamentoService.registrar(pedidoRepository.save(pedido)));
+
+        solicitarPagamento(solicitacao, pedido);
         return pedido;
     }
 
+    private void solicitarPagamento(EventoOutbox solicitacao, Pedido pedido) {
+        try {
+            pedido.setChavePagamento(solicitacaoPagamentoService.processar(solicitacao, pedido));
+        } catch (RuntimeException e) {
+            log.warn("Pagamento do pedido {} nao solicitado agora, sera reprocessado pelo outbox",
+                    pedido.getCodigo(), e);
+        }
+    }
+
 
+    /**
+     * Atualizacao completa do pedido. Um status nulo ou igual ao atual mantem o
+     * status; um status diferente segue as mesmas transicoes do PATCH
+     * ({@link StatusPedido#anteriores}), conferidas contra o status lido e
+     * garantidas pela versao (@Version) ate o commit.
+     */
     @Transactional
     public Pedido atualizar(Long codigo, Pedido pedidoAtualizado) {
         return pedidoRepository.findById(codigo)
                 .map(pedido -> {
+                    StatusPedido statusAnterior = pedido.getStatus();
+                    StatusPedido novoStatus = pedidoAtualizado.getStatus();
+                    if (novoStatus != null && novoStatus != statusAnterior
+                            && !novoStatus.permiteTransicaoDe(statusAnterior)) {
+                        throw new TransicaoStatusInvalidaException(
+                                "Pedido " + codigo + " não pode passar de " + statusAnterior + " para " + novoStatus);
+                    }
+
                     // Atualizar propriedades simples
                     pedido.setCodigoCliente(pedidoAtualizado.getCodigoCliente());
                     pedido.setObservacoes(pedidoAtualizado.getObservacoes());
-                    pedido.setStatus(pedidoAtualizado.getStatus());
+                    if (novoStatus != null) {
+                        pedido.setStatus(novoStatus);
+                    }
                     pedido.setTotal(pedidoAtualizado.getTotal());
                     pedido.setCodigoRastreio(pedidoAtualizado.getCodigoRastreio());
                     pedido.setUrlNf(pedidoAtualizado.getUrlNf());
@@ -67,26 +113,41 @@ public class PedidoService {
                     pedido.setLinhaDigitavel(pedidoAtualizado.getLinhaDigitavel());
                     pedido.setChavePagamento(pedidoAtualizado.getChavePagamento());
 
-                    // Substituir itens - limpar os antigos e adicionar os novos
-                    pedido.clearItens();
-                    if (pedidoAtualizado.getItens() != null && !pedidoAtualizado.getItens().isEmpty()) {
-                        List<ItemPedido> novosItens = new ArrayList<>(pedidoAtualizado.getItens());
-                        novosItens.forEach(pedido::addItem);
-                    }
+                    // Substituir itens - so os inserts, updates e deletes necessarios (em lote no flush)
+                    pedido.substituirItens(pedidoAtualizado.getItens() == null
+                            ? List.of() : pedidoAtualizado.getItens());
 
+                    if (statusAnterior != pedido.getStatus()) {
+                        eventoPedidoService.registrar(pedido);
+                    }
                     return pedidoRepository.save(pedido);
                 })
                 .orElseThrow(() -> new EntityNotFoundException("Pedido não encontrado com código: " + codigo));
     }
 
+    /**
+     * Muda o status com um unico UPDATE condicionado a transicao permitida, sem
+     * carregar o pedido antes; o pedido devolvido e o que o UPDATE gravou (RETURNING).
+     * So quando nada muda o pedido e consultado, para diferenciar pedido
+     * inexistente, status repetido e transicao invalida.
+     */
     @Transactional
-    public Pedido atualizarStatus(Long codigo, StatusPedido novoStatus) {
-        return pedidoRepository.findById(codigo)
-                .map(pedido -> {
-                    pedido.setStatus(novoStatus);
-                    return pedidoRepository.save(pedido);
-                })
-                .orElseThrow(() -> new EntityNotFoundException("Pedido não encontrado com código: " + codigo));
+    public PedidoDTO atualizarStatus(Long codigo, StatusPedido novoStatus) {
+        List<String> anteriores = novoStatus.anteriores().stream().map(StatusPedido::name).toList();
+        Optional<Pedido> atualizado = pedidoRepository.atualizarStatus(codigo, novoStatus.name(), anteriores);
+        if (atualizado.isEmpty()) {
+            Pedido atual = pedidoRepository.findById(codigo)
+                    .orElseThrow(() -> new EntityNotFoundException("Pedido não encontrado com código: " + codigo));
+            if (atual.getStatus() == novoStatus) {
+                // Repetir o status nao e erro, mas tambem nao gera outro evento
+                return pedidoMapper.map(atual);
+            }
+            throw new TransicaoStatusInvalidaException(
+                    "Pedido " + codigo + " não pode passar de " + atual.getStatus() + " para " + novoStatus);
+        }
+        // O evento vai para o outbox na mesma transacao da mudanca de status
+        eventoPedidoService.registrar(List.of(codigo), novoStatus);
+        return pedidoMapper.map(atualizado.get());
     }
 
     @Transactional
@@ -139,74 +200,103 @@ public class PedidoService {
         return pedidoMapper.map(pedidos);
     }
 
+    // ========== Listagens paginadas por cursor e em streaming ==========
+
     @Transactional(readOnly = true)
-    public List<Pedido> listarTodos() {
-        return pedidoRepository.findAll();
+    public PaginaPedidosDTO listarPaginaDTO(Long apos, Integer tamanho) {
+        int limite = tamanhoPagina(tamanho);
+        return paginar(pedidoRepository.findByCodigoGreaterThanOrderByCodigo(apos, Limit.of(limite + 1)), limite);
     }
 
     @Transactional(readOnly = true)
-    public Optional<Pedido> buscarPorCodigo(Long codigo) {
-        return pedidoRepository.findById(codigo);
+    public PaginaPedidosDTO buscarPorClientePaginaDTO(Long codigoCliente, Long apos, Integer tamanho) {
+        int limite = tamanhoPagina(tamanho);
+        return paginar(pedidoRepository.findByCodigoClienteAndCodigoGreaterThanOrderByCodigo(
+                codigoCliente, apos, Limit.of(limite + 1)), limite);
     }
 
     @Transactional(readOnly = true)
-    public List<Pedido> buscarPorCliente(Long codigoCliente) {
-        return pedidoRepository.findByCodigoCliente(codigoCliente);
+    public PaginaPedidosDTO buscarPorStatusPaginaDTO(StatusPedido status, Long apos, Integer tamanho) {
+        int limite = tamanhoPagina(tamanho);
+        return paginar(pedidoRepository.findByStatusAndCodigoGreaterThanOrderByCodigo(
+                status, apos, Limit.of(limite + 1)), limite);
     }
 
     @Transactional(readOnly = true)
-    public List<Pedido> buscarPorStatus(StatusPedido status) {
-        return pedidoRepository.findByStatus(status);
+    public void transmitirTodos(Consumer<PedidoDTO> consumidor) {
+        pedidoStreamRepository.transmitirTodos(consumidor);
     }
 
+    @Transactional(readOnly = true)
+    public void transmitirPorCliente(Long codigoCliente, Consumer<PedidoDTO> consumidor) {
+        pedidoStreamRepository.transmitirPorCliente(codigoCliente, consumidor);
+    }
 
-    public void atualizarStatusPagamento(
-            Long codigoPedido, String chavePagamento, boolean sucesso, String observacoes) {
-        var pedidoEncontrado = pedidoRepository.findByCodigoAndChavePagamento(codigoPedido, chavePagamento);
+    @Transactional(readOnly = true)
+    public void transmitirPorStatus(StatusPedido status, Consumer<PedidoDTO> consumidor) {
+        pedidoStreamRepository.transmitirPorStatus(status, consumidor);
+    }
 
-        if (pedidoEncontrado.isEmpty()) {
-            var msg = String.format("Pedido não encontrado para o código %d e chave pagamento %s",
-                    codigoPedido, chavePagamento);
-            log.error(msg);
-            return;
+    private int tamanhoPagina(Integer tamanho) {
+        if (tamanho == null || tamanho < 1) {
+            return tamanhoPaginaPadrao;
         }
-        Pedido pedido = pedidoEncontrado.get();
+        return Math.min(tamanho, tamanhoPaginaMaximo);
+    }
 
-        if (sucesso) {
-            pedido.setStatus(StatusPedido.PAGO);
-        } else {
-            pedido.setStatus(StatusPedido.ERRO_PAGAMENTO);
-            pedido.setObservacoes(observacoes);
+    // A consulta traz um registro a mais que o limite so para saber se existe proxima pagina
+    private PaginaPedidosDTO paginar(List<Pedido> pedidos, int limite) {
+        if (pedidos.size() <= limite) {
+            return new PaginaPedidosDTO(pedidoMapper.map(pedidos), null);
         }
+        List<Pedido> pagina = pedidos.subList(0, limite);
+        return new PaginaPedidosDTO(pedidoMapper.map(pagina), pagina.get(limite - 1).getCodigo());
+    }
 
-        pedidoRepository.save(pedido);
-     }
+    @Transactional(readOnly = true)
+    public List<Pedido> listarTodos() {
+        return pedidoRepository.findAll();
+    }
 
-     @Transactional
-     public void adicionarNovoPagamento(
-             Long codigoPedido, String dadosCartao, TipoPagamento tipo){
+    @Transactional(readOnly = true)
+    public Optional<Pedido> buscarPorCodigo(Long codigo) {
+        return pedidoRepository.findById(codigo);
+    }
 
-              var pedidoEncontrado = pedidoRepository.findById(codigoPedido);
+    @Transactional(readOnly = true)
+    public List<Pedido> buscarPorCliente(Long codigoCliente) {
+        return pedidoRepository.findByCodigoCliente(codigoCliente);
+    }
 
-              if(pedidoEncontrado.isEmpty()){
-                  throw new ItemNaoEncontradoException("Pedido não encontrado, para o codigo informado!");
-              }
+    @Transactional(readOnly = true)
+    public List<Pedido> buscarPorStatus(StatusPedido status) {
+        return pedidoRepository.findByStatus(status);
+    }
 
-              var pedido = pedidoEncontrado.get();
-              DadosPagamento dadosPagamento = new DadosPagamento();
-              dadosPagamento.setTipoPagamento(tipo);
-              dadosPagamento.setDados(dadosCartao);
+    public void adicionarNovoPagamento(
+            Long codigoPedido, String dadosCartao, TipoPagamento tipo) {
 
-              pedido.setDadosPagamento(dadosPagamento);
-              pedido.setStatus(StatusPedido.REALIZADO);
-              pedido.setObservacoes("Novo pagamento realizado, aguardando processamento.");
+        DadosPagamento dadosPagamento = new DadosPagamento();
+        dadosPagamento.setTipoPagamento(tipo);
+        dadosPagamento.setDados(dadosCartao);
 
-              String novaChavepagamento =  servicoBancarioClient.solicitarPagamento(pedido);
-              pedido.setChavePagamento(novaChavepagamento);
-              pedidoRepository.save(pedido);
+        // Transacao curta: atualiza o pedido e registra a nova solicitacao no outbox
+        NovaSolicitacao novaSolicitacao = transactionTemplate.execute(status -> {
+            var pedido = pedidoRepository.findById(codigoPedido)
+                    .orElseThrow(() -> new ItemNaoEncontradoException(
+                            "Pedido não encontrado, para o codigo informado!"));
 
-     }
+            pedido.setDadosPagamento(dadosPagamento);
+            pedido.setStatus(StatusPedido.REALIZADO);
+            pedido.setObservacoes("Novo pagamento realizado, aguardando processamento.");
+            pedidoRepository.save(pedido);
+            return new NovaSolicitacao(pedido, solicitacaoPagamentoService.registrar(pedido));
+        });
 
+        solicitarPagamento(novaSolicitacao.solicitacao(), novaSolicitacao.pedido());
+    }
 
+    private record NovaSolicitacao(Pedido pedido, EventoOutbox solicitacao) {
+    }
 
 }
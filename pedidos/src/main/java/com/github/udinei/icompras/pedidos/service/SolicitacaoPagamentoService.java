@@ -0,0 +1,219 @@
+package com.github.udinei.icompras.pedidos.service;
+
+import com.github.udinei.icompras.pedidos.client.ServicoBancarioClient;
+import com.github.udinei.icompras.pedidos.model.EventoOutbox;
+import com.github.udinei.icompras.pedidos.model.Pedido;
+import com.github.udinei.icompras.pedidos.model.TipoEventoOutbox;
+import com.github.udinei.icompras.pedidos.repository.EventoOutboxRepository;
+import com.github.udinei.icompras.pedidos.repository.PedidoRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Solicita o pagamento dos pedidos pelo outbox transacional. O evento e
+ * gravado junto com o pedido ({@link #registrar}) e a chamada ao banco
+ * acontece depois do commit, sem conexao JDBC presa. Eventos que falharem
+ * sao reprocessados periodicamente. Cada evento e reservado por
+ * {@code reserva} logo antes da sua chamada ao banco, e so quem ainda tem a
+ * reserva conclui o evento. Depois de uma falha a proxima tentativa e adiada,
+ * com espera crescente, e o evento e retido depois de {@code maximoTentativas}.
+ */
+@Service
+@Slf4j
+public class SolicitacaoPagamentoService {
+
+    private final EventoOutboxRepository eventoOutboxRepository;
+    private final PedidoRepository pedidoRepository;
+    private final ServicoBancarioClient servicoBancarioClient;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration reserva;
+    private final int tamanhoLote;
+    private final int maximoTentativas;
+    private final Duration esperaTentativa;
+
+    public SolicitacaoPagamentoService(
+            EventoOutboxRepository eventoOutboxRepository,
+            PedidoRepository pedidoRepository,
+            ServicoBancarioClient servicoBancarioClient,
+            TransactionTemplate transactionTemplate,
+            @Value("${icompras.pedidos.outbox.reserva:30s}") Duration reserva,
+            @Value("${icompras.pedidos.outbox.tamanho-lote:100}") int tamanhoLote,
+            @Value("${icompras.pedidos.outbox.maximo-tentativas:10}") int maximoTentativas,
+            @Value("${icompras.pedidos.outbox.espera-tentativa:30s}") Duration esperaTentativa) {
+        this.eventoOutboxRepository = eventoOutboxRepository;
+        this.pedidoRepository = pedidoRepository;
+        this.servicoBancarioClient = servicoBancarioClient;
+        this.transactionTemplate = transactionTemplate;
+        this.reserva = reserva;
+        this.tamanhoLote = tamanhoLote;
+        this.maximoTentativas = maximoTentativas;
+        this.esperaTentativa = esperaTentativa;
+    }
+
+    /**
+     * Grava o evento de solicitacao de pagamento. Deve ser chamado dentro da
+     * transacao que grava o pedido. O evento ja nasce reservado para quem o
+     * criou, que o processa logo apos o commit.
+     */
+    public EventoOutbox registrar(Pedido pedido) {
+        LocalDateTime agora = agora();
+        var evento = new EventoOutbox(null, TipoEventoOutbox.SOLICITACAO_PAGAMENTO, pedido.getCodigo(),
+                agora, agora.plus(reserva), 1, null);
+        return eventoOutboxRepository.save(evento);
+    }
+
+    /**
+     * Versao em lote de {@link #registrar} para pedidos importados: os eventos
+     * ja nascem pendentes e o pagamento e solicitado por
+     * {@link #reprocessarPendentes}, sem uma chamada ao banco por pedido na
+     * importacao. Os pedidos ja devem estar gravados (flush).
+     */
+    public void registrarPendentes(Collection<Long> codigosPedidos) {
+        eventoOutboxRepository.registrarPendentes(TipoEventoOutbox.SOLICITACAO_PAGAMENTO.name(),
+                codigosPedidos, LocalDateTime.now());
+    }
+
+    /**
+     * Solicita o pagamento fora de transacao e grava a chave devolvida pelo
+     * banco em uma transacao curta, marcando o evento como processado. O evento
+     * deve estar reservado ate {@code evento.getProximaTentativa()}; se a reserva
+     * expirou durante a chamada, outro processador assumiu o evento e a chave
+     * nao e gravada. Se a chamada falhar, a proxima tentativa e adiada.
+     */
+    public String processar(EventoOutbox evento, Pedido pedido) {
+        String chavePagamento;
+        try {
+            chavePagamento = servicoBancarioClient.solicitarPagamento(pedido);
+        } catch (RuntimeException e) {
+            try {
+                adiar(evento);
+            } catch (RuntimeException falha) {
+                e.addSuppressed(falha);
+            }
+            throw e;
+        }
+
+        Boolean concluido = transactionTemplate.execute(status -> {
+            if (eventoOutboxRepository.marcarProcessado(evento.getCodigo(), evento.getProximaTentativa(),
+                    LocalDateTime.now()) == 0) {
+                return false;
+            }
+            pedidoRepository.atualizarChavePagamento(pedido.getCodigo(), chavePagamento);
+            return true;
+        });
+        if (!Boolean.TRUE.equals(concluido)) {
+            throw new IllegalStateException("Reserva do evento " + evento.getCodigo()
+                    + " expirou durante a solicitacao do pagamento do pedido " + pedido.getCodigo());
+        }
+        log.info("Pagamento do pedido {} solicitado, chave={}", pedido.getCodigo(), chavePagamento);
+        return chavePagamento;
+    }
+
+    /**
+     * Reprocessa eventos pendentes cuja reserva expirou: falhas na chamada ao
+     * banco, instancias que pararam entre o commit e a solicitacao e os eventos
+     * gravados pela importacao em lote.
+     */
+    @Scheduled(fixedDelayString = "${icompras.pedidos.outbox.intervalo:5s}")
+    public void reprocessarPendentes() {
+        try {
+            // Lotes cheios indicam que ha mais eventos esperando; um lote sem nenhum pagamento
+            // solicitado (banco fora, por exemplo) espera o proximo agendamento
+            Lote lote;
+            do {
+                lote = processarLote();
+            } while (lote.lidos() == tamanhoLote && lote.processados() > 0);
+        } catch (RuntimeException e) {
+            log.error("Falha ao reprocessar solicitacoes de pagamento pendentes", e);
+        }
+    }
+
+    /**
+     * Processa um lote de eventos pendentes. Os pedidos do lote sao lidos em uma
+     * unica consulta, com os itens; cada evento e reservado so quando chega a
+     * sua vez, para que a reserva cubra uma chamada ao banco e nao o lote inteiro.
+     */
+    Lote processarLote() {
+        var pendentes = eventoOutboxRepository
+                .findByTipoAndDataProcessamentoIsNullAndProximaTentativaBeforeOrderByCodigo(
+                        TipoEventoOutbox.SOLICITACAO_PAGAMENTO, LocalDateTime.now(), Limit.of(tamanhoLote));
+        if (pendentes.isEmpty()) {
+            return new Lote(0, 0);
+        }
+
+        Map<Long, Pedido> pedidos = new HashMap<>();
+        pedidoRepository.findComItensByCodigoIn(pendentes.stream().map(EventoOutbox::getCodigoPedido).toList())
+                .forEach(pedido -> pedidos.put(pedido.getCodigo(), pedido));
+
+        int processados = 0;
+        for (EventoOutbox evento : pendentes) {
+            if (!reservar(evento)) {
+                continue;
+            }
+            try {
+                Pedido pedido = pedidos.get(evento.getCodigoPedido());
+                if (pedido == null) {
+                    log.warn("Pedido {} do evento {} nao existe mais, descartando",
+                            evento.getCodigoPedido(), evento.getCodigo());
+                    transactionTemplate.executeWithoutResult(status -> eventoOutboxRepository.marcarProcessado(
+                            evento.getCodigo(), evento.getProximaTentativa(), LocalDateTime.now()));
+                } else {
+                    processar(evento, pedido);
+                }
+                processados++;
+            } catch (RuntimeException e) {
+                log.error("Falha ao solicitar pagamento do pedido {} (tentativa {})",
+                        evento.getCodigoPedido(), evento.getTentativas(), e);
+            }
+        }
+        return new Lote(pendentes.size(), processados);
+    }
+
+    /** Eventos lidos no lote e quantos deles foram concluidos */
+    record Lote(int lidos, int processados) {
+    }
+
+    private boolean reservar(EventoOutbox evento) {
+        LocalDateTime agora = agora();
+        LocalDateTime reservadoAte = agora.plus(reserva);
+        Integer reservados = transactionTemplate.execute(status ->
+                eventoOutboxRepository.reservar(evento.getCodigo(), agora, reservadoAte));
+        if (reservados == null || reservados != 1) {
+            return false;
+        }
+        evento.setProximaTentativa(reservadoAte);
+        evento.setTentativas(evento.getTentativas() + 1);
+        return true;
+    }
+
+    private void adiar(EventoOutbox evento) {
+        int tentativas = evento.getTentativas();
+        LocalDateTime proximaTentativa;
+        if (tentativas < maximoTentativas) {
+            // A espera dobra a cada falha, ate 1024 vezes a inicial
+            proximaTentativa = agora().plus(esperaTentativa.multipliedBy(1L << Math.min(tentativas - 1, 10)));
+        } else {
+            proximaTentativa = null;
+            log.error("Solicitacao de pagamento do pedido {} retida depois de {} tentativas",
+                    evento.getCodigoPedido(), tentativas);
+        }
+        transactionTemplate.executeWithoutResult(status -> eventoOutboxRepository.adiar(
+                evento.getCodigo(), evento.getProximaTentativa(), proximaTentativa));
+    }
+
+    // Na precisao do banco (microssegundos): o fim da reserva volta na condicao de marcarProcessado
+    private static LocalDateTime agora() {
+        return LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+    }
+}
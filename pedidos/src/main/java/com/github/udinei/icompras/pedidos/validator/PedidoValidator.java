@@ -1,11 +1,16 @@
 package com.github.udinei.icompras.pedidos.validator;
 
+import com.github.udinei.icompras.pedidos.cache.ClienteCache;
+import com.github.udinei.icompras.pedidos.cache.ProdutoCache;
+import com.github.udinei.icompras.pedidos.model.exception.ServicoIndisponivelException;
 import com.github.udinei.icompras.pedidos.model.exception.ValidationException;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import com.github.udinei.icompras.pedidos.client.ClientesClient;
-import com.github.udinei.icompras.pedidos.client.ProdutosClient;
 import com.github.udinei.icompras.pedidos.client.representation.ClienteRepresentation;
+import com.github.udinei.icompras.pedidos.client.representation.LoteClientesRepresentation;
+import com.github.udinei.icompras.pedidos.client.representation.ProdutoRepresentation;
 import com.github.udinei.icompras.pedidos.model.ItemPedido;
 import com.github.udinei.icompras.pedidos.model.Pedido;
 
@@ -13,20 +18,81 @@ import feign.FeignException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
 
 @Component
 @RequiredArgsConstructor
 @Slf4j
 public class PedidoValidator {
 
-    private final ProdutosClient produtosClient;
+    // Limite de codigos por chamada ao POST /api/produtos/busca-lote do servico de produtos
+    private static final int MAXIMO_PRODUTOS_POR_CONSULTA = 1000;
+
+    // Limite de codigos por chamada ao POST /api/clientes/busca-lote do servico de clientes
+    private static final int MAXIMO_CLIENTES_POR_CONSULTA = 1000;
+
+    private final ProdutoCache produtoCache;
     private final ClientesClient clientesClient;
+    private final ClienteCache clienteCache;
+    private final ExecutorService validacaoExecutor;
+
+    @Value("${icompras.pedidos.validacao.timeout:3s}")
+    private Duration timeout;
 
+    /**
+     * Dispara a validacao do cliente e a consulta em lote dos produtos ao mesmo
+     * tempo. O primeiro erro encontrado cancela a consulta restante, e ambas
+     * compartilham o mesmo prazo ({@code icompras.pedidos.validacao.timeout}).
+     */
     public void validar(Pedido pedido) {
 
         Long codigoCliente = pedido.getCodigoCliente();
-        validarCliente(codigoCliente);
-        pedido.getItens().forEach(this::validarItem);
+
+        // Produtos repetidos no pedido sao consultados uma unica vez
+        Set<Long> codigosProdutos = new LinkedHashSet<>();
+        pedido.getItens().stream().map(ItemPedido::getCodigoProduto).forEach(codigosProdutos::add);
+
+        CompletionService<Void> validacoes = new ExecutorCompletionService<>(validacaoExecutor);
+        List<Future<Void>> tarefas = new ArrayList<>(2);
+        long prazo = System.nanoTime() + timeout.toNanos();
+
+        try {
+            tarefas.add(validacoes.submit(() -> validarCliente(codigoCliente), null));
+            if (!codigosProdutos.isEmpty()) {
+                tarefas.add(validacoes.submit(() -> validarProdutos(codigosProdutos), null));
+            }
+
+            for (int i = 0; i < tarefas.size(); i++) {
+                Future<Void> concluida = validacoes.poll(prazo - System.nanoTime(), TimeUnit.NANOSECONDS);
+                if (concluida == null) {
+                    throw new ServicoIndisponivelException(
+                            "Tempo limite excedido ao validar o pedido do cliente " + codigoCliente);
+                }
+                concluida.get();
+            }
+        } catch (ExecutionException e) {
+            throw traduzirFalha(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServicoIndisponivelException("Validação do pedido interrompida", e);
+        } finally {
+            tarefas.forEach(tarefa -> tarefa.cancel(true));
+        }
 
         /**
          * if (pedido == null) { throw new IllegalArgumentException("Pedido não
@@ -41,11 +107,81 @@ public class PedidoValidator {
          */
     }
 
+    /**
+     * Validacao em lote (importacao de pedidos): retorna os clientes que nao
+     * existem. Apenas os ausentes do cache sao consultados, em lotes aceitos
+     * pelo servico de clientes: uma chamada por lote, e nao uma por cliente.
+     */
+    public Set<Long> clientesNaoEncontrados(Set<Long> codigosClientes) {
+        List<Long> ausentes = codigosClientes.stream()
+                .filter(codigo -> !clienteCache.contem(codigo))
+                .toList();
+        Set<Long> naoEncontrados = new HashSet<>();
+        try {
+            for (int inicio = 0; inicio < ausentes.size(); inicio += MAXIMO_CLIENTES_POR_CONSULTA) {
+                var parte = ausentes.subList(inicio, Math.min(inicio + MAXIMO_CLIENTES_POR_CONSULTA, ausentes.size()));
+                LoteClientesRepresentation lote = clientesClient.obterLote(parte).getBody();
+                lote.encontrados().forEach(clienteCache::registrar);
+                naoEncontrados.addAll(lote.naoEncontrados());
+            }
+        } catch (RuntimeException e) {
+            throw traduzirFalha(e);
+        }
+        return naoEncontrados;
+    }
+
+    /**
+     * Validacao em lote (importacao de pedidos): retorna os produtos que nao
+     * existem, consultando os ausentes do cache em lotes aceitos pelo servico
+     * de produtos.
+     */
+    public Set<Long> produtosNaoEncontrados(Set<Long> codigosProdutos) {
+        Set<Long> naoEncontrados = new HashSet<>();
+        try {
+            buscarProdutos(codigosProdutos).forEach((codigo, produto) -> {
+                if (produto.isEmpty()) {
+                    naoEncontrados.add(codigo);
+                }
+            });
+        } catch (RuntimeException e) {
+            throw traduzirFalha(e);
+        }
+        return naoEncontrados;
+    }
+
+    // Consulta os produtos em lotes de ate MAXIMO_PRODUTOS_POR_CONSULTA codigos
+    private Map<Long, Optional<ProdutoRepresentation>> buscarProdutos(Set<Long> codigosProdutos) {
+        if (codigosProdutos.size() <= MAXIMO_PRODUTOS_POR_CONSULTA) {
+            return produtoCache.buscar(codigosProdutos);
+        }
+        Map<Long, Optional<ProdutoRepresentation>> produtos = new HashMap<>();
+        List<Long> codigos = List.copyOf(codigosProdutos);
+        for (int inicio = 0; inicio < codigos.size(); inicio += MAXIMO_PRODUTOS_POR_CONSULTA) {
+            var parte = new HashSet<>(codigos.subList(inicio,
+                    Math.min(inicio + MAXIMO_PRODUTOS_POR_CONSULTA, codigos.size())));
+            produtos.putAll(produtoCache.buscar(parte));
+        }
+        return produtos;
+    }
+
+    private RuntimeException traduzirFalha(Throwable causa) {
+        if (causa instanceof ValidationException validationException) {
+            return validationException;
+        }
+        log.error("Erro ao consultar serviço durante a validação do pedido", causa);
+        return new ServicoIndisponivelException("Não foi possível validar o pedido no momento.", causa);
+    }
+
     private void validarCliente(Long codigoCliente) {
+        // Clientes recorrentes ja confirmados nao geram chamada remota
+        if (clienteCache.contem(codigoCliente)) {
+            return;
+        }
         try {
             var response = clientesClient.obterDados(codigoCliente);
             ClienteRepresentation cliente = response.getBody();
             log.info("Cliente de codigo: {} encontrado:{} ", cliente.codigo(), cliente.nome());
+            clienteCache.registrar(codigoCliente);
 
         } catch (FeignException.NotFound e) {
             //log.error("Erro ao validar cliente", e);
@@ -54,17 +190,18 @@ public class PedidoValidator {
         }
     }
 
-    private void validarItem(ItemPedido item) {
-        try {
-            var response = produtosClient.obterDados(item.getCodigoProduto());
-            var ProdutoRespresentation = response.getBody();
-            log.info("Produto de codigo: {} encontrado:{} ", ProdutoRespresentation.codigo(), ProdutoRespresentation.nome());
-        } catch (FeignException.NotFound e) {
-            //log.error("Erro ao validar produto", e);
-            var message = String.format("Produto de código %d não encontrado.", item.getCodigoProduto());
-            throw new ValidationException("codigoProduto", message);
+    private void validarProdutos(Set<Long> codigosProdutos) {
+        // Produtos populares vem do cache; apenas os ausentes vao ao servico, em lote
+        var produtos = buscarProdutos(codigosProdutos);
 
-        }
+        // Reporta o primeiro produto ausente na ordem em que aparece no pedido
+        codigosProdutos.stream()
+                .filter(codigo -> produtos.get(codigo).isEmpty())
+                .findFirst()
+                .ifPresent(codigoProduto -> {
+                    var message = String.format("Produto de código %d não encontrado.", codigoProduto);
+                    throw new ValidationException("codigoProduto", message);
+                });
     }
 
 }
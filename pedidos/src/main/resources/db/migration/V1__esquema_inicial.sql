@@ -0,0 +1,60 @@
+-- Esquema inicial do servico de pedidos.
+-- Idempotente: cria as tabelas em um banco novo e ajusta bancos ja criados pelo
+-- init.sql ou pelo antigo ddl-auto=update (baseline na versao 0).
+
+-- Ids alocados pelo Hibernate em blocos de 50 (allocationSize)
+CREATE SEQUENCE IF NOT EXISTS pedido_codigo_seq INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS item_pedido_codigo_seq INCREMENT BY 50;
+ALTER SEQUENCE pedido_codigo_seq AS BIGINT INCREMENT BY 50;
+ALTER SEQUENCE item_pedido_codigo_seq AS BIGINT INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS pedido (
+	codigo BIGINT NOT NULL DEFAULT nextval('pedido_codigo_seq') PRIMARY KEY,
+	codigo_cliente BIGINT NOT NULL,
+	data_pedido TIMESTAMP NOT NULL DEFAULT NOW(),
+	tipo_pagamento VARCHAR(30),
+	chave_pix VARCHAR(255),
+	numero_cartao VARCHAR(255),
+	codigo_autorizacao VARCHAR(255),
+	linha_digitavel VARCHAR(255),
+	chave_pagamento TEXT,
+	observacoes TEXT,
+	status VARCHAR(20),
+	total DECIMAL(16,2) NOT NULL,
+	codigo_rastreio VARCHAR(255),
+	url_nf TEXT
+);
+
+-- Bancos do init.sql: codigo era SERIAL (INTEGER) e faltavam os dados de pagamento
+ALTER TABLE pedido ALTER COLUMN codigo TYPE BIGINT;
+ALTER TABLE pedido ADD COLUMN IF NOT EXISTS tipo_pagamento VARCHAR(30);
+ALTER TABLE pedido ADD COLUMN IF NOT EXISTS chave_pix VARCHAR(255);
+ALTER TABLE pedido ADD COLUMN IF NOT EXISTS numero_cartao VARCHAR(255);
+ALTER TABLE pedido ADD COLUMN IF NOT EXISTS codigo_autorizacao VARCHAR(255);
+ALTER TABLE pedido ADD COLUMN IF NOT EXISTS linha_digitavel VARCHAR(255);
+
+CREATE TABLE IF NOT EXISTS item_pedido (
+	codigo BIGINT NOT NULL DEFAULT nextval('item_pedido_codigo_seq') PRIMARY KEY,
+	codigo_pedido BIGINT NOT NULL REFERENCES pedido (codigo),
+	codigo_produto BIGINT NOT NULL,
+	quantidade INT NOT NULL,
+	valor_unitario DECIMAL(16,2) NOT NULL
+);
+
+ALTER TABLE item_pedido ALTER COLUMN codigo TYPE BIGINT;
+
+CREATE TABLE IF NOT EXISTS outbox_evento (
+	codigo BIGSERIAL NOT NULL PRIMARY KEY,
+	tipo VARCHAR(40) NOT NULL,
+	codigo_pedido BIGINT NOT NULL,
+	data_criacao TIMESTAMP NOT NULL DEFAULT NOW(),
+	proxima_tentativa TIMESTAMP NOT NULL DEFAULT NOW(),
+	tentativas INT NOT NULL DEFAULT 0,
+	data_processamento TIMESTAMP
+);
+
+ALTER TABLE outbox_evento ALTER COLUMN codigo TYPE BIGINT;
+
+-- Relays do outbox so leem eventos pendentes
+CREATE INDEX IF NOT EXISTS idx_outbox_evento_pendente ON outbox_evento (tipo, proxima_tentativa)
+	WHERE data_processamento IS NULL;
@@ -0,0 +1,11 @@
+-- Indices dos caminhos de acesso do PedidoRepository e do PedidoStreamRepository.
+-- A busca por codigo e chave de pagamento (callback do banco) ja usa a chave primaria.
+
+-- findByCodigoCliente e paginacao por cursor do cliente (codigo_cliente = ? and codigo > ? order by codigo)
+CREATE INDEX IF NOT EXISTS idx_pedido_cliente_codigo ON pedido (codigo_cliente, codigo);
+
+-- findByStatus e paginacao por cursor do status (status = ? and codigo > ? order by codigo)
+CREATE INDEX IF NOT EXISTS idx_pedido_status_codigo ON pedido (status, codigo);
+
+-- Carga dos itens do pedido (lazy/@BatchSize e join do streaming), ja na ordem dos itens
+CREATE INDEX IF NOT EXISTS idx_item_pedido_pedido ON item_pedido (codigo_pedido, codigo);
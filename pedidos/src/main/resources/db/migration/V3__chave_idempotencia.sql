@@ -0,0 +1,13 @@
+-- Chaves Idempotency-Key do POST /api/pedidos. A linha e reservada antes de criar o pedido
+-- (resposta nula) e guarda o PedidoDTO devolvido ate expira_em, para responder as repeticoes.
+CREATE TABLE IF NOT EXISTS chave_idempotencia (
+	chave VARCHAR(255) NOT NULL PRIMARY KEY,
+	hash_requisicao VARCHAR(64) NOT NULL,
+	codigo_pedido BIGINT,
+	resposta TEXT,
+	data_criacao TIMESTAMP NOT NULL,
+	expira_em TIMESTAMP NOT NULL
+);
+
+-- Limpeza periodica das chaves expiradas
+CREATE INDEX IF NOT EXISTS idx_chave_idempotencia_expira_em ON chave_idempotencia (expira_em);
@@ -0,0 +1,9 @@
+-- Callbacks de pagamento que nao couberam na fila em memoria (transbordo). Uma linha por pedido:
+-- um callback repetido substitui o anterior, e o processador aplica e exclui as linhas em lotes.
+CREATE TABLE IF NOT EXISTS callback_pagamento (
+	codigo_pedido BIGINT NOT NULL PRIMARY KEY,
+	chave_pagamento TEXT,
+	sucesso BOOLEAN NOT NULL,
+	observacoes TEXT,
+	data_recebimento TIMESTAMP NOT NULL
+);
@@ -0,0 +1,3 @@
+-- Versao para controle de concorrencia otimista (@Version) na atualizacao completa do pedido.
+-- As transicoes de status em UPDATE direto tambem incrementam a versao.
+ALTER TABLE pedido ADD COLUMN IF NOT EXISTS versao BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,5 @@
+-- Tentativas de aplicar cada callback do transbordo. Uma linha que falha e adiada
+-- (proxima_tentativa) para nao bloquear as seguintes; depois do maximo de tentativas
+-- proxima_tentativa fica nula e a linha e retida na tabela ate chegar um callback novo do pedido.
+ALTER TABLE callback_pagamento ADD COLUMN IF NOT EXISTS tentativas INT NOT NULL DEFAULT 0;
+ALTER TABLE callback_pagamento ADD COLUMN IF NOT EXISTS proxima_tentativa TIMESTAMP DEFAULT NOW();
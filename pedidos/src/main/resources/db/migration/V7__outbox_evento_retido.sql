@@ -0,0 +1,3 @@
+-- Solicitacao de pagamento que falhou em todas as tentativas: fica na tabela com
+-- proxima_tentativa nula, fora da leitura dos pendentes, ate ser tratada manualmente.
+ALTER TABLE outbox_evento ALTER COLUMN proxima_tentativa DROP NOT NULL;
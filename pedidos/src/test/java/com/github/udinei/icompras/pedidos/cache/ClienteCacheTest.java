@@ -0,0 +1,132 @@
+package com.github.udinei.icompras.pedidos.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ClienteCacheTest {
+
+    private final AtomicLong relogio = new AtomicLong();
+    private SimpleMeterRegistry meterRegistry;
+    private ClienteCache clienteCache;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        clienteCache = new ClienteCache(meterRegistry, 100, Duration.ofMinutes(40), relogio::get);
+    }
+
+    @Test
+    void testRegistrarEContem() {
+        // Act
+        clienteCache.registrar(1L);
+
+        // Assert
+        assertTrue(clienteCache.contem(1L));
+        assertFalse(clienteCache.contem(2L));
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "clientes").tag("result", "hit")
+                .counter().count());
+        assertEquals(1.0, meterRegistry.get("cache.size").tag("cache", "clientes").gauge().value());
+    }
+
+    @Test
+    void testCodigoExpiraDentroDoTtl() {
+        // Arrange - geracoes de 10 minutos; o codigo entra no meio da primeira
+        avancar(Duration.ofMinutes(5));
+        clienteCache.registrar(1L);
+
+        // Act & Assert - vale ao menos 3/4 do TTL e nunca mais que o TTL
+        avancar(Duration.ofMinutes(30));
+        assertTrue(clienteCache.contem(1L));
+        avancar(Duration.ofMinutes(5));
+        assertFalse(clienteCache.contem(1L));
+    }
+
+    @Test
+    void testRegistrarDeNovoRenovaOPrazo() {
+        // Arrange
+        clienteCache.registrar(1L);
+        avancar(Duration.ofMinutes(30));
+
+        // Act
+        clienteCache.registrar(1L);
+        avancar(Duration.ofMinutes(20));
+
+        // Assert
+        assertTrue(clienteCache.contem(1L));
+    }
+
+    @Test
+    void testParadoPorMaisDeUmTtlDescartaTudo() {
+        // Arrange
+        clienteCache.registrar(1L);
+
+        // Act
+        avancar(Duration.ofHours(5));
+
+        // Assert
+        assertFalse(clienteCache.contem(1L));
+        assertEquals(0, clienteCache.tamanho());
+    }
+
+    @Test
+    void testInvalidarRemoveDeTodasAsGeracoes() {
+        // Arrange - o mesmo codigo em duas geracoes
+        clienteCache.registrar(1L);
+        clienteCache.registrar(2L);
+        avancar(Duration.ofMinutes(10));
+        clienteCache.registrar(1L);
+
+        // Act
+        clienteCache.invalidar(List.of(1L));
+
+        // Assert
+        assertFalse(clienteCache.contem(1L));
+        assertTrue(clienteCache.contem(2L));
+    }
+
+    @Test
+    void testInvalidarTodos() {
+        // Arrange
+        clienteCache.registrar(1L);
+        clienteCache.registrar(2L);
+
+        // Act
+        clienteCache.invalidarTodos();
+
+        // Assert
+        assertFalse(clienteCache.contem(1L));
+        assertFalse(clienteCache.contem(2L));
+    }
+
+    @Test
+    void testCheioDescartaAsGeracoesMaisAntigas() {
+        // Arrange - 60 codigos em uma geracao e 40 na seguinte
+        for (long codigo = 1; codigo <= 60; codigo++) {
+            clienteCache.registrar(codigo);
+        }
+        avancar(Duration.ofMinutes(10));
+        for (long codigo = 61; codigo <= 100; codigo++) {
+            clienteCache.registrar(codigo);
+        }
+
+        // Act
+        clienteCache.registrar(101L);
+
+        // Assert - a geracao mais antiga saiu antes do prazo
+        assertFalse(clienteCache.contem(1L));
+        assertTrue(clienteCache.contem(61L));
+        assertTrue(clienteCache.contem(101L));
+        assertEquals(41, clienteCache.tamanho());
+    }
+
+    private void avancar(Duration tempo) {
+        relogio.addAndGet(tempo.toNanos());
+    }
+}
@@ -0,0 +1,53 @@
+package com.github.udinei.icompras.pedidos.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConjuntoLongTest {
+
+    @Test
+    void testZeroENegativos() {
+        // Arrange
+        ConjuntoLong conjunto = new ConjuntoLong();
+
+        // Act
+        assertTrue(conjunto.adicionar(0L));
+        assertTrue(conjunto.adicionar(-5L));
+        assertFalse(conjunto.adicionar(0L));
+
+        // Assert
+        assertTrue(conjunto.contem(0L));
+        assertTrue(conjunto.contem(-5L));
+        assertEquals(2, conjunto.tamanho());
+        assertTrue(conjunto.remover(0L));
+        assertFalse(conjunto.contem(0L));
+        assertEquals(1, conjunto.tamanho());
+    }
+
+    @Test
+    void testMesmoResultadoQueHashSetComInclusoesERemocoes() {
+        // Arrange - faixa pequena para forcar colisoes, remocoes no meio das sequencias e crescimento
+        ConjuntoLong conjunto = new ConjuntoLong();
+        Set<Long> esperado = new HashSet<>();
+        Random aleatorio = new Random(42);
+
+        // Act & Assert
+        for (int i = 0; i < 200_000; i++) {
+            long valor = aleatorio.nextInt(5_000);
+            if (aleatorio.nextInt(3) == 0) {
+                assertEquals(esperado.remove(valor), conjunto.remover(valor));
+            } else {
+                assertEquals(esperado.add(valor), conjunto.adicionar(valor));
+            }
+        }
+        assertEquals(esperado.size(), conjunto.tamanho());
+        for (long valor = 0; valor < 5_000; valor++) {
+            assertEquals(esperado.contains(valor), conjunto.contem(valor));
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.github.udinei.icompras.pedidos.cache;
+
+import com.github.udinei.icompras.pedidos.client.ProdutosClient;
+import com.github.udinei.icompras.pedidos.client.representation.LoteProdutosRepresentation;
+import com.github.udinei.icompras.pedidos.client.representation.ProdutoRepresentation;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.ResponseEntity;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProdutoCacheTest {
+
+    @Mock
+    private ProdutosClient produtosClient;
+
+    private SimpleMeterRegistry meterRegistry;
+    private ProdutoCache produtoCache;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        produtoCache = new ProdutoCache(produtosClient, meterRegistry, 100,
+                Duration.ofMinutes(10), Duration.ofSeconds(30));
+    }
+
+    @Test
+    void testBuscarProdutosEmCacheNaoChamaOServico() {
+        // Arrange
+        when(produtosClient.obterLote(anyCollection()))
+                .thenReturn(ResponseEntity.ok(new LoteProdutosRepresentation(List.of(produto(1L)), List.of(2L))));
+
+        // Act
+        produtoCache.buscar(Set.of(1L, 2L));
+        Map<Long, Optional<ProdutoRepresentation>> resultado = produtoCache.buscar(Set.of(1L, 2L));
+
+        // Assert
+        assertEquals(Optional.of(produto(1L)), resultado.get(1L));
+        assertEquals(Optional.empty(), resultado.get(2L));
+        verify(produtosClient, times(1)).obterLote(anyCollection());
+        assertEquals(2.0, meterRegistry.get("cache.gets").tag("cache", "produtos").tag("result", "hit")
+                .functionCounter().count());
+    }
+
+    @Test
+    void testBuscarConsultaSomenteCodigosAusentes() {
+        // Arrange
+        when(produtosClient.obterLote(anyCollection()))
+                .thenReturn(ResponseEntity.ok(new LoteProdutosRepresentation(List.of(produto(1L)), List.of())))
+                .thenReturn(ResponseEntity.ok(new LoteProdutosRepresentation(List.of(produto(3L)), List.of())));
+        produtoCache.buscar(Set.of(1L));
+
+        // Act
+        produtoCache.buscar(Set.of(1L, 3L));
+
+        // Assert
+        verify(produtosClient).obterLote(List.of(3L));
+    }
+
+    @Test
+    void testInvalidarForcaNovaConsulta() {
+        // Arrange
+        when(produtosClient.obterLote(anyCollection()))
+                .thenReturn(ResponseEntity.ok(new LoteProdutosRepresentation(List.of(produto(1L)), List.of())));
+        produtoCache.buscar(Set.of(1L));
+
+        // Act
+        produtoCache.invalidar(List.of(1L));
+        produtoCache.buscar(Set.of(1L));
+
+        // Assert
+        verify(produtosClient, times(2)).obterLote(anyCollection());
+    }
+
+    private static ProdutoRepresentation produto(Long codigo) {
+        return new ProdutoRepresentation(codigo, "Produto " + codigo, BigDecimal.TEN);
+    }
+}
@@ -0,0 +1,224 @@
+package com.github.udinei.icompras.pedidos.client;
+
+import com.github.udinei.icompras.pedidos.config.ClientsProperties;
+import com.sun.net.httpserver.HttpServer;
+import feign.Client;
+import feign.Feign;
+import feign.FeignException;
+import feign.RequestLine;
+import feign.RetryableException;
+import feign.Retryer;
+import feign.Target;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testa o FeignClientResiliente contra um servidor HTTP local que simula um
+ * servico lento ou com erro.
+ */
+class FeignClientResilienteTest {
+
+    interface ServicoStub {
+
+        @RequestLine("GET /recurso")
+        String obter();
+
+        @RequestLine("POST /recurso")
+        String enviar(String corpo);
+    }
+
+    private HttpServer servidor;
+    private final AtomicInteger chamadasRecebidas = new AtomicInteger();
+
+    // Latencia e status de cada chamada, pelo numero da chamada (1, 2, ...)
+    private volatile IntFunction<Duration> latencia = chamada -> Duration.ZERO;
+    private volatile int status = 200;
+
+    private SimpleMeterRegistry meterRegistry;
+    private FeignClientResiliente client;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        servidor = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        servidor.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        servidor.createContext("/recurso", troca -> {
+            int chamada = chamadasRecebidas.incrementAndGet();
+            try {
+                Thread.sleep(latencia.apply(chamada));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            byte[] corpo = ("resposta " + chamada).getBytes(StandardCharsets.UTF_8);
+            troca.sendResponseHeaders(status, corpo.length);
+            troca.getResponseBody().write(corpo);
+            troca.close();
+        });
+        servidor.start();
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (client != null) {
+            client.close();
+        }
+        servidor.stop(0);
+    }
+
+    @Test
+    void testTimeoutDeLeituraInterrompeServicoLento() {
+        // Arrange
+        latencia = chamada -> Duration.ofSeconds(2);
+        ClientsProperties.Destino destino = destino();
+        destino.setTimeoutLeitura(Duration.ofMillis(100));
+        ServicoStub servico = criarServico(destino);
+
+        // Act
+        long inicio = System.nanoTime();
+        assertThrows(RetryableException.class, servico::obter);
+        Duration duracao = Duration.ofNanos(System.nanoTime() - inicio);
+
+        // Assert
+        assertTrue(duracao.compareTo(Duration.ofSeconds(1)) < 0, "durou " + duracao);
+    }
+
+    @Test
+    void testBulkheadRejeitaChamadasAcimaDoLimite() throws Exception {
+        // Arrange
+        latencia = chamada -> Duration.ofMillis(500);
+        ClientsProperties.Destino destino = destino();
+        destino.getBulkhead().setMaxChamadasSimultaneas(2);
+        ServicoStub servico = criarServico(destino);
+
+        // Act
+        List<Throwable> falhas = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<String>> chamadas = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                chamadas.add(executor.submit(servico::obter));
+            }
+            for (Future<String> chamada : chamadas) {
+                try {
+                    chamada.get();
+                } catch (ExecutionException e) {
+                    falhas.add(e.getCause());
+                }
+            }
+        }
+
+        // Assert
+        assertEquals(1, falhas.size());
+        assertInstanceOf(BulkheadFullException.class, falhas.get(0));
+        assertEquals(2, chamadasRecebidas.get());
+    }
+
+    @Test
+    void testCircuitBreakerAbreAposFalhasEParaDeChamarOServico() {
+        // Arrange
+        status = 500;
+        ServicoStub servico = criarServico(destino());
+
+        // Act
+        for (int i = 0; i < 4; i++) {
+            assertThrows(FeignException.InternalServerError.class, servico::obter);
+        }
+
+        // Assert
+        assertThrows(CallNotPermittedException.class, servico::obter);
+        assertEquals(4, chamadasRecebidas.get());
+        assertEquals(1.0, meterRegistry.get("resilience4j.circuitbreaker.state")
+                .tag("name", "clientes").tag("state", "open").gauge().value());
+    }
+
+    @Test
+    void testRespostas4xxNaoAbremOCircuito() {
+        // Arrange
+        status = 404;
+        ServicoStub servico = criarServico(destino());
+
+        // Act
+        for (int i = 0; i < 6; i++) {
+            assertThrows(FeignException.NotFound.class, servico::obter);
+        }
+
+        // Assert
+        assertEquals(6, chamadasRecebidas.get());
+        assertEquals(1.0, meterRegistry.get("resilience4j.circuitbreaker.state")
+                .tag("name", "clientes").tag("state", "closed").gauge().value());
+    }
+
+    @Test
+    void testHedgeUsaSegundaChamadaQuandoPrimeiraDemora() {
+        // Arrange
+        latencia = chamada -> chamada == 1 ? Duration.ofSeconds(2) : Duration.ZERO;
+        ClientsProperties.Destino destino = destino();
+        destino.getHedge().setHabilitado(true);
+        destino.getHedge().setAtraso(Duration.ofMillis(50));
+        ServicoStub servico = criarServico(destino);
+
+        // Act
+        long inicio = System.nanoTime();
+        String resposta = servico.obter();
+        Duration duracao = Duration.ofNanos(System.nanoTime() - inicio);
+
+        // Assert
+        assertEquals("resposta 2", resposta);
+        assertTrue(duracao.compareTo(Duration.ofSeconds(1)) < 0, "durou " + duracao);
+        assertEquals(1.0, meterRegistry.get("icompras.pedidos.clients.hedges").tag("client", "clientes")
+                .counter().count());
+    }
+
+    @Test
+    void testHedgeNaoDuplicaPost() {
+        // Arrange
+        latencia = chamada -> Duration.ofMillis(200);
+        ClientsProperties.Destino destino = destino();
+        destino.getHedge().setHabilitado(true);
+        destino.getHedge().setAtraso(Duration.ofMillis(20));
+        ServicoStub servico = criarServico(destino);
+
+        // Act
+        servico.enviar("pedido");
+
+        // Assert
+        assertEquals(1, chamadasRecebidas.get());
+    }
+
+    private ClientsProperties.Destino destino() {
+        ClientsProperties.Destino destino = new ClientsProperties.Destino();
+        destino.getCircuitBreaker().setJanela(4);
+        destino.getCircuitBreaker().setChamadasMinimas(4);
+        destino.getCircuitBreaker().setTaxaFalhas(50);
+        return destino;
+    }
+
+    private ServicoStub criarServico(ClientsProperties.Destino destino) {
+        client = new FeignClientResiliente(new Client.Default(null, null), Map.of("clientes", destino), meterRegistry);
+        String url = "http://localhost:" + servidor.getAddress().getPort();
+        // Sem novas tentativas, como nos clients do Spring Cloud OpenFeign
+        return Feign.builder()
+                .client(client)
+                .retryer(Retryer.NEVER_RETRY)
+                .target(new Target.HardCodedTarget<>(ServicoStub.class, "clientes", url));
+    }
+}
@@ -0,0 +1,104 @@
+package com.github.udinei.icompras.pedidos.client;
+
+import com.github.udinei.icompras.pedidos.config.ClientsProperties;
+import com.sun.net.httpserver.HttpServer;
+import feign.Feign;
+import feign.RequestLine;
+import feign.Retryer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testa cada transporte HTTP contra um servidor local que registra a porta de
+ * origem de cada chamada, para conferir o reaproveitamento de conexoes.
+ */
+class TransporteHttpTest {
+
+    interface ServicoStub {
+
+        @RequestLine("GET /recurso")
+        String obter();
+    }
+
+    private HttpServer servidor;
+    private final Set<Integer> portasOrigem = ConcurrentHashMap.newKeySet();
+
+    private SimpleMeterRegistry meterRegistry;
+    private TransporteHttp transporte;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        servidor = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        servidor.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        servidor.createContext("/recurso", troca -> {
+            portasOrigem.add(troca.getRemoteAddress().getPort());
+            byte[] corpo = "ok".getBytes(StandardCharsets.UTF_8);
+            troca.sendResponseHeaders(200, corpo.length);
+            troca.getResponseBody().write(corpo);
+            troca.close();
+        });
+        servidor.start();
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        transporte.close();
+        servidor.stop(0);
+    }
+
+    @ParameterizedTest
+    @EnumSource(ClientsProperties.TipoTransporte.class)
+    void testTransporteReaproveitaConexao(ClientsProperties.TipoTransporte tipo) {
+        // Arrange
+        ServicoStub servico = criarServico(tipo);
+
+        // Act
+        for (int i = 0; i < 10; i++) {
+            assertEquals("ok", servico.obter());
+        }
+
+        // Assert
+        assertEquals(1, portasOrigem.size(), "conexoes abertas: " + portasOrigem.size());
+    }
+
+    @Test
+    void testApacheHttpClientPublicaMetricasDoPool() {
+        // Arrange
+        ServicoStub servico = criarServico(ClientsProperties.TipoTransporte.APACHE_HC5);
+
+        // Act
+        servico.obter();
+
+        // Assert
+        assertEquals(200.0, meterRegistry.get("httpcomponents.httpclient.pool.total.max")
+                .tag("httpclient", "feign").gauge().value());
+        assertEquals(1.0, meterRegistry.get("httpcomponents.httpclient.pool.total.connections")
+                .tag("httpclient", "feign").tag("state", "available").gauge().value());
+        assertEquals(0.0, meterRegistry.get("httpcomponents.httpclient.pool.total.pending")
+                .tag("httpclient", "feign").gauge().value());
+    }
+
+    private ServicoStub criarServico(ClientsProperties.TipoTransporte tipo) {
+        ClientsProperties.Transporte config = new ClientsProperties.Transporte();
+        config.setTipo(tipo);
+        transporte = TransporteHttp.criar(config, meterRegistry);
+        return Feign.builder()
+                .client(transporte)
+                .retryer(Retryer.NEVER_RETRY)
+                .target(ServicoStub.class, "http://localhost:" + servidor.getAddress().getPort());
+    }
+}
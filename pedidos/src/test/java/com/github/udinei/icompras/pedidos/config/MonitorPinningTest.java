@@ -0,0 +1,81 @@
+package com.github.udinei.icompras.pedidos.config;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testa o MonitorPinning com threads virtuais que bloqueiam dentro e fora de
+ * {@code synchronized}. Os eventos do JFR chegam ao monitor em ate ~1s.
+ */
+class MonitorPinningTest {
+
+    private final Object trava = new Object();
+
+    private SimpleMeterRegistry meterRegistry;
+    private MonitorPinning monitor;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        monitor = new MonitorPinning(meterRegistry, Duration.ofMillis(10));
+    }
+
+    @AfterEach
+    void tearDown() {
+        monitor.encerrar();
+    }
+
+    @Test
+    void testRegistraBloqueioDentroDeSynchronized() throws Exception {
+        // Act
+        Thread.ofVirtual().start(() -> {
+            synchronized (trava) {
+                dormir(Duration.ofMillis(50));
+            }
+        }).join();
+
+        // Assert
+        Timer pinnings = meterRegistry.get("icompras.pedidos.threads-virtuais.pinning").timer();
+        long prazo = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (pinnings.count() == 0 && System.nanoTime() < prazo) {
+            Thread.sleep(100);
+        }
+        assertEquals(1, pinnings.count());
+    }
+
+    @Test
+    void testIgnoraBloqueioComReentrantLock() throws Exception {
+        // Arrange
+        ReentrantLock lock = new ReentrantLock();
+
+        // Act
+        Thread.ofVirtual().start(() -> {
+            lock.lock();
+            try {
+                dormir(Duration.ofMillis(50));
+            } finally {
+                lock.unlock();
+            }
+        }).join();
+        Thread.sleep(2000);
+
+        // Assert
+        assertEquals(0, meterRegistry.get("icompras.pedidos.threads-virtuais.pinning").timer().count());
+    }
+
+    private static void dormir(Duration duracao) {
+        try {
+            Thread.sleep(duracao);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
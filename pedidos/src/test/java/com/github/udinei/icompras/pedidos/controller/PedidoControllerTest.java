@@ -0,0 +1,119 @@
+package com.github.udinei.icompras.pedidos.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.udinei.icompras.pedidos.dto.PedidoDTO;
+import com.github.udinei.icompras.pedidos.mapper.PedidoMapperImpl;
+import com.github.udinei.icompras.pedidos.model.StatusPedido;
+import com.github.udinei.icompras.pedidos.model.exception.TransicaoStatusInvalidaException;
+import com.github.udinei.icompras.pedidos.service.IdempotenciaService;
+import com.github.udinei.icompras.pedidos.service.ImportacaoPedidoService;
+import com.github.udinei.icompras.pedidos.service.PedidoService;
+import jakarta.persistence.EntityNotFoundException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@ExtendWith(MockitoExtension.class)
+class PedidoControllerTest {
+
+    // Um item cujo subtotal passa do maximo de Dinheiro
+    private static final String PEDIDO_TOTAL_EXCEDIDO = """
+            {"codigoCliente": 1, "total": 1,
+             "itens": [{"codigoProduto": 10, "quantidade": 1000000, "valorUnitario": 99999999999999.99}]}
+            """;
+
+    private static final String PEDIDO = """
+            {"codigoCliente": 1, "total": 10,
+             "itens": [{"codigoProduto": 10, "quantidade": 1, "valorUnitario": 10.00}]}
+            """;
+
+    @Mock
+    private PedidoService pedidoService;
+
+    @Mock
+    private IdempotenciaService idempotenciaService;
+
+    @Mock
+    private ImportacaoPedidoService importacaoPedidoService;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        var controller = new PedidoController(pedidoService, idempotenciaService, importacaoPedidoService,
+                new PedidoMapperImpl(), new ObjectMapper());
+        mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+    }
+
+    @Test
+    void testAtualizarComTotalExcedidoRetorna400() throws Exception {
+        // Act & Assert - mesmo resultado do POST para o mesmo corpo
+        mockMvc.perform(put("/api/pedidos/1").contentType(MediaType.APPLICATION_JSON).content(PEDIDO_TOTAL_EXCEDIDO))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.campo").value("itens"));
+        verifyNoInteractions(pedidoService);
+    }
+
+    @Test
+    void testCriarComTotalExcedidoRetorna400() throws Exception {
+        // Act & Assert
+        mockMvc.perform(post("/api/pedidos").contentType(MediaType.APPLICATION_JSON).content(PEDIDO_TOTAL_EXCEDIDO))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.campo").value("itens"));
+    }
+
+    @Test
+    void testAtualizarPedidoInexistenteRetorna404() throws Exception {
+        // Arrange
+        when(pedidoService.atualizar(eq(99L), any()))
+                .thenThrow(new EntityNotFoundException("Pedido não encontrado com código: 99"));
+
+        // Act & Assert
+        mockMvc.perform(put("/api/pedidos/99").contentType(MediaType.APPLICATION_JSON).content(PEDIDO))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void testAtualizarComTransicaoInvalidaRetorna409() throws Exception {
+        // Arrange - sem status no corpo o pedido chega ao servico com status nulo (mantem o atual)
+        when(pedidoService.atualizar(eq(1L), argThat(pedido -> pedido.getStatus() == null)))
+                .thenThrow(new TransicaoStatusInvalidaException("Pedido 1 não pode passar de REALIZADO para ENVIADO"));
+
+        // Act & Assert
+        mockMvc.perform(put("/api/pedidos/1").contentType(MediaType.APPLICATION_JSON).content(PEDIDO))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.campo").value("status"));
+    }
+
+    @Test
+    void testAtualizarStatusRetornaOPedidoAtualizado() throws Exception {
+        // Arrange
+        var pedido = new PedidoDTO(1L, 1L, null, null, null, StatusPedido.FATURADO, new BigDecimal("10.00"),
+                null, null, null, List.of());
+        when(pedidoService.atualizarStatus(1L, StatusPedido.FATURADO)).thenReturn(pedido);
+
+        // Act & Assert
+        mockMvc.perform(patch("/api/pedidos/1/status").param("status", "FATURADO"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.codigo").value(1))
+                .andExpect(jsonPath("$.status").value("FATURADO"));
+    }
+}
@@ -0,0 +1,105 @@
+package com.github.udinei.icompras.pedidos.evento;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.github.udinei.icompras.pedidos.model.StatusPedido;
+import org.apache.kafka.common.errors.SerializationException;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PedidoEventoSerializerTest {
+
+    private final PedidoEventoSerializer serializer = new PedidoEventoSerializer();
+    private final PedidoEventoDeserializer deserializer = new PedidoEventoDeserializer();
+
+    @Test
+    void testIdaEVoltaPreservaOEvento() {
+        // Arrange
+        PedidoEvento evento = evento();
+
+        // Act
+        PedidoEvento lido = deserializer.deserialize("topico", serializer.serialize("topico", evento));
+
+        // Assert
+        assertEquals(evento, lido);
+    }
+
+    @Test
+    void testIdaEVoltaComCamposNulosEValoresExtremos() {
+        // Arrange
+        PedidoEvento evento = new PedidoEvento(Long.MAX_VALUE, Long.MIN_VALUE, null, StatusPedido.ENVIADO,
+                new BigDecimal("123456789012345678901234567890.123"), null, null, "BR123", "ção/ü", null,
+                List.of(new PedidoEvento.Item(1L, null, new BigDecimal("-0.01"))));
+
+        // Act
+        PedidoEvento lido = deserializer.deserialize("topico", serializer.serialize("topico", evento));
+
+        // Assert
+        assertEquals(evento, lido);
+    }
+
+    @Test
+    void testPayloadBinarioMenorQueJson() throws Exception {
+        // Arrange
+        ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        PedidoEvento evento = evento();
+
+        // Act
+        int binario = serializer.serialize("topico", evento).length;
+        int json = objectMapper.writeValueAsBytes(evento).length;
+
+        // Assert
+        assertTrue(binario * 3 < json, "binario=" + binario + " json=" + json);
+    }
+
+    @Test
+    void testRejeitaVersaoDesconhecida() {
+        // Arrange
+        byte[] dados = serializer.serialize("topico", evento());
+        dados[0] = 99;
+
+        // Act & Assert
+        assertThrows(SerializationException.class, () -> deserializer.deserialize("topico", dados));
+    }
+
+    @Test
+    void testRejeitaPayloadTruncado() {
+        // Arrange
+        byte[] dados = serializer.serialize("topico", evento());
+        byte[] truncado = java.util.Arrays.copyOf(dados, dados.length / 2);
+
+        // Act & Assert
+        assertThrows(SerializationException.class, () -> deserializer.deserialize("topico", truncado));
+    }
+
+    @Test
+    void testRejeitaTamanhoDeDecimalCorrompido() {
+        // Arrange - so o total presente, com escala 0 e tamanho 2^31 (negativo se lido como int)
+        byte[] dados = {PedidoEventoFormato.VERSAO_1, 1 << 4, 0, (byte) 0x81, (byte) 0x80, (byte) 0x80, (byte) 0x80, 0x10};
+
+        // Act & Assert
+        assertThrows(SerializationException.class, () -> deserializer.deserialize("topico", dados));
+    }
+
+    @Test
+    void testRejeitaDecimalSemBytes() {
+        // Arrange - total com tamanho 0
+        byte[] dados = {PedidoEventoFormato.VERSAO_1, 1 << 4, 0, 1};
+
+        // Act & Assert
+        assertThrows(SerializationException.class, () -> deserializer.deserialize("topico", dados));
+    }
+
+    static PedidoEvento evento() {
+        return new PedidoEvento(1042L, 987L, 100L, StatusPedido.PAGO, new BigDecimal("1250.90"),
+                LocalDateTime.of(2025, 6, 1, 10, 15, 30, 123_456_000), "7f1c2a3e-8d4b-4c55-9a0e-2b6f1d3c4e5f",
+                null, null, LocalDateTime.of(2025, 6, 1, 10, 16, 2, 5_000_000),
+                List.of(new PedidoEvento.Item(10L, 2, new BigDecimal("350.45")),
+                        new PedidoEvento.Item(20L, 1, new BigDecimal("550.00"))));
+    }
+}
@@ -0,0 +1,189 @@
+package com.github.udinei.icompras.pedidos.evento;
+
+import com.github.udinei.icompras.pedidos.config.ResultadosPagamentoKafkaConfig;
+import com.github.udinei.icompras.pedidos.model.CallbackPagamento;
+import com.github.udinei.icompras.pedidos.service.CallbackPagamentoService;
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.AdminClientConfig;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@SpringJUnitConfig({ResultadosPagamentoKafkaConfig.class, ResultadoPagamentoListener.class,
+        ResultadoPagamentoListenerTest.Conversoes.class})
+@EmbeddedKafka(partitions = 3, topics = ResultadoPagamentoListenerTest.TOPICO)
+@TestPropertySource(properties = {
+        "icompras.pedidos.resultados-pagamento.kafka.habilitado=true",
+        "icompras.config.kafka.server-url=${spring.embedded.kafka.brokers}",
+        "icompras.config.kafka.topics.resultados-pagamento=" + ResultadoPagamentoListenerTest.TOPICO,
+        "icompras.pedidos.resultados-pagamento.kafka.grupo=" + ResultadoPagamentoListenerTest.GRUPO,
+        "icompras.pedidos.resultados-pagamento.kafka.concorrencia=3",
+        "icompras.pedidos.resultados-pagamento.kafka.espera-lote=50ms",
+        "icompras.pedidos.resultados-pagamento.kafka.espera-maxima-retentativa=500ms"})
+@DirtiesContext
+class ResultadoPagamentoListenerTest {
+
+    static final String TOPICO = "icompras.resultados-pagamento";
+    static final String GRUPO = "teste-resultados-pagamento";
+
+    // Fora do Spring Boot: converte "50ms" etc. para Duration, como na aplicacao
+    @Configuration
+    static class Conversoes {
+        @Bean
+        static ConversionService conversionService() {
+            return ApplicationConversionService.getSharedInstance();
+        }
+    }
+
+    @MockitoBean
+    private CallbackPagamentoService callbackPagamentoService;
+
+    @Autowired
+    private EmbeddedKafkaBroker broker;
+
+    private DefaultKafkaProducerFactory<String, String> producerFactory;
+    private KafkaTemplate<String, String> kafkaTemplate;
+
+    @BeforeEach
+    void setUp() {
+        producerFactory = new DefaultKafkaProducerFactory<>(KafkaTestUtils.producerProps(broker),
+                new StringSerializer(), new StringSerializer());
+        kafkaTemplate = new KafkaTemplate<>(producerFactory);
+    }
+
+    @AfterEach
+    void tearDown() {
+        producerFactory.destroy();
+    }
+
+    @Test
+    void testResultadosSaoAplicadosEmLotesNaOrdemDeCadaPedido() throws Exception {
+        // Arrange - dois resultados do pedido 1: vale o segundo
+        long offsetsAntes = offsetsConfirmados();
+        enviar(1L, "chave-1", false, "Saldo insuficiente");
+        enviar(2L, "chave-2", true, null);
+        enviar(3L, "chave-3", false, "Cartão recusado");
+        enviar(1L, "chave-1", true, null);
+        kafkaTemplate.flush();
+
+        // Act
+        List<CallbackPagamento> aplicados = aguardarAplicados(4);
+
+        // Assert
+        List<CallbackPagamento> doPedido1 = aplicados.stream().filter(c -> c.getCodigoPedido() == 1L).toList();
+        assertEquals(2, doPedido1.size());
+        assertFalse(doPedido1.get(0).isSucesso());
+        assertTrue(doPedido1.get(1).isSucesso());
+        CallbackPagamento doPedido3 = aplicados.stream().filter(c -> c.getCodigoPedido() == 3L).findFirst().orElseThrow();
+        assertEquals("chave-3", doPedido3.getChavePagamento());
+        assertEquals("Cartão recusado", doPedido3.getObservacoes());
+        // O offset so e confirmado depois que o lote foi aplicado
+        assertEquals(offsetsAntes + 4, aguardarOffsetsConfirmados(offsetsAntes + 4));
+    }
+
+    @Test
+    void testJsonInvalidoEDescartadoSemTravarAParticao() throws Exception {
+        // Arrange - mesma chave: mesma particao, o invalido antes do valido
+        kafkaTemplate.send(TOPICO, "50", "{nao e json");
+        enviar(50L, "chave-50", true, null);
+        kafkaTemplate.flush();
+
+        // Act
+        List<CallbackPagamento> aplicados = aguardarAplicados(1);
+
+        // Assert
+        assertEquals(50L, aplicados.get(0).getCodigoPedido());
+    }
+
+    @Test
+    void testFalhaAoAplicarReleOLote() throws Exception {
+        // Arrange - a primeira aplicacao falha (banco fora, por exemplo)
+        AtomicInteger chamadas = new AtomicInteger();
+        doAnswer(inv -> {
+            if (chamadas.getAndIncrement() == 0) {
+                throw new IllegalStateException("banco indisponivel");
+            }
+            return null;
+        }).when(callbackPagamentoService).aplicarLote(anyList());
+
+        // Act
+        enviar(70L, "chave-70", true, null);
+        kafkaTemplate.flush();
+
+        // Assert - o mesmo resultado chega de novo
+        List<CallbackPagamento> aplicados = aguardarAplicados(2);
+        assertTrue(aplicados.stream().allMatch(c -> c.getCodigoPedido() == 70L));
+    }
+
+    private void enviar(Long codigo, String chave, boolean sucesso, String observacoes) {
+        String json = """
+                {"codigo": %d, "chavePagamento": "%s", "status": %s, "observacoes": %s}
+                """.formatted(codigo, chave, sucesso, observacoes == null ? "null" : "\"" + observacoes + "\"");
+        kafkaTemplate.send(TOPICO, String.valueOf(codigo), json);
+    }
+
+    private List<CallbackPagamento> aguardarAplicados(int quantidade) throws InterruptedException {
+        long prazo = System.currentTimeMillis() + 20_000;
+        while (System.currentTimeMillis() < prazo) {
+            List<CallbackPagamento> aplicados = aplicados();
+            if (aplicados.size() >= quantidade) {
+                return aplicados;
+            }
+            Thread.sleep(100);
+        }
+        fail("Resultados nao aplicados: " + aplicados().size() + " de " + quantidade);
+        return List.of();
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<CallbackPagamento> aplicados() {
+        ArgumentCaptor<List<CallbackPagamento>> captor = ArgumentCaptor.forClass(List.class);
+        verify(callbackPagamentoService, atLeast(0)).aplicarLote(captor.capture());
+        return captor.getAllValues().stream().flatMap(List::stream).toList();
+    }
+
+    private long offsetsConfirmados() throws Exception {
+        try (AdminClient admin = AdminClient.create(
+                Map.of(AdminClientConfig.BOOTSTRAP_SERVERS_CONFIG, broker.getBrokersAsString()))) {
+            Map<?, OffsetAndMetadata> offsets = admin.listConsumerGroupOffsets(GRUPO)
+                    .partitionsToOffsetAndMetadata().get();
+            return offsets.values().stream().mapToLong(OffsetAndMetadata::offset).sum();
+        }
+    }
+
+    private long aguardarOffsetsConfirmados(long esperado) throws Exception {
+        long prazo = System.currentTimeMillis() + 10_000;
+        long confirmados = offsetsConfirmados();
+        while (confirmados < esperado && System.currentTimeMillis() < prazo) {
+            Thread.sleep(Duration.ofMillis(100));
+            confirmados = offsetsConfirmados();
+        }
+        return confirmados;
+    }
+}
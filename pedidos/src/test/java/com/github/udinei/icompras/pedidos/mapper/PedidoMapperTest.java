@@ -0,0 +1,53 @@
+package com.github.udinei.icompras.pedidos.mapper;
+
+import com.github.udinei.icompras.pedidos.dto.NovoItemPedidoDTO;
+import com.github.udinei.icompras.pedidos.dto.NovoPedidoDTO;
+import com.github.udinei.icompras.pedidos.dto.PedidoDTO;
+import com.github.udinei.icompras.pedidos.model.Dinheiro;
+import com.github.udinei.icompras.pedidos.model.Pedido;
+import com.github.udinei.icompras.pedidos.model.exception.ValidationException;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PedidoMapperTest {
+
+    private final PedidoMapper mapper = new PedidoMapperImpl();
+
+    @Test
+    void testCalculaTotalDosItensIgnorandoOTotalInformado() {
+        // Arrange
+        NovoPedidoDTO dto = novoPedido(BigDecimal.ONE,
+                new NovoItemPedidoDTO(10L, 3, new BigDecimal("19.90")),
+                new NovoItemPedidoDTO(20L, 1, new BigDecimal("0.30")));
+
+        // Act
+        Pedido pedido = mapper.map(dto);
+        PedidoDTO pedidoDTO = mapper.map(pedido);
+
+        // Assert
+        assertEquals(new Dinheiro(6000), pedido.getTotal());
+        assertEquals(new BigDecimal("60.00"), pedidoDTO.total());
+        assertEquals(new BigDecimal("59.70"), pedidoDTO.itens().get(0).subtotal());
+    }
+
+    @Test
+    void testRecusaTotalAcimaDoMaximo() {
+        // Arrange
+        NovoPedidoDTO dto = novoPedido(BigDecimal.ONE,
+                new NovoItemPedidoDTO(10L, 1_000_000, new BigDecimal("99999999999999.99")));
+
+        // Act
+        ValidationException erro = assertThrows(ValidationException.class, () -> mapper.map(dto));
+
+        // Assert
+        assertEquals("itens", erro.getField());
+    }
+
+    private static NovoPedidoDTO novoPedido(BigDecimal total, NovoItemPedidoDTO... itens) {
+        return new NovoPedidoDTO(1L, null, null, null, null, total, null, null, null, List.of(itens));
+    }
+}
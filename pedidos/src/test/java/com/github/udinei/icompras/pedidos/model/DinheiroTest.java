@@ -0,0 +1,56 @@
+package com.github.udinei.icompras.pedidos.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DinheiroTest {
+
+    @Test
+    void testConverteBigDecimalEmCentavosEVolta() {
+        // Act
+        Dinheiro dinheiro = Dinheiro.de(new BigDecimal("1250.9"));
+
+        // Assert
+        assertEquals(125090, dinheiro.centavos());
+        assertEquals(new BigDecimal("1250.90"), dinheiro.valor());
+    }
+
+    @Test
+    void testMultiplicaESomaEmCentavos() {
+        // Arrange
+        Dinheiro preco = Dinheiro.de(new BigDecimal("0.10"));
+
+        // Act
+        Dinheiro total = preco.multiplicar(3).somar(Dinheiro.de(new BigDecimal("0.20")));
+
+        // Assert
+        assertEquals(new BigDecimal("0.50"), total.valor());
+    }
+
+    @Test
+    void testRecusaValorNegativo() {
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> Dinheiro.de(new BigDecimal("-0.01")));
+        assertThrows(IllegalArgumentException.class, () -> Dinheiro.ZERO.multiplicar(-1));
+    }
+
+    @Test
+    void testRecusaFracaoDeCentavo() {
+        // Act & Assert
+        assertThrows(ArithmeticException.class, () -> Dinheiro.de(new BigDecimal("10.005")));
+    }
+
+    @Test
+    void testRecusaValorAcimaDoMaximoEmVezDeEstourar() {
+        // Arrange
+        Dinheiro maximo = new Dinheiro(Dinheiro.MAXIMO_CENTAVOS);
+
+        // Act & Assert
+        assertThrows(ArithmeticException.class, () -> maximo.somar(new Dinheiro(1)));
+        assertThrows(ArithmeticException.class, () -> maximo.multiplicar(Integer.MAX_VALUE));
+        assertThrows(ArithmeticException.class, () -> Dinheiro.de(new BigDecimal("100000000000000000.00")));
+    }
+}
@@ -0,0 +1,100 @@
+package com.github.udinei.icompras.pedidos.repository;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Confere, no PostgreSQL real e com as migracoes Flyway aplicadas, que as
+ * consultas dos repositorios usam indice em uma massa grande de dados.
+ * Requer Docker; sem Docker o teste e ignorado.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class PedidoIndicesExplainTest {
+
+    @Container
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    private static JdbcTemplate jdbcTemplate;
+
+    @BeforeAll
+    static void setUp() {
+        var dataSource = new DriverManagerDataSource(
+                POSTGRES.getJdbcUrl(), POSTGRES.getUsername(), POSTGRES.getPassword());
+        Flyway.configure().dataSource(dataSource).load().migrate();
+        jdbcTemplate = new JdbcTemplate(dataSource);
+
+        // 200 mil pedidos de 20 mil clientes, a maioria ja enviada, com 3 itens cada
+        jdbcTemplate.execute("""
+                insert into pedido (codigo_cliente, data_pedido, status, total, chave_pagamento)
+                select (g % 20000) + 1, now(),
+                       case when g % 100 = 0 then 'ERRO_PAGAMENTO'
+                            when g % 10 = 0 then 'REALIZADO'
+                            else 'ENVIADO' end,
+                       100, md5(g::text)
+                  from generate_series(1, 200000) g
+                """);
+        jdbcTemplate.execute("""
+                insert into item_pedido (codigo_pedido, codigo_produto, quantidade, valor_unitario)
+                select p.codigo, i, 1, 10 from pedido p cross join generate_series(1, 3) i
+                """);
+        jdbcTemplate.execute("""
+                insert into outbox_evento (tipo, codigo_pedido, data_criacao, proxima_tentativa, tentativas,
+                                           data_processamento)
+                select 'PEDIDO_ENVIADO', p.codigo, now(), now(), 1,
+                       case when p.codigo % 1000 = 1 then null else now() end
+                  from pedido p
+                """);
+        jdbcTemplate.execute("analyze");
+    }
+
+    static Stream<Arguments> consultas() {
+        long codigo = jdbcTemplate.queryForObject("select min(codigo) from pedido", Long.class);
+        String chave = jdbcTemplate.queryForObject(
+                "select chave_pagamento from pedido where codigo = ?", String.class, codigo);
+        String codigosPagina = jdbcTemplate.queryForList(
+                "select codigo from pedido order by codigo limit 100", Long.class)
+                .stream().map(String::valueOf).collect(Collectors.joining(","));
+
+        return Stream.of(
+                Arguments.of("findByCodigoCliente",
+                        "select * from pedido where codigo_cliente = 42"),
+                Arguments.of("findByStatus",
+                        "select * from pedido where status = 'ERRO_PAGAMENTO'"),
+                Arguments.of("findByCodigoAndChavePagamento",
+                        "select * from pedido where codigo = " + codigo + " and chave_pagamento = '" + chave + "'"),
+                Arguments.of("pagina por cliente",
+                        "select * from pedido where codigo_cliente = 42 and codigo > 0 order by codigo limit 51"),
+                Arguments.of("pagina por status",
+                        "select * from pedido where status = 'REALIZADO' and codigo > " + codigo
+                                + " order by codigo limit 51"),
+                Arguments.of("itens da pagina (@BatchSize)",
+                        "select * from item_pedido where codigo_pedido in (" + codigosPagina + ")"),
+                Arguments.of("stream por cliente",
+                        "select p.*, i.* from pedido p left join item_pedido i on i.codigo_pedido = p.codigo"
+                                + " where p.codigo_cliente = 42 order by p.codigo, i.codigo"),
+                Arguments.of("outbox pendente",
+                        "select * from outbox_evento where tipo in ('PEDIDO_PAGO', 'PEDIDO_ENVIADO')"
+                                + " and data_processamento is null order by codigo limit 500"));
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("consultas")
+    void testConsultaNaoFazSeqScan(String nome, String sql) {
+        String plano = String.join("\n", jdbcTemplate.queryForList("explain " + sql, String.class));
+
+        assertFalse(plano.contains("Seq Scan"), () -> nome + " fez seq scan:\n" + plano);
+    }
+}
@@ -0,0 +1,197 @@
+package com.github.udinei.icompras.pedidos.repository;
+
+import com.github.udinei.icompras.pedidos.dto.PedidoDTO;
+import com.github.udinei.icompras.pedidos.model.Dinheiro;
+import com.github.udinei.icompras.pedidos.model.ItemPedido;
+import com.github.udinei.icompras.pedidos.model.Pedido;
+import com.github.udinei.icompras.pedidos.model.StatusPedido;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = {
+        "spring.flyway.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.connection.provider_disables_autocommit=false",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@Import(PedidoStreamRepository.class)
+class PedidoRepositoryTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private PedidoRepository pedidoRepository;
+
+    @Autowired
+    private PedidoStreamRepository pedidoStreamRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private final List<Long> codigos = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        for (int i = 0; i < 5; i++) {
+            Pedido pedido = pedido(i % 2 == 0 ? 100L : 200L, i < 3 ? StatusPedido.PAGO : StatusPedido.ENVIADO);
+            for (int j = 0; j < i; j++) {
+                pedido.addItem(new ItemPedido(null, null, 10L + j, 1, new Dinheiro(1000)));
+            }
+            codigos.add(entityManager.persist(pedido).getCodigo());
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void testPaginacaoPorCursorPercorreTodosOsPedidosEmOrdem() {
+        // Act
+        List<Pedido> primeira = pedidoRepository.findByCodigoGreaterThanOrderByCodigo(0L, Limit.of(2));
+        List<Pedido> segunda = pedidoRepository.findByCodigoGreaterThanOrderByCodigo(
+                primeira.get(1).getCodigo(), Limit.of(2));
+
+        // Assert
+        assertEquals(codigos.subList(0, 2), primeira.stream().map(Pedido::getCodigo).toList());
+        assertEquals(codigos.subList(2, 4), segunda.stream().map(Pedido::getCodigo).toList());
+    }
+
+    @Test
+    void testPaginacaoPorCursorFiltradaPorClienteEStatus() {
+        // Act
+        List<Pedido> doCliente = pedidoRepository.findByCodigoClienteAndCodigoGreaterThanOrderByCodigo(
+                100L, codigos.get(0), Limit.of(10));
+        List<Pedido> enviados = pedidoRepository.findByStatusAndCodigoGreaterThanOrderByCodigo(
+                StatusPedido.ENVIADO, 0L, Limit.of(10));
+
+        // Assert
+        assertEquals(List.of(codigos.get(2), codigos.get(4)), doCliente.stream().map(Pedido::getCodigo).toList());
+        assertEquals(List.of(codigos.get(3), codigos.get(4)), enviados.stream().map(Pedido::getCodigo).toList());
+    }
+
+    @Test
+    void testPaginaDe100PedidosCarregaItensEmDuasConsultas() {
+        // Arrange
+        criarPedidosComItens(100, 2);
+        Statistics estatisticas = estatisticas();
+
+        // Act
+        List<Pedido> pagina = pedidoRepository.findByCodigoGreaterThanOrderByCodigo(
+                codigos.get(codigos.size() - 1), Limit.of(100));
+        int itens = pagina.stream().mapToInt(pedido -> pedido.getItens().size()).sum();
+
+        // Assert - um select da pagina e um select dos itens de todos os pedidos
+        assertEquals(100, pagina.size());
+        assertEquals(200, itens);
+        assertEquals(2, estatisticas.getPrepareStatementCount());
+    }
+
+    @Test
+    void testListagemCompletaCarregaItensNoMesmoSelect() {
+        // Arrange
+        criarPedidosComItens(100, 2);
+        Statistics estatisticas = estatisticas();
+
+        // Act
+        List<Pedido> pedidos = pedidoRepository.findByStatus(StatusPedido.REALIZADO);
+        int itens = pedidos.stream().mapToInt(pedido -> pedido.getItens().size()).sum();
+
+        // Assert
+        assertEquals(100, pedidos.size());
+        assertEquals(200, itens);
+        assertEquals(1, estatisticas.getPrepareStatementCount());
+    }
+
+    @Test
+    void testPedidoComMuitosItensGravadoEmLote() {
+        // Arrange
+        Pedido pedido = pedido(400L, StatusPedido.REALIZADO);
+        for (int i = 0; i < 40; i++) {
+            pedido.addItem(new ItemPedido(null, null, 10L + i, 1, new Dinheiro(1000)));
+        }
+        Statistics estatisticas = estatisticas();
+
+        // Act
+        pedidoRepository.save(pedido);
+        entityManager.flush();
+
+        // Assert - um insert preparado por tabela (executado em lote) e os ids vindos das sequences
+        assertEquals(41, estatisticas.getEntityInsertCount());
+        assertTrue(estatisticas.getPrepareStatementCount() <= 4,
+                "statements preparados: " + estatisticas.getPrepareStatementCount());
+    }
+
+    @Test
+    void testStreamAgrupaItensPorPedido() {
+        // Arrange
+        List<PedidoDTO> recebidos = new ArrayList<>();
+
+        // Act
+        pedidoStreamRepository.transmitirTodos(recebidos::add);
+
+        // Assert
+        assertEquals(codigos, recebidos.stream().map(PedidoDTO::codigo).toList());
+        for (int i = 0; i < recebidos.size(); i++) {
+            assertEquals(i, recebidos.get(i).itens().size());
+        }
+        assertEquals(new BigDecimal("10.00"), recebidos.get(1).itens().get(0).subtotal());
+    }
+
+    @Test
+    void testStreamFiltradoPorClienteEStatus() {
+        // Arrange
+        List<PedidoDTO> doCliente = new ArrayList<>();
+        List<PedidoDTO> pagos = new ArrayList<>();
+
+        // Act
+        pedidoStreamRepository.transmitirPorCliente(200L, doCliente::add);
+        pedidoStreamRepository.transmitirPorStatus(StatusPedido.PAGO, pagos::add);
+
+        // Assert
+        assertEquals(List.of(codigos.get(1), codigos.get(3)), doCliente.stream().map(PedidoDTO::codigo).toList());
+        assertEquals(codigos.subList(0, 3), pagos.stream().map(PedidoDTO::codigo).toList());
+    }
+
+    private void criarPedidosComItens(int quantidadePedidos, int itensPorPedido) {
+        for (int i = 0; i < quantidadePedidos; i++) {
+            Pedido pedido = pedido(300L, StatusPedido.REALIZADO);
+            for (int j = 0; j < itensPorPedido; j++) {
+                pedido.addItem(new ItemPedido(null, null, 10L + j, 1, new Dinheiro(1000)));
+            }
+            entityManager.persist(pedido);
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    private Statistics estatisticas() {
+        Statistics estatisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        estatisticas.clear();
+        return estatisticas;
+    }
+
+    private static Pedido pedido(Long codigoCliente, StatusPedido status) {
+        Pedido pedido = new Pedido();
+        pedido.setCodigoCliente(codigoCliente);
+        pedido.setStatus(status);
+        pedido.setTotal(new Dinheiro(10000));
+        pedido.setDataPedido(LocalDateTime.now());
+        return pedido;
+    }
+}
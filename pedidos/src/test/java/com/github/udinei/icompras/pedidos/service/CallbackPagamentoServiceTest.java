@@ -0,0 +1,355 @@
+package com.github.udinei.icompras.pedidos.service;
+
+import com.github.udinei.icompras.pedidos.model.CallbackPagamento;
+import com.github.udinei.icompras.pedidos.model.StatusPedido;
+import com.github.udinei.icompras.pedidos.repository.CallbackPagamentoRepository;
+import com.github.udinei.icompras.pedidos.repository.PedidoRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CallbackPagamentoServiceTest {
+
+    private static final List<String> ANTERIORES_PAGO = nomes(StatusPedido.PAGO.anteriores());
+    private static final List<String> ANTERIORES_ERRO_PAGAMENTO = nomes(StatusPedido.ERRO_PAGAMENTO.anteriores());
+
+    record Situacao(Long codigo, String chavePagamento, StatusPedido status)
+            implements PedidoRepository.SituacaoPagamento {
+        public Long getCodigo() { return codigo; }
+        public String getChavePagamento() { return chavePagamento; }
+        public StatusPedido getStatus() { return status; }
+    }
+
+    @Mock
+    private CallbackPagamentoRepository callbackPagamentoRepository;
+
+    @Mock
+    private PedidoRepository pedidoRepository;
+
+    @Mock
+    private EventoPedidoService eventoPedidoService;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private CallbackPagamentoService service;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(transactionTemplate.execute(any()))
+                .thenAnswer(inv -> inv.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        lenient().doAnswer(inv -> {
+            inv.<Consumer<Object>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+
+        meterRegistry = new SimpleMeterRegistry();
+        service = new CallbackPagamentoService(callbackPagamentoRepository, pedidoRepository,
+                eventoPedidoService, transactionTemplate, meterRegistry, 3, 100, 3, Duration.ofSeconds(1));
+    }
+
+    @Test
+    void testReceberSoEnfileira() {
+        // Act
+        service.receber(1L, "chave-1", true, null);
+
+        // Assert
+        verifyNoInteractions(pedidoRepository, callbackPagamentoRepository);
+        assertEquals(1.0, meterRegistry.get("icompras.pedidos.callbacks-pagamento.fila").gauge().value());
+    }
+
+    @Test
+    void testProcessarAplicaLoteComUmUpdatePorResultado() {
+        // Arrange
+        service.receber(1L, "chave-1", true, null);
+        service.receber(2L, "chave-2", true, null);
+        service.receber(3L, "chave-3", false, "Cartão recusado");
+        when(pedidoRepository.findSituacaoPagamentoByCodigoIn(Set.of(1L, 2L, 3L))).thenReturn(List.of(
+                new Situacao(1L, "chave-1", StatusPedido.REALIZADO),
+                new Situacao(2L, "chave-2", StatusPedido.REALIZADO),
+                new Situacao(3L, "chave-3", StatusPedido.REALIZADO)));
+        when(pedidoRepository.atualizarStatusEmLote(any(), any(), any())).thenReturn(List.of(1L, 2L));
+        when(pedidoRepository.atualizarStatusEObservacoesEmLote(any(), any(), any(), any())).thenReturn(List.of(3L));
+
+        // Act
+        int aplicados = service.processarLote();
+
+        // Assert
+        assertEquals(3, aplicados);
+        verify(pedidoRepository).atualizarStatusEmLote(
+                argThat(codigos -> contem(codigos, 1L, 2L)), eq("PAGO"), eq(ANTERIORES_PAGO));
+        verify(eventoPedidoService).registrar(argThat(codigos -> contem(codigos, 1L, 2L)), eq(StatusPedido.PAGO));
+        verify(pedidoRepository).atualizarStatusEObservacoesEmLote(
+                List.of(3L), "ERRO_PAGAMENTO", ANTERIORES_ERRO_PAGAMENTO, "Cartão recusado");
+        verify(eventoPedidoService).registrar(List.of(3L), StatusPedido.ERRO_PAGAMENTO);
+        assertEquals(0.0, meterRegistry.get("icompras.pedidos.callbacks-pagamento.fila").gauge().value());
+        assertEquals(3, meterRegistry.get("icompras.pedidos.callbacks-pagamento.latencia").timer().count());
+    }
+
+    @Test
+    void testEventoSoParaPedidosQueOUpdateAlterou() {
+        // Arrange - o pedido 2 mudou de status entre a leitura e o UPDATE
+        service.receber(1L, "chave-1", true, null);
+        service.receber(2L, "chave-2", true, null);
+        when(pedidoRepository.findSituacaoPagamentoByCodigoIn(Set.of(1L, 2L))).thenReturn(List.of(
+                new Situacao(1L, "chave-1", StatusPedido.REALIZADO),
+                new Situacao(2L, "chave-2", StatusPedido.REALIZADO)));
+        when(pedidoRepository.atualizarStatusEmLote(any(), any(), any())).thenReturn(List.of(1L));
+
+        // Act
+        service.processarLote();
+
+        // Assert
+        verify(eventoPedidoService).registrar(List.of(1L), StatusPedido.PAGO);
+    }
+
+    @Test
+    void testNenhumPedidoAlteradoNaoRegistraEvento() {
+        // Arrange
+        service.receber(1L, "chave-1", false, "Cartão recusado");
+        when(pedidoRepository.findSituacaoPagamentoByCodigoIn(Set.of(1L)))
+                .thenReturn(List.of(new Situacao(1L, "chave-1", StatusPedido.REALIZADO)));
+        when(pedidoRepository.atualizarStatusEObservacoesEmLote(any(), any(), any(), any())).thenReturn(List.of());
+
+        // Act
+        service.processarLote();
+
+        // Assert
+        verify(eventoPedidoService, never()).registrar(any(Collection.class), any());
+    }
+
+    @Test
+    void testCallbacksRepetidosDoMesmoPedidoSaoAgrupados() {
+        // Arrange
+        service.receber(1L, "chave-1", false, "Saldo insuficiente");
+        service.receber(1L, "chave-1", true, null);
+        service.receber(1L, "chave-1", true, null);
+        when(pedidoRepository.findSituacaoPagamentoByCodigoIn(Set.of(1L)))
+                .thenReturn(List.of(new Situacao(1L, "chave-1", StatusPedido.REALIZADO)));
+
+        // Act
+        int aplicados = service.processarLote();
+
+        // Assert - vale o ultimo callback
+        assertEquals(1, aplicados);
+        verify(pedidoRepository).atualizarStatusEmLote(List.of(1L), "PAGO", ANTERIORES_PAGO);
+        verify(pedidoRepository, never()).atualizarStatusEObservacoesEmLote(any(), any(), any(), any());
+        assertEquals(2.0, meterRegistry.get("icompras.pedidos.callbacks-pagamento.recebidos")
+                .tag("destino", "agrupado").counter().count());
+    }
+
+    @Test
+    void testChaveDePagamentoDiferenteNaoAtualizaPedido() {
+        // Arrange
+        service.receber(1L, "chave-errada", true, null);
+        when(pedidoRepository.findSituacaoPagamentoByCodigoIn(Set.of(1L)))
+                .thenReturn(List.of(new Situacao(1L, "chave-1", StatusPedido.REALIZADO)));
+
+        // Act
+        service.processarLote();
+
+        // Assert
+        verify(pedidoRepository, never()).atualizarStatusEmLote(any(), any(), any());
+        verify(eventoPedidoService, never()).registrar(any(Collection.class), any());
+    }
+
+    @Test
+    void testPedidoJaPagoNaoGeraOutroEvento() {
+        // Arrange
+        service.receber(1L, "chave-1", true, null);
+        when(pedidoRepository.findSituacaoPagamentoByCodigoIn(Set.of(1L)))
+                .thenReturn(List.of(new Situacao(1L, "chave-1", StatusPedido.PAGO)));
+
+        // Act
+        service.processarLote();
+
+        // Assert
+        verify(pedidoRepository, never()).atualizarStatusEmLote(any(), any(), any());
+        verify(eventoPedidoService, never()).registrar(any(Collection.class), any());
+    }
+
+    @Test
+    void testRecusaAtrasadaNaoVoltaPedidoFaturado() {
+        // Arrange - a recusa chega depois que o pedido ja avancou
+        service.receber(1L, "chave-1", false, "Cartão recusado");
+        when(pedidoRepository.findSituacaoPagamentoByCodigoIn(Set.of(1L)))
+                .thenReturn(List.of(new Situacao(1L, "chave-1", StatusPedido.FATURADO)));
+
+        // Act
+        service.processarLote();
+
+        // Assert
+        verify(pedidoRepository, never()).atualizarStatusEObservacoesEmLote(any(), any(), any(), any());
+        verify(eventoPedidoService, never()).registrar(any(Collection.class), any());
+    }
+
+    @Test
+    void testFilaCheiaTransbordaParaOBanco() {
+        // Arrange
+        service.receber(1L, "chave-1", true, null);
+        service.receber(2L, "chave-2", true, null);
+        service.receber(3L, "chave-3", true, null);
+
+        // Act
+        service.receber(4L, "chave-4", false, "Cartão recusado");
+
+        // Assert
+        verify(callbackPagamentoRepository).transbordar(eq(4L), eq("chave-4"), eq(false), eq("Cartão recusado"), any());
+        assertEquals(3.0, meterRegistry.get("icompras.pedidos.callbacks-pagamento.fila").gauge().value());
+        assertEquals(1.0, meterRegistry.get("icompras.pedidos.callbacks-pagamento.recebidos")
+                .tag("destino", "transbordo").counter().count());
+    }
+
+    @Test
+    void testProcessarAplicaEExcluiOTransbordo() {
+        // Arrange
+        var callback = new CallbackPagamento(5L, "chave-5", true, null, LocalDateTime.now());
+        when(callbackPagamentoRepository.findByProximaTentativaLessThanEqualOrderByDataRecebimento(any(), any()))
+                .thenReturn(List.of(callback));
+        when(pedidoRepository.findSituacaoPagamentoByCodigoIn(Set.of(5L)))
+                .thenReturn(List.of(new Situacao(5L, "chave-5", StatusPedido.REALIZADO)));
+
+        // Act
+        int aplicados = service.processarLote();
+
+        // Assert
+        assertEquals(1, aplicados);
+        verify(pedidoRepository).atualizarStatusEmLote(List.of(5L), "PAGO", ANTERIORES_PAGO);
+        verify(callbackPagamentoRepository).deleteAllInBatch(List.of(callback));
+    }
+
+    @Test
+    void testFalhaNoLoteDoTransbordoAplicaUmAUmEAdiaOQueFalhou() {
+        // Arrange - o callback do pedido 2 derruba qualquer lote em que estiver
+        LocalDateTime agora = LocalDateTime.now();
+        var bom = new CallbackPagamento(1L, "chave-1", true, null, agora);
+        var ruim = new CallbackPagamento(2L, "chave-2", true, null, agora);
+        when(callbackPagamentoRepository.findByProximaTentativaLessThanEqualOrderByDataRecebimento(any(), any()))
+                .thenReturn(List.of(bom, ruim), List.of(bom), List.of(ruim), List.of());
+        when(pedidoRepository.findSituacaoPagamentoByCodigoIn(any())).thenAnswer(inv -> {
+            if (inv.<Collection<Long>>getArgument(0).contains(2L)) {
+                throw new IllegalStateException("dados invalidos");
+            }
+            return List.of(new Situacao(1L, "chave-1", StatusPedido.REALIZADO));
+        });
+
+        // Act
+        int aplicados = service.processarLote();
+
+        // Assert - o pedido 1 nao espera pelo 2, que volta depois
+        assertEquals(2, aplicados);
+        verify(pedidoRepository).atualizarStatusEmLote(List.of(1L), "PAGO", ANTERIORES_PAGO);
+        verify(callbackPagamentoRepository).deleteAllInBatch(List.of(bom));
+        verify(callbackPagamentoRepository).registrarFalha(eq(2L), eq(agora), eq(1),
+                argThat(proxima -> proxima != null && proxima.isAfter(agora)));
+    }
+
+    @Test
+    void testCallbackRetidoDepoisDoMaximoDeTentativas() {
+        // Arrange - ja falhou duas vezes; o maximo e 3
+        LocalDateTime agora = LocalDateTime.now();
+        var ruim = new CallbackPagamento(2L, "chave-2", true, null, agora);
+        ruim.setTentativas(2);
+        when(callbackPagamentoRepository.findByProximaTentativaLessThanEqualOrderByDataRecebimento(any(), any()))
+                .thenReturn(List.of(ruim), List.of(ruim), List.of());
+        when(pedidoRepository.findSituacaoPagamentoByCodigoIn(any())).thenThrow(new IllegalStateException("dados invalidos"));
+
+        // Act
+        service.processarLote();
+
+        // Assert
+        verify(callbackPagamentoRepository).registrarFalha(2L, agora, 3, null);
+        verify(callbackPagamentoRepository, never()).deleteAllInBatch(any());
+        assertEquals(1.0, meterRegistry.get("icompras.pedidos.callbacks-pagamento.retidos").counter().count());
+    }
+
+    @Test
+    void testFalhaAoLerOTransbordoNaoContaTentativa() {
+        // Arrange - banco fora: a falha nao e de um callback
+        when(callbackPagamentoRepository.findByProximaTentativaLessThanEqualOrderByDataRecebimento(any(), any()))
+                .thenThrow(new IllegalStateException("banco"));
+
+        // Act
+        service.processarPendentes();
+
+        // Assert
+        verify(callbackPagamentoRepository, never()).registrarFalha(any(), any(), anyInt(), any());
+    }
+
+    @Test
+    void testFalhaAoAplicarTransbordaOLote() {
+        // Arrange
+        service.receber(1L, "chave-1", true, null);
+        when(pedidoRepository.findSituacaoPagamentoByCodigoIn(any())).thenThrow(new IllegalStateException("banco"));
+
+        // Act
+        service.processarPendentes();
+
+        // Assert - o callback nao se perde
+        verify(callbackPagamentoRepository).transbordar(eq(1L), eq("chave-1"), eq(true), any(), any());
+        assertEquals(0.0, meterRegistry.get("icompras.pedidos.callbacks-pagamento.fila").gauge().value());
+    }
+
+    @Test
+    void testAplicarLoteAplicaNaHoraEValeOUltimoDeCadaPedido() {
+        // Arrange - lote do consumidor Kafka, na ordem da particao
+        LocalDateTime agora = LocalDateTime.now();
+        var recusado = new CallbackPagamento(1L, "chave-1", false, "Saldo insuficiente", agora);
+        var pago = new CallbackPagamento(1L, "chave-1", true, null, agora);
+        when(pedidoRepository.findSituacaoPagamentoByCodigoIn(Set.of(1L)))
+                .thenReturn(List.of(new Situacao(1L, "chave-1", StatusPedido.REALIZADO)));
+
+        // Act
+        service.aplicarLote(List.of(recusado, pago));
+
+        // Assert
+        verify(pedidoRepository).atualizarStatusEmLote(List.of(1L), "PAGO", ANTERIORES_PAGO);
+        verify(pedidoRepository, never()).atualizarStatusEObservacoesEmLote(any(), any(), any(), any());
+        assertEquals(2.0, meterRegistry.get("icompras.pedidos.callbacks-pagamento.recebidos")
+                .tag("destino", "kafka").counter().count());
+    }
+
+    @Test
+    void testEncerrarGravaAFilaNoTransbordo() {
+        // Arrange
+        service.receber(1L, "chave-1", true, null);
+        service.receber(2L, "chave-2", false, null);
+
+        // Act
+        service.encerrar();
+
+        // Assert
+        verify(callbackPagamentoRepository, times(2)).transbordar(any(), any(), anyBoolean(), any(), any());
+    }
+
+    private static List<String> nomes(Set<StatusPedido> status) {
+        return status.stream().map(StatusPedido::name).toList();
+    }
+
+    private static boolean contem(Collection<Long> codigos, Long... esperados) {
+        return codigos.size() == esperados.length && codigos.containsAll(List.of(esperados));
+    }
+}
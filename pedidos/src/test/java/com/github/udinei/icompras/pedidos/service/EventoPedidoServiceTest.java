@@ -0,0 +1,200 @@
+package com.github.udinei.icompras.pedidos.service;
+
+import com.github.udinei.icompras.pedidos.config.KafkaConfig;
+import com.github.udinei.icompras.pedidos.evento.PedidoEvento;
+import com.github.udinei.icompras.pedidos.evento.PedidoEventoDeserializer;
+import com.github.udinei.icompras.pedidos.model.Dinheiro;
+import com.github.udinei.icompras.pedidos.model.EventoOutbox;
+import com.github.udinei.icompras.pedidos.model.ItemPedido;
+import com.github.udinei.icompras.pedidos.model.Pedido;
+import com.github.udinei.icompras.pedidos.model.StatusPedido;
+import com.github.udinei.icompras.pedidos.model.TipoEventoOutbox;
+import com.github.udinei.icompras.pedidos.repository.EventoOutboxRepository;
+import com.github.udinei.icompras.pedidos.repository.PedidoRepository;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@EmbeddedKafka(partitions = 1, topics = {EventoPedidoServiceTest.TOPICO_PAGOS, EventoPedidoServiceTest.TOPICO_FATURADOS,
+        EventoPedidoServiceTest.TOPICO_ENVIADOS})
+class EventoPedidoServiceTest {
+
+    static final String TOPICO_PAGOS = "icompras.pedidos-pagos";
+    static final String TOPICO_FATURADOS = "icompras.pedidos-faturados";
+    static final String TOPICO_ENVIADOS = "icompras.pedidos-enviados";
+
+    @Mock
+    private EventoOutboxRepository eventoOutboxRepository;
+
+    @Mock
+    private PedidoRepository pedidoRepository;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private ProducerFactory<String, PedidoEvento> producerFactory;
+
+    @BeforeEach
+    void setUp(EmbeddedKafkaBroker broker) {
+        lenient().when(transactionTemplate.execute(any()))
+                .thenAnswer(inv -> inv.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+
+        KafkaConfig kafkaConfig = new KafkaConfig();
+        ReflectionTestUtils.setField(kafkaConfig, "kafkaServerUrl", broker.getBrokersAsString());
+        ReflectionTestUtils.setField(kafkaConfig, "lingerMs", 20);
+        ReflectionTestUtils.setField(kafkaConfig, "batchSize", 65536);
+        ReflectionTestUtils.setField(kafkaConfig, "compressionType", "lz4");
+        ReflectionTestUtils.setField(kafkaConfig, "deliveryTimeoutMs", 30000);
+        producerFactory = kafkaConfig.producerFactory();
+    }
+
+    @AfterEach
+    void tearDown() {
+        ((DefaultKafkaProducerFactory<String, PedidoEvento>) producerFactory).destroy();
+    }
+
+    @Test
+    void testRegistrarGravaSomenteStatusPublicados() {
+        // Arrange
+        EventoPedidoService service = criarService(new KafkaTemplate<>(producerFactory));
+        Pedido pago = pedido(1L, StatusPedido.PAGO);
+        Pedido preparando = pedido(2L, StatusPedido.PREPARANDO_ENVIO);
+
+        // Act
+        service.registrar(pago);
+        service.registrar(preparando);
+
+        // Assert
+        verify(eventoOutboxRepository, times(1)).save(argThat(evento ->
+                evento.getTipo() == TipoEventoOutbox.PEDIDO_PAGO && evento.getCodigoPedido() == 1L));
+    }
+
+    @Test
+    void testPublicarLoteEnviaEventosAoBrokerEMarcaProcessados(EmbeddedKafkaBroker broker) {
+        // Arrange
+        EventoPedidoService service = criarService(new KafkaTemplate<>(producerFactory));
+        List<EventoOutbox> eventos = List.of(
+                evento(10L, TipoEventoOutbox.PEDIDO_PAGO, 1L),
+                evento(11L, TipoEventoOutbox.PEDIDO_FATURADO, 1L),
+                evento(12L, TipoEventoOutbox.PEDIDO_ENVIADO, 2L));
+        when(eventoOutboxRepository.findByTipoInAndDataProcessamentoIsNullOrderByCodigo(
+                eq(TipoEventoOutbox.EVENTOS_PEDIDO), any())).thenReturn(eventos);
+        when(pedidoRepository.findComItensByCodigoIn(List.of(1L, 2L)))
+                .thenReturn(List.of(pedido(1L, StatusPedido.FATURADO), pedido(2L, StatusPedido.ENVIADO)));
+
+        // Act
+        int publicados = service.publicarLote();
+
+        // Assert
+        assertEquals(3, publicados);
+        verify(eventoOutboxRepository).marcarProcessados(eq(List.of(10L, 11L, 12L)), any(LocalDateTime.class));
+
+        Map<String, Object> props = KafkaTestUtils.consumerProps("teste-relay", "false", broker);
+        try (Consumer<String, PedidoEvento> consumer = new DefaultKafkaConsumerFactory<>(props,
+                new StringDeserializer(), new PedidoEventoDeserializer()).createConsumer()) {
+            broker.consumeFromAllEmbeddedTopics(consumer);
+            List<ConsumerRecord<String, PedidoEvento>> recebidos = new ArrayList<>();
+            long prazo = System.currentTimeMillis() + 10_000;
+            while (recebidos.size() < 3 && System.currentTimeMillis() < prazo) {
+                ConsumerRecords<String, PedidoEvento> registros = KafkaTestUtils.getRecords(consumer, Duration.ofSeconds(2));
+                registros.forEach(recebidos::add);
+            }
+
+            assertEquals(3, recebidos.size());
+            ConsumerRecord<String, PedidoEvento> pago = recebidos.stream()
+                    .filter(r -> r.topic().equals(TOPICO_PAGOS)).findFirst().orElseThrow();
+            assertEquals("1", pago.key());
+            PedidoEvento evento = pago.value();
+            assertEquals(10L, evento.codigoEvento());
+            assertEquals(StatusPedido.PAGO, evento.status());
+            assertEquals(1, evento.itens().size());
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testPublicarLoteNaoMarcaEventosQuandoBrokerFalha() {
+        // Arrange
+        KafkaTemplate<String, PedidoEvento> kafkaTemplate = mock(KafkaTemplate.class);
+        when(kafkaTemplate.send(any(), any(), any()))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("broker fora do ar")));
+        EventoPedidoService service = criarService(kafkaTemplate);
+        when(eventoOutboxRepository.findByTipoInAndDataProcessamentoIsNullOrderByCodigo(any(), any()))
+                .thenReturn(List.of(evento(10L, TipoEventoOutbox.PEDIDO_PAGO, 1L)));
+        when(pedidoRepository.findComItensByCodigoIn(anyCollection()))
+                .thenReturn(List.of(pedido(1L, StatusPedido.PAGO)));
+
+        // Act
+        service.publicarPendentes();
+
+        // Assert - a transacao volta e o lote continua pendente no outbox
+        verify(eventoOutboxRepository, never()).marcarProcessados(any(), any());
+    }
+
+    @Test
+    void testExcluirProcessadosAlemDaRetencao() {
+        // Arrange
+        EventoPedidoService service = criarService(new KafkaTemplate<>(producerFactory));
+        when(eventoOutboxRepository.excluirProcessados(any())).thenReturn(3);
+        LocalDateTime limiteMaximo = LocalDateTime.now().minusDays(7);
+
+        // Act
+        service.excluirProcessados();
+
+        // Assert - so o que foi processado antes da retencao de 7 dias
+        verify(eventoOutboxRepository).excluirProcessados(argThat(limite ->
+                !limite.isBefore(limiteMaximo) && limite.isBefore(LocalDateTime.now().minusDays(6))));
+    }
+
+    private EventoPedidoService criarService(KafkaTemplate<String, PedidoEvento> kafkaTemplate) {
+        return new EventoPedidoService(eventoOutboxRepository, pedidoRepository, kafkaTemplate, transactionTemplate,
+                TOPICO_PAGOS, TOPICO_FATURADOS, TOPICO_ENVIADOS, 500, Duration.ofSeconds(10), Duration.ofDays(7));
+    }
+
+    private static Pedido pedido(Long codigo, StatusPedido status) {
+        Pedido pedido = new Pedido();
+        pedido.setCodigo(codigo);
+        pedido.setCodigoCliente(100L);
+        pedido.setStatus(status);
+        pedido.setTotal(new Dinheiro(15000));
+        pedido.setDataPedido(LocalDateTime.now());
+        pedido.addItem(new ItemPedido(null, null, 10L, 3, new Dinheiro(5000)));
+        return pedido;
+    }
+
+    private static EventoOutbox evento(Long codigo, TipoEventoOutbox tipo, Long codigoPedido) {
+        LocalDateTime agora = LocalDateTime.now();
+        return new EventoOutbox(codigo, tipo, codigoPedido, agora, agora, 0, null);
+    }
+}
@@ -0,0 +1,269 @@
+package com.github.udinei.icompras.pedidos.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.github.udinei.icompras.pedidos.dto.NovoItemPedidoDTO;
+import com.github.udinei.icompras.pedidos.dto.NovoPedidoDTO;
+import com.github.udinei.icompras.pedidos.dto.PedidoDTO;
+import com.github.udinei.icompras.pedidos.model.ChaveIdempotencia;
+import com.github.udinei.icompras.pedidos.model.StatusPedido;
+import com.github.udinei.icompras.pedidos.model.exception.ChaveIdempotenciaReutilizadaException;
+import com.github.udinei.icompras.pedidos.model.exception.ServicoIndisponivelException;
+import com.github.udinei.icompras.pedidos.model.exception.ValidationException;
+import com.github.udinei.icompras.pedidos.repository.ChaveIdempotenciaRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class IdempotenciaServiceTest {
+
+    @Mock
+    private ChaveIdempotenciaRepository repository;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+    private IdempotenciaService service;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(transactionTemplate.execute(any()))
+                .thenAnswer(inv -> inv.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        lenient().doAnswer(inv -> {
+            inv.<Consumer<Object>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+
+        service = new IdempotenciaService(repository, transactionTemplate, objectMapper,
+                Duration.ofHours(24), 1000, Duration.ofSeconds(2), Duration.ofSeconds(30));
+    }
+
+    @Test
+    void testPrimeiraRequisicaoCriaPedidoERegistraResposta() {
+        // Arrange
+        when(repository.reservar(eq("chave-1"), anyString(), any(), any())).thenReturn(1);
+
+        // Act
+        var resultado = service.executar("chave-1", novoPedido(1L), () -> pedido(10L));
+
+        // Assert
+        assertFalse(resultado.repetido());
+        assertEquals(10L, resultado.pedido().codigo());
+        verify(repository).registrarResposta(eq("chave-1"), eq(10L), contains("\"codigo\":10"), any());
+    }
+
+    @Test
+    void testRepeticaoDevolveRespostaSemCriarDeNovo() {
+        // Arrange
+        when(repository.reservar(eq("chave-1"), anyString(), any(), any())).thenReturn(1);
+        AtomicInteger criacoes = new AtomicInteger();
+        service.executar("chave-1", novoPedido(1L), () -> pedido(10L + criacoes.getAndIncrement()));
+
+        // Act
+        var resultado = service.executar("chave-1", novoPedido(1L), () -> pedido(10L + criacoes.getAndIncrement()));
+
+        // Assert
+        assertTrue(resultado.repetido());
+        assertEquals(10L, resultado.pedido().codigo());
+        assertEquals(1, criacoes.get());
+        verify(repository, times(1)).reservar(any(), any(), any(), any());
+    }
+
+    @Test
+    void testMesmaChaveComOutroCorpoERecusada() {
+        // Arrange
+        when(repository.reservar(eq("chave-1"), anyString(), any(), any())).thenReturn(1);
+        service.executar("chave-1", novoPedido(1L), () -> pedido(10L));
+
+        // Act & Assert
+        assertThrows(ChaveIdempotenciaReutilizadaException.class,
+                () -> service.executar("chave-1", novoPedido(2L), () -> pedido(11L)));
+    }
+
+    @Test
+    void testChaveInvalidaERecusada() {
+        // Act & Assert
+        var erro = assertThrows(ValidationException.class,
+                () -> service.executar(" ", novoPedido(1L), () -> pedido(10L)));
+        assertEquals("Idempotency-Key", erro.getField());
+        assertThrows(ValidationException.class,
+                () -> service.executar("x".repeat(256), novoPedido(1L), () -> pedido(10L)));
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    void testFalhaNaCriacaoLiberaAChave() {
+        // Arrange
+        when(repository.reservar(eq("chave-1"), anyString(), any(), any())).thenReturn(1);
+
+        // Act
+        assertThrows(ServicoIndisponivelException.class, () -> service.executar("chave-1", novoPedido(1L), () -> {
+            throw new ServicoIndisponivelException("clientes");
+        }));
+        var resultado = service.executar("chave-1", novoPedido(1L), () -> pedido(10L));
+
+        // Assert
+        verify(repository).liberar("chave-1");
+        assertFalse(resultado.repetido());
+        assertEquals(10L, resultado.pedido().codigo());
+    }
+
+    @Test
+    void testChaveReservadaPorOutraInstanciaDevolveRespostaGravada() throws Exception {
+        // Arrange
+        var requisicao = novoPedido(1L);
+        String hash = hashDe(requisicao);
+        when(repository.reservar(eq("chave-1"), anyString(), any(), any())).thenReturn(0);
+        when(repository.findById("chave-1"))
+                .thenReturn(Optional.of(registro(hash, null)))
+                .thenReturn(Optional.of(registro(hash, objectMapper.writeValueAsString(pedido(10L)))));
+
+        // Act
+        var resultado = service.executar("chave-1", requisicao, () -> fail("nao deveria criar o pedido"));
+
+        // Assert
+        assertTrue(resultado.repetido());
+        assertEquals(10L, resultado.pedido().codigo());
+        verify(repository, never()).registrarResposta(any(), anyLong(), any(), any());
+    }
+
+    @Test
+    void testReservaSoDuraAteAResposta() {
+        // Arrange
+        when(repository.reservar(eq("chave-1"), anyString(), any(), any())).thenReturn(1);
+        LocalDateTime antes = LocalDateTime.now();
+
+        // Act
+        service.executar("chave-1", novoPedido(1L), () -> pedido(10L));
+
+        // Assert - reserva curta durante a criacao; a resposta fica guardada pelo ttl
+        ArgumentCaptor<LocalDateTime> reservaAte = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(repository).reservar(eq("chave-1"), anyString(), any(), reservaAte.capture());
+        assertTrue(reservaAte.getValue().isBefore(antes.plusMinutes(1)));
+        ArgumentCaptor<LocalDateTime> respostaAte = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(repository).registrarResposta(eq("chave-1"), eq(10L), any(), respostaAte.capture());
+        assertTrue(respostaAte.getValue().isAfter(antes.plusHours(23)));
+    }
+
+    @Test
+    void testReservaAbandonadaEAssumidaAoExpirar() {
+        // Arrange - outra instancia reservou a chave e parou sem responder; a reserva expira
+        var requisicao = novoPedido(1L);
+        when(repository.reservar(eq("chave-1"), anyString(), any(), any()))
+                .thenReturn(0)
+                .thenReturn(1);
+        when(repository.findById("chave-1")).thenReturn(Optional.of(registroEmAndamento(requisicao)));
+
+        // Act
+        var resultado = service.executar("chave-1", requisicao, () -> pedido(10L));
+
+        // Assert - a repeticao cria o pedido em vez de responder 409
+        assertFalse(resultado.repetido());
+        assertEquals(10L, resultado.pedido().codigo());
+        verify(repository, times(2)).reservar(eq("chave-1"), anyString(), any(), any());
+        verify(repository).registrarResposta(eq("chave-1"), eq(10L), any(), any());
+    }
+
+    @Test
+    void testRequisicoesSimultaneasCriamUmUnicoPedido() throws Exception {
+        // Arrange
+        when(repository.reservar(eq("chave-1"), anyString(), any(), any())).thenReturn(1);
+        AtomicInteger criacoes = new AtomicInteger();
+        CountDownLatch liberarCriacao = new CountDownLatch(1);
+        int requisicoes = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(requisicoes);
+
+        try {
+            // Act
+            List<Future<IdempotenciaService.Resultado>> resultados = new ArrayList<>();
+            for (int i = 0; i < requisicoes; i++) {
+                resultados.add(executor.submit(() -> service.executar("chave-1", novoPedido(1L), () -> {
+                    criacoes.incrementAndGet();
+                    try {
+                        liberarCriacao.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return pedido(10L);
+                })));
+            }
+            Thread.sleep(200);
+            liberarCriacao.countDown();
+
+            // Assert
+            int repetidos = 0;
+            for (var futuro : resultados) {
+                var resultado = futuro.get(5, TimeUnit.SECONDS);
+                assertEquals(10L, resultado.pedido().codigo());
+                repetidos += resultado.repetido() ? 1 : 0;
+            }
+            assertEquals(1, criacoes.get());
+            assertEquals(requisicoes - 1, repetidos);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private String hashDe(NovoPedidoDTO requisicao) throws Exception {
+        byte[] corpo = objectMapper.writeValueAsBytes(requisicao);
+        return HexFormat.of().formatHex(
+                MessageDigest.getInstance("SHA-256").digest(corpo));
+    }
+
+    private ChaveIdempotencia registroEmAndamento(NovoPedidoDTO requisicao) {
+        try {
+            LocalDateTime agora = LocalDateTime.now();
+            return new ChaveIdempotencia("chave-1", hashDe(requisicao), null, null, agora, agora.plusSeconds(30));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static ChaveIdempotencia registro(String hash, String resposta) {
+        LocalDateTime agora = LocalDateTime.now();
+        return new ChaveIdempotencia("chave-1", hash, resposta == null ? null : 10L, resposta,
+                agora, agora.plusHours(24));
+    }
+
+    private static NovoPedidoDTO novoPedido(Long codigoCliente) {
+        var item = new NovoItemPedidoDTO(1L, 2, new BigDecimal("10.00"));
+        return new NovoPedidoDTO(codigoCliente, null, null, null, null,
+                new BigDecimal("20.00"), null, null, null, List.of(item));
+    }
+
+    private static PedidoDTO pedido(Long codigo) {
+        return new PedidoDTO(codigo, 1L, LocalDateTime.of(2025, 1, 1, 10, 0), null, null,
+                StatusPedido.REALIZADO, new BigDecimal("20.00"), null, null, null, List.of());
+    }
+}
@@ -0,0 +1,229 @@
+package com.github.udinei.icompras.pedidos.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.github.udinei.icompras.pedidos.dto.ErroImportacaoDTO;
+import com.github.udinei.icompras.pedidos.dto.ResultadoImportacaoDTO;
+import com.github.udinei.icompras.pedidos.mapper.PedidoMapperImpl;
+import com.github.udinei.icompras.pedidos.model.Pedido;
+import com.github.udinei.icompras.pedidos.model.exception.ServicoIndisponivelException;
+import com.github.udinei.icompras.pedidos.repository.PedidoRepository;
+import com.github.udinei.icompras.pedidos.validator.PedidoValidator;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.Validation;
+import jakarta.validation.ValidatorFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anySet;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ImportacaoPedidoServiceTest {
+
+    @Mock
+    private PedidoValidator pedidoValidator;
+
+    @Mock
+    private PedidoRepository pedidoRepository;
+
+    @Mock
+    private SolicitacaoPagamentoService solicitacaoPagamentoService;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private EntityManager entityManager;
+
+    private ValidatorFactory validatorFactory;
+    private ImportacaoPedidoService service;
+
+    // Pedidos gravados, na ordem; cada saveAll recebe um lote
+    private final List<List<Pedido>> lotesGravados = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        lenient().doAnswer(inv -> {
+            inv.<Consumer<Object>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+
+        // O banco atribui os codigos ao gravar
+        AtomicLong sequencia = new AtomicLong();
+        lenient().when(pedidoRepository.saveAll(anyCollection())).thenAnswer(inv -> {
+            List<Pedido> pedidos = new ArrayList<>(inv.<Collection<Pedido>>getArgument(0));
+            pedidos.forEach(pedido -> pedido.setCodigo(sequencia.incrementAndGet()));
+            lotesGravados.add(pedidos);
+            return pedidos;
+        });
+        lenient().when(pedidoValidator.clientesNaoEncontrados(anySet())).thenReturn(Set.of());
+        lenient().when(pedidoValidator.produtosNaoEncontrados(anySet())).thenReturn(Set.of());
+
+        validatorFactory = Validation.buildDefaultValidatorFactory();
+        service = new ImportacaoPedidoService(new ObjectMapper().registerModule(new JavaTimeModule()),
+                validatorFactory.getValidator(), pedidoValidator, new PedidoMapperImpl(), pedidoRepository,
+                solicitacaoPagamentoService, transactionTemplate, entityManager, 2, 10);
+    }
+
+    @AfterEach
+    void tearDown() {
+        validatorFactory.close();
+    }
+
+    @Test
+    void testImportarGravaEmLotes() throws IOException {
+        // Arrange - lotes de 2: tres pedidos viram dois lotes
+        String arquivo = pedido(1L, 10L) + pedido(2L, 20L) + pedido(1L, 10L);
+
+        // Act
+        ResultadoImportacaoDTO resultado = service.importar(entrada(arquivo));
+
+        // Assert
+        assertEquals(3, resultado.linhas());
+        assertEquals(3, resultado.importados());
+        assertEquals(0, resultado.rejeitados());
+        assertEquals(2, lotesGravados.size());
+        assertEquals(2, lotesGravados.get(0).size());
+        verify(solicitacaoPagamentoService).registrarPendentes(List.of(1L, 2L));
+        verify(solicitacaoPagamentoService).registrarPendentes(List.of(3L));
+        // Cada lote sai do contexto de persistencia depois de gravado
+        verify(entityManager, times(2)).clear();
+    }
+
+    @Test
+    void testImportarValidaCadaClienteEProdutoUmaVezPorLote() throws IOException {
+        // Arrange
+        String arquivo = pedido(1L, 10L, 20L) + pedido(1L, 20L);
+
+        // Act
+        service.importar(entrada(arquivo));
+
+        // Assert
+        verify(pedidoValidator).clientesNaoEncontrados(Set.of(1L));
+        verify(pedidoValidator).produtosNaoEncontrados(Set.of(10L, 20L));
+    }
+
+    @Test
+    void testImportarRecusaLinhasInvalidasSemInterromper() throws IOException {
+        // Arrange
+        when(pedidoValidator.clientesNaoEncontrados(anySet())).thenReturn(Set.of(9L));
+        String arquivo = "{nao e json\n"
+                + "{\"codigoCliente\": 1, \"total\": 10, \"itens\": []}\n"
+                + "\n"
+                + pedido(9L, 10L)
+                + pedido(1L, 10L);
+
+        // Act
+        ResultadoImportacaoDTO resultado = service.importar(entrada(arquivo));
+
+        // Assert
+        assertEquals(5, resultado.linhas());
+        assertEquals(1, resultado.importados());
+        assertEquals(3, resultado.rejeitados());
+        List<ErroImportacaoDTO> erros = resultado.erros();
+        assertEquals(1, erros.get(0).linha());
+        assertTrue(erros.get(0).mensagem().startsWith("JSON inválido"));
+        assertEquals(new ErroImportacaoDTO(2, "itens", "Pedido deve conter pelo menos um item"), erros.get(1));
+        assertEquals(new ErroImportacaoDTO(4, "codigoCliente", "Cliente de código 9 não encontrado."), erros.get(2));
+    }
+
+    @Test
+    void testImportarRecusaProdutoInexistente() throws IOException {
+        // Arrange
+        when(pedidoValidator.produtosNaoEncontrados(anySet())).thenReturn(Set.of(20L));
+
+        // Act
+        ResultadoImportacaoDTO resultado = service.importar(entrada(pedido(1L, 10L, 20L)));
+
+        // Assert
+        assertEquals(List.of(new ErroImportacaoDTO(1, "codigoProduto", "Produto de código 20 não encontrado.")),
+                resultado.erros());
+        verify(pedidoRepository, never()).saveAll(anyCollection());
+    }
+
+    @Test
+    void testServicoIndisponivelRecusaOLoteESegue() throws IOException {
+        // Arrange - o primeiro lote nao consegue validar os clientes
+        when(pedidoValidator.clientesNaoEncontrados(anySet()))
+                .thenThrow(new ServicoIndisponivelException("Não foi possível validar o pedido no momento."))
+                .thenReturn(Set.of());
+        String arquivo = pedido(1L, 10L) + pedido(2L, 10L) + pedido(3L, 10L);
+
+        // Act
+        ResultadoImportacaoDTO resultado = service.importar(entrada(arquivo));
+
+        // Assert
+        assertEquals(1, resultado.importados());
+        assertEquals(2, resultado.rejeitados());
+        assertEquals(1, lotesGravados.size());
+        assertEquals(3L, lotesGravados.get(0).get(0).getCodigoCliente());
+    }
+
+    @Test
+    void testFalhaAoGravarRecusaSoOsPedidosDoLote() throws IOException {
+        // Arrange
+        when(pedidoRepository.saveAll(anyCollection()))
+                .thenThrow(new IllegalStateException("banco"))
+                .thenAnswer(inv -> inv.getArgument(0));
+        String arquivo = pedido(1L, 10L) + pedido(2L, 10L) + pedido(3L, 10L);
+
+        // Act
+        ResultadoImportacaoDTO resultado = service.importar(entrada(arquivo));
+
+        // Assert
+        assertEquals(1, resultado.importados());
+        assertEquals(List.of(1L, 2L), resultado.erros().stream().map(ErroImportacaoDTO::linha).toList());
+    }
+
+    @Test
+    void testErrosListadosSaoLimitados() throws IOException {
+        // Arrange - maximo de 10 erros listados
+        String arquivo = "x\n".repeat(25);
+
+        // Act
+        ResultadoImportacaoDTO resultado = service.importar(entrada(arquivo));
+
+        // Assert
+        assertEquals(25, resultado.rejeitados());
+        assertEquals(10, resultado.erros().size());
+    }
+
+    // Helper methods
+
+    private static String pedido(Long codigoCliente, Long... codigosProdutos) {
+        var itens = new StringBuilder();
+        for (Long codigoProduto : codigosProdutos) {
+            if (!itens.isEmpty()) {
+                itens.append(", ");
+            }
+            itens.append("""
+                    {"codigoProduto": %d, "quantidade": 1, "valorUnitario": 10.00}""".formatted(codigoProduto));
+        }
+        return """
+                {"codigoCliente": %d, "total": 10.00, "itens": [%s]}
+                """.formatted(codigoCliente, itens);
+    }
+
+    private static ByteArrayInputStream entrada(String conteudo) {
+        return new ByteArrayInputStream(conteudo.getBytes(StandardCharsets.UTF_8));
+    }
+}
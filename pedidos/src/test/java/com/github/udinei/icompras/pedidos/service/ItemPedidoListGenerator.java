@@ -1,11 +1,11 @@
 package com.github.udinei.icompras.pedidos.service;
 
+import com.github.udinei.icompras.pedidos.model.Dinheiro;
 import com.github.udinei.icompras.pedidos.model.ItemPedido;
 import com.pholser.junit.quickcheck.generator.GenerationStatus;
 import com.pholser.junit.quickcheck.generator.Generator;
 import com.pholser.junit.quickcheck.random.SourceOfRandomness;
 
-import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -27,8 +27,7 @@ public class ItemPedidoListGenerator extends Generator<List<ItemPedido>> {
             ItemPedido item = new ItemPedido();
             item.setCodigoProduto(random.nextLong(1, 1000));
             item.setQuantidade(random.nextInt(1, 10));
-            item.setValorUnitario(BigDecimal.valueOf(random.nextDouble(1.0, 1000.0))
-                                           .setScale(2, BigDecimal.ROUND_HALF_UP));
+            item.setValorUnitario(new Dinheiro(random.nextLong(100, 100_000)));
             itens.add(item);
         }
         
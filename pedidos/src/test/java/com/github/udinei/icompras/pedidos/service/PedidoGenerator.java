@@ -1,12 +1,12 @@
 package com.github.udinei.icompras.pedidos.service;
 
+import com.github.udinei.icompras.pedidos.model.Dinheiro;
 import com.github.udinei.icompras.pedidos.model.Pedido;
 import com.github.udinei.icompras.pedidos.model.StatusPedido;
 import com.pholser.junit.quickcheck.generator.GenerationStatus;
 import com.pholser.junit.quickcheck.generator.Generator;
 import com.pholser.junit.quickcheck.random.SourceOfRandomness;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 
@@ -30,8 +30,7 @@ public class PedidoGenerator extends Generator<Pedido> {
         pedido.setStatus(statuses[random.nextInt(0, statuses.length - 1)]);
         
         // Random total between 10.00 and 10000.00
-        pedido.setTotal(BigDecimal.valueOf(random.nextDouble(10.0, 10000.0))
-                                  .setScale(2, BigDecimal.ROUND_HALF_UP));
+        pedido.setTotal(new Dinheiro(random.nextLong(1_000, 1_000_000)));
         
         pedido.setCodigoRastreio(random.nextBoolean() ? "RASTREIO-" + random.nextInt(1000, 9999) : null);
         pedido.setUrlNf(random.nextBoolean() ? "http://nf.example.com/" + random.nextInt(1000, 9999) : null);
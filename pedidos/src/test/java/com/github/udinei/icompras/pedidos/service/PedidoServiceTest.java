@@ -1,18 +1,29 @@
 package com.github.udinei.icompras.pedidos.service;
 
+import com.github.udinei.icompras.pedidos.dto.PaginaPedidosDTO;
+import com.github.udinei.icompras.pedidos.dto.PedidoDTO;
+import com.github.udinei.icompras.pedidos.mapper.PedidoMapper;
+import com.github.udinei.icompras.pedidos.model.Dinheiro;
+import com.github.udinei.icompras.pedidos.model.EventoOutbox;
 import com.github.udinei.icompras.pedidos.model.ItemPedido;
 import com.github.udinei.icompras.pedidos.model.Pedido;
 import com.github.udinei.icompras.pedidos.model.StatusPedido;
+import com.github.udinei.icompras.pedidos.model.exception.TransicaoStatusInvalidaException;
 import com.github.udinei.icompras.pedidos.repository.PedidoRepository;
+import com.github.udinei.icompras.pedidos.validator.PedidoValidator;
 import jakarta.persistence.EntityNotFoundException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -22,6 +33,7 @@ import java.util.Optional;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -30,6 +42,21 @@ class PedidoServiceTest {
     @Mock
     private PedidoRepository pedidoRepository;
 
+    @Mock
+    private PedidoValidator validator;
+
+    @Mock
+    private SolicitacaoPagamentoService solicitacaoPagamentoService;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private EventoPedidoService eventoPedidoService;
+
+    @Mock
+    private PedidoMapper pedidoMapper;
+
     @InjectMocks
     private PedidoService pedidoService;
 
@@ -39,24 +66,28 @@ class PedidoServiceTest {
 
     @BeforeEach
     void setUp() {
+        // Executa o callback diretamente, como se houvesse uma transacao
+        lenient().when(transactionTemplate.execute(any()))
+                .thenAnswer(inv -> inv.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+
         pedido = new Pedido();
         pedido.setCodigo(1L);
         pedido.setCodigoCliente(100L);
         pedido.setDataPedido(LocalDateTime.now());
         pedido.setStatus(StatusPedido.REALIZADO);
-        pedido.setTotal(BigDecimal.valueOf(150.00));
+        pedido.setTotal(new Dinheiro(15000));
 
         item1 = new ItemPedido();
         item1.setCodigo(1L);
         item1.setCodigoProduto(10L);
         item1.setQuantidade(2);
-        item1.setValorUnitario(BigDecimal.valueOf(50.00));
+        item1.setValorUnitario(new Dinheiro(5000));
 
         item2 = new ItemPedido();
         item2.setCodigo(2L);
         item2.setCodigoProduto(20L);
         item2.setQuantidade(1);
-        item2.setValorUnitario(BigDecimal.valueOf(50.00));
+        item2.setValorUnitario(new Dinheiro(5000));
     }
 
     @Test
@@ -96,6 +127,44 @@ class PedidoServiceTest {
         verify(pedidoRepository, times(1)).save(any(Pedido.class));
     }
 
+    @Test
+    void testSalvarSolicitaPagamentoAposCommit() {
+        // Arrange
+        pedido.setItens(new ArrayList<>(List.of(item1)));
+        EventoOutbox solicitacao = new EventoOutbox();
+        when(pedidoRepository.save(pedido)).thenReturn(pedido);
+        when(solicitacaoPagamentoService.registrar(pedido)).thenReturn(solicitacao);
+        when(solicitacaoPagamentoService.processar(solicitacao, pedido)).thenReturn("chave-123");
+
+        // Act
+        Pedido resultado = pedidoService.salvar(pedido);
+
+        // Assert
+        assertEquals("chave-123", resultado.getChavePagamento());
+        InOrder ordem = inOrder(validator, transactionTemplate, solicitacaoPagamentoService);
+        ordem.verify(validator).validar(pedido);
+        ordem.verify(transactionTemplate).execute(any());
+        ordem.verify(solicitacaoPagamentoService).processar(solicitacao, pedido);
+    }
+
+    @Test
+    void testSalvarMantemPedidoQuandoSolicitacaoPagamentoFalha() {
+        // Arrange
+        pedido.setItens(new ArrayList<>());
+        EventoOutbox solicitacao = new EventoOutbox();
+        when(pedidoRepository.save(pedido)).thenReturn(pedido);
+        when(solicitacaoPagamentoService.registrar(pedido)).thenReturn(solicitacao);
+        when(solicitacaoPagamentoService.processar(solicitacao, pedido))
+                .thenThrow(new IllegalStateException("banco fora do ar"));
+
+        // Act
+        Pedido resultado = pedidoService.salvar(pedido);
+
+        // Assert - o evento continua pendente no outbox para reprocessamento
+        assertNull(resultado.getChavePagamento());
+        verify(pedidoRepository).save(pedido);
+    }
+
     @Test
     void testAtualizarPedidoComSubstituicaoDeItens() {
         // Arrange
@@ -106,12 +175,12 @@ class PedidoServiceTest {
         novoItem.setCodigo(3L);
         novoItem.setCodigoProduto(30L);
         novoItem.setQuantidade(3);
-        novoItem.setValorUnitario(BigDecimal.valueOf(30.00));
+        novoItem.setValorUnitario(new Dinheiro(3000));
         
         Pedido pedidoAtualizado = new Pedido();
         pedidoAtualizado.setCodigoCliente(100L);
         pedidoAtualizado.setStatus(StatusPedido.PAGO);
-        pedidoAtualizado.setTotal(BigDecimal.valueOf(90.00));
+        pedidoAtualizado.setTotal(new Dinheiro(9000));
         pedidoAtualizado.setItens(new ArrayList<>(Arrays.asList(novoItem)));
         
         when(pedidoRepository.findById(1L)).thenReturn(Optional.of(pedido));
@@ -128,6 +197,99 @@ class PedidoServiceTest {
         verify(pedidoRepository, times(1)).save(any(Pedido.class));
     }
 
+    @Test
+    void testAtualizarPedidoAlteraSoOsItensNecessarios() {
+        // Arrange - produto 10 muda de quantidade, 20 sai e 30 entra
+        item1.setPedido(pedido);
+        item2.setPedido(pedido);
+        pedido.setItens(new ArrayList<>(Arrays.asList(item1, item2)));
+
+        ItemPedido editado = new ItemPedido(null, null, 10L, 5, new Dinheiro(5000));
+        ItemPedido novoItem = new ItemPedido(null, null, 30L, 1, new Dinheiro(3000));
+        Pedido pedidoAtualizado = new Pedido();
+        pedidoAtualizado.setCodigoCliente(100L);
+        pedidoAtualizado.setStatus(StatusPedido.REALIZADO);
+        pedidoAtualizado.setTotal(new Dinheiro(28000));
+        pedidoAtualizado.setItens(new ArrayList<>(Arrays.asList(editado, novoItem)));
+
+        when(pedidoRepository.findById(1L)).thenReturn(Optional.of(pedido));
+        when(pedidoRepository.save(any(Pedido.class))).thenReturn(pedido);
+
+        // Act
+        Pedido resultado = pedidoService.atualizar(1L, pedidoAtualizado);
+
+        // Assert - o item existente e atualizado no lugar (mesmo codigo), sem delete e insert
+        assertEquals(2, resultado.getItens().size());
+        assertSame(item1, resultado.getItens().get(0));
+        assertEquals(1L, resultado.getItens().get(0).getCodigo());
+        assertEquals(5, resultado.getItens().get(0).getQuantidade());
+        assertSame(novoItem, resultado.getItens().get(1));
+        assertSame(pedido, novoItem.getPedido());
+        assertNull(item2.getPedido());
+    }
+
+    @Test
+    void testAtualizarPedidoComProdutoRepetidoCasaItensNaOrdem() {
+        // Arrange - duas linhas do mesmo produto; a segunda deixa de existir
+        ItemPedido outraLinha = new ItemPedido(3L, pedido, 10L, 7, new Dinheiro(4500));
+        item1.setPedido(pedido);
+        pedido.setItens(new ArrayList<>(Arrays.asList(item1, outraLinha)));
+
+        Pedido pedidoAtualizado = new Pedido();
+        pedidoAtualizado.setStatus(StatusPedido.REALIZADO);
+        pedidoAtualizado.setItens(new ArrayList<>(List.of(new ItemPedido(null, null, 10L, 4, new Dinheiro(5000)))));
+
+        when(pedidoRepository.findById(1L)).thenReturn(Optional.of(pedido));
+        when(pedidoRepository.save(any(Pedido.class))).thenReturn(pedido);
+
+        // Act
+        Pedido resultado = pedidoService.atualizar(1L, pedidoAtualizado);
+
+        // Assert
+        assertEquals(List.of(item1), resultado.getItens());
+        assertEquals(4, item1.getQuantidade());
+        assertNull(outraLinha.getPedido());
+    }
+
+    @Test
+    void testAtualizarPedidoComTransicaoInvalidaNaoGrava() {
+        // Arrange - pedido REALIZADO nao pode ir direto para ENVIADO
+        Pedido pedidoAtualizado = new Pedido();
+        pedidoAtualizado.setCodigoCliente(100L);
+        pedidoAtualizado.setStatus(StatusPedido.ENVIADO);
+        pedidoAtualizado.setItens(new ArrayList<>());
+        when(pedidoRepository.findById(1L)).thenReturn(Optional.of(pedido));
+
+        // Act & Assert
+        assertThrows(TransicaoStatusInvalidaException.class, () ->
+            pedidoService.atualizar(1L, pedidoAtualizado)
+        );
+        assertEquals(StatusPedido.REALIZADO, pedido.getStatus());
+        verify(pedidoRepository, never()).save(any(Pedido.class));
+        verifyNoInteractions(eventoPedidoService);
+    }
+
+    @Test
+    void testAtualizarPedidoSemStatusMantemOStatusAtual() {
+        // Arrange
+        pedido.setStatus(StatusPedido.FATURADO);
+        pedido.setItens(new ArrayList<>());
+        Pedido pedidoAtualizado = new Pedido();
+        pedidoAtualizado.setCodigoCliente(100L);
+        pedidoAtualizado.setObservacoes("Entregar pela manhã");
+        pedidoAtualizado.setItens(new ArrayList<>());
+        when(pedidoRepository.findById(1L)).thenReturn(Optional.of(pedido));
+        when(pedidoRepository.save(any(Pedido.class))).thenReturn(pedido);
+
+        // Act
+        Pedido resultado = pedidoService.atualizar(1L, pedidoAtualizado);
+
+        // Assert
+        assertEquals(StatusPedido.FATURADO, resultado.getStatus());
+        assertEquals("Entregar pela manhã", resultado.getObservacoes());
+        verifyNoInteractions(eventoPedidoService);
+    }
+
     @Test
     void testAtualizarPedidoNaoEncontrado() {
         // Arrange
@@ -215,6 +377,41 @@ class PedidoServiceTest {
         verify(pedidoRepository, times(1)).findAll();
     }
 
+    @Test
+    void testListarPaginaRetornaCursorQuandoHaMaisPedidos() {
+        // Arrange
+        ReflectionTestUtils.setField(pedidoService, "tamanhoPaginaPadrao", 2);
+        ReflectionTestUtils.setField(pedidoService, "tamanhoPaginaMaximo", 500);
+        Pedido segundo = new Pedido();
+        segundo.setCodigo(2L);
+        Pedido terceiro = new Pedido();
+        terceiro.setCodigo(3L);
+        when(pedidoRepository.findByCodigoGreaterThanOrderByCodigo(0L, Limit.of(3)))
+                .thenReturn(List.of(pedido, segundo, terceiro));
+
+        // Act
+        PaginaPedidosDTO pagina = pedidoService.listarPaginaDTO(0L, null);
+
+        // Assert
+        assertEquals(2L, pagina.proximoCodigo());
+        verify(pedidoMapper).map(List.of(pedido, segundo));
+    }
+
+    @Test
+    void testListarPaginaLimitaTamanhoEIndicaUltimaPagina() {
+        // Arrange
+        ReflectionTestUtils.setField(pedidoService, "tamanhoPaginaPadrao", 50);
+        ReflectionTestUtils.setField(pedidoService, "tamanhoPaginaMaximo", 500);
+        when(pedidoRepository.findByCodigoGreaterThanOrderByCodigo(0L, Limit.of(501)))
+                .thenReturn(List.of(pedido));
+
+        // Act
+        PaginaPedidosDTO pagina = pedidoService.listarPaginaDTO(0L, 10_000);
+
+        // Assert
+        assertNull(pagina.proximoCodigo());
+    }
+
     @Test
     void testDeletar() {
         // Arrange
@@ -244,31 +441,76 @@ class PedidoServiceTest {
 
     @Test
     void testAtualizarStatus() {
-        // Arrange
+        // Arrange - o UPDATE devolve o pedido como ficou gravado
+        pedido.setStatus(StatusPedido.FATURADO);
+        PedidoDTO dto = mock(PedidoDTO.class);
+        when(pedidoRepository.atualizarStatus(1L, "FATURADO", List.of("PAGO"))).thenReturn(Optional.of(pedido));
+        when(pedidoMapper.map(pedido)).thenReturn(dto);
+
+        // Act
+        PedidoDTO resultado = pedidoService.atualizarStatus(1L, StatusPedido.FATURADO);
+
+        // Assert - um UPDATE, sem carregar nem salvar o pedido
+        assertSame(dto, resultado);
+        verify(pedidoRepository, never()).findById(anyLong());
+        verify(pedidoRepository, never()).save(any(Pedido.class));
+        verify(eventoPedidoService, times(1)).registrar(List.of(1L), StatusPedido.FATURADO);
+    }
+
+    @Test
+    void testAtualizarStatusRepetidoNaoRegistraEvento() {
+        // Arrange - o pedido ja esta FATURADO: o UPDATE nao altera nada
+        pedido.setStatus(StatusPedido.FATURADO);
+        PedidoDTO dto = mock(PedidoDTO.class);
+        when(pedidoRepository.atualizarStatus(eq(1L), eq("FATURADO"), any())).thenReturn(Optional.empty());
         when(pedidoRepository.findById(1L)).thenReturn(Optional.of(pedido));
-        when(pedidoRepository.save(any(Pedido.class))).thenReturn(pedido);
+        when(pedidoMapper.map(pedido)).thenReturn(dto);
 
         // Act
-        Pedido resultado = pedidoService.atualizarStatus(1L, StatusPedido.ENVIADO);
+        PedidoDTO resultado = pedidoService.atualizarStatus(1L, StatusPedido.FATURADO);
 
-        // Assert
-        assertNotNull(resultado);
-        assertEquals(StatusPedido.ENVIADO, resultado.getStatus());
-        verify(pedidoRepository, times(1)).findById(1L);
-        verify(pedidoRepository, times(1)).save(any(Pedido.class));
+        // Assert - repetir o mesmo status devolve o pedido, sem gerar outro evento
+        assertSame(dto, resultado);
+        verifyNoInteractions(eventoPedidoService);
+    }
+
+    @Test
+    void testAtualizarStatusTransicaoInvalida() {
+        // Arrange - pedido ainda nao pago nao pode ser enviado
+        when(pedidoRepository.atualizarStatus(eq(1L), eq("ENVIADO"), any())).thenReturn(Optional.empty());
+        when(pedidoRepository.findById(1L)).thenReturn(Optional.of(pedido));
+
+        // Act & Assert
+        assertThrows(TransicaoStatusInvalidaException.class, () ->
+            pedidoService.atualizarStatus(1L, StatusPedido.ENVIADO)
+        );
+        verifyNoInteractions(eventoPedidoService);
     }
 
     @Test
     void testAtualizarStatusPedidoNaoEncontrado() {
         // Arrange
-        when(pedidoRepository.findById(anyLong())).thenReturn(Optional.empty());
+        when(pedidoRepository.atualizarStatus(eq(999L), any(), any())).thenReturn(Optional.empty());
+        when(pedidoRepository.findById(999L)).thenReturn(Optional.empty());
 
         // Act & Assert
         assertThrows(EntityNotFoundException.class, () -> 
             pedidoService.atualizarStatus(999L, StatusPedido.ENVIADO)
         );
-        verify(pedidoRepository, times(1)).findById(999L);
         verify(pedidoRepository, never()).save(any(Pedido.class));
+        verifyNoInteractions(eventoPedidoService);
+    }
+
+    @Test
+    void testTransicoesDeStatusPermitidas() {
+        // Assert - fluxo normal e nova tentativa de pagamento
+        assertTrue(StatusPedido.PAGO.permiteTransicaoDe(StatusPedido.REALIZADO));
+        assertTrue(StatusPedido.PAGO.permiteTransicaoDe(StatusPedido.ERRO_PAGAMENTO));
+        assertTrue(StatusPedido.FATURADO.permiteTransicaoDe(StatusPedido.PAGO));
+        assertTrue(StatusPedido.ENVIADO.permiteTransicaoDe(StatusPedido.PREPARANDO_ENVIO));
+        assertFalse(StatusPedido.PAGO.permiteTransicaoDe(StatusPedido.PAGO));
+        assertFalse(StatusPedido.ERRO_PAGAMENTO.permiteTransicaoDe(StatusPedido.FATURADO));
+        assertFalse(StatusPedido.FATURADO.permiteTransicaoDe(StatusPedido.REALIZADO));
     }
 
     @Test
@@ -0,0 +1,253 @@
+package com.github.udinei.icompras.pedidos.service;
+
+import com.github.udinei.icompras.pedidos.client.ServicoBancarioClient;
+import com.github.udinei.icompras.pedidos.model.EventoOutbox;
+import com.github.udinei.icompras.pedidos.model.Pedido;
+import com.github.udinei.icompras.pedidos.model.TipoEventoOutbox;
+import com.github.udinei.icompras.pedidos.repository.EventoOutboxRepository;
+import com.github.udinei.icompras.pedidos.repository.PedidoRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SolicitacaoPagamentoServiceTest {
+
+    @Mock
+    private EventoOutboxRepository eventoOutboxRepository;
+
+    @Mock
+    private PedidoRepository pedidoRepository;
+
+    @Mock
+    private ServicoBancarioClient servicoBancarioClient;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private SolicitacaoPagamentoService service;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(transactionTemplate.execute(any()))
+                .thenAnswer(inv -> inv.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        lenient().doAnswer(inv -> {
+            inv.<Consumer<Object>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+
+        service = new SolicitacaoPagamentoService(eventoOutboxRepository, pedidoRepository,
+                servicoBancarioClient, transactionTemplate, Duration.ofSeconds(30), 100, 3, Duration.ofSeconds(30));
+    }
+
+    @Test
+    void testRegistrarCriaEventoJaReservado() {
+        // Arrange
+        Pedido pedido = pedido(1L);
+        when(eventoOutboxRepository.save(any(EventoOutbox.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        // Act
+        EventoOutbox evento = service.registrar(pedido);
+
+        // Assert
+        assertEquals(TipoEventoOutbox.SOLICITACAO_PAGAMENTO, evento.getTipo());
+        assertEquals(1L, evento.getCodigoPedido());
+        assertTrue(evento.getProximaTentativa().isAfter(evento.getDataCriacao()));
+        assertNull(evento.getDataProcessamento());
+    }
+
+    @Test
+    void testProcessarGravaChaveEMarcaEvento() {
+        // Arrange
+        Pedido pedido = pedido(1L);
+        EventoOutbox evento = evento(10L, 1L);
+        when(servicoBancarioClient.solicitarPagamento(pedido)).thenReturn("chave-123");
+        when(eventoOutboxRepository.marcarProcessado(eq(10L), eq(evento.getProximaTentativa()), any()))
+                .thenReturn(1);
+
+        // Act
+        String chave = service.processar(evento, pedido);
+
+        // Assert
+        assertEquals("chave-123", chave);
+        verify(pedidoRepository).atualizarChavePagamento(1L, "chave-123");
+    }
+
+    @Test
+    void testProcessarComReservaExpiradaNaoGravaAChave() {
+        // Arrange - a chamada ao banco passou da reserva e outra instancia assumiu o evento
+        Pedido pedido = pedido(1L);
+        EventoOutbox evento = evento(10L, 1L);
+        when(servicoBancarioClient.solicitarPagamento(pedido)).thenReturn("chave-123");
+        when(eventoOutboxRepository.marcarProcessado(any(), any(), any())).thenReturn(0);
+
+        // Act & Assert
+        assertThrows(IllegalStateException.class, () -> service.processar(evento, pedido));
+        verify(pedidoRepository, never()).atualizarChavePagamento(any(), any());
+    }
+
+    @Test
+    void testReprocessarReservaCadaEventoLogoAntesDaSuaChamada() {
+        // Arrange
+        EventoOutbox primeiro = evento(10L, 1L);
+        EventoOutbox segundo = evento(11L, 2L);
+        when(eventoOutboxRepository.findByTipoAndDataProcessamentoIsNullAndProximaTentativaBeforeOrderByCodigo(
+                eq(TipoEventoOutbox.SOLICITACAO_PAGAMENTO), any(), any())).thenReturn(List.of(primeiro, segundo));
+        when(eventoOutboxRepository.reservar(any(), any(), any())).thenReturn(1);
+        when(eventoOutboxRepository.marcarProcessado(any(), any(), any())).thenReturn(1);
+        when(pedidoRepository.findComItensByCodigoIn(List.of(1L, 2L))).thenReturn(List.of(pedido(1L), pedido(2L)));
+        when(servicoBancarioClient.solicitarPagamento(any())).thenReturn("chave");
+
+        // Act
+        service.reprocessarPendentes();
+
+        // Assert - o segundo so e reservado depois da chamada do primeiro, e concluido com a propria reserva
+        InOrder ordem = inOrder(eventoOutboxRepository, servicoBancarioClient);
+        ordem.verify(eventoOutboxRepository).reservar(eq(10L), any(), any());
+        ordem.verify(servicoBancarioClient).solicitarPagamento(any());
+        ordem.verify(eventoOutboxRepository).reservar(eq(11L), any(), any());
+        verify(eventoOutboxRepository).marcarProcessado(eq(11L), eq(segundo.getProximaTentativa()), any());
+        assertEquals(2, segundo.getTentativas());
+    }
+
+    @Test
+    void testReprocessarIgnoraEventoReservadoPorOutroProcessador() {
+        // Arrange
+        EventoOutbox livre = evento(10L, 1L);
+        EventoOutbox reservado = evento(11L, 2L);
+        when(eventoOutboxRepository.findByTipoAndDataProcessamentoIsNullAndProximaTentativaBeforeOrderByCodigo(
+                eq(TipoEventoOutbox.SOLICITACAO_PAGAMENTO), any(), any())).thenReturn(List.of(livre, reservado));
+        when(eventoOutboxRepository.reservar(eq(10L), any(), any())).thenReturn(1);
+        when(eventoOutboxRepository.reservar(eq(11L), any(), any())).thenReturn(0);
+        when(eventoOutboxRepository.marcarProcessado(eq(10L), any(), any())).thenReturn(1);
+        Pedido pedido = pedido(1L);
+        when(pedidoRepository.findComItensByCodigoIn(List.of(1L, 2L))).thenReturn(List.of(pedido, pedido(2L)));
+        when(servicoBancarioClient.solicitarPagamento(pedido)).thenReturn("chave-123");
+
+        // Act
+        service.reprocessarPendentes();
+
+        // Assert
+        verify(servicoBancarioClient, times(1)).solicitarPagamento(any());
+        verify(eventoOutboxRepository).marcarProcessado(eq(10L), any(), any(LocalDateTime.class));
+    }
+
+    @Test
+    void testReprocessarMantemEventoPendenteQuandoBancoFalha() {
+        // Arrange
+        EventoOutbox evento = evento(10L, 1L);
+        when(eventoOutboxRepository.findByTipoAndDataProcessamentoIsNullAndProximaTentativaBeforeOrderByCodigo(
+                eq(TipoEventoOutbox.SOLICITACAO_PAGAMENTO), any(), any())).thenReturn(List.of(evento));
+        when(eventoOutboxRepository.reservar(eq(10L), any(), any())).thenReturn(1);
+        when(pedidoRepository.findComItensByCodigoIn(List.of(1L))).thenReturn(List.of(pedido(1L)));
+        when(servicoBancarioClient.solicitarPagamento(any())).thenThrow(new IllegalStateException("timeout"));
+
+        // Act
+        service.reprocessarPendentes();
+
+        // Assert
+        verify(eventoOutboxRepository, never()).marcarProcessado(any(), any(), any());
+    }
+
+    @Test
+    void testFalhaNoBancoAdiaATentativaComEsperaCrescente() {
+        // Arrange - terceira tentativa falhou: a espera inicial de 30s dobra duas vezes
+        Pedido pedido = pedido(1L);
+        EventoOutbox evento = evento(10L, 1L);
+        evento.setTentativas(2);
+        when(servicoBancarioClient.solicitarPagamento(pedido)).thenThrow(new IllegalStateException("timeout"));
+        LocalDateTime antes = LocalDateTime.now();
+
+        // Act
+        assertThrows(IllegalStateException.class, () -> service.processar(evento, pedido));
+
+        // Assert
+        verify(eventoOutboxRepository).adiar(eq(10L), eq(evento.getProximaTentativa()), argThat(proxima ->
+                !proxima.isBefore(antes.plusSeconds(59)) && proxima.isBefore(antes.plusSeconds(61))));
+    }
+
+    @Test
+    void testEventoRetidoDepoisDoMaximoDeTentativas() {
+        // Arrange - o maximo e 3
+        Pedido pedido = pedido(1L);
+        EventoOutbox evento = evento(10L, 1L);
+        evento.setTentativas(3);
+        when(servicoBancarioClient.solicitarPagamento(pedido)).thenThrow(new IllegalStateException("timeout"));
+
+        // Act
+        assertThrows(IllegalStateException.class, () -> service.processar(evento, pedido));
+
+        // Assert - sem proxima tentativa, fica fora dos pendentes
+        verify(eventoOutboxRepository).adiar(10L, evento.getProximaTentativa(), null);
+    }
+
+    @Test
+    void testReprocessarSegueEnquantoOLoteVemCheio() {
+        // Arrange - lotes de 2: dois cheios e um parcial
+        service = new SolicitacaoPagamentoService(eventoOutboxRepository, pedidoRepository,
+                servicoBancarioClient, transactionTemplate, Duration.ofSeconds(30), 2, 3, Duration.ofSeconds(30));
+        when(eventoOutboxRepository.findByTipoAndDataProcessamentoIsNullAndProximaTentativaBeforeOrderByCodigo(
+                eq(TipoEventoOutbox.SOLICITACAO_PAGAMENTO), any(), any()))
+                .thenReturn(List.of(evento(10L, 1L), evento(11L, 2L)))
+                .thenReturn(List.of(evento(12L, 3L), evento(13L, 4L)))
+                .thenReturn(List.of(evento(14L, 5L)));
+        when(eventoOutboxRepository.reservar(any(), any(), any())).thenReturn(1);
+        when(eventoOutboxRepository.marcarProcessado(any(), any(), any())).thenReturn(1);
+        when(pedidoRepository.findComItensByCodigoIn(any())).thenAnswer(inv -> inv.<List<Long>>getArgument(0)
+                .stream().map(SolicitacaoPagamentoServiceTest::pedido).toList());
+        when(servicoBancarioClient.solicitarPagamento(any())).thenReturn("chave");
+
+        // Act
+        service.reprocessarPendentes();
+
+        // Assert - uma consulta de pedidos por lote, nenhuma por evento
+        verify(servicoBancarioClient, times(5)).solicitarPagamento(any());
+        verify(pedidoRepository, times(3)).findComItensByCodigoIn(any());
+        verify(pedidoRepository, never()).findById(any());
+    }
+
+    @Test
+    void testReprocessarParaQuandoNenhumEventoDoLoteEConcluido() {
+        // Arrange - lote cheio, mas o banco esta fora
+        service = new SolicitacaoPagamentoService(eventoOutboxRepository, pedidoRepository,
+                servicoBancarioClient, transactionTemplate, Duration.ofSeconds(30), 1, 3, Duration.ofSeconds(30));
+        when(eventoOutboxRepository.findByTipoAndDataProcessamentoIsNullAndProximaTentativaBeforeOrderByCodigo(
+                eq(TipoEventoOutbox.SOLICITACAO_PAGAMENTO), any(), any())).thenReturn(List.of(evento(10L, 1L)));
+        when(eventoOutboxRepository.reservar(any(), any(), any())).thenReturn(1);
+        when(pedidoRepository.findComItensByCodigoIn(any())).thenReturn(List.of(pedido(1L)));
+        when(servicoBancarioClient.solicitarPagamento(any())).thenThrow(new IllegalStateException("timeout"));
+
+        // Act
+        service.reprocessarPendentes();
+
+        // Assert
+        verify(servicoBancarioClient, times(1)).solicitarPagamento(any());
+    }
+
+    private static Pedido pedido(Long codigo) {
+        Pedido pedido = new Pedido();
+        pedido.setCodigo(codigo);
+        return pedido;
+    }
+
+    private static EventoOutbox evento(Long codigo, Long codigoPedido) {
+        LocalDateTime agora = LocalDateTime.now();
+        return new EventoOutbox(codigo, TipoEventoOutbox.SOLICITACAO_PAGAMENTO, codigoPedido,
+                agora, agora, 1, null);
+    }
+}
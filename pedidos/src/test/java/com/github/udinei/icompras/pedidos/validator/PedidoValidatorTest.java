@@ -0,0 +1,348 @@
+package com.github.udinei.icompras.pedidos.validator;
+
+import com.github.udinei.icompras.pedidos.cache.ClienteCache;
+import com.github.udinei.icompras.pedidos.cache.ProdutoCache;
+import com.github.udinei.icompras.pedidos.client.ClientesClient;
+import com.github.udinei.icompras.pedidos.client.representation.ClienteRepresentation;
+import com.github.udinei.icompras.pedidos.client.representation.LoteClientesRepresentation;
+import com.github.udinei.icompras.pedidos.client.representation.ProdutoRepresentation;
+import com.github.udinei.icompras.pedidos.model.Dinheiro;
+import com.github.udinei.icompras.pedidos.model.ItemPedido;
+import com.github.udinei.icompras.pedidos.model.Pedido;
+import com.github.udinei.icompras.pedidos.model.exception.ServicoIndisponivelException;
+import com.github.udinei.icompras.pedidos.model.exception.ValidationException;
+import feign.FeignException;
+import feign.Request;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anySet;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PedidoValidatorTest {
+
+    @Mock
+    private ProdutoCache produtoCache;
+
+    @Mock
+    private ClientesClient clientesClient;
+
+    @Mock
+    private ClienteCache clienteCache;
+
+    private ExecutorService executor;
+    private PedidoValidator validator;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        validator = new PedidoValidator(produtoCache, clientesClient, clienteCache, executor);
+        ReflectionTestUtils.setField(validator, "timeout", Duration.ofSeconds(2));
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.close();
+    }
+
+    @Test
+    void testValidarConsultaClienteEProdutosEmParalelo() {
+        // Arrange: cada chamada remota espera a outra chegar
+        CountDownLatch todasIniciadas = new CountDownLatch(2);
+        when(clientesClient.obterDados(1L)).thenAnswer(inv -> {
+            todasIniciadas.countDown();
+            aguardar(todasIniciadas);
+            return ResponseEntity.ok(cliente(1L));
+        });
+        when(produtoCache.buscar(anySet())).thenAnswer(inv -> {
+            todasIniciadas.countDown();
+            aguardar(todasIniciadas);
+            return produtos(List.of(10L, 20L, 30L));
+        });
+
+        // Act & Assert
+        assertDoesNotThrow(() -> validator.validar(pedido(1L, 10L, 20L, 30L)));
+    }
+
+    @Test
+    void testValidarConsultaTodosOsProdutosEmUmUnicoLote() {
+        // Arrange
+        when(clientesClient.obterDados(1L)).thenReturn(ResponseEntity.ok(cliente(1L)));
+        when(produtoCache.buscar(anySet())).thenReturn(produtos(List.of(10L, 20L)));
+
+        // Act
+        validator.validar(pedido(1L, 10L, 20L, 10L));
+
+        // Assert
+        verify(produtoCache, times(1)).buscar(Set.of(10L, 20L));
+    }
+
+    @Test
+    void testValidarPedidoComMaisDeMilProdutosConsultaEmLotes() {
+        // Arrange - o servico de produtos recusa mais de 1000 codigos por consulta
+        Long[] codigos = new Long[2500];
+        for (int i = 0; i < codigos.length; i++) {
+            codigos[i] = i + 1L;
+        }
+        when(clientesClient.obterDados(1L)).thenReturn(ResponseEntity.ok(cliente(1L)));
+        when(produtoCache.buscar(anySet())).thenAnswer(inv -> {
+            Set<Long> parte = inv.getArgument(0);
+            Map<Long, Optional<ProdutoRepresentation>> produtos = new HashMap<>();
+            parte.forEach(codigo -> produtos.put(codigo,
+                    codigo == 2345L ? Optional.empty() : Optional.of(produto(codigo))));
+            return produtos;
+        });
+
+        // Act
+        ValidationException erro = assertThrows(ValidationException.class,
+                () -> validator.validar(pedido(1L, codigos)));
+
+        // Assert
+        assertEquals("Produto de código 2345 não encontrado.", erro.getMessage());
+        verify(produtoCache, times(3)).buscar(argThat(parte -> parte.size() <= 1000));
+    }
+
+    @Test
+    void testValidarClienteEmCacheNaoChamaOServico() {
+        // Arrange
+        when(clienteCache.contem(anyLong())).thenAnswer(inv -> inv.getArgument(0).equals(1L));
+        when(produtoCache.buscar(anySet())).thenReturn(produtos(List.of(10L)));
+
+        // Act
+        validator.validar(pedido(1L, 10L));
+
+        // Assert
+        verify(clientesClient, never()).obterDados(any());
+    }
+
+    @Test
+    void testValidarRegistraClienteConfirmadoNoCache() {
+        // Arrange
+        when(clientesClient.obterDados(1L)).thenReturn(ResponseEntity.ok(cliente(1L)));
+        when(produtoCache.buscar(anySet())).thenReturn(produtos(List.of(10L)));
+
+        // Act
+        validator.validar(pedido(1L, 10L));
+
+        // Assert
+        verify(clienteCache).registrar(1L);
+    }
+
+    @Test
+    void testValidarClienteNaoEncontrado() {
+        // Arrange
+        when(clientesClient.obterDados(1L)).thenThrow(notFound());
+        lenient().when(produtoCache.buscar(anySet())).thenReturn(produtos(List.of(10L)));
+
+        // Act & Assert
+        ValidationException e = assertThrows(ValidationException.class,
+                () -> validator.validar(pedido(1L, 10L)));
+        assertEquals("codigoCliente", e.getField());
+        verify(clienteCache, never()).registrar(any());
+        assertEquals("Cliente de código 1 não encontrado.", e.getMessage());
+    }
+
+    @Test
+    void testValidarProdutoNaoEncontradoCancelaConsultasPendentes() {
+        // Arrange: o cliente fica preso ate ser interrompido pelo cancelamento
+        AtomicInteger interrompidas = new AtomicInteger();
+        CountDownLatch clienteIniciado = new CountDownLatch(1);
+        when(clientesClient.obterDados(1L)).thenAnswer(inv -> {
+            clienteIniciado.countDown();
+            try {
+                Thread.sleep(Duration.ofSeconds(10));
+            } catch (InterruptedException e) {
+                interrompidas.incrementAndGet();
+            }
+            return ResponseEntity.ok(cliente(1L));
+        });
+        when(produtoCache.buscar(anySet())).thenAnswer(inv -> {
+            aguardar(clienteIniciado);
+            return produtos(List.of(10L), 30L, 20L);
+        });
+
+        // Act
+        long inicio = System.nanoTime();
+        ValidationException e = assertThrows(ValidationException.class,
+                () -> validator.validar(pedido(1L, 10L, 20L, 30L)));
+
+        // Assert
+        assertEquals("codigoProduto", e.getField());
+        assertEquals("Produto de código 20 não encontrado.", e.getMessage());
+        assertTrue(Duration.ofNanos(System.nanoTime() - inicio).toMillis() < 2000);
+        verify(clientesClient, timeout(1000)).obterDados(1L);
+        assertTimeoutInterrupcao(interrompidas);
+    }
+
+    @Test
+    void testValidarPrazoExcedido() {
+        // Arrange
+        ReflectionTestUtils.setField(validator, "timeout", Duration.ofMillis(100));
+        when(clientesClient.obterDados(1L)).thenAnswer(inv -> {
+            Thread.sleep(Duration.ofSeconds(5));
+            return ResponseEntity.ok(cliente(1L));
+        });
+        lenient().when(produtoCache.buscar(anySet())).thenReturn(produtos(List.of(10L)));
+
+        // Act & Assert
+        assertThrows(ServicoIndisponivelException.class, () -> validator.validar(pedido(1L, 10L)));
+    }
+
+    @Test
+    void testValidarFalhaRemotaViraServicoIndisponivel() {
+        // Arrange
+        when(clientesClient.obterDados(1L)).thenThrow(new IllegalStateException("conexao recusada"));
+        lenient().when(produtoCache.buscar(anySet())).thenReturn(produtos(List.of(10L)));
+
+        // Act & Assert
+        assertThrows(ServicoIndisponivelException.class, () -> validator.validar(pedido(1L, 10L)));
+    }
+
+    @Test
+    void testClientesNaoEncontradosConsultaSoOsAusentesDoCache() {
+        // Arrange - cliente 1 ja confirmado, 2 existe e 3 nao
+        when(clienteCache.contem(anyLong())).thenAnswer(inv -> inv.getArgument(0).equals(1L));
+        when(clientesClient.obterLote(argThat(parte -> Set.copyOf(parte).equals(Set.of(2L, 3L)))))
+                .thenReturn(ResponseEntity.ok(new LoteClientesRepresentation(List.of(2L), List.of(3L))));
+
+        // Act
+        Set<Long> naoEncontrados = validator.clientesNaoEncontrados(Set.of(1L, 2L, 3L));
+
+        // Assert - uma chamada em lote, sem consultas individuais
+        assertEquals(Set.of(3L), naoEncontrados);
+        verify(clientesClient, never()).obterDados(anyLong());
+        verify(clienteCache).registrar(2L);
+    }
+
+    @Test
+    void testClientesNaoEncontradosConsultaEmLotesDeAteMil() {
+        // Arrange
+        Set<Long> codigos = new LinkedHashSet<>();
+        for (long codigo = 1; codigo <= 2500; codigo++) {
+            codigos.add(codigo);
+        }
+        when(clientesClient.obterLote(anyCollection())).thenAnswer(inv -> {
+            List<Long> parte = List.copyOf(inv.<Collection<Long>>getArgument(0));
+            List<Long> ausentes = parte.contains(1234L) ? List.of(1234L) : List.of();
+            List<Long> encontrados = parte.stream().filter(codigo -> codigo != 1234L).toList();
+            return ResponseEntity.ok(new LoteClientesRepresentation(encontrados, ausentes));
+        });
+
+        // Act
+        Set<Long> naoEncontrados = validator.clientesNaoEncontrados(codigos);
+
+        // Assert
+        assertEquals(Set.of(1234L), naoEncontrados);
+        verify(clientesClient, times(3)).obterLote(argThat(parte -> parte.size() <= 1000));
+    }
+
+    @Test
+    void testClientesNaoEncontradosFalhaRemotaViraServicoIndisponivel() {
+        // Arrange
+        when(clientesClient.obterLote(anyCollection())).thenThrow(new IllegalStateException("conexao recusada"));
+
+        // Act & Assert
+        assertThrows(ServicoIndisponivelException.class, () -> validator.clientesNaoEncontrados(Set.of(1L)));
+    }
+
+    @Test
+    void testProdutosNaoEncontradosConsultaEmLotesDeAteMil() {
+        // Arrange
+        Set<Long> codigos = new LinkedHashSet<>();
+        for (long codigo = 1; codigo <= 2500; codigo++) {
+            codigos.add(codigo);
+        }
+        when(produtoCache.buscar(anySet())).thenAnswer(inv -> {
+            Set<Long> parte = inv.getArgument(0);
+            Map<Long, Optional<ProdutoRepresentation>> produtos = new HashMap<>();
+            parte.forEach(codigo -> produtos.put(codigo,
+                    codigo == 1234L ? Optional.empty() : Optional.of(produto(codigo))));
+            return produtos;
+        });
+
+        // Act
+        Set<Long> naoEncontrados = validator.produtosNaoEncontrados(codigos);
+
+        // Assert
+        assertEquals(Set.of(1234L), naoEncontrados);
+        verify(produtoCache, times(3)).buscar(argThat(parte -> parte.size() <= 1000));
+    }
+
+    // Helper methods
+
+    private static Pedido pedido(Long codigoCliente, Long... codigosProdutos) {
+        Pedido pedido = new Pedido();
+        pedido.setCodigoCliente(codigoCliente);
+        for (Long codigoProduto : codigosProdutos) {
+            ItemPedido item = new ItemPedido();
+            item.setCodigoProduto(codigoProduto);
+            item.setQuantidade(1);
+            item.setValorUnitario(new Dinheiro(1000));
+            pedido.addItem(item);
+        }
+        return pedido;
+    }
+
+    private static ClienteRepresentation cliente(Long codigo) {
+        return new ClienteRepresentation(codigo, "Cliente " + codigo, null, null, null, null, null, null);
+    }
+
+    private static ProdutoRepresentation produto(Long codigo) {
+        return new ProdutoRepresentation(codigo, "Produto " + codigo, BigDecimal.TEN);
+    }
+
+    private static Map<Long, Optional<ProdutoRepresentation>> produtos(List<Long> encontrados, Long... naoEncontrados) {
+        Map<Long, Optional<ProdutoRepresentation>> produtos = new HashMap<>();
+        encontrados.forEach(codigo -> produtos.put(codigo, Optional.of(produto(codigo))));
+        Arrays.asList(naoEncontrados).forEach(codigo -> produtos.put(codigo, Optional.empty()));
+        return produtos;
+    }
+
+    private static FeignException.NotFound notFound() {
+        Request request = Request.create(Request.HttpMethod.GET, "/", new HashMap<>(), null,
+                StandardCharsets.UTF_8, null);
+        return new FeignException.NotFound("not found", request, null, null);
+    }
+
+    private static void aguardar(CountDownLatch latch) throws InterruptedException {
+        if (!latch.await(1, TimeUnit.SECONDS)) {
+            throw new AssertionError("chamadas remotas nao foram disparadas em paralelo");
+        }
+    }
+
+    private static void assertTimeoutInterrupcao(AtomicInteger interrompidas) {
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+        while (interrompidas.get() == 0 && System.nanoTime() < limite) {
+            Thread.onSpinWait();
+        }
+        assertEquals(1, interrompidas.get(), "consulta pendente deveria ser cancelada");
+    }
+}
@@ -1,12 +1,18 @@
 package com.github.udinei.icompras.produtos.controller;
 
+import com.github.udinei.icompras.produtos.dto.LoteProdutosDTO;
+import com.github.udinei.icompras.produtos.dto.ResultadoSincronizacaoDTO;
 import com.github.udinei.icompras.produtos.model.Produto;
 import com.github.udinei.icompras.produtos.service.ProdutoService;
+import com.github.udinei.icompras.produtos.service.SincronizacaoProdutoService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 
 @RestController
@@ -14,7 +20,10 @@ import java.util.List;
 @RequiredArgsConstructor
 public class ProdutoController {
 
+    private static final int MAXIMO_CODIGOS_POR_LOTE = 1000;
+
     private final ProdutoService produtoService;
+    private final SincronizacaoProdutoService sincronizacaoProdutoService;
 
     /**
      * GET /api/produtos - Listar todos os produtos
@@ -36,11 +45,24 @@ public class ProdutoController {
     }
 
     /**
-     * GET /api/produtos/buscar?nome=xxx - Buscar produtos por nome
+     * POST /api/produtos/busca-lote - Buscar varios produtos por código
+     */
+    @PostMapping("/busca-lote")
+    public ResponseEntity<LoteProdutosDTO> buscarPorCodigos(@RequestBody List<Long> codigos) {
+        if (codigos.isEmpty() || codigos.size() > MAXIMO_CODIGOS_POR_LOTE) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(produtoService.buscarPorCodigos(codigos));
+    }
+
+    /**
+     * GET /api/produtos/buscar?nome=xxx&limite={n} - Buscar produtos por trecho do nome, mais relevantes primeiro
      */
     @GetMapping("/buscar")
-    public ResponseEntity<List<Produto>> buscarPorNome(@RequestParam String nome) {
-        List<Produto> produtos = produtoService.buscarPorNome(nome);
+    public ResponseEntity<List<Produto>> buscarPorNome(
+            @RequestParam String nome,
+            @RequestParam(required = false) Integer limite) {
+        List<Produto> produtos = produtoService.buscarPorNome(nome, limite);
         return ResponseEntity.ok(produtos);
     }
 
@@ -53,6 +75,14 @@ public class ProdutoController {
         return ResponseEntity.status(HttpStatus.CREATED).body(novoProduto);
     }
 
+    /**
+     * PUT /api/produtos/lote - Inserir ou atualizar produtos em lote (NDJSON, um produto por linha)
+     */
+    @PutMapping(value = "/lote", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<ResultadoSincronizacaoDTO> sincronizar(InputStream corpo) throws IOException {
+        return ResponseEntity.ok(sincronizacaoProdutoService.sincronizar(corpo));
+    }
+
     /**
      * PUT /api/produtos/{codigo} - Atualizar produto existente
      */
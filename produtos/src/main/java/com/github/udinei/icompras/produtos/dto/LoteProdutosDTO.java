@@ -0,0 +1,11 @@
+package com.github.udinei.icompras.produtos.dto;
+
+import com.github.udinei.icompras.produtos.model.Produto;
+
+import java.util.List;
+
+public record LoteProdutosDTO(
+        List<Produto> encontrados,
+        List<Long> naoEncontrados
+) {
+}
@@ -0,0 +1,49 @@
+package com.github.udinei.icompras.produtos.notificacao;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.client.RestClientException;
+
+import java.util.List;
+
+/**
+ * Avisa os servicos que mantem cache do catalogo (ex.: pedidos) sempre que
+ * produtos sao criados, alterados ou removidos. O aviso e enviado depois do
+ * commit e fora da thread da requisicao; se falhar, o TTL do cache remoto
+ * garante que o dado antigo expire.
+ */
+@Component
+@Slf4j
+public class NotificadorAlteracaoProdutos {
+
+    private final RestClient restClient;
+    private final List<String> urls;
+
+    public NotificadorAlteracaoProdutos(
+            RestClient.Builder restClientBuilder,
+            @Value("${icompras.produtos.notificacao.urls:}") List<String> urls) {
+        this.restClient = restClientBuilder.build();
+        this.urls = urls;
+    }
+
+    @Async
+    @TransactionalEventListener(fallbackExecution = true)
+    public void notificar(ProdutosAlteradosEvent evento) {
+        for (String url : urls) {
+            try {
+                restClient.post()
+                        .uri(url)
+                        .body(evento.codigos())
+                        .retrieve()
+                        .toBodilessEntity();
+            } catch (RestClientException e) {
+                log.warn("Falha ao notificar alteração de produtos {} em {}: {}",
+                        evento.codigos(), url, e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package com.github.udinei.icompras.produtos.notificacao;
+
+import java.util.List;
+
+public record ProdutosAlteradosEvent(List<Long> codigos) {
+
+}
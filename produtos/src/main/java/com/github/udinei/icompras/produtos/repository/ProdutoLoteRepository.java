@@ -0,0 +1,69 @@
+package com.github.udinei.icompras.produtos.repository;
+
+import com.github.udinei.icompras.produtos.model.Produto;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Gravacao de produtos em lote com JDBC: um unico INSERT ... ON CONFLICT (codigo)
+ * por lote, com os valores em arrays (unnest), em vez de um insert por produto.
+ * Produtos sem codigo sao inseridos com o proximo valor da sequence; produtos
+ * iguais aos do banco nao sao regravados. Chame dentro de uma transacao.
+ */
+@Repository
+public class ProdutoLoteRepository {
+
+    private static final String UPSERT = """
+            insert into produtos (codigo, nome, valor_unitario)
+            select coalesce(l.codigo, nextval('produtos_codigo_seq')), l.nome, l.valor_unitario
+              from unnest(cast(? as bigint[]), cast(? as varchar[]), cast(? as numeric[]))
+                   as l(codigo, nome, valor_unitario)
+                on conflict (codigo) do update
+               set nome = excluded.nome, valor_unitario = excluded.valor_unitario
+             where (produtos.nome, produtos.valor_unitario)
+                   is distinct from (excluded.nome, excluded.valor_unitario)
+            returning codigo, (xmax = 0) as inserido
+            """;
+
+    // Codigos informados pelo ERP nao passam pela sequence: ela e avancada antes do upsert para que
+    // os produtos sem codigo, do mesmo lote ou dos proximos, nao recebam um desses codigos
+    private static final String AJUSTE_SEQUENCIA = """
+            select setval('produtos_codigo_seq', ?)
+             where ? > (select last_value from produtos_codigo_seq)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ProdutoLoteRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /** Produto inserido ou alterado pelo lote */
+    public record Alteracao(Long codigo, boolean inserido) {
+    }
+
+    /**
+     * Grava o lote e retorna somente os produtos inseridos ou alterados. Os
+     * codigos do lote devem ser distintos.
+     */
+    public List<Alteracao> gravar(List<Produto> produtos) {
+        produtos.stream()
+                .map(Produto::getCodigo)
+                .filter(Objects::nonNull)
+                .max(Long::compare)
+                .ifPresent(maximo -> jdbcTemplate.query(AJUSTE_SEQUENCIA, rs -> {
+                }, maximo, maximo));
+
+        return jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(UPSERT);
+            ps.setArray(1, con.createArrayOf("bigint", produtos.stream().map(Produto::getCodigo).toArray()));
+            ps.setArray(2, con.createArrayOf("varchar", produtos.stream().map(Produto::getNome).toArray()));
+            ps.setArray(3, con.createArrayOf("numeric", produtos.stream().map(Produto::getValorUnitario).toArray()));
+            return ps;
+        }, (rs, linha) -> new Alteracao(rs.getLong("codigo"), rs.getBoolean("inserido")));
+    }
+}
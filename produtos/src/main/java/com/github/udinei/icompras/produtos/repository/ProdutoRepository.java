@@ -2,6 +2,8 @@ package com.github.udinei.icompras.produtos.repository;
 
 import com.github.udinei.icompras.produtos.model.Produto;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -9,5 +11,19 @@ import java.util.List;
 @Repository
 public interface ProdutoRepository extends JpaRepository<Produto, Long> {
 
-    List<Produto> findByNomeContainingIgnoreCase(String nome);
+    /**
+     * Busca por trecho do nome servida pelo indice de trigramas (idx_produtos_nome_trgm).
+     * Os nomes que comecam com o termo vem primeiro, seguidos dos mais parecidos com ele.
+     * O termo deve vir em minusculas e o padrao com os curingas do like ja escapados.
+     */
+    @Query(value = """
+            select * from produtos
+             where lower(nome) like :padrao
+             order by lower(nome) like :prefixo desc, similarity(lower(nome), :termo) desc, nome, codigo
+             limit :limite
+            """, nativeQuery = true)
+    List<Produto> buscarPorNome(@Param("termo") String termo,
+                                @Param("padrao") String padrao,
+                                @Param("prefixo") String prefixo,
+                                @Param("limite") int limite);
 }
@@ -1,18 +1,34 @@
 package com.github.udinei.icompras.produtos.service;
 
+import com.github.udinei.icompras.produtos.dto.LoteProdutosDTO;
 import com.github.udinei.icompras.produtos.model.Produto;
+import com.github.udinei.icompras.produtos.notificacao.ProdutosAlteradosEvent;
 import com.github.udinei.icompras.produtos.repository.ProdutoRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class ProdutoService {
 
     private final ProdutoRepository produtoRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${icompras.produtos.busca.limite-padrao:20}")
+    private int limitePadrao;
+
+    @Value("${icompras.produtos.busca.limite-maximo:100}")
+    private int limiteMaximo;
 
     public List<Produto> listarTodos() {
         return produtoRepository.findAll();
@@ -22,12 +38,43 @@ public class ProdutoService {
         return produtoRepository.findById(codigo);
     }
 
-    public List<Produto> buscarPorNome(String nome) {
-        return produtoRepository.findByNomeContainingIgnoreCase(nome);
+    /**
+     * Busca varios produtos com uma unica consulta (findAllById) e informa
+     * quais codigos nao existem no catalogo.
+     */
+    public LoteProdutosDTO buscarPorCodigos(Collection<Long> codigos) {
+        Set<Long> codigosDistintos = new LinkedHashSet<>(codigos);
+        List<Produto> encontrados = produtoRepository.findAllById(codigosDistintos);
+
+        Set<Long> codigosEncontrados = encontrados.stream()
+                .map(Produto::getCodigo)
+                .collect(Collectors.toSet());
+        List<Long> naoEncontrados = codigosDistintos.stream()
+                .filter(codigo -> !codigosEncontrados.contains(codigo))
+                .toList();
+
+        return new LoteProdutosDTO(encontrados, naoEncontrados);
+    }
+
+    /**
+     * Busca por trecho do nome, limitada e ordenada por relevancia. Curingas do
+     * like digitados pelo usuario (% e _) sao tratados como texto.
+     */
+    public List<Produto> buscarPorNome(String nome, Integer limite) {
+        String termo = nome.trim().toLowerCase(Locale.ROOT);
+        if (termo.isEmpty()) {
+            return List.of();
+        }
+        String termoEscapado = escaparLike(termo);
+        return produtoRepository.buscarPorNome(
+                termo, "%" + termoEscapado + "%", termoEscapado + "%", limiteBusca(limite));
     }
 
     public Produto salvar(Produto produto) {
-        return produtoRepository.save(produto);
+        Produto produtoSalvo = produtoRepository.save(produto);
+        // Um produto novo pode ter sido guardado como "nao encontrado" no cache de pedidos
+        notificarAlteracao(produtoSalvo.getCodigo());
+        return produtoSalvo;
     }
 
     public Produto atualizar(Long codigo, Produto produtoAtualizado) {
@@ -35,16 +82,35 @@ public class ProdutoService {
                 .map(produto -> {
                     produto.setNome(produtoAtualizado.getNome());
                     produto.setValorUnitario(produtoAtualizado.getValorUnitario());
-                    return produtoRepository.save(produto);
+                    Produto produtoSalvo = produtoRepository.save(produto);
+                    notificarAlteracao(codigo);
+                    return produtoSalvo;
                 })
                 .orElseThrow(() -> new RuntimeException("Produto não encontrado com código: " + codigo));
     }
 
     public void deletar(Long codigo) {
         produtoRepository.deleteById(codigo);
+        notificarAlteracao(codigo);
     }
 
     public boolean existe(Long codigo) {
         return produtoRepository.existsById(codigo);
     }
+
+    private int limiteBusca(Integer limite) {
+        if (limite == null || limite < 1) {
+            return limitePadrao;
+        }
+        return Math.min(limite, limiteMaximo);
+    }
+
+    // Barra invertida e o caractere de escape padrao do like no PostgreSQL
+    private static String escaparLike(String termo) {
+        return termo.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    private void notificarAlteracao(Long codigo) {
+        eventPublisher.publishEvent(new ProdutosAlteradosEvent(List.of(codigo)));
+    }
 }
@@ -0,0 +1,194 @@
+package com.github.udinei.icompras.produtos.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.github.udinei.icompras.produtos.dto.ErroSincronizacaoDTO;
+import com.github.udinei.icompras.produtos.dto.ResultadoSincronizacaoDTO;
+import com.github.udinei.icompras.produtos.model.Produto;
+import com.github.udinei.icompras.produtos.notificacao.ProdutosAlteradosEvent;
+import com.github.udinei.icompras.produtos.repository.ProdutoLoteRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sincronizacao do catalogo em NDJSON (um produto por linha), para cargas de
+ * qualquer tamanho vindas do ERP. O corpo e lido linha a linha e gravado em
+ * lotes de {@code tamanhoLote} produtos, cada um em sua transacao, com um
+ * unico upsert ({@link ProdutoLoteRepository}). Os produtos inseridos ou
+ * alterados de cada lote sao avisados aos caches apos o commit. Linhas
+ * invalidas sao informadas no resultado sem interromper a carga.
+ */
+@Service
+@Slf4j
+public class SincronizacaoProdutoService {
+
+    private static final BigDecimal VALOR_MAXIMO = new BigDecimal("99999999999999.99");
+
+    private final ObjectReader leitor;
+    private final ProdutoLoteRepository produtoLoteRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int tamanhoLote;
+    private final int maximoErros;
+
+    public SincronizacaoProdutoService(
+            ObjectMapper objectMapper,
+            ProdutoLoteRepository produtoLoteRepository,
+            TransactionTemplate transactionTemplate,
+            ApplicationEventPublisher eventPublisher,
+            @Value("${icompras.produtos.sincronizacao.tamanho-lote:1000}") int tamanhoLote,
+            @Value("${icompras.produtos.sincronizacao.maximo-erros:1000}") int maximoErros) {
+        this.leitor = objectMapper.readerFor(Produto.class);
+        this.produtoLoteRepository = produtoLoteRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.eventPublisher = eventPublisher;
+        this.tamanhoLote = tamanhoLote;
+        this.maximoErros = maximoErros;
+    }
+
+    public ResultadoSincronizacaoDTO sincronizar(InputStream entrada) throws IOException {
+        var sincronizacao = new Sincronizacao();
+        var leitorLinhas = new BufferedReader(new InputStreamReader(entrada, StandardCharsets.UTF_8));
+
+        String conteudo;
+        while ((conteudo = leitorLinhas.readLine()) != null) {
+            long linha = ++sincronizacao.linhas;
+            if (conteudo.isBlank()) {
+                continue;
+            }
+            Produto produto = ler(linha, conteudo, sincronizacao);
+            if (produto == null) {
+                continue;
+            }
+            sincronizacao.validos++;
+            sincronizacao.adicionar(new LinhaProduto(linha, produto));
+            if (sincronizacao.tamanhoLote() == tamanhoLote) {
+                gravarLote(sincronizacao);
+            }
+        }
+        gravarLote(sincronizacao);
+
+        long inalterados = sincronizacao.validos - sincronizacao.inseridos - sincronizacao.atualizados
+                - sincronizacao.falhas;
+        log.info("Sincronizacao de produtos concluida: {} linha(s), {} inserido(s), {} atualizado(s), {} rejeitado(s)",
+                sincronizacao.linhas, sincronizacao.inseridos, sincronizacao.atualizados, sincronizacao.rejeitados);
+        return new ResultadoSincronizacaoDTO(sincronizacao.linhas, sincronizacao.inseridos,
+                sincronizacao.atualizados, inalterados, sincronizacao.rejeitados, sincronizacao.erros);
+    }
+
+    private Produto ler(long linha, String conteudo, Sincronizacao sincronizacao) {
+        Produto produto;
+        try {
+            produto = leitor.readValue(conteudo);
+        } catch (JsonProcessingException e) {
+            sincronizacao.recusar(linha, null, "JSON inválido: " + e.getOriginalMessage());
+            return null;
+        }
+
+        // O lote inteiro e um unico comando: um valor fora das colunas derrubaria todas as linhas
+        if (produto.getCodigo() != null && produto.getCodigo() < 1) {
+            sincronizacao.recusar(linha, "codigo", "Código deve ser positivo");
+        } else if (produto.getNome() == null || produto.getNome().isBlank()) {
+            sincronizacao.recusar(linha, "nome", "Nome é obrigatório");
+        } else if (produto.getNome().length() > 100) {
+            sincronizacao.recusar(linha, "nome", "Nome deve ter no máximo 100 caracteres");
+        } else if (produto.getValorUnitario() == null) {
+            sincronizacao.recusar(linha, "valorUnitario", "Valor unitário é obrigatório");
+        } else if (produto.getValorUnitario().signum() < 0) {
+            sincronizacao.recusar(linha, "valorUnitario", "Valor unitário deve ser positivo");
+        } else if (produto.getValorUnitario().scale() > 2 || produto.getValorUnitario().compareTo(VALOR_MAXIMO) > 0) {
+            sincronizacao.recusar(linha, "valorUnitario",
+                    "Valor unitário deve ter no máximo 14 dígitos inteiros e 2 casas decimais");
+        } else {
+            return produto;
+        }
+        return null;
+    }
+
+    private void gravarLote(Sincronizacao sincronizacao) {
+        List<LinhaProduto> lote = sincronizacao.retirarLote();
+        if (lote.isEmpty()) {
+            return;
+        }
+        try {
+            List<ProdutoLoteRepository.Alteracao> alteracoes = transactionTemplate.execute(status -> {
+                var gravadas = produtoLoteRepository.gravar(lote.stream().map(LinhaProduto::produto).toList());
+                if (!gravadas.isEmpty()) {
+                    // Enviado depois do commit (TransactionalEventListener)
+                    eventPublisher.publishEvent(new ProdutosAlteradosEvent(
+                            gravadas.stream().map(ProdutoLoteRepository.Alteracao::codigo).toList()));
+                }
+                return gravadas;
+            });
+            for (var alteracao : alteracoes) {
+                if (alteracao.inserido()) {
+                    sincronizacao.inseridos++;
+                } else {
+                    sincronizacao.atualizados++;
+                }
+            }
+        } catch (RuntimeException e) {
+            log.error("Falha ao gravar lote de {} produto(s)", lote.size(), e);
+            sincronizacao.falhas += lote.size();
+            lote.forEach(linha -> sincronizacao.recusar(linha.linha(), null, "Falha ao gravar o produto."));
+        }
+    }
+
+    private record LinhaProduto(long linha, Produto produto) {
+    }
+
+    private final class Sincronizacao {
+        // Um codigo aparece uma vez por lote (vale a ultima linha); produtos sem codigo sao sempre novos
+        private Map<Long, LinhaProduto> comCodigo = new LinkedHashMap<>();
+        private List<LinhaProduto> semCodigo = new ArrayList<>();
+        private final List<ErroSincronizacaoDTO> erros = new ArrayList<>();
+        private long linhas;
+        private long validos;
+        private long inseridos;
+        private long atualizados;
+        private long falhas;
+        private long rejeitados;
+
+        void adicionar(LinhaProduto linha) {
+            if (linha.produto().getCodigo() == null) {
+                semCodigo.add(linha);
+            } else {
+                comCodigo.put(linha.produto().getCodigo(), linha);
+            }
+        }
+
+        int tamanhoLote() {
+            return comCodigo.size() + semCodigo.size();
+        }
+
+        List<LinhaProduto> retirarLote() {
+            List<LinhaProduto> lote = new ArrayList<>(comCodigo.values());
+            lote.addAll(semCodigo);
+            comCodigo = new LinkedHashMap<>();
+            semCodigo = new ArrayList<>();
+            return lote;
+        }
+
+        void recusar(long linha, String campo, String mensagem) {
+            rejeitados++;
+            if (erros.size() < maximoErros) {
+                erros.add(new ErroSincronizacaoDTO(linha, campo, mensagem));
+            }
+        }
+    }
+}
@@ -0,0 +1,13 @@
+-- Esquema inicial do servico de produtos.
+-- Idempotente: cria a tabela em um banco novo e ajusta bancos ja criados pelo
+-- init.sql (baseline na versao 0).
+
+CREATE TABLE IF NOT EXISTS produtos (
+	codigo BIGSERIAL NOT NULL PRIMARY KEY,
+	nome VARCHAR(100) NOT NULL,
+	valor_unitario DECIMAL(16,2) NOT NULL
+);
+
+-- Bancos do init.sql: codigo era SERIAL (INTEGER)
+ALTER TABLE produtos ALTER COLUMN codigo TYPE BIGINT;
+ALTER SEQUENCE IF EXISTS produtos_codigo_seq AS BIGINT;
@@ -0,0 +1,7 @@
+-- Busca de produtos por trecho do nome (ProdutoRepository.buscarPorNome).
+-- lower(nome) like '%x%' nao usa indice B-tree; o indice GIN de trigramas do
+-- pg_trgm atende o like com curinga no inicio e a ordenacao por similaridade.
+-- pg_trgm e uma extensao confiavel: o dono do banco pode cria-la (PostgreSQL 13+).
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+CREATE INDEX IF NOT EXISTS idx_produtos_nome_trgm ON produtos USING GIN (lower(nome) gin_trgm_ops);
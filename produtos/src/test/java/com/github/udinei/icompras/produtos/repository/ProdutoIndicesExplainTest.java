@@ -0,0 +1,56 @@
+package com.github.udinei.icompras.produtos.repository;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Confere, no PostgreSQL real e com as migracoes Flyway aplicadas, que a busca
+ * por trecho do nome usa o indice de trigramas em um catalogo grande.
+ * Requer Docker; sem Docker o teste e ignorado.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class ProdutoIndicesExplainTest {
+
+    @Container
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    private static JdbcTemplate jdbcTemplate;
+
+    @BeforeAll
+    static void setUp() {
+        var dataSource = new DriverManagerDataSource(
+                POSTGRES.getJdbcUrl(), POSTGRES.getUsername(), POSTGRES.getPassword());
+        Flyway.configure().dataSource(dataSource).load().migrate();
+        jdbcTemplate = new JdbcTemplate(dataSource);
+
+        // 200 mil produtos com nomes variados
+        jdbcTemplate.execute("""
+                insert into produtos (nome, valor_unitario)
+                select (array['Notebook', 'Mouse', 'Teclado', 'Monitor', 'Cabo'])[g % 5 + 1]
+                       || ' ' || md5(g::text), 100
+                  from generate_series(1, 200000) g
+                """);
+        jdbcTemplate.execute("analyze");
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @ValueSource(strings = {"a1b2", "teclado 9f", "notebook 1a"})
+    void testBuscaPorNomeNaoFazSeqScan(String termo) {
+        String sql = "select * from produtos where lower(nome) like ? "
+                + "order by lower(nome) like ? desc, similarity(lower(nome), ?) desc, nome, codigo limit 20";
+
+        String plano = String.join("\n", jdbcTemplate.queryForList(
+                "explain " + sql, String.class, "%" + termo + "%", termo + "%", termo));
+
+        assertFalse(plano.contains("Seq Scan"), () -> termo + " fez seq scan:\n" + plano);
+    }
+}
@@ -0,0 +1,111 @@
+package com.github.udinei.icompras.produtos.service;
+
+import com.github.udinei.icompras.produtos.dto.LoteProdutosDTO;
+import com.github.udinei.icompras.produtos.model.Produto;
+import com.github.udinei.icompras.produtos.notificacao.ProdutosAlteradosEvent;
+import com.github.udinei.icompras.produtos.repository.ProdutoRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProdutoServiceTest {
+
+    @Mock
+    private ProdutoRepository produtoRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @InjectMocks
+    private ProdutoService produtoService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(produtoService, "limitePadrao", 20);
+        ReflectionTestUtils.setField(produtoService, "limiteMaximo", 100);
+    }
+
+    @Test
+    void testBuscarPorCodigosSeparaEncontradosENaoEncontrados() {
+        // Arrange
+        Produto notebook = new Produto(1L, "Notebook", BigDecimal.valueOf(3500));
+        Produto mouse = new Produto(2L, "Mouse", BigDecimal.valueOf(90));
+        when(produtoRepository.findAllById(Set.of(1L, 2L, 999L))).thenReturn(List.of(notebook, mouse));
+
+        // Act
+        LoteProdutosDTO resultado = produtoService.buscarPorCodigos(List.of(1L, 2L, 999L, 1L));
+
+        // Assert
+        assertEquals(List.of(notebook, mouse), resultado.encontrados());
+        assertEquals(List.of(999L), resultado.naoEncontrados());
+        verify(produtoRepository, times(1)).findAllById(any());
+    }
+
+    @Test
+    void testAtualizarNotificaAlteracao() {
+        // Arrange
+        Produto produto = new Produto(1L, "Notebook", BigDecimal.valueOf(3500));
+        when(produtoRepository.findById(1L)).thenReturn(Optional.of(produto));
+        when(produtoRepository.save(produto)).thenReturn(produto);
+
+        // Act
+        produtoService.atualizar(1L, new Produto(null, "Notebook Pro", BigDecimal.valueOf(4000)));
+
+        // Assert
+        verify(eventPublisher).publishEvent(new ProdutosAlteradosEvent(List.of(1L)));
+    }
+
+    @Test
+    void testDeletarNotificaAlteracao() {
+        // Act
+        produtoService.deletar(1L);
+
+        // Assert
+        verify(produtoRepository).deleteById(1L);
+        verify(eventPublisher).publishEvent(new ProdutosAlteradosEvent(List.of(1L)));
+    }
+
+    @Test
+    void testBuscarPorNomeEscapaCuringasDoLike() {
+        // Act
+        produtoService.buscarPorNome("  Cabo_USB 100%  ", 10);
+
+        // Assert
+        verify(produtoRepository).buscarPorNome("cabo_usb 100%", "%cabo\\_usb 100\\%%", "cabo\\_usb 100\\%%", 10);
+    }
+
+    @Test
+    void testBuscarPorNomeLimitaQuantidadeDeResultados() {
+        // Act
+        produtoService.buscarPorNome("mouse", null);
+        produtoService.buscarPorNome("mouse", 5000);
+
+        // Assert
+        verify(produtoRepository).buscarPorNome("mouse", "%mouse%", "mouse%", 20);
+        verify(produtoRepository).buscarPorNome("mouse", "%mouse%", "mouse%", 100);
+    }
+
+    @Test
+    void testBuscarPorNomeVazioNaoConsultaBanco() {
+        // Act
+        List<Produto> resultado = produtoService.buscarPorNome("   ", null);
+
+        // Assert
+        assertTrue(resultado.isEmpty());
+        verifyNoInteractions(produtoRepository);
+    }
+}
@@ -0,0 +1,187 @@
+package com.github.udinei.icompras.produtos.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.udinei.icompras.produtos.dto.ErroSincronizacaoDTO;
+import com.github.udinei.icompras.produtos.dto.ResultadoSincronizacaoDTO;
+import com.github.udinei.icompras.produtos.model.Produto;
+import com.github.udinei.icompras.produtos.notificacao.ProdutosAlteradosEvent;
+import com.github.udinei.icompras.produtos.repository.ProdutoLoteRepository;
+import com.github.udinei.icompras.produtos.repository.ProdutoLoteRepository.Alteracao;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SincronizacaoProdutoServiceTest {
+
+    @Mock
+    private ProdutoLoteRepository produtoLoteRepository;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private SincronizacaoProdutoService service;
+
+    // Produtos enviados ao banco; cada gravar recebe um lote
+    private final List<List<Produto>> lotesGravados = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(transactionTemplate.execute(any()))
+                .thenAnswer(inv -> inv.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+
+        // Por padrao o banco insere todos os produtos do lote
+        lenient().when(produtoLoteRepository.gravar(anyList())).thenAnswer(inv -> {
+            List<Produto> produtos = inv.getArgument(0);
+            lotesGravados.add(produtos);
+            return produtos.stream()
+                    .map(produto -> new Alteracao(produto.getCodigo() == null ? 100L : produto.getCodigo(), true))
+                    .toList();
+        });
+
+        service = new SincronizacaoProdutoService(new ObjectMapper(), produtoLoteRepository,
+                transactionTemplate, eventPublisher, 2, 10);
+    }
+
+    @Test
+    void testSincronizarGravaEmLotesENotificaCadaLote() throws IOException {
+        // Arrange - lotes de 2: tres produtos viram dois lotes
+        String arquivo = produto(1L, "Notebook", "3500.00") + produto(2L, "Mouse", "90.00")
+                + produto(3L, "Teclado", "150.00");
+
+        // Act
+        ResultadoSincronizacaoDTO resultado = service.sincronizar(entrada(arquivo));
+
+        // Assert
+        assertEquals(3, resultado.linhas());
+        assertEquals(3, resultado.inseridos());
+        assertEquals(2, lotesGravados.size());
+        verify(eventPublisher).publishEvent(new ProdutosAlteradosEvent(List.of(1L, 2L)));
+        verify(eventPublisher).publishEvent(new ProdutosAlteradosEvent(List.of(3L)));
+    }
+
+    @Test
+    void testSincronizarContaAtualizadosEInalterados() throws IOException {
+        // Arrange - o banco so devolve o que mudou: 1 inserido, 2 atualizado, 3 igual ao do banco
+        when(produtoLoteRepository.gravar(anyList()))
+                .thenReturn(List.of(new Alteracao(1L, true), new Alteracao(2L, false)))
+                .thenReturn(List.of());
+        String arquivo = produto(1L, "Notebook", "3500.00") + produto(2L, "Mouse", "90.00")
+                + produto(3L, "Teclado", "150.00");
+
+        // Act
+        ResultadoSincronizacaoDTO resultado = service.sincronizar(entrada(arquivo));
+
+        // Assert
+        assertEquals(1, resultado.inseridos());
+        assertEquals(1, resultado.atualizados());
+        assertEquals(1, resultado.inalterados());
+        // Lote sem alteracoes nao gera aviso aos caches
+        verify(eventPublisher, times(1)).publishEvent(any(ProdutosAlteradosEvent.class));
+    }
+
+    @Test
+    void testCodigoRepetidoNoLoteValeAUltimaLinha() throws IOException {
+        // Arrange
+        String arquivo = produto(1L, "Notebook", "3500.00") + produto(1L, "Notebook Pro", "4000.00");
+
+        // Act
+        service.sincronizar(entrada(arquivo));
+
+        // Assert
+        assertEquals(1, lotesGravados.get(0).size());
+        assertEquals("Notebook Pro", lotesGravados.get(0).get(0).getNome());
+    }
+
+    @Test
+    void testSincronizarRecusaLinhasInvalidasSemInterromper() throws IOException {
+        // Arrange
+        String arquivo = "{nao e json\n"
+                + "\n"
+                + "{\"nome\": \"Mouse\"}\n"
+                + produto(-1L, "Mouse", "90.00")
+                + produto(null, "x".repeat(101), "90.00")
+                + produto(null, "Mouse", "90.001")
+                + produto(null, "Mouse", "90.00");
+
+        // Act
+        ResultadoSincronizacaoDTO resultado = service.sincronizar(entrada(arquivo));
+
+        // Assert
+        assertEquals(7, resultado.linhas());
+        assertEquals(1, resultado.inseridos());
+        assertEquals(5, resultado.rejeitados());
+        List<ErroSincronizacaoDTO> erros = resultado.erros();
+        assertTrue(erros.get(0).mensagem().startsWith("JSON inválido"));
+        assertEquals(new ErroSincronizacaoDTO(3, "valorUnitario", "Valor unitário é obrigatório"), erros.get(1));
+        assertEquals(new ErroSincronizacaoDTO(4, "codigo", "Código deve ser positivo"), erros.get(2));
+        assertEquals(new ErroSincronizacaoDTO(5, "nome", "Nome deve ter no máximo 100 caracteres"), erros.get(3));
+        assertEquals(6, erros.get(4).linha());
+    }
+
+    @Test
+    void testFalhaAoGravarRecusaSoOLote() throws IOException {
+        // Arrange
+        when(produtoLoteRepository.gravar(anyList()))
+                .thenThrow(new IllegalStateException("banco"))
+                .thenReturn(List.of(new Alteracao(3L, true)));
+        String arquivo = produto(1L, "Notebook", "3500.00") + produto(2L, "Mouse", "90.00")
+                + produto(3L, "Teclado", "150.00");
+
+        // Act
+        ResultadoSincronizacaoDTO resultado = service.sincronizar(entrada(arquivo));
+
+        // Assert
+        assertEquals(1, resultado.inseridos());
+        assertEquals(2, resultado.rejeitados());
+        assertEquals(0, resultado.inalterados());
+        assertEquals(List.of(1L, 2L), resultado.erros().stream().map(ErroSincronizacaoDTO::linha).toList());
+        verify(eventPublisher).publishEvent(new ProdutosAlteradosEvent(List.of(3L)));
+    }
+
+    @Test
+    void testErrosListadosSaoLimitados() throws IOException {
+        // Arrange - maximo de 10 erros listados
+        String arquivo = "x\n".repeat(25);
+
+        // Act
+        ResultadoSincronizacaoDTO resultado = service.sincronizar(entrada(arquivo));
+
+        // Assert
+        assertEquals(25, resultado.rejeitados());
+        assertEquals(10, resultado.erros().size());
+        verifyNoInteractions(produtoLoteRepository);
+    }
+
+    // Helper methods
+
+    private static String produto(Long codigo, String nome, String valorUnitario) {
+        return """
+                {"codigo": %s, "nome": "%s", "valorUnitario": %s}
+                """.formatted(codigo, nome, new BigDecimal(valorUnitario).toPlainString());
+    }
+
+    private static ByteArrayInputStream entrada(String conteudo) {
+        return new ByteArrayInputStream(conteudo.getBytes(StandardCharsets.UTF_8));
+    }
+}